@@ -15,13 +15,14 @@
 package com.google.devtools.cyclefinder;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.Iterables;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.file.RegularInputFile;
 import com.google.devtools.j2objc.translate.LambdaTypeElementAdder;
 import com.google.devtools.j2objc.translate.OuterReferenceResolver;
+import com.google.devtools.j2objc.util.ErrorSink;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.Parser;
@@ -31,9 +32,14 @@ import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * A tool for finding possible reference cycles in a Java program.
@@ -42,6 +48,10 @@ import java.util.Set;
  */
 public class CycleFinder {
 
+  // Components with fewer types search from one root at a time, since most
+  // of their types are used by the first few cycles.
+  private static final int MIN_PARALLEL_COMPONENT_SIZE = 64;
+
   private final Options options;
   private final com.google.devtools.j2objc.Options j2objcOptions;
   private final NameList blacklist;
@@ -70,6 +80,13 @@ public class CycleFinder {
     blacklist = getBlacklist();
   }
 
+  /**
+   * The sink that the cycle finder's errors are reported to.
+   */
+  public ErrorSink errorSink() {
+    return j2objcOptions.errorSink();
+  }
+
   private Parser createParser() {
     Parser parser = Parser.newParser(j2objcOptions);
     parser.addSourcepathEntries(Strings.nullToEmpty(options.getSourcepath()));
@@ -78,11 +95,11 @@ public class CycleFinder {
     return parser;
   }
 
-  private static void exitOnErrors() {
-    int nErrors = ErrorUtil.errorCount();
+  private static void exitOnErrors(ErrorSink errorSink) {
+    int nErrors = errorSink.errorCount();
     if (nErrors > 0) {
       System.err.println("Failed with " + nErrors + " errors:");
-      for (String error : ErrorUtil.getErrorMessages()) {
+      for (String error : errorSink.getErrorMessages()) {
         System.err.println("error: " + error);
       }
       System.exit(nErrors);
@@ -133,6 +150,15 @@ public class CycleFinder {
   }
 
   public void constructGraph() throws IOException {
+    ErrorSink previousSink = ErrorUtil.setCurrentSink(errorSink());
+    try {
+      buildGraph();
+    } finally {
+      ErrorUtil.setCurrentSink(previousSink);
+    }
+  }
+
+  private void buildGraph() throws IOException {
     Parser parser = createParser();
     NameList whitelist =
         NameList.createFromFiles(options.getWhitelistFiles(), options.fileEncoding());
@@ -162,9 +188,26 @@ public class CycleFinder {
   }
 
   public List<List<Edge>> findCycles() {
-    for (ReferenceGraph component :
-        referenceGraph.getStronglyConnectedComponents(getSeedNodes(referenceGraph))) {
-      handleStronglyConnectedComponent(component);
+    List<ReferenceGraph> components =
+        referenceGraph.getStronglyConnectedComponents(getSeedNodes(referenceGraph));
+    ForkJoinPool pool = new ForkJoinPool(options.threads());
+    try {
+      // The components are searched in parallel, but their cycles are added in
+      // the order the components were found, so the output doesn't depend on
+      // the number of threads.
+      List<List<List<Edge>>> componentCycles = pool.submit(() -> components.parallelStream()
+          .map(this::handleStronglyConnectedComponent)
+          .collect(Collectors.toList())).get();
+      for (List<List<Edge>> c : componentCycles) {
+        cycles.addAll(c);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AssertionError(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      pool.shutdown();
     }
     return cycles;
   }
@@ -182,20 +225,42 @@ public class CycleFinder {
     return seedNodes;
   }
 
-  private void handleStronglyConnectedComponent(ReferenceGraph subgraph) {
-    // Make sure to find at least one cycle for each type in the SCC.
+  private List<List<Edge>> handleStronglyConnectedComponent(ReferenceGraph subgraph) {
+    // Make sure to find at least one cycle for each type in the SCC. The roots
+    // are the unused types in set order, as if each search followed the last.
+    // In large components the next few roots are searched from in parallel,
+    // and a root whose type was used by an earlier cycle of its batch is
+    // dropped, so the same cycles are found as by searching one at a time.
+    List<List<Edge>> componentCycles = new ArrayList<>();
     Set<TypeNode> unusedTypes = Sets.newHashSet(subgraph.getNodes());
+    Iterator<TypeNode> roots = new ArrayList<>(unusedTypes).iterator();
+    int batchSize = unusedTypes.size() < MIN_PARALLEL_COMPONENT_SIZE ? 1 : options.threads();
     while (!unusedTypes.isEmpty()) {
-      TypeNode root = Iterables.getFirst(unusedTypes, null);
-      assert root != null;
-      List<Edge> cycle = subgraph.findShortestCycle(root);
-      if (shouldAddCycle(cycle)) {
-        cycles.add(cycle);
+      List<TypeNode> batch = new ArrayList<>(batchSize);
+      while (batch.size() < batchSize && roots.hasNext()) {
+        TypeNode root = roots.next();
+        if (unusedTypes.contains(root)) {
+          batch.add(root);
+        }
       }
-      for (Edge e : cycle) {
-        unusedTypes.remove(e.getOrigin());
+      assert !batch.isEmpty();
+      List<List<Edge>> batchCycles = batch.size() == 1
+          ? Collections.singletonList(subgraph.findShortestCycle(batch.get(0)))
+          : batch.parallelStream().map(subgraph::findShortestCycle).collect(Collectors.toList());
+      for (int i = 0; i < batch.size(); i++) {
+        if (!unusedTypes.contains(batch.get(i))) {
+          continue;
+        }
+        List<Edge> cycle = batchCycles.get(i);
+        if (shouldAddCycle(cycle)) {
+          componentCycles.add(cycle);
+        }
+        for (Edge e : cycle) {
+          unusedTypes.remove(e.getOrigin());
+        }
       }
     }
+    return componentCycles;
   }
 
   public ReferenceGraph getReferenceGraph() {
@@ -236,16 +301,18 @@ public class CycleFinder {
     }
     Options options = Options.parse(args);
     CycleFinder finder = new CycleFinder(options);
+    ErrorSink errorSink = finder.errorSink();
+    ErrorUtil.setCurrentSink(errorSink);
     finder.testFileExistence();
-    exitOnErrors();
+    exitOnErrors(errorSink);
     finder.constructGraph();
-    exitOnErrors();
+    exitOnErrors(errorSink);
     if (options.printReferenceGraph()) {
       finder.getReferenceGraph().print(System.out);
     } else {
       List<List<Edge>> cycles = finder.findCycles();
       printCycles(cycles, System.out);
-      System.exit(ErrorUtil.errorCount() + cycles.size());
+      System.exit(errorSink.errorCount() + cycles.size());
     }
   }
 }
@@ -62,6 +62,7 @@ class Options {
   private String fileEncoding = System.getProperty("file.encoding", "UTF-8");
   private boolean printReferenceGraph = false;
   private SourceVersion sourceVersion = SourceVersion.defaultVersion();
+  private int threads = Runtime.getRuntime().availableProcessors();
 
   public List<String> getSourceFiles() {
     return sourceFiles;
@@ -138,6 +139,15 @@ class Options {
      printReferenceGraph = true;
   }
 
+  public int threads() {
+    return threads;
+  }
+
+  @VisibleForTesting
+  void setThreads(int threads) {
+    this.threads = threads;
+  }
+
   public static void usage(String invalidUseMsg) {
     System.err.println("cycle_finder: " + invalidUseMsg);
     System.err.println(usageMessage);
@@ -207,6 +217,18 @@ class Options {
         } catch (IllegalArgumentException e) {
           usage("invalid source release: " + args[nArg]);
         }
+      } else if (arg.equals("-j")) {
+        if (++nArg == args.length) {
+          usage("-j requires an argument");
+        }
+        try {
+          options.threads = Integer.parseInt(args[nArg]);
+        } catch (NumberFormatException e) {
+          usage("invalid -j argument: " + args[nArg]);
+        }
+        if (options.threads < 1) {
+          usage("invalid -j argument: " + args[nArg]);
+        }
       } else if (arg.equals("--print-reference-graph")) {
         options.printReferenceGraph = true;
       } else if (arg.equals("-version")) {
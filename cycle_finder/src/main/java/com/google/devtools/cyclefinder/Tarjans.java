@@ -15,8 +15,11 @@
 package com.google.devtools.cyclefinder;
 
 import com.google.common.collect.SetMultimap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,13 +27,16 @@ import java.util.Set;
 /**
  * An implementation of Tarjan's strongly connected components algorithm.
  * http://en.wikipedia.org/wiki/Tarjan's_strongly_connected_components_algorithm
+ * <p>
+ * The depth-first search keeps its own stack of visits rather than recursing,
+ * since reference graphs of whole applications can be deeper than the thread's
+ * stack. Components are found in the same order as the recursive algorithm.
  */
 class Tarjans {
 
   private final SetMultimap<TypeNode, Edge> edges;
   private final Set<TypeNode> seedTypes;
   private int vIndex = 0;
-  // In case of performance issues, consider a data structure with faster .contains().
   private ArrayList<Vertex> stack = new ArrayList<>();
   private Map<TypeNode, Vertex> vertices = new HashMap<>();
   private List<List<TypeNode>> stronglyConnectedComponents = new ArrayList<>();
@@ -56,33 +62,61 @@ class Tarjans {
     }
   }
 
-  private void visit(Vertex v) {
-    v.index = v.lowlink = vIndex++;
-    stack.add(v);
+  private void visit(Vertex root) {
+    Deque<Visit> visits = new ArrayDeque<>();
+    visits.push(start(root));
+    while (!visits.isEmpty()) {
+      Visit visit = visits.peek();
+      Vertex v = visit.vertex;
+      if (visit.edges.hasNext()) {
+        Vertex w = getVertex(visit.edges.next().getTarget());
+        if (w.index == -1) {
+          visits.push(start(w));
+        } else if (w.onStack) {
+          v.lowlink = Math.min(v.lowlink, w.index);
+        }
+        continue;
+      }
 
-    for (Edge edge : edges.get(v.type)) {
-      Vertex w = getVertex(edge.getTarget());
-      if (w.index == -1) {
-        visit(w);
-        v.lowlink = Math.min(v.lowlink, w.lowlink);
-      } else if (stack.contains(w)) {
-        v.lowlink = Math.min(v.lowlink, w.index);
+      visits.pop();
+      if (v.lowlink == v.index) {
+        popComponent(v);
+      }
+      Visit caller = visits.peek();
+      if (caller != null) {
+        caller.vertex.lowlink = Math.min(caller.vertex.lowlink, v.lowlink);
       }
     }
+  }
 
-    if (v.lowlink == v.index) {
-      int idx = stack.indexOf(v);
-      assert idx >= 0;
-      List<Vertex> stronglyConnected = stack.subList(idx, stack.size());
-      if (stronglyConnected.size() > 1) {
-        List<TypeNode> stronglyConnectedTypes = new ArrayList<>(stronglyConnected.size());
-        for (Vertex ver : stronglyConnected) {
-          stronglyConnectedTypes.add(ver.type);
-        }
-        stronglyConnectedComponents.add(stronglyConnectedTypes);
+  private Visit start(Vertex v) {
+    v.index = v.lowlink = vIndex++;
+    stack.add(v);
+    v.onStack = true;
+    return new Visit(v, edges.get(v.type).iterator());
+  }
+
+  /**
+   * Removes the vertices from v to the top of the stack, which are a strongly
+   * connected component.
+   */
+  private void popComponent(Vertex v) {
+    int idx = stack.size() - 1;
+    while (stack.get(idx) != v) {
+      idx--;
+    }
+    List<Vertex> stronglyConnected = stack.subList(idx, stack.size());
+    if (stronglyConnected.size() > 1) {
+      List<TypeNode> stronglyConnectedTypes = new ArrayList<>(stronglyConnected.size());
+      for (Vertex ver : stronglyConnected) {
+        stronglyConnectedTypes.add(ver.type);
       }
-      stronglyConnected.clear();  // Removes the sublist from stack.
+      stronglyConnectedComponents.add(stronglyConnectedTypes);
+    }
+    for (Vertex ver : stronglyConnected) {
+      ver.onStack = false;
     }
+    stronglyConnected.clear();  // Removes the sublist from stack.
   }
 
   private Vertex getVertex(TypeNode type) {
@@ -97,6 +131,7 @@ class Tarjans {
   private static class Vertex {
     private int index = -1;
     private int lowlink = -1;
+    private boolean onStack = false;
     private TypeNode type;
 
     private Vertex(TypeNode type) {
@@ -107,4 +142,17 @@ class Tarjans {
       return type.toString();
     }
   }
+
+  /**
+   * A vertex being visited, and its edges that haven't been followed yet.
+   */
+  private static class Visit {
+    private final Vertex vertex;
+    private final Iterator<Edge> edges;
+
+    private Visit(Vertex vertex, Iterator<Edge> edges) {
+      this.vertex = vertex;
+      this.edges = edges;
+    }
+  }
 }
@@ -16,6 +16,7 @@ package com.google.devtools.cyclefinder;
 
 import com.google.common.base.Joiner;
 import com.google.common.io.Files;
+import com.google.devtools.j2objc.util.ErrorSink;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -39,6 +40,7 @@ public class CycleFinderTest extends TestCase {
   List<String> whitelistEntries;
   List<String> blacklistEntries;
   boolean printReferenceGraph;
+  int threads;
   ReferenceGraph referenceGraph;
 
   static {
@@ -53,6 +55,7 @@ public class CycleFinderTest extends TestCase {
     whitelistEntries = new ArrayList<>();
     blacklistEntries = new ArrayList<>();
     printReferenceGraph = false;
+    threads = 1;
     referenceGraph = null;
   }
 
@@ -401,6 +404,37 @@ public class CycleFinderTest extends TestCase {
     assertContains("C -> (field a with type A)", graph);
   }
 
+  // Verify that a component deeper than the thread's stack is found.
+  public void testLongCycle() throws Exception {
+    int length = 100000;
+    List<TypeNode> nodes = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      nodes.add(new TypeNode("LT" + i + ";", "T" + i, "T" + i));
+    }
+    ReferenceGraph graph = new ReferenceGraph();
+    for (int i = 0; i < length; i++) {
+      graph.addEdge(Edge.newFieldEdge(nodes.get(i), nodes.get((i + 1) % length), "next"));
+    }
+    List<ReferenceGraph> components = graph.getStronglyConnectedComponents(graph.getNodes());
+    assertEquals(1, components.size());
+    assertEquals(length, components.get(0).getNodes().size());
+    assertEquals(length, components.get(0).findShortestCycle(nodes.get(0)).size());
+  }
+
+  public void testParallelSearchFindsSameCycles() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      addSourceFile("A" + i + ".java", "class A" + i + " { A" + ((i + 1) % 100) + " next; A"
+          + ((i + 7) % 100) + " skip; B" + i + " b; }");
+      addSourceFile("B" + i + ".java", "class B" + i + " { A" + i + " a; }");
+    }
+    threads = 1;
+    findCycles();
+    String sequentialCycles = printCyclesToString();
+    threads = 4;
+    findCycles();
+    assertEquals(sequentialCycles, printCyclesToString());
+  }
+
   private void assertContains(String substr, String str) {
     assertTrue("Expected \"" + substr + "\" within \"" + str + "\"", str.contains(substr));
   }
@@ -457,15 +491,17 @@ public class CycleFinderTest extends TestCase {
     if (printReferenceGraph) {
       options.setPrintReferenceGraph();
     }
+    options.setThreads(threads);
     CycleFinder finder = new CycleFinder(options);
     finder.constructGraph();
     cycles = finder.findCycles();
     if (printReferenceGraph) {
       referenceGraph = finder.getReferenceGraph();
     }
-    if (ErrorUtil.errorCount() > 0) {
+    ErrorSink errorSink = finder.errorSink();
+    if (errorSink.errorCount() > 0) {
       fail("CycleFinder failed with errors:\n"
-           + Joiner.on("\n").join(ErrorUtil.getErrorMessages()));
+           + Joiner.on("\n").join(errorSink.getErrorMessages()));
     }
   }
 
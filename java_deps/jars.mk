@@ -49,3 +49,10 @@ JSILVER_JAR = jsilver-1.0.0.jar
 PROCYON_JARS = \
     procyon-core-0.5.32.jar \
     procyon-compilertools-0.5.32.jar
+
+# JMH and its runtime dependencies, for the translator benchmarks.
+JMH_JARS = \
+    jmh-core-1.19.jar \
+    jmh-generator-annprocess-1.19.jar \
+    jopt-simple-4.6.jar \
+    commons-math3-3.2.jar
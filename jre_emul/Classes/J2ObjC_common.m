@@ -218,6 +218,53 @@ jint JreIndexOfStr(NSString *str, NSString **values, jint size) {
   return -1;
 }
 
+// Returns the same value as java.lang.String.hashCode(), without caching it.
+static jint JreStrHashCode(NSString *str) {
+  CFStringRef cfStr = (CFStringRef)str;
+  CFIndex len = CFStringGetLength(cfStr);
+  const UniChar *chars = CFStringGetCharactersPtr(cfStr);
+  UniChar buffer[64];
+  UniChar *allocated = NULL;
+  if (!chars) {
+    if (len > 64) {
+      allocated = (UniChar *)malloc(len * sizeof(UniChar));
+    }
+    CFStringGetCharacters(cfStr, CFRangeMake(0, len), allocated ? allocated : buffer);
+    chars = allocated ? allocated : buffer;
+  }
+  // Unsigned arithmetic wraps around like Java's int arithmetic.
+  uint32_t hash = 0;
+  for (CFIndex i = 0; i < len; i++) {
+    hash = 31 * hash + chars[i];
+  }
+  free(allocated);
+  return (jint)hash;
+}
+
+jint JreIndexOfStrHashed(NSString *str,
+    __unsafe_unretained NSString * const *values, const jint *hashes, jint size) {
+  if (!str) {
+    return -1;
+  }
+  jint hash = JreStrHashCode(str);
+  jint low = 0;
+  jint high = size;
+  while (low < high) {
+    jint mid = (low + high) >> 1;
+    if (hashes[mid] < hash) {
+      low = mid + 1;
+    } else {
+      high = mid;
+    }
+  }
+  for (jint i = low; i < size && hashes[i] == hash; i++) {
+    if ([str isEqualToString:values[i]]) {
+      return i;
+    }
+  }
+  return -1;
+}
+
 // Counts the number of object types in a string concatenation.
 static NSUInteger CountObjectArgs(const char *types) {
   NSUInteger numObjs = 0;
@@ -80,6 +80,14 @@ __attribute__((always_inline)) inline void JreCheckFinalize(id self, Class cls)
 }
 
 FOUNDATION_EXPORT jint JreIndexOfStr(NSString *str, NSString **values, jint size);
+
+/*!
+ * Returns the index of str in values, or -1 if it isn't found. The values are
+ * sorted by their Java hash codes, which are passed in hashes, so str is only
+ * compared with the values that have its hash code.
+ */
+FOUNDATION_EXPORT jint JreIndexOfStrHashed(NSString *str,
+    __unsafe_unretained NSString * const *values, const jint *hashes, jint size);
 FOUNDATION_EXPORT NSString *JreEnumConstantName(IOSClass *enumClass, jint ordinal);
 
 /*!
@@ -96,7 +104,7 @@ FOUNDATION_EXPORT NSString *JreEnumConstantName(IOSClass *enumClass, jint ordina
 /*!
  * Macros for loading enum values.
  * JreEnum provides direct access to the enum value and should only be used
- * internal to the enum class.
+ * where the enum class is known to be initialized, such as internal to it.
  * JreLoadEnum provides the enum value while ensuring the enum class is
  * initialized.
  *
@@ -261,4 +261,55 @@ public class StringTest extends TestCase {
     Object o = new NullToString();
     assertEquals("toString: null", "toString: " + o);
   }
+
+  // A switch with this many string cases is translated to a call to
+  // JreIndexOfStrHashed. "Aa" and "BB" have the same hash code, and so do
+  // all strings made of them with the same length.
+  private static int switchOnHash(String s) {
+    switch (s) {
+      case "Aa": return 1;
+      case "AaAa": return 2;
+      case "AaBB": return 3;
+      case "BBBB": return 4;
+      case "x": return 5;
+      case "y": return 6;
+      case "z": return 7;
+      case "": return 8;
+      default: return 0;
+    }
+  }
+
+  public void testHashedStringSwitch() {
+    assertEquals(1, switchOnHash("Aa"));
+    assertEquals(2, switchOnHash("AaAa"));
+    assertEquals(3, switchOnHash("AaBB"));
+    assertEquals(4, switchOnHash("BBBB"));
+    assertEquals(5, switchOnHash("x"));
+    assertEquals(8, switchOnHash(""));
+    // Strings that aren't the constant instances.
+    assertEquals(3, switchOnHash(new StringBuilder("Aa").append("BB").toString()));
+    assertEquals(7, switchOnHash(new String(new char[] { 'z' })));
+    // Strings with the hash code of cases that they don't equal.
+    assertEquals(0, switchOnHash("BB"));
+    assertEquals(0, switchOnHash("BBAa"));
+    assertEquals(0, switchOnHash("w"));
+  }
+
+  // The values are sorted by hash code: 120, 2112, 2112, 2031744.
+  private static native int indexOfStrHashed(String s) /*-[
+    static __unsafe_unretained NSString * const values[] = { @"x", @"Aa", @"BB", @"AaAa" };
+    static const jint hashes[] = { 120, 2112, 2112, 2031744 };
+    return JreIndexOfStrHashed(s, values, hashes, 4);
+  ]-*/;
+
+  public void testIndexOfStrHashed() {
+    assertEquals(0, indexOfStrHashed("x"));
+    assertEquals(1, indexOfStrHashed("Aa"));
+    assertEquals(2, indexOfStrHashed("BB"));
+    assertEquals(3, indexOfStrHashed("AaAa"));
+    assertEquals(-1, indexOfStrHashed("BBBB"));
+    assertEquals(-1, indexOfStrHashed("y"));
+    assertEquals(-1, indexOfStrHashed(""));
+    assertEquals(-1, indexOfStrHashed(null));
+  }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.corpus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Lambdas, method references, functional interfaces, captured variables,
+ * streams and autoboxing.
+ */
+public class EventBus {
+
+  public static final class Event {
+    private final String topic;
+    private final int priority;
+    private final Object payload;
+
+    public Event(String topic, int priority, Object payload) {
+      this.topic = topic;
+      this.priority = priority;
+      this.payload = payload;
+    }
+
+    public String getTopic() {
+      return topic;
+    }
+
+    public int getPriority() {
+      return priority;
+    }
+
+    public Object getPayload() {
+      return payload;
+    }
+  }
+
+  @FunctionalInterface
+  public interface Subscriber {
+    boolean onEvent(Event event);
+  }
+
+  private final Map<String, List<Subscriber>> subscribers = new HashMap<>();
+  private final Map<String, Integer> deliveryCounts = new HashMap<>();
+  private final List<Event> deadLetters = new ArrayList<>();
+  private int published;
+
+  public Runnable subscribe(String topic, Subscriber subscriber) {
+    subscribers.computeIfAbsent(topic, t -> new ArrayList<>()).add(subscriber);
+    return () -> subscribers.get(topic).remove(subscriber);
+  }
+
+  public Runnable subscribePayloads(String topic, Consumer<Object> consumer) {
+    return subscribe(topic, event -> {
+      consumer.accept(event.getPayload());
+      return true;
+    });
+  }
+
+  public <T> Runnable subscribe(String topic, Class<T> type, Consumer<? super T> consumer) {
+    return subscribe(topic, event -> {
+      Object payload = event.getPayload();
+      if (type.isInstance(payload)) {
+        consumer.accept(type.cast(payload));
+        return true;
+      }
+      return false;
+    });
+  }
+
+  public int publish(Event event) {
+    published++;
+    List<Subscriber> list = subscribers.get(event.getTopic());
+    int delivered = 0;
+    if (list != null) {
+      for (Subscriber subscriber : new ArrayList<>(list)) {
+        if (subscriber.onEvent(event)) {
+          delivered++;
+        }
+      }
+    }
+    if (delivered == 0) {
+      deadLetters.add(event);
+    }
+    deliveryCounts.merge(event.getTopic(), delivered, Integer::sum);
+    return delivered;
+  }
+
+  public int publishAll(List<Event> events, Predicate<? super Event> filter) {
+    int total = 0;
+    for (Event event : events) {
+      if (filter.test(event)) {
+        total += publish(event);
+      }
+    }
+    return total;
+  }
+
+  public Map<String, Long> deadLetterCounts() {
+    return deadLetters.stream()
+        .collect(Collectors.groupingBy(Event::getTopic, Collectors.counting()));
+  }
+
+  public Optional<Event> highestPriorityDeadLetter() {
+    return deadLetters.stream().max((a, b) -> Integer.compare(a.getPriority(), b.getPriority()));
+  }
+
+  public List<String> busiestTopics(int limit) {
+    return deliveryCounts.entrySet().stream()
+        .sorted((a, b) -> b.getValue() - a.getValue())
+        .limit(limit)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+  }
+
+  public static <A, B, C> Function<A, C> compose(Function<A, B> f, Function<B, C> g) {
+    return a -> g.apply(f.apply(a));
+  }
+
+  public static <T> Supplier<T> memoize(Supplier<T> supplier) {
+    Object[] cache = new Object[1];
+    boolean[] computed = new boolean[1];
+    return () -> {
+      if (!computed[0]) {
+        cache[0] = supplier.get();
+        computed[0] = true;
+      }
+      @SuppressWarnings("unchecked")
+      T value = (T) cache[0];
+      return value;
+    };
+  }
+
+  public double averagePriority() {
+    BiFunction<Integer, Event, Integer> adder = (sum, event) -> sum + event.getPriority();
+    Integer sum = 0;
+    for (Event event : deadLetters) {
+      sum = adder.apply(sum, event);
+    }
+    return deadLetters.isEmpty() ? 0 : sum / (double) deadLetters.size();
+  }
+
+  public int getPublished() {
+    return published;
+  }
+}
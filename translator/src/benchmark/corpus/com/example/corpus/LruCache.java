@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.corpus;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A generic map with a doubly linked entry list, inner and anonymous classes,
+ * and iterators.
+ */
+public class LruCache<K, V> extends AbstractMap<K, V> {
+
+  private final Map<K, Node<K, V>> index = new HashMap<>();
+  private final Node<K, V> head = new Node<>(null, null);
+  private final int capacity;
+  private int modCount;
+  private int hits;
+  private int misses;
+
+  private static final class Node<K, V> implements Map.Entry<K, V> {
+    final K key;
+    V value;
+    Node<K, V> prev = this;
+    Node<K, V> next = this;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      V old = this.value;
+      this.value = value;
+      return old;
+    }
+
+    void unlink() {
+      prev.next = next;
+      next.prev = prev;
+      prev = next = this;
+    }
+
+    void linkBefore(Node<K, V> node) {
+      next = node;
+      prev = node.prev;
+      prev.next = this;
+      node.prev = this;
+    }
+  }
+
+  public interface Listener<K, V> {
+    void evicted(K key, V value);
+  }
+
+  private Listener<? super K, ? super V> listener;
+
+  public LruCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity: " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  public void setListener(Listener<? super K, ? super V> listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public V get(Object key) {
+    Node<K, V> node = index.get(key);
+    if (node == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    node.unlink();
+    node.linkBefore(head);
+    return node.value;
+  }
+
+  @Override
+  public V put(K key, V value) {
+    Node<K, V> node = index.get(key);
+    if (node != null) {
+      node.unlink();
+      node.linkBefore(head);
+      return node.setValue(value);
+    }
+    node = new Node<>(key, value);
+    node.linkBefore(head);
+    index.put(key, node);
+    modCount++;
+    while (index.size() > capacity) {
+      Node<K, V> eldest = head.next;
+      eldest.unlink();
+      index.remove(eldest.key);
+      if (listener != null) {
+        listener.evicted(eldest.key, eldest.value);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public V remove(Object key) {
+    Node<K, V> node = index.remove(key);
+    if (node == null) {
+      return null;
+    }
+    node.unlink();
+    modCount++;
+    return node.value;
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  public double hitRate() {
+    int total = hits + misses;
+    return total == 0 ? 0.0 : (double) hits / total;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return index.size();
+      }
+    };
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+    private Node<K, V> next = head.next;
+    private Node<K, V> last;
+    private int expectedModCount = modCount;
+
+    @Override
+    public boolean hasNext() {
+      return next != head;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (next == head) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      next = next.next;
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      LruCache.this.remove(last.key);
+      expectedModCount = modCount;
+      last = null;
+    }
+  }
+}
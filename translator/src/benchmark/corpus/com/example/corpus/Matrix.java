@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.corpus;
+
+import java.util.Arrays;
+
+/**
+ * Numeric code: multidimensional arrays, primitive conversions, compound
+ * assignments, overflow checks and static constants.
+ */
+public final class Matrix {
+
+  public static final double EPSILON = 1e-9;
+  private static final int BLOCK = 16;
+
+  private final int rows;
+  private final int cols;
+  private final double[][] data;
+
+  public Matrix(int rows, int cols) {
+    this.rows = rows;
+    this.cols = cols;
+    this.data = new double[rows][cols];
+  }
+
+  public Matrix(double[][] values) {
+    this(values.length, values.length == 0 ? 0 : values[0].length);
+    for (int i = 0; i < rows; i++) {
+      System.arraycopy(values[i], 0, data[i], 0, cols);
+    }
+  }
+
+  public static Matrix identity(int n) {
+    Matrix m = new Matrix(n, n);
+    for (int i = 0; i < n; i++) {
+      m.data[i][i] = 1;
+    }
+    return m;
+  }
+
+  public double get(int row, int col) {
+    return data[row][col];
+  }
+
+  public Matrix multiply(Matrix other) {
+    if (cols != other.rows) {
+      throw new IllegalArgumentException(cols + " != " + other.rows);
+    }
+    Matrix result = new Matrix(rows, other.cols);
+    for (int ii = 0; ii < rows; ii += BLOCK) {
+      for (int kk = 0; kk < cols; kk += BLOCK) {
+        for (int i = ii; i < Math.min(ii + BLOCK, rows); i++) {
+          double[] resultRow = result.data[i];
+          for (int k = kk; k < Math.min(kk + BLOCK, cols); k++) {
+            double a = data[i][k];
+            double[] otherRow = other.data[k];
+            for (int j = 0; j < other.cols; j++) {
+              resultRow[j] += a * otherRow[j];
+            }
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  public Matrix transpose() {
+    Matrix t = new Matrix(cols, rows);
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        t.data[j][i] = data[i][j];
+      }
+    }
+    return t;
+  }
+
+  public double determinant() {
+    if (rows != cols) {
+      throw new IllegalStateException("not square");
+    }
+    double[][] a = new double[rows][];
+    for (int i = 0; i < rows; i++) {
+      a[i] = data[i].clone();
+    }
+    double det = 1;
+    for (int col = 0; col < rows; col++) {
+      int pivot = col;
+      for (int row = col + 1; row < rows; row++) {
+        if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+          pivot = row;
+        }
+      }
+      if (Math.abs(a[pivot][col]) < EPSILON) {
+        return 0;
+      }
+      if (pivot != col) {
+        double[] tmp = a[pivot];
+        a[pivot] = a[col];
+        a[col] = tmp;
+        det = -det;
+      }
+      det *= a[col][col];
+      for (int row = col + 1; row < rows; row++) {
+        double factor = a[row][col] / a[col][col];
+        for (int k = col; k < rows; k++) {
+          a[row][k] -= factor * a[col][k];
+        }
+      }
+    }
+    return det;
+  }
+
+  public static long checkedSum(int[] values) {
+    long sum = 0;
+    int overflowCount = 0;
+    int intSum = 0;
+    for (int value : values) {
+      sum += value;
+      int next = intSum + value;
+      if (((intSum ^ next) & (value ^ next)) < 0) {
+        overflowCount++;
+      }
+      intSum = next;
+    }
+    return overflowCount > 0 ? -sum : sum;
+  }
+
+  public static byte[] quantize(float[] samples, float scale) {
+    byte[] out = new byte[samples.length];
+    for (int i = 0; i < samples.length; i++) {
+      int q = Math.round(samples[i] * scale);
+      out[i] = (byte) (q > Byte.MAX_VALUE ? Byte.MAX_VALUE
+          : q < Byte.MIN_VALUE ? Byte.MIN_VALUE : q);
+    }
+    return out;
+  }
+
+  public static char checksum(CharSequence s) {
+    char c = 0;
+    for (int i = 0; i < s.length(); i++) {
+      c += s.charAt(i);
+      c <<= 1;
+    }
+    return c;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Matrix)) {
+      return false;
+    }
+    Matrix other = (Matrix) o;
+    return rows == other.rows && cols == other.cols && Arrays.deepEquals(data, other.data);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * rows + cols) + Arrays.deepHashCode(data);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (double[] row : data) {
+      sb.append(Arrays.toString(row)).append('\n');
+    }
+    return sb.toString();
+  }
+}
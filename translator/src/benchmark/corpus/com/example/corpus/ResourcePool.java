@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.corpus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exceptions, try-with-resources, synchronization, bounded generics, varargs,
+ * instance initializers and local classes that capture variables.
+ */
+public class ResourcePool<R extends Closeable> {
+
+  public static class PoolException extends Exception {
+    private final int attempts;
+
+    public PoolException(String message, int attempts, Throwable cause) {
+      super(message, cause);
+      this.attempts = attempts;
+    }
+
+    public int getAttempts() {
+      return attempts;
+    }
+  }
+
+  public interface Factory<R> {
+    R create(int id) throws IOException;
+  }
+
+  private static final AtomicInteger POOLS = new AtomicInteger();
+
+  private final Factory<? extends R> factory;
+  private final Deque<R> idle = new ArrayDeque<>();
+  private final List<R> all = new ArrayList<>();
+  private final int maxSize;
+  private final int poolId;
+  private volatile boolean closed;
+  private int created;
+
+  {
+    poolId = POOLS.incrementAndGet();
+  }
+
+  public ResourcePool(Factory<? extends R> factory, int maxSize) {
+    this.factory = factory;
+    this.maxSize = maxSize;
+  }
+
+  public class Lease implements AutoCloseable {
+    private R resource;
+
+    Lease(R resource) {
+      this.resource = resource;
+    }
+
+    public R get() {
+      if (resource == null) {
+        throw new IllegalStateException("lease of pool " + poolId + " was released");
+      }
+      return resource;
+    }
+
+    @Override
+    public void close() {
+      if (resource != null) {
+        release(resource);
+        resource = null;
+      }
+    }
+  }
+
+  public synchronized Lease acquire(int maxAttempts) throws PoolException {
+    if (closed) {
+      throw new IllegalStateException("closed");
+    }
+    R resource = idle.pollFirst();
+    if (resource != null) {
+      return new Lease(resource);
+    }
+    if (created >= maxSize) {
+      throw new PoolException("pool exhausted", 0, null);
+    }
+    IOException last = null;
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      try {
+        resource = factory.create(created);
+        created++;
+        all.add(resource);
+        return new Lease(resource);
+      } catch (IOException e) {
+        last = e;
+      }
+    }
+    throw new PoolException("couldn't create a resource", maxAttempts, last);
+  }
+
+  private synchronized void release(R resource) {
+    if (closed) {
+      closeQuietly(resource);
+    } else {
+      idle.addFirst(resource);
+    }
+  }
+
+  @SafeVarargs
+  public static <T extends Closeable> int closeAll(T... resources) {
+    int failures = 0;
+    for (T resource : resources) {
+      try {
+        resource.close();
+      } catch (IOException | RuntimeException e) {
+        failures++;
+      }
+    }
+    return failures;
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // Ignored.
+    }
+  }
+
+  public void close() throws IOException {
+    List<R> toClose;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      toClose = new ArrayList<>(all);
+      idle.clear();
+    }
+    IOException first = null;
+    for (R resource : toClose) {
+      try {
+        resource.close();
+      } catch (IOException e) {
+        if (first == null) {
+          first = e;
+        } else {
+          first.addSuppressed(e);
+        }
+      }
+    }
+    if (first != null) {
+      throw first;
+    }
+  }
+
+  public static int useAll(ResourcePool<? extends Closeable> pool, int count) throws Exception {
+    final int[] used = { 0 };
+    int leases = 0;
+    class Counter {
+      void use(Closeable resource) {
+        if (resource != null) {
+          used[0]++;
+        }
+      }
+    }
+    Counter counter = new Counter();
+    for (int i = 0; i < count; i++) {
+      try (ResourcePool<? extends Closeable>.Lease lease = pool.acquire(3)) {
+        counter.use(lease.get());
+      } catch (PoolException e) {
+        if (e.getAttempts() == 0) {
+          break;
+        }
+        throw e;
+      } finally {
+        leases++;
+      }
+    }
+    return leases == count ? used[0] : -used[0];
+  }
+}
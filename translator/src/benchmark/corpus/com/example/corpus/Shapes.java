@@ -0,0 +1,198 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.corpus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Interfaces with default and static methods, abstract classes, enums with
+ * constant-specific bodies, and switch statements.
+ */
+public class Shapes {
+
+  public interface Shape extends Comparable<Shape> {
+    double area();
+
+    double perimeter();
+
+    default String describe() {
+      return getClass().getSimpleName() + " area=" + area() + " perimeter=" + perimeter();
+    }
+
+    @Override
+    default int compareTo(Shape other) {
+      return Double.compare(area(), other.area());
+    }
+
+    static Shape largest(List<? extends Shape> shapes) {
+      return shapes.isEmpty() ? null : Collections.max(shapes);
+    }
+  }
+
+  public enum Unit {
+    MILLIMETER(0.001) {
+      @Override
+      String symbol() {
+        return "mm";
+      }
+    },
+    CENTIMETER(0.01) {
+      @Override
+      String symbol() {
+        return "cm";
+      }
+    },
+    METER(1.0) {
+      @Override
+      String symbol() {
+        return "m";
+      }
+    };
+
+    private final double meters;
+
+    Unit(double meters) {
+      this.meters = meters;
+    }
+
+    abstract String symbol();
+
+    public double convert(double value, Unit to) {
+      return value * meters / to.meters;
+    }
+  }
+
+  abstract static class AbstractShape implements Shape {
+    protected final Unit unit;
+
+    AbstractShape(Unit unit) {
+      this.unit = unit;
+    }
+
+    @Override
+    public String toString() {
+      return describe() + unit.symbol();
+    }
+  }
+
+  static final class Circle extends AbstractShape {
+    private final double radius;
+
+    Circle(double radius, Unit unit) {
+      super(unit);
+      this.radius = radius;
+    }
+
+    @Override
+    public double area() {
+      return Math.PI * radius * radius;
+    }
+
+    @Override
+    public double perimeter() {
+      return 2 * Math.PI * radius;
+    }
+  }
+
+  static class Rectangle extends AbstractShape {
+    final double width;
+    final double height;
+
+    Rectangle(double width, double height, Unit unit) {
+      super(unit);
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override
+    public double area() {
+      return width * height;
+    }
+
+    @Override
+    public double perimeter() {
+      return 2 * (width + height);
+    }
+  }
+
+  static final class Square extends Rectangle {
+    Square(double side, Unit unit) {
+      super(side, side, unit);
+    }
+
+    @Override
+    public String describe() {
+      return "Square " + width;
+    }
+  }
+
+  public static Shape parse(String spec) {
+    String[] parts = spec.split(" ");
+    Unit unit = Unit.METER;
+    if (parts.length > 2) {
+      switch (parts[parts.length - 1]) {
+        case "mm":
+          unit = Unit.MILLIMETER;
+          break;
+        case "cm":
+          unit = Unit.CENTIMETER;
+          break;
+        default:
+          break;
+      }
+    }
+    switch (parts[0]) {
+      case "circle":
+        return new Circle(Double.parseDouble(parts[1]), unit);
+      case "square":
+        return new Square(Double.parseDouble(parts[1]), unit);
+      case "rectangle":
+        return new Rectangle(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), unit);
+      default:
+        throw new IllegalArgumentException("unknown shape: " + parts[0]);
+    }
+  }
+
+  public static double totalArea(Unit to, Shape... shapes) {
+    double total = 0;
+    for (Shape shape : shapes) {
+      Unit from = shape instanceof AbstractShape ? ((AbstractShape) shape).unit : Unit.METER;
+      switch (from) {
+        case MILLIMETER:
+        case CENTIMETER:
+          total += from.convert(from.convert(shape.area(), to), to);
+          break;
+        case METER:
+        default:
+          total += shape.area();
+      }
+    }
+    return total;
+  }
+
+  public static List<Shape> sortByPerimeter(List<Shape> shapes) {
+    List<Shape> sorted = new ArrayList<>(shapes);
+    sorted.sort(new Comparator<Shape>() {
+      @Override
+      public int compare(Shape a, Shape b) {
+        return Double.compare(a.perimeter(), b.perimeter());
+      }
+    });
+    return sorted;
+  }
+}
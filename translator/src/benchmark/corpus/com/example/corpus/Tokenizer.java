@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.corpus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Character arithmetic, arrays, string building, labeled loops, bit
+ * operations and a state machine over primitive types.
+ */
+public class Tokenizer {
+
+  public enum Kind { IDENTIFIER, NUMBER, STRING, OPERATOR, END }
+
+  public static final class Token {
+    public final Kind kind;
+    public final String text;
+    public final int offset;
+
+    Token(Kind kind, String text, int offset) {
+      this.kind = kind;
+      this.text = text;
+      this.offset = offset;
+    }
+
+    @Override
+    public String toString() {
+      return kind + "(" + text + ")@" + offset;
+    }
+  }
+
+  private static final String OPERATORS = "+-*/%=<>!&|^~?:;,.()[]{}";
+  private static final long[] OPERATOR_BITS = new long[2];
+
+  static {
+    for (int i = 0; i < OPERATORS.length(); i++) {
+      char c = OPERATORS.charAt(i);
+      OPERATOR_BITS[c >> 6] |= 1L << (c & 63);
+    }
+  }
+
+  private final char[] input;
+  private int pos;
+
+  public Tokenizer(String input) {
+    this.input = input.toCharArray();
+  }
+
+  static boolean isOperator(char c) {
+    return c < 128 && (OPERATOR_BITS[c >> 6] & (1L << (c & 63))) != 0;
+  }
+
+  public List<Token> tokenize() {
+    List<Token> tokens = new ArrayList<>();
+    Token token;
+    do {
+      token = next();
+      tokens.add(token);
+    } while (token.kind != Kind.END);
+    return tokens;
+  }
+
+  public Token next() {
+    skipWhitespaceAndComments();
+    if (pos >= input.length) {
+      return new Token(Kind.END, "", pos);
+    }
+    int start = pos;
+    char c = input[pos];
+    if (Character.isJavaIdentifierStart(c)) {
+      while (pos < input.length && Character.isJavaIdentifierPart(input[pos])) {
+        pos++;
+      }
+      return new Token(Kind.IDENTIFIER, new String(input, start, pos - start), start);
+    }
+    if (c >= '0' && c <= '9') {
+      return new Token(Kind.NUMBER, Long.toString(readNumber()), start);
+    }
+    if (c == '"') {
+      return new Token(Kind.STRING, readString(), start);
+    }
+    if (isOperator(c)) {
+      pos++;
+      if (pos < input.length && (input[pos] == '=' || input[pos] == c) && c != '(' && c != ')') {
+        pos++;
+      }
+      return new Token(Kind.OPERATOR, new String(input, start, pos - start), start);
+    }
+    throw new IllegalStateException("unexpected character '" + c + "' at " + pos);
+  }
+
+  private void skipWhitespaceAndComments() {
+    outer:
+    while (pos < input.length) {
+      char c = input[pos];
+      if (Character.isWhitespace(c)) {
+        pos++;
+        continue;
+      }
+      if (c == '/' && pos + 1 < input.length) {
+        if (input[pos + 1] == '/') {
+          while (pos < input.length && input[pos] != '\n') {
+            pos++;
+          }
+          continue;
+        }
+        if (input[pos + 1] == '*') {
+          for (pos += 2; pos + 1 < input.length; pos++) {
+            if (input[pos] == '*' && input[pos + 1] == '/') {
+              pos += 2;
+              continue outer;
+            }
+          }
+          pos = input.length;
+        }
+      }
+      break;
+    }
+  }
+
+  private long readNumber() {
+    long value = 0;
+    int radix = 10;
+    if (input[pos] == '0' && pos + 1 < input.length && (input[pos + 1] | 0x20) == 'x') {
+      radix = 16;
+      pos += 2;
+    }
+    while (pos < input.length) {
+      int digit = Character.digit(input[pos], radix);
+      if (digit < 0) {
+        break;
+      }
+      value = value * radix + digit;
+      pos++;
+    }
+    if (pos < input.length && (input[pos] == 'L' || input[pos] == 'l')) {
+      pos++;
+    }
+    return value;
+  }
+
+  private String readString() {
+    StringBuilder sb = new StringBuilder();
+    pos++;
+    while (pos < input.length && input[pos] != '"') {
+      char c = input[pos++];
+      if (c == '\\' && pos < input.length) {
+        char escaped = input[pos++];
+        switch (escaped) {
+          case 'n': sb.append('\n'); break;
+          case 't': sb.append('\t'); break;
+          case 'u':
+            sb.append((char) Integer.parseInt(new String(input, pos, 4), 16));
+            pos += 4;
+            break;
+          default: sb.append(escaped);
+        }
+      } else {
+        sb.append(c);
+      }
+    }
+    pos++;
+    return sb.toString();
+  }
+
+  public static int[] histogram(List<Token> tokens) {
+    int[] counts = new int[Kind.values().length];
+    for (Token token : tokens) {
+      counts[token.kind.ordinal()]++;
+    }
+    return counts;
+  }
+
+  public static int hash(char[][] rows) {
+    int h = 17;
+    for (int i = 0; i < rows.length; i++) {
+      for (int j = 0; j < rows[i].length; j++) {
+        h = 31 * h + rows[i][j];
+        h ^= h >>> 7;
+      }
+    }
+    return h;
+  }
+}
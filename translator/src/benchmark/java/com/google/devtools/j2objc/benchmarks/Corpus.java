@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmarks;
+
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.util.FileUtil;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The sources the benchmarks translate, which are checked in under
+ * src/benchmark/corpus. They are small, but use most of the language
+ * features the translator rewrites, so each pass has work to do.
+ */
+final class Corpus {
+
+  // Overrides the corpus directory, which is otherwise relative to the
+  // translator directory that "make benchmark" runs in.
+  static final String DIR_PROPERTY = "j2objc.benchmark.corpus";
+  private static final String DEFAULT_DIR = "src/benchmark/corpus";
+
+  private Corpus() {}
+
+  static File getDirectory() {
+    return new File(System.getProperty(DIR_PROPERTY, DEFAULT_DIR));
+  }
+
+  /**
+   * Returns the paths of the corpus sources, in a stable order.
+   */
+  static List<String> getSourcePaths() {
+    List<String> paths = new ArrayList<>();
+    collectSources(getDirectory(), paths);
+    if (paths.isEmpty()) {
+      throw new IllegalStateException("no sources in " + getDirectory().getAbsolutePath());
+    }
+    Collections.sort(paths);
+    return paths;
+  }
+
+  private static void collectSources(File dir, List<String> paths) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isDirectory()) {
+        collectSources(file, paths);
+      } else if (file.getName().endsWith(".java")) {
+        paths.add(file.getPath());
+      }
+    }
+  }
+
+  /**
+   * Returns options that translate the corpus into a new temporary directory.
+   */
+  static Options createOptions() throws IOException {
+    File outputDir = FileUtil.createTempDir("j2objc-benchmark");
+    Options options = new Options();
+    options.load(new String[] {
+        "-d", outputDir.getPath(), "-sourcepath", getDirectory().getPath(), "-encoding", "UTF-8" });
+    return options;
+  }
+
+  static void deleteOutput(Options options) {
+    FileUtil.deleteTempDir(options.fileUtil().getOutputDirectory());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmarks;
+
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.gen.ObjectiveCHeaderGenerator;
+import com.google.devtools.j2objc.gen.ObjectiveCImplementationGenerator;
+import com.google.devtools.j2objc.gen.ObjectiveCSegmentedHeaderGenerator;
+import com.google.devtools.j2objc.javac.ParsedCorpus;
+import com.google.devtools.j2objc.pipeline.TranslationProcessor;
+import com.google.devtools.j2objc.util.TimeTracker;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures generating the Objective-C files of the mutated corpus trees. Each
+ * operation includes creating the generation units, which generates the
+ * types' declarations and definitions, and writing the files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(2)
+public class GeneratorBenchmark {
+
+  private Options options;
+  private ParsedCorpus corpus;
+  private List<CompilationUnit> units;
+
+  @Setup
+  public void setUp() throws IOException {
+    options = Corpus.createOptions();
+    corpus = new ParsedCorpus(options, Corpus.getSourcePaths());
+    units = corpus.convert();
+    for (CompilationUnit unit : units) {
+      TranslationProcessor.applyMutations(unit, null, TimeTracker.noop());
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    corpus.close();
+    Corpus.deleteOutput(options);
+  }
+
+  private GenerationUnit newGenerationUnit(CompilationUnit unit) {
+    GenerationUnit genUnit = new GenerationUnit(unit.getSourceFilePath(), options);
+    genUnit.incrementInputs();
+    genUnit.addCompilationUnit(unit);
+    return genUnit;
+  }
+
+  @Benchmark
+  public void generateImplementation() {
+    for (CompilationUnit unit : units) {
+      ObjectiveCImplementationGenerator.generate(newGenerationUnit(unit));
+    }
+  }
+
+  @Benchmark
+  public void generateHeader() {
+    for (CompilationUnit unit : units) {
+      if (options.generateSegmentedHeaders()) {
+        ObjectiveCSegmentedHeaderGenerator.generate(newGenerationUnit(unit));
+      } else {
+        ObjectiveCHeaderGenerator.generate(newGenerationUnit(unit));
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmarks;
+
+import com.google.common.io.Files;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.pipeline.GenerationBatch;
+import com.google.devtools.j2objc.pipeline.ProcessingContext;
+import com.google.devtools.j2objc.util.FileUtil;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares reading the sources of a source jar in place, as GenerationBatch
+ * does, with extracting them to a temporary directory first, as it used to.
+ * Each operation reads every source once, like InputFilePreprocessor. The jar
+ * holds the given number of copies of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(2)
+public class JarInputBenchmark {
+
+  @Param({"1", "100"})
+  public int copies;
+
+  private Options options;
+  private File jarFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    options = Corpus.createOptions();
+    jarFile = new File(options.fileUtil().getOutputDirectory(), "corpus.jar");
+    String corpusDir = Corpus.getDirectory().getPath() + File.separatorChar;
+    try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+      for (int i = 0; i < copies; i++) {
+        for (String path : Corpus.getSourcePaths()) {
+          String entryName = "copy" + i + "/" + path.substring(corpusDir.length())
+              .replace(File.separatorChar, '/');
+          jar.putNextEntry(new JarEntry(entryName));
+          jar.write(Files.toByteArray(new File(path)));
+          jar.closeEntry();
+        }
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    Corpus.deleteOutput(options);
+  }
+
+  @Benchmark
+  public void readInPlace(Blackhole blackhole) throws IOException {
+    try (GenerationBatch batch = new GenerationBatch(options)) {
+      batch.processFileArgs(Collections.singletonList(jarFile.getPath()));
+      for (ProcessingContext input : batch.getInputs()) {
+        blackhole.consume(options.fileUtil().readFile(input.getFile()));
+      }
+    }
+  }
+
+  @Benchmark
+  public void extractToTempDir(Blackhole blackhole) throws IOException {
+    File tempDir = FileUtil.createTempDir("J2ObjCTempDir");
+    try (ZipFile zfile = new ZipFile(jarFile)) {
+      Enumeration<? extends ZipEntry> enumerator = zfile.entries();
+      while (enumerator.hasMoreElements()) {
+        ZipEntry entry = enumerator.nextElement();
+        if (entry.getName().endsWith(".java")) {
+          File outputFile = options.fileUtil().extractZipEntry(tempDir, zfile, entry);
+          RegularInputFile file =
+              new RegularInputFile(outputFile.getAbsolutePath(), entry.getName());
+          blackhole.consume(options.fileUtil().readFile(file));
+        }
+      }
+    } finally {
+      FileUtil.deleteTempDir(tempDir);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmarks;
+
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.javac.ParsedCorpus;
+import com.google.devtools.j2objc.pipeline.TranslationProcessor;
+import com.google.devtools.j2objc.translate.AbstractMethodRewriter;
+import com.google.devtools.j2objc.translate.AnnotationRewriter;
+import com.google.devtools.j2objc.translate.ArrayRewriter;
+import com.google.devtools.j2objc.translate.Autoboxer;
+import com.google.devtools.j2objc.translate.CastResolver;
+import com.google.devtools.j2objc.translate.ComplexExpressionExtractor;
+import com.google.devtools.j2objc.translate.ConstantBranchPruner;
+import com.google.devtools.j2objc.translate.DefaultMethodShimGenerator;
+import com.google.devtools.j2objc.translate.DestructorGenerator;
+import com.google.devtools.j2objc.translate.EnhancedForRewriter;
+import com.google.devtools.j2objc.translate.EnumRewriter;
+import com.google.devtools.j2objc.translate.Functionizer;
+import com.google.devtools.j2objc.translate.GwtConverter;
+import com.google.devtools.j2objc.translate.InitializationNormalizer;
+import com.google.devtools.j2objc.translate.InnerClassExtractor;
+import com.google.devtools.j2objc.translate.JavaCloneWriter;
+import com.google.devtools.j2objc.translate.JavaToIOSMethodTranslator;
+import com.google.devtools.j2objc.translate.LabelRewriter;
+import com.google.devtools.j2objc.translate.LambdaRewriter;
+import com.google.devtools.j2objc.translate.LambdaTypeElementAdder;
+import com.google.devtools.j2objc.translate.MetadataWriter;
+import com.google.devtools.j2objc.translate.NilCheckResolver;
+import com.google.devtools.j2objc.translate.NumberMethodRewriter;
+import com.google.devtools.j2objc.translate.OcniExtractor;
+import com.google.devtools.j2objc.translate.OperatorRewriter;
+import com.google.devtools.j2objc.translate.OuterReferenceResolver;
+import com.google.devtools.j2objc.translate.PackageInfoRewriter;
+import com.google.devtools.j2objc.translate.PrivateDeclarationResolver;
+import com.google.devtools.j2objc.translate.Rewriter;
+import com.google.devtools.j2objc.translate.StaticVarRewriter;
+import com.google.devtools.j2objc.translate.SuperMethodInvocationRewriter;
+import com.google.devtools.j2objc.translate.SwitchRewriter;
+import com.google.devtools.j2objc.translate.UnsequencedExpressionRewriter;
+import com.google.devtools.j2objc.translate.VarargsRewriter;
+import com.google.devtools.j2objc.translate.VariableRenamer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each tree mutation pass separately, over the corpus trees as they
+ * are after the passes that precede it. Since passes change the trees, each
+ * invocation starts from newly converted trees, which the preceding passes
+ * are applied to outside of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(2)
+public class PassBenchmark {
+
+  // The passes of TranslationProcessor.applyMutations, in order, without the
+  // dead code passes, since the corpus has no dead code map. The trial setup
+  // checks that this list is up to date.
+  private static final Map<String, Consumer<CompilationUnit>> PASSES = new LinkedHashMap<>();
+
+  static {
+    PASSES.put("LambdaTypeElementAdder", unit -> new LambdaTypeElementAdder(unit).run());
+    PASSES.put("OuterReferenceResolver", unit -> new OuterReferenceResolver(unit).run());
+    PASSES.put("GwtConverter", unit -> new GwtConverter(unit).run());
+    PASSES.put("NumberMethodRewriter", unit -> new NumberMethodRewriter(unit).run());
+    PASSES.put("ConstantBranchPruner", unit -> new ConstantBranchPruner(unit).run());
+    PASSES.put("Rewriter", unit -> new Rewriter(unit).run());
+    PASSES.put("AbstractMethodRewriter", unit -> new AbstractMethodRewriter(unit, null).run());
+    PASSES.put("VariableRenamer", unit -> new VariableRenamer(unit).run());
+    PASSES.put("EnhancedForRewriter", unit -> new EnhancedForRewriter(unit).run());
+    PASSES.put("LambdaRewriter", unit -> new LambdaRewriter(unit).run());
+    PASSES.put("Autoboxer", unit -> new Autoboxer(unit).run());
+    PASSES.put("InnerClassExtractor", unit -> new InnerClassExtractor(unit).run());
+    PASSES.put("DefaultMethodShimGenerator",
+        unit -> new DefaultMethodShimGenerator(unit, null).run());
+    PASSES.put("InitializationNormalizer", unit -> new InitializationNormalizer(unit).run());
+    PASSES.put("NilCheckResolver", unit -> new NilCheckResolver(unit).run());
+    PASSES.put("UnsequencedExpressionRewriter",
+        unit -> new UnsequencedExpressionRewriter(unit).run());
+    PASSES.put("LabelRewriter", unit -> unit.accept(new LabelRewriter()));
+    PASSES.put("VarargsRewriter", unit -> new VarargsRewriter(unit).run());
+    PASSES.put("JavaCloneWriter", unit -> new JavaCloneWriter(unit).run());
+    PASSES.put("OcniExtractor", unit -> new OcniExtractor(unit, null).run());
+    PASSES.put("PackageInfoRewriter", unit -> PackageInfoRewriter.run(unit));
+    PASSES.put("AnnotationRewriter", unit -> new AnnotationRewriter(unit).run());
+    PASSES.put("EnumRewriter", unit -> new EnumRewriter(unit).run());
+    PASSES.put("DestructorGenerator", unit -> new DestructorGenerator(unit).run());
+    PASSES.put("MetadataWriter", unit -> new MetadataWriter(unit, null).run());
+    PASSES.put("JavaToIOSMethodTranslator", unit -> new JavaToIOSMethodTranslator(unit).run());
+    PASSES.put("Functionizer", unit -> new Functionizer(unit).run());
+    PASSES.put("SuperMethodInvocationRewriter",
+        unit -> new SuperMethodInvocationRewriter(unit).run());
+    PASSES.put("OperatorRewriter", unit -> new OperatorRewriter(unit).run());
+    PASSES.put("StaticVarRewriter", unit -> new StaticVarRewriter(unit).run());
+    PASSES.put("ArrayRewriter", unit -> new ArrayRewriter(unit).run());
+    PASSES.put("SwitchRewriter", unit -> new SwitchRewriter(unit).run());
+    PASSES.put("ComplexExpressionExtractor", unit -> unit.accept(new ComplexExpressionExtractor()));
+    PASSES.put("CastResolver", unit -> new CastResolver(unit).run());
+    PASSES.put("PrivateDeclarationResolver", unit -> new PrivateDeclarationResolver(unit).run());
+  }
+
+  @Param({
+    "LambdaTypeElementAdder", "OuterReferenceResolver", "GwtConverter", "NumberMethodRewriter",
+    "ConstantBranchPruner", "Rewriter", "AbstractMethodRewriter", "VariableRenamer",
+    "EnhancedForRewriter", "LambdaRewriter", "Autoboxer", "InnerClassExtractor",
+    "DefaultMethodShimGenerator", "InitializationNormalizer", "NilCheckResolver",
+    "UnsequencedExpressionRewriter", "LabelRewriter", "VarargsRewriter", "JavaCloneWriter",
+    "OcniExtractor", "PackageInfoRewriter", "AnnotationRewriter", "EnumRewriter",
+    "DestructorGenerator", "MetadataWriter", "JavaToIOSMethodTranslator", "Functionizer",
+    "SuperMethodInvocationRewriter", "OperatorRewriter", "StaticVarRewriter", "ArrayRewriter",
+    "SwitchRewriter", "ComplexExpressionExtractor", "CastResolver", "PrivateDeclarationResolver"
+  })
+  public String pass;
+
+  private Options options;
+  private ParsedCorpus corpus;
+  private final List<Consumer<CompilationUnit>> precedingPasses = new ArrayList<>();
+  private Consumer<CompilationUnit> measuredPass;
+  private List<CompilationUnit> units;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() throws IOException {
+    options = Corpus.createOptions();
+    corpus = new ParsedCorpus(options, Corpus.getSourcePaths());
+    checkPasses();
+    for (Map.Entry<String, Consumer<CompilationUnit>> entry : PASSES.entrySet()) {
+      if (entry.getKey().equals(pass)) {
+        measuredPass = entry.getValue();
+        break;
+      }
+      precedingPasses.add(entry.getValue());
+    }
+    if (measuredPass == null) {
+      throw new IllegalArgumentException("unknown pass: " + pass);
+    }
+  }
+
+  /**
+   * Checks that the pass list matches the passes of applyMutations.
+   */
+  private void checkPasses() {
+    List<String> passNames =
+        TranslationProcessor.createPasses(corpus.convert().get(0), null).getPassNames();
+    if (!passNames.equals(new ArrayList<>(PASSES.keySet()))) {
+      throw new IllegalStateException("PassBenchmark.PASSES doesn't match the passes of "
+          + "TranslationProcessor.applyMutations: " + passNames);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpInvocation() {
+    units = corpus.convert();
+    for (CompilationUnit unit : units) {
+      for (Consumer<CompilationUnit> precedingPass : precedingPasses) {
+        precedingPass.accept(unit);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownTrial() throws IOException {
+    corpus.close();
+    Corpus.deleteOutput(options);
+  }
+
+  @Benchmark
+  public List<CompilationUnit> runPass() {
+    for (CompilationUnit unit : units) {
+      measuredPass.accept(unit);
+    }
+    return units;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.javac;
+
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.tree.JCTree;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Sources parsed and attributed by a single javac task, which can then be
+ * converted to j2objc trees any number of times. Benchmarks of the stages
+ * after javac use it to exclude javac's own time.
+ */
+public class ParsedCorpus implements Closeable {
+
+  private final Options options;
+  private final JavacParser parser;
+  private final JavacEnvironment env;
+  private final List<JCTree.JCCompilationUnit> units = new ArrayList<>();
+
+  public ParsedCorpus(Options options, List<String> paths) throws IOException {
+    this.options = options;
+    parser = new JavacParser(options);
+    List<File> files = new ArrayList<>();
+    for (String path : paths) {
+      files.add(new File(path));
+    }
+    env = parser.createEnvironment(files, null, false);
+    for (CompilationUnitTree unit : env.task().parse()) {
+      units.add((JCTree.JCCompilationUnit) unit);
+    }
+    env.task().analyze();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : env.diagnostics().getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        throw new IllegalStateException(diagnostic.toString());
+      }
+    }
+  }
+
+  /**
+   * Converts every source to a new j2objc tree.
+   */
+  public List<CompilationUnit> convert() {
+    List<CompilationUnit> result = new ArrayList<>(units.size());
+    for (JCTree.JCCompilationUnit unit : units) {
+      result.add(TreeConverter.convertCompilationUnit(options, env, unit));
+    }
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+}
@@ -24,6 +24,7 @@ import com.google.devtools.j2objc.pipeline.InputFilePreprocessor;
 import com.google.devtools.j2objc.pipeline.ProcessingContext;
 import com.google.devtools.j2objc.pipeline.TranslationProcessor;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
+import com.google.devtools.j2objc.util.ErrorSink;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.Parser;
@@ -31,6 +32,7 @@ import com.google.devtools.j2objc.util.ProGuardUsageParser;
 import com.google.devtools.j2objc.util.UnicodeUtils;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -57,10 +59,11 @@ public class J2ObjC {
     return UnicodeUtils.format(Options.getFileHeader(), sourceFileName);
   }
 
-  private static void checkErrors(boolean treatWarningsAsErrors) {
-    int errors = ErrorUtil.errorCount();
-    if (treatWarningsAsErrors) {
-      errors += ErrorUtil.warningCount();
+  private static void checkErrors(Options options) {
+    ErrorSink errorSink = options.errorSink();
+    int errors = errorSink.errorCount();
+    if (options.treatWarningsAsErrors()) {
+      errors += errorSink.warningCount();
     }
     if (errors > 0) {
       System.exit(errors);
@@ -87,12 +90,22 @@ public class J2ObjC {
    * @param fileArgs the files to process, same format as command-line args to {@link #main}.
    */
   public static void run(List<String> fileArgs, Options options) {
+    ErrorSink previousSink = ErrorUtil.setCurrentSink(options.errorSink());
+    try {
+      runPipeline(fileArgs, options);
+    } finally {
+      ErrorUtil.setCurrentSink(previousSink);
+    }
+  }
+
+  private static void runPipeline(List<String> fileArgs, Options options) {
     File preProcessorTempDir = null;
     File strippedSourcesDir = null;
     Parser parser = null;
+    GenerationBatch batch = null;
     try {
       List<ProcessingContext> inputs = Lists.newArrayList();
-      GenerationBatch batch = new GenerationBatch(options);
+      batch = new GenerationBatch(options);
       batch.processFileArgs(fileArgs);
       inputs.addAll(batch.getInputs());
       if (ErrorUtil.errorCount() > 0) {
@@ -140,6 +153,13 @@ public class J2ObjC {
           ErrorUtil.error(e.getMessage());
         }
       }
+      if (batch != null) {
+        try {
+          batch.close();
+        } catch (IOException e) {
+          ErrorUtil.error(e.getMessage());
+        }
+      }
       Set<String> tempDirs = options.fileUtil().getTempDirs();
       for (String dir : tempDirs) {
         FileUtil.deleteTempDir(new File(dir));
@@ -156,8 +176,14 @@ public class J2ObjC {
    * @param args command-line arguments: flags and source file names
    */
   public static void main(String[] args) {
-    if (args.length == 0) {
-      Options.help(true);
+    if (Arrays.asList(args).contains(PersistentWorker.PERSISTENT_WORKER_FLAG)) {
+      try {
+        PersistentWorker.run(System.in, System.out);
+        System.exit(0);
+      } catch (IOException e) {
+        ErrorUtil.error(e.getMessage());
+        System.exit(1);
+      }
     }
     long startTime = System.currentTimeMillis();
 
@@ -165,12 +191,18 @@ public class J2ObjC {
     Options options = new Options();
 
     try {
+      if (args.length == 0) {
+        Options.help(true);
+      }
       files = options.load(args);
       if (files.isEmpty()) {
         Options.usage("no source files");
       }
+    } catch (Options.UsageException e) {
+      System.err.println(e.getMessage());
+      System.exit(e.getExitCode());
     } catch (IOException e) {
-      ErrorUtil.error(e.getMessage());
+      options.errorSink().error(e.getMessage());
       System.exit(1);
     }
 
@@ -182,6 +214,6 @@ public class J2ObjC {
     }
 
     // Run last, since it calls System.exit() with the number of errors.
-    checkErrors(options.treatWarningsAsErrors());
+    checkErrors(options);
   }
 }
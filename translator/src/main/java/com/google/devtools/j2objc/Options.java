@@ -22,13 +22,17 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import com.google.devtools.j2objc.util.ClassHierarchy;
+import com.google.devtools.j2objc.util.ErrorSink;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.HeaderMap;
 import com.google.devtools.j2objc.util.Mappings;
+import com.google.devtools.j2objc.util.NonnullSummary;
 import com.google.devtools.j2objc.util.PackageInfoLookup;
 import com.google.devtools.j2objc.util.PackagePrefixes;
 import com.google.devtools.j2objc.util.SourceVersion;
+import com.google.devtools.j2objc.util.TimingReport;
 import com.google.devtools.j2objc.util.Version;
 import java.io.File;
 import java.io.IOException;
@@ -36,6 +40,7 @@ import java.net.URL;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
@@ -71,11 +76,23 @@ public class Options {
   private boolean docCommentsEnabled = false;
   private boolean staticAccessorMethods = false;
   private int batchTranslateMaximum = -1;
+  private long batchHeapLimit = 0;
+  private int translationThreads = 1;
+  private File translationCacheDir = null;
+  private long translationCacheSize = DEFAULT_TRANSLATION_CACHE_SIZE;
   private String processors = null;
   private boolean disallowInheritedConstructors = true;
   private boolean swiftFriendly = false;
   private boolean nullability = false;
   private TimingLevel timingLevel = TimingLevel.NONE;
+  private TimingReport timingReport = null;
+  private File classHierarchyFile = null;
+  private ClassHierarchy classHierarchy = null;
+  private File classHierarchyOutputFile = null;
+  private File devirtualizationReportFile = null;
+  private File nonnullSummaryFile = null;
+  private NonnullSummary nonnullSummary = new NonnullSummary();
+  private File nonnullSummaryOutputFile = null;
   private boolean dumpAST = false;
   private String lintArgument = null;
   private boolean reportJavadocWarnings = false;
@@ -85,6 +102,10 @@ public class Options {
   private String globalCombinedOutput = null;
   private String bootclasspath = null;
 
+  // This translation's errors and warnings. J2ObjC.run() makes it the current
+  // sink, so that the static ErrorUtil methods report to it.
+  private ErrorSink errorSink = new ErrorSink();
+
   private Mappings mappings = new Mappings();
   private FileUtil fileUtil = new FileUtil();
   private PackageInfoLookup packageInfoLookup = new PackageInfoLookup(fileUtil);
@@ -92,6 +113,9 @@ public class Options {
 
   private SourceVersion sourceVersion = SourceVersion.defaultVersion();
 
+  // The flags and flag values specified, in order, without the source files.
+  private final List<String> flags = new ArrayList<>();
+
   private static File proGuardUsageFile = null;
 
   private static String fileHeader;
@@ -105,6 +129,7 @@ public class Options {
   private static final String XBOOTCLASSPATH = "-Xbootclasspath:";
   private static final String BATCH_PROCESSING_MAX_FLAG = "--batch-translate-max=";
   private static final String TIMING_INFO_ARG = "--timing-info";
+  private static final long DEFAULT_TRANSLATION_CACHE_SIZE = 512L * 1024 * 1024;
 
   // TODO(tball): remove obsolete flags once projects stop using them.
   private static final Set<String> obsoleteFlags = Sets.newHashSet(
@@ -203,10 +228,19 @@ public class Options {
   /**
    * Load the options from a command-line, returning the arguments that were
    * not option-related (usually files).  If help is requested or an error is
-   * detected, the appropriate status method is invoked and the app terminates.
+   * detected, the appropriate status method throws a {@link UsageException}.
    * @throws IOException
    */
   public List<String> load(String[] args) throws IOException {
+    ErrorSink previousSink = ErrorUtil.setCurrentSink(errorSink);
+    try {
+      return loadArgs(args);
+    } finally {
+      ErrorUtil.setCurrentSink(previousSink);
+    }
+  }
+
+  private List<String> loadArgs(String[] args) throws IOException {
     setLogLevel(Level.WARNING);
 
     mappings.addJreMappings();
@@ -247,11 +281,16 @@ public class Options {
       if (!args.hasNext()) {
         usage(arg + " requires an argument");
       }
-      return args.next();
+      String value = args.next();
+      flags.add(value);
+      return value;
     }
 
     private void processArg(Iterator<String> args) throws IOException {
       String arg = args.next();
+      if (arg.startsWith("-")) {
+        flags.add(arg);
+      }
       if (arg.isEmpty()) {
         return;
       } else if (arg.startsWith("@")) {
@@ -270,6 +309,18 @@ public class Options {
         headerMap.setMappingFiles(getArgValue(args, arg));
       } else if (arg.equals("--output-header-mapping")) {
         headerMap.setOutputMappingFile(new File(getArgValue(args, arg)));
+      } else if (arg.equals("--class-hierarchy")) {
+        classHierarchyFile = new File(getArgValue(args, arg));
+        classHierarchy = ClassHierarchy.read(classHierarchyFile);
+      } else if (arg.equals("--output-class-hierarchy")) {
+        classHierarchyOutputFile = new File(getArgValue(args, arg));
+      } else if (arg.equals("--devirtualization-report")) {
+        devirtualizationReportFile = new File(getArgValue(args, arg));
+      } else if (arg.equals("--nonnull-summaries")) {
+        nonnullSummaryFile = new File(getArgValue(args, arg));
+        nonnullSummary = NonnullSummary.read(nonnullSummaryFile);
+      } else if (arg.equals("--output-nonnull-summaries")) {
+        nonnullSummaryOutputFile = new File(getArgValue(args, arg));
       } else if (arg.equals("--dead-code-report")) {
         proGuardUsageFile = new File(getArgValue(args, arg));
       } else if (arg.equals("--prefix")) {
@@ -320,6 +371,10 @@ public class Options {
         } catch (IllegalArgumentException e) {
           usage("invalid --timing-info argument");
         }
+      } else if (arg.equals("--rewrite-unchanged-output")) {
+        fileUtil.setRewriteUnchangedOutput(true);
+      } else if (arg.equals("--timing-report")) {
+        timingReport = new TimingReport(new File(getArgValue(args, arg)));
       } else if (arg.equals("-v") || arg.equals("--verbose")) {
         setLogLevel(Level.FINEST);
       } else if (arg.startsWith(XBOOTCLASSPATH)) {
@@ -357,6 +412,38 @@ public class Options {
       } else if (arg.startsWith(BATCH_PROCESSING_MAX_FLAG)) {
         batchTranslateMaximum =
             Integer.parseInt(arg.substring(BATCH_PROCESSING_MAX_FLAG.length()));
+      } else if (arg.equals("--batch-heap-limit")) {
+        String s = getArgValue(args, arg);
+        try {
+          batchHeapLimit = parseMegabytes(s);
+        } catch (NumberFormatException | ArithmeticException e) {
+          usage("invalid --batch-heap-limit argument: " + s);
+        }
+        if (batchHeapLimit <= 0) {
+          usage("invalid --batch-heap-limit argument: " + s);
+        }
+      } else if (arg.equals("-j")) {
+        String s = getArgValue(args, arg);
+        try {
+          translationThreads = Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+          usage("invalid -j argument: " + s);
+        }
+        if (translationThreads < 1) {
+          usage("invalid -j argument: " + s);
+        }
+      } else if (arg.equals("--cache-dir")) {
+        translationCacheDir = new File(getArgValue(args, arg));
+      } else if (arg.equals("--cache-size")) {
+        String s = getArgValue(args, arg);
+        try {
+          translationCacheSize = parseMegabytes(s);
+        } catch (NumberFormatException | ArithmeticException e) {
+          usage("invalid --cache-size argument: " + s);
+        }
+        if (translationCacheSize < 0) {
+          usage("invalid --cache-size argument: " + s);
+        }
       } else if (arg.equals("--static-accessor-methods")) {
         staticAccessorMethods = true;
       } else if (arg.equals("--swift-friendly")) {
@@ -484,26 +571,46 @@ public class Options {
     setMemoryManagementOption(option);
   }
 
+  /**
+   * Thrown instead of exiting when the command line is invalid, or asks for
+   * help or the version. The caller prints the message and exits with the
+   * exit code, or, in a persistent worker, returns them as the response.
+   */
+  public static class UsageException extends RuntimeException {
+
+    private final int exitCode;
+
+    UsageException(String message, int exitCode) {
+      super(message);
+      this.exitCode = exitCode;
+    }
+
+    public int getExitCode() {
+      return exitCode;
+    }
+  }
+
+  // Returns a size in megabytes as bytes, throwing ArithmeticException if it
+  // doesn't fit in a long.
+  private static long parseMegabytes(String s) {
+    return Math.multiplyExact(Long.parseLong(s), 1024L * 1024);
+  }
+
   public static void usage(String invalidUseMsg) {
-    System.err.println("j2objc: " + invalidUseMsg);
-    System.err.println(usageMessage);
-    System.exit(1);
+    throw new UsageException("j2objc: " + invalidUseMsg + "\n" + usageMessage, 1);
   }
 
   public static void help(boolean errorExit) {
-    System.err.println(helpMessage);
     // javac exits with 2, but any non-zero value works.
-    System.exit(errorExit ? 2 : 0);
+    throw new UsageException(helpMessage, errorExit ? 2 : 0);
   }
 
   public static void xhelp() {
-    System.err.println(xhelpMessage);
-    System.exit(0);
+    throw new UsageException(xhelpMessage, 0);
   }
 
   public static void version() {
-    System.err.println("j2objc " + Version.jarVersion(Options.class));
-    System.exit(0);
+    throw new UsageException("j2objc " + Version.jarVersion(Options.class), 0);
   }
 
   private List<String> getPathArgument(String argument, boolean expandAarFiles) {
@@ -530,6 +637,17 @@ public class Options {
     return fileUtil;
   }
 
+  /**
+   * The sink that this translation's errors and warnings are reported to.
+   */
+  public ErrorSink errorSink() {
+    return errorSink;
+  }
+
+  public void setErrorSink(ErrorSink errorSink) {
+    this.errorSink = Preconditions.checkNotNull(errorSink);
+  }
+
   public boolean docCommentsEnabled() {
     return docCommentsEnabled;
   }
@@ -710,6 +828,67 @@ public class Options {
     batchTranslateMaximum = max;
   }
 
+  /**
+   * The heap usage in bytes that batches are split to stay below, or zero if
+   * batches are translated by a single javac task.
+   */
+  public long batchHeapLimit() {
+    return batchHeapLimit;
+  }
+
+  @VisibleForTesting
+  public void setBatchHeapLimit(long limit) {
+    batchHeapLimit = limit;
+  }
+
+  /**
+   * The number of threads used to preprocess inputs, decompile classfiles and
+   * resolve build closure dependencies. Translation itself runs on one thread,
+   * since all units share the parser's javac environment.
+   */
+  public int translationThreads() {
+    return translationThreads;
+  }
+
+  @VisibleForTesting
+  public void setTranslationThreads(int n) {
+    translationThreads = n;
+  }
+
+  /**
+   * The directory where translated files are cached, or null if caching is
+   * disabled.
+   */
+  public File translationCacheDir() {
+    return translationCacheDir;
+  }
+
+  @VisibleForTesting
+  public void setTranslationCacheDir(File dir) {
+    translationCacheDir = dir;
+  }
+
+  /**
+   * The size in bytes above which the least recently used cache entries are
+   * evicted.
+   */
+  public long translationCacheSize() {
+    return translationCacheSize;
+  }
+
+  @VisibleForTesting
+  public void setTranslationCacheSize(long size) {
+    translationCacheSize = size;
+  }
+
+  /**
+   * Returns the flags and flag values this instance was loaded with, in
+   * order, without the source file arguments.
+   */
+  public List<String> getFlags() {
+    return Collections.unmodifiableList(flags);
+  }
+
   public SourceVersion getSourceVersion(){
     return sourceVersion;
   }
@@ -774,6 +953,80 @@ public class Options {
     return timingLevel;
   }
 
+  /**
+   * Collects the timings of every translated unit, or null if they aren't
+   * reported.
+   */
+  public TimingReport timingReport() {
+    return timingReport;
+  }
+
+  @VisibleForTesting
+  public void setTimingReport(TimingReport report) {
+    timingReport = report;
+  }
+
+  /**
+   * The class hierarchy of the whole program, or null if methods are only
+   * called as functions when they are private or final.
+   */
+  public ClassHierarchy classHierarchy() {
+    return classHierarchy;
+  }
+
+  @VisibleForTesting
+  public void setClassHierarchy(ClassHierarchy hierarchy) {
+    classHierarchy = hierarchy;
+  }
+
+  public File classHierarchyFile() {
+    return classHierarchyFile;
+  }
+
+  public File classHierarchyOutputFile() {
+    return classHierarchyOutputFile;
+  }
+
+  @VisibleForTesting
+  public void setClassHierarchyOutputFile(File file) {
+    classHierarchyOutputFile = file;
+  }
+
+  public File devirtualizationReportFile() {
+    return devirtualizationReportFile;
+  }
+
+  @VisibleForTesting
+  public void setDevirtualizationReportFile(File file) {
+    devirtualizationReportFile = file;
+  }
+
+  /**
+   * The non-null summaries of other units, which also counts the nil_chk
+   * calls that summaries remove.
+   */
+  public NonnullSummary nonnullSummary() {
+    return nonnullSummary;
+  }
+
+  @VisibleForTesting
+  public void setNonnullSummary(NonnullSummary summary) {
+    nonnullSummary = summary;
+  }
+
+  public File nonnullSummaryFile() {
+    return nonnullSummaryFile;
+  }
+
+  public File nonnullSummaryOutputFile() {
+    return nonnullSummaryOutputFile;
+  }
+
+  @VisibleForTesting
+  public void setNonnullSummaryOutputFile(File file) {
+    nonnullSummaryOutputFile = file;
+  }
+
   public boolean dumpAST() {
     return dumpAST;
   }
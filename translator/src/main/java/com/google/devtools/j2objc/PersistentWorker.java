@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.devtools.j2objc.util.ErrorSink;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs j2objc as a persistent worker, which translates one request after
+ * another in the same JVM. This avoids paying for JVM startup, class loading
+ * and JIT warm-up, and for loading the JRE and header mappings, on every
+ * invocation.
+ * <p>
+ * Requests and responses use the Bazel persistent worker protocol: each is a
+ * WorkRequest or WorkResponse protocol buffer, prefixed with its length as a
+ * varint. Only the fields used by j2objc are decoded, so the worker doesn't
+ * need a protobuf runtime.
+ * <p>
+ * Each request is translated with new {@link Options} and its own
+ * {@link ErrorSink}, whose output is returned in the response.
+ */
+class PersistentWorker {
+
+  static final String PERSISTENT_WORKER_FLAG = "--persistent_worker";
+
+  // WorkRequest fields.
+  private static final int REQUEST_ARGUMENTS = 1;
+  private static final int REQUEST_ID = 3;
+
+  // WorkResponse fields.
+  private static final int RESPONSE_EXIT_CODE = 1;
+  private static final int RESPONSE_OUTPUT = 2;
+  private static final int RESPONSE_REQUEST_ID = 3;
+
+  private static final int WIRETYPE_VARINT = 0;
+  private static final int WIRETYPE_FIXED64 = 1;
+  private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+  private static final int WIRETYPE_FIXED32 = 5;
+
+  private PersistentWorker() {}
+
+  /**
+   * Processes requests until the input is closed. Anything the translator
+   * prints to System.out is redirected to System.err, since System.out
+   * carries the responses.
+   */
+  static void run(InputStream in, PrintStream out) throws IOException {
+    System.setOut(System.err);
+    WorkRequest request;
+    while ((request = readRequest(in)) != null) {
+      WorkResponse response = processRequest(request);
+      writeResponse(response, out);
+      out.flush();
+    }
+  }
+
+  @VisibleForTesting
+  static WorkResponse processRequest(WorkRequest request) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream outputStream = new PrintStream(output, true);
+    ErrorSink errorSink = new ErrorSink();
+    errorSink.setErrorStream(outputStream);
+    Options options = new Options();
+    options.setErrorSink(errorSink);
+    // Clear the process-wide state a previous request may have set.
+    Options.setProGuardUsageFile(null);
+    try {
+      List<String> files = options.load(request.arguments.toArray(new String[0]));
+      if (files.isEmpty()) {
+        errorSink.error("no source files");
+      } else if (errorSink.errorCount() == 0) {
+        J2ObjC.run(files, options);
+      }
+    } catch (Options.UsageException e) {
+      // An invalid command line, or a request for help or the version.
+      outputStream.println(e.getMessage());
+      outputStream.flush();
+      return new WorkResponse(request.requestId, e.getExitCode(),
+          new String(output.toByteArray(), StandardCharsets.UTF_8));
+    } catch (IOException | RuntimeException e) {
+      e.printStackTrace(outputStream);
+      errorSink.error(e.toString());
+    }
+    int exitCode = errorSink.errorCount();
+    if (options.treatWarningsAsErrors()) {
+      exitCode += errorSink.warningCount();
+    }
+    outputStream.flush();
+    return new WorkResponse(
+        request.requestId, exitCode, new String(output.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * The WorkRequest fields j2objc uses.
+   */
+  @VisibleForTesting
+  static class WorkRequest {
+    final List<String> arguments = new ArrayList<>();
+    int requestId;
+  }
+
+  /**
+   * The WorkResponse fields j2objc sets.
+   */
+  @VisibleForTesting
+  static class WorkResponse {
+    final int requestId;
+    final int exitCode;
+    final String output;
+
+    WorkResponse(int requestId, int exitCode, String output) {
+      this.requestId = requestId;
+      this.exitCode = exitCode;
+      this.output = output;
+    }
+  }
+
+  /**
+   * Reads the next length-prefixed request, or returns null at the end of the
+   * input.
+   */
+  @VisibleForTesting
+  static WorkRequest readRequest(InputStream in) throws IOException {
+    int first = in.read();
+    if (first == -1) {
+      return null;
+    }
+    int length = (int) readVarint(in, first);
+    byte[] bytes = new byte[length];
+    int offset = 0;
+    while (offset < length) {
+      int n = in.read(bytes, offset, length - offset);
+      if (n == -1) {
+        throw new EOFException("truncated work request");
+      }
+      offset += n;
+    }
+    return parseRequest(bytes);
+  }
+
+  private static WorkRequest parseRequest(byte[] bytes) throws IOException {
+    WorkRequest request = new WorkRequest();
+    Reader reader = new Reader(bytes);
+    while (!reader.atEnd()) {
+      long tag = reader.readVarint();
+      int field = (int) (tag >>> 3);
+      int wireType = (int) (tag & 7);
+      if (field == REQUEST_ARGUMENTS && wireType == WIRETYPE_LENGTH_DELIMITED) {
+        request.arguments.add(new String(reader.readBytes(), StandardCharsets.UTF_8));
+      } else if (field == REQUEST_ID && wireType == WIRETYPE_VARINT) {
+        request.requestId = (int) reader.readVarint();
+      } else {
+        reader.skip(wireType);
+      }
+    }
+    return request;
+  }
+
+  @VisibleForTesting
+  static void writeResponse(WorkResponse response, OutputStream out) throws IOException {
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    if (response.exitCode != 0) {
+      writeVarint(message, (RESPONSE_EXIT_CODE << 3) | WIRETYPE_VARINT);
+      writeVarint(message, response.exitCode);
+    }
+    if (!response.output.isEmpty()) {
+      byte[] output = response.output.getBytes(StandardCharsets.UTF_8);
+      writeVarint(message, (RESPONSE_OUTPUT << 3) | WIRETYPE_LENGTH_DELIMITED);
+      writeVarint(message, output.length);
+      message.write(output);
+    }
+    if (response.requestId != 0) {
+      writeVarint(message, (RESPONSE_REQUEST_ID << 3) | WIRETYPE_VARINT);
+      writeVarint(message, response.requestId);
+    }
+    writeVarint(out, message.size());
+    message.writeTo(out);
+  }
+
+  private static long readVarint(InputStream in, int first) throws IOException {
+    long result = 0;
+    int shift = 0;
+    int b = first;
+    while (true) {
+      if (b == -1) {
+        throw new EOFException("truncated varint");
+      }
+      result |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+      shift += 7;
+      b = in.read();
+    }
+  }
+
+  private static void writeVarint(OutputStream out, long value) throws IOException {
+    // Negative int32 values are sign-extended to ten bytes, as protobuf does.
+    while ((value & ~0x7fL) != 0) {
+      out.write((int) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  /**
+   * Decodes a serialized message held in memory.
+   */
+  private static class Reader {
+    private final byte[] bytes;
+    private int pos = 0;
+
+    private Reader(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    private boolean atEnd() {
+      return pos >= bytes.length;
+    }
+
+    private int next() throws IOException {
+      if (pos >= bytes.length) {
+        throw new EOFException("truncated work request");
+      }
+      return bytes[pos++] & 0xff;
+    }
+
+    private long readVarint() throws IOException {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = next();
+        result |= (long) (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw new IOException("malformed varint in work request");
+    }
+
+    private byte[] readBytes() throws IOException {
+      int length = (int) readVarint();
+      if (length < 0 || pos + length > bytes.length) {
+        throw new EOFException("truncated work request");
+      }
+      byte[] result = new byte[length];
+      System.arraycopy(bytes, pos, result, 0, length);
+      pos += length;
+      return result;
+    }
+
+    private void skip(int wireType) throws IOException {
+      switch (wireType) {
+        case WIRETYPE_VARINT:
+          readVarint();
+          break;
+        case WIRETYPE_FIXED64:
+          pos += 8;
+          break;
+        case WIRETYPE_LENGTH_DELIMITED:
+          readBytes();
+          break;
+        case WIRETYPE_FIXED32:
+          pos += 4;
+          break;
+        default:
+          throw new IOException("unsupported wire type in work request: " + wireType);
+      }
+    }
+  }
+}
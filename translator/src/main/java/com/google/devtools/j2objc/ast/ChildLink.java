@@ -18,7 +18,7 @@ package com.google.devtools.j2objc.ast;
  * A link between a parent and child node that allows for efficient swapping of
  * nodes and handles reparenting of the old and new node when setting a child.
  */
-class ChildLink<T extends TreeNode> {
+class ChildLink<T extends TreeNode> implements ChildOwner {
 
   private final Class<T> childType;
   private final TreeNode parent;
@@ -33,6 +33,7 @@ class ChildLink<T extends TreeNode> {
     return new ChildLink<T>(childType, parent);
   }
 
+  @Override
   public TreeNode getParent() {
     return parent;
   }
@@ -54,10 +55,18 @@ class ChildLink<T extends TreeNode> {
     child = newChild;
   }
 
-  public void remove() {
+  @Override
+  public void removeChild(TreeNode oldChild) {
+    assert oldChild == child;
     set(null);
   }
 
+  @Override
+  public void replaceChild(TreeNode oldChild, TreeNode newChild) {
+    assert oldChild == child;
+    setDynamic(newChild);
+  }
+
   @SuppressWarnings("unchecked")
   public void setDynamic(TreeNode newChild) {
     assert newChild == null || childType.isInstance(newChild)
@@ -15,18 +15,30 @@
 package com.google.devtools.j2objc.ast;
 
 import java.util.AbstractList;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * List type for lists of child nodes. Nodes added or removed from a ChildList
  * are reparented appropriately.
+ * <p>
+ * The list is the owner of its children, and stores them in an array, so a
+ * child doesn't need a link object of its own. Each child records its index
+ * as a hint for remove() and replaceWith(), which otherwise search the list.
  */
-class ChildList<T extends TreeNode> extends AbstractList<T> {
+class ChildList<T extends TreeNode> extends AbstractList<T> implements ChildOwner {
+
+  // Shared by all empty lists.
+  private static final TreeNode[] EMPTY = new TreeNode[0];
 
   private final Class<T> childType;
   private final TreeNode parent;
-  private ArrayListImpl<ChildLink<T>> delegate = new ArrayListImpl<>();
+  private TreeNode[] children = EMPTY;
+  private int size = 0;
+
+  // The array being iterated by accept(), or null. It is copied before
+  // children are inserted or removed, so that the iteration isn't affected.
+  private TreeNode[] iterated = null;
 
   public ChildList(Class<T> childType, TreeNode parent) {
     this.childType = childType;
@@ -38,38 +50,111 @@ class ChildList<T extends TreeNode> extends AbstractList<T> {
   }
 
   @Override
+  public TreeNode getParent() {
+    return parent;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
   public T get(int index) {
-    return delegate.get(index).get();
+    checkIndex(index, size);
+    return (T) children[index];
   }
 
   @Override
   public int size() {
-    return delegate.size();
+    return size;
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public T set(int index, T node) {
-    ChildLink<T> link = delegate.get(index);
-    T oldNode = link.get();
-    link.set(node);
+    checkIndex(index, size);
+    T oldNode = (T) children[index];
+    if (oldNode == node) {
+      return oldNode;
+    }
+    if (oldNode != null) {
+      oldNode.setOwner(null);
+    }
+    if (node != null) {
+      node.setOwner(this);
+      node.setOwnerIndex(index);
+    }
+    children[index] = node;
+    if (iterated != null && iterated != children) {
+      // An iteration that started before the list was copied visits the new node.
+      for (int i = 0; i < iterated.length; i++) {
+        if (iterated[i] == oldNode) {
+          iterated[i] = node;
+          break;
+        }
+      }
+    }
     return oldNode;
   }
 
   @Override
   public void add(int index, T node) {
-    ChildLink<T> link = new Link(childType, parent);
-    link.set(node);
-    modifiableDelegate().add(index, link);
+    checkIndex(index, size + 1);
+    if (size == children.length || children == iterated) {
+      int capacity = size == children.length ? size + (size >> 1) + 1 : children.length;
+      TreeNode[] newChildren = new TreeNode[capacity];
+      System.arraycopy(children, 0, newChildren, 0, index);
+      System.arraycopy(children, index, newChildren, index + 1, size - index);
+      children = newChildren;
+    } else {
+      System.arraycopy(children, index, children, index + 1, size - index);
+    }
+    children[index] = node;
+    size++;
+    if (node != null) {
+      node.setOwner(this);
+      node.setOwnerIndex(index);
+    }
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public T remove(int index) {
-    ChildLink<T> link = modifiableDelegate().remove(index);
-    T node = link.get();
-    link.set(null);
+    checkIndex(index, size);
+    T node = (T) children[index];
+    if (children == iterated) {
+      children = children.clone();
+    }
+    System.arraycopy(children, index + 1, children, index, size - index - 1);
+    children[--size] = null;
+    if (node != null) {
+      node.setOwner(null);
+    }
     return node;
   }
 
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      if (children[i] != null) {
+        children[i].setOwner(null);
+      }
+    }
+    children = EMPTY;
+    size = 0;
+  }
+
+  @Override
+  public void removeChild(TreeNode child) {
+    remove(indexOfChild(child));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void replaceChild(TreeNode child, TreeNode newChild) {
+    assert newChild == null || childType.isInstance(newChild)
+        : "Cannot assign node of type " + newChild.getClass().getName() + " to child of type "
+            + childType.getName();
+    set(indexOfChild(child), (T) newChild);
+  }
+
   @SuppressWarnings("unchecked")
   public void copyFrom(List<T> other) {
     for (T elem : other) {
@@ -82,71 +167,58 @@ class ChildList<T extends TreeNode> extends AbstractList<T> {
     addAll(other);
   }
 
-  public void accept(TreeVisitor visitor) {
-    if (!delegate.isEmpty()) {
-      ArrayListImpl<ChildLink<T>> childLinks = delegate;
-      childLinks.incrementCount();
-      for (ChildLink<?> link : childLinks) {
-        link.accept(visitor);
-      }
-      childLinks.decrementCount();
-    }
-  }
-
-  @Override
-  public String toString() {
-    return delegate.toString();
-  }
-
   /**
-   * Returns an ArrayListImpl that is safe to modify. If delegate.count does not equal to zero,
-   * returns a copy of delegate.
+   * Visits the children that were in the list when the visit started.
+   * Children removed by an earlier child's visit are skipped, nodes set in a
+   * child's place are visited, and inserted nodes aren't visited. A child
+   * that is removed and added back to this list is visited at its old
+   * position, not its new one.
    */
-  private ArrayListImpl<ChildLink<T>> modifiableDelegate() {
-    if (delegate.getCount() != 0) {
-      delegate = new ArrayListImpl<>(delegate);
-    }
-    return delegate;
-  }
-
-  private class Link extends ChildLink<T> {
-
-    public Link(Class<T> childType, TreeNode parent) {
-      super(childType, parent);
+  public void accept(TreeVisitor visitor) {
+    if (size == 0) {
+      return;
     }
-
-    @Override
-    public void remove() {
-      super.remove();
-      modifiableDelegate().remove(this);
+    TreeNode[] previous = iterated;
+    TreeNode[] nodes = children;
+    int count = size;
+    iterated = nodes;
+    try {
+      for (int i = 0; i < count; i++) {
+        TreeNode child = nodes[i];
+        // Skip children that were removed by an earlier child's visit.
+        if (child != null && child.getOwner() == this) {
+          child.accept(visitor);
+        }
+      }
+    } finally {
+      iterated = previous;
     }
   }
 
   /**
-   * Mutation-safe ArrayList. Increment count before iterating through the list and decrement count
-   * after iteration is complete. If count equals to zero, it's safe to mutate the list.
+   * Returns a child's index, searching outwards from its index hint, since a
+   * child is usually near where it was added.
    */
-  private static class ArrayListImpl<T> extends ArrayList<T> {
-    private int count = 0;
-
-    public ArrayListImpl() {
-      super();
-    }
-
-    public ArrayListImpl(ArrayListImpl<T> list) {
-      super(list);
-    }
-
-    public int getCount() {
-      return count;
-    }
-
-    public void incrementCount() {
-      ++count;
+  int indexOfChild(TreeNode child) {
+    int hint = Math.min(child.getOwnerIndex(), size - 1);
+    for (int distance = 0; distance < size; distance++) {
+      int before = hint - distance;
+      if (before >= 0 && children[before] == child) {
+        child.setOwnerIndex(before);
+        return before;
+      }
+      int after = hint + distance;
+      if (after < size && children[after] == child) {
+        child.setOwnerIndex(after);
+        return after;
+      }
     }
+    throw new AssertionError("Node isn't a child of its owner: " + child);
+  }
 
-    public void decrementCount() {
-      --count;
+  private void checkIndex(int index, int limit) {
+    if (index < 0 || index >= limit) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
     }
   }
 }
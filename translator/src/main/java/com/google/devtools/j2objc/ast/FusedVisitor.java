@@ -0,0 +1,1103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.ast;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * Runs several visitors in one traversal. Each node is given to the visitors
+ * in order, so each visitor's visit() and endVisit() of a node run after the
+ * earlier visitors' ones, and each visitor sees the nodes it would see on its
+ * own: a visitor whose preVisit() or visit() returns false skips the node's
+ * children, while the other visitors continue into them.
+ * <p>
+ * When a visitor replaces or removes the node it is visiting in preVisit() or
+ * visit(), the later visitors visit the node that replaced it instead, like
+ * they would if they ran after it. The visitors before it still continue into
+ * the node's children, so only the first visitor should do that.
+ * <p>
+ * If every visitor declares the kinds it handles, subtrees that contain none
+ * of them are skipped.
+ */
+public class FusedVisitor extends TreeVisitor {
+
+  // How a visitor is stopped at a node.
+  private static final byte SKIP_CHILDREN = 0;  // visit() returned false.
+  private static final byte SKIP_NODE = 1;  // preVisit() returned false.
+  private static final byte DETACHED = 2;  // The node was replaced or removed.
+
+  private final TreeVisitor[] visitors;
+
+  // For each visitor, the node below which it is stopped, or null.
+  private final TreeNode[] stoppedAt;
+  private final byte[] stopModes;
+
+  // Where the last node given to preVisit() was, to find what replaced it.
+  private TreeNode current;
+  private ChildOwner currentOwner;
+  private int currentIndex;
+  private TreeNode currentNext;
+
+  public FusedVisitor(List<? extends TreeVisitor> visitors) {
+    super(handledKinds(visitors));
+    this.visitors = visitors.toArray(new TreeVisitor[0]);
+    stoppedAt = new TreeNode[this.visitors.length];
+    stopModes = new byte[this.visitors.length];
+  }
+
+  private static Set<TreeNode.Kind> handledKinds(List<? extends TreeVisitor> visitors) {
+    Set<TreeNode.Kind> kinds = EnumSet.noneOf(TreeNode.Kind.class);
+    for (TreeVisitor visitor : visitors) {
+      if (visitor.handledKinds == null) {
+        return null;
+      }
+      kinds.addAll(visitor.handledKinds);
+    }
+    return kinds;
+  }
+
+  @Override
+  public boolean preVisit(TreeNode node) {
+    recordPosition(node);
+    boolean visiting = false;
+    for (int i = 0; i < visitors.length; i++) {
+      if (stoppedAt[i] == null) {
+        if (!visitors[i].preVisit(node)) {
+          stop(i, node, SKIP_NODE);
+        }
+        visiting |= stoppedAt[i] == null;
+        if (node.getOwner() != currentOwner) {
+          visitReplacement(i, node);
+          break;
+        }
+      }
+    }
+    return visiting;
+  }
+
+  @Override
+  public void postVisit(TreeNode node) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (stoppedAt[i] == null) {
+        visitors[i].postVisit(node);
+      } else if (stoppedAt[i] == node) {
+        stoppedAt[i] = null;
+        if (stopModes[i] == SKIP_NODE) {
+          visitors[i].postVisit(node);
+        }
+      }
+    }
+  }
+
+  private <T extends TreeNode> boolean dispatchVisit(T node, BiPredicate<TreeVisitor, T> visit) {
+    boolean visiting = false;
+    for (int i = 0; i < visitors.length; i++) {
+      if (stoppedAt[i] == null) {
+        if (!visit.test(visitors[i], node)) {
+          stop(i, node, SKIP_CHILDREN);
+        }
+        visiting |= stoppedAt[i] == null;
+        if (node == current && node.getOwner() != currentOwner) {
+          visitReplacement(i, node);
+          break;
+        }
+      }
+    }
+    return visiting;
+  }
+
+  private <T extends TreeNode> void dispatchEndVisit(T node, BiConsumer<TreeVisitor, T> endVisit) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (stoppedAt[i] == null
+          || (stoppedAt[i] == node && stopModes[i] == SKIP_CHILDREN)) {
+        stoppedAt[i] = null;
+        endVisit.accept(visitors[i], node);
+      }
+    }
+  }
+
+  private void stop(int i, TreeNode node, byte mode) {
+    stoppedAt[i] = node;
+    stopModes[i] = mode;
+  }
+
+  private void recordPosition(TreeNode node) {
+    current = node;
+    currentOwner = node.getOwner();
+    currentNext = null;
+    if (currentOwner instanceof ChildList) {
+      ChildList<?> list = (ChildList<?>) currentOwner;
+      currentIndex = list.indexOfChild(node);
+      if (currentIndex + 1 < list.size()) {
+        currentNext = list.get(currentIndex + 1);
+      }
+    }
+  }
+
+  /**
+   * Called when visitor i replaced or removed the node it was visiting. The
+   * visitors after it visit the replacement, if any, instead of the node.
+   */
+  private void visitReplacement(int i, TreeNode node) {
+    List<TreeVisitor> later = new ArrayList<>();
+    for (int j = i + 1; j < visitors.length; j++) {
+      if (stoppedAt[j] == null) {
+        later.add(visitors[j]);
+        stop(j, node, DETACHED);
+      }
+    }
+    TreeNode replacement = findReplacement();
+    if (replacement != null && !later.isEmpty()) {
+      replacement.accept(later.size() == 1 ? later.get(0) : new FusedVisitor(later));
+    }
+  }
+
+  private TreeNode findReplacement() {
+    if (currentOwner instanceof ChildLink) {
+      return ((ChildLink<?>) currentOwner).get();
+    } else if (currentOwner instanceof ChildList) {
+      ChildList<?> list = (ChildList<?>) currentOwner;
+      if (currentIndex < list.size() && list.get(currentIndex) != currentNext) {
+        return list.get(currentIndex);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean visit(AnnotationTypeDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(AnnotationTypeDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(AnnotationTypeMemberDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(AnnotationTypeMemberDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ArrayAccess node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ArrayAccess node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ArrayCreation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ArrayCreation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ArrayInitializer node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ArrayInitializer node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ArrayType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ArrayType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(AssertStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(AssertStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(Assignment node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(Assignment node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(Block node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(Block node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(BlockComment node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(BlockComment node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(BooleanLiteral node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(BooleanLiteral node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(BreakStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(BreakStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(CStringLiteral node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(CStringLiteral node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(CastExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(CastExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(CatchClause node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(CatchClause node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(CharacterLiteral node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(CharacterLiteral node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ClassInstanceCreation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ClassInstanceCreation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(CommaExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(CommaExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(CompilationUnit node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(CompilationUnit node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ConditionalExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ConditionalExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ConstructorInvocation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ConstructorInvocation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ContinueStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ContinueStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(CreationReference node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(CreationReference node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(DoStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(DoStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(Dimension node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(Dimension node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(EmptyStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(EmptyStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(EnhancedForStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(EnhancedForStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(EnumConstantDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(EnumConstantDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(EnumDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(EnumDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ExpressionMethodReference node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ExpressionMethodReference node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ExpressionStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ExpressionStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(FieldAccess node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(FieldAccess node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(FieldDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(FieldDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ForStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ForStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(FunctionDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(FunctionDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(FunctionInvocation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(FunctionInvocation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(IfStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(IfStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(InfixExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(InfixExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(Initializer node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(Initializer node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(InstanceofExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(InstanceofExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(IntersectionType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(IntersectionType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(Javadoc node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(Javadoc node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(LabeledStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(LabeledStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(LambdaExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(LambdaExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(LineComment node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(LineComment node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(MarkerAnnotation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(MarkerAnnotation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(MemberValuePair node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(MemberValuePair node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(MethodDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(MethodDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(MethodInvocation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(MethodInvocation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(NameQualifiedType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(NameQualifiedType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(NativeDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(NativeDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(NativeExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(NativeExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(NativeStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(NativeStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(NormalAnnotation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(NormalAnnotation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(NullLiteral node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(NullLiteral node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(NumberLiteral node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(NumberLiteral node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(PackageDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(PackageDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ParameterizedType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ParameterizedType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ParenthesizedExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ParenthesizedExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(PostfixExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(PostfixExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(PrefixExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(PrefixExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(PrimitiveType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(PrimitiveType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(PropertyAnnotation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(PropertyAnnotation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(QualifiedName node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(QualifiedName node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(QualifiedType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(QualifiedType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ReturnStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ReturnStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SimpleName node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SimpleName node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SimpleType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SimpleType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SingleMemberAnnotation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SingleMemberAnnotation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SingleVariableDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SingleVariableDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(StringLiteral node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(StringLiteral node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SuperConstructorInvocation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SuperConstructorInvocation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SuperMethodInvocation node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SuperMethodInvocation node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SuperMethodReference node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SuperMethodReference node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SuperFieldAccess node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SuperFieldAccess node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SwitchCase node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SwitchCase node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SwitchStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SwitchStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(SynchronizedStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(SynchronizedStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(TagElement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(TagElement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(TextElement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(TextElement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ThisExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ThisExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(ThrowStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(ThrowStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(TryStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(TryStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(TypeDeclaration node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(TypeDeclaration node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(TypeDeclarationStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(TypeDeclarationStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(TypeLiteral node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(TypeLiteral node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(TypeMethodReference node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(TypeMethodReference node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(UnionType node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(UnionType node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(VariableDeclarationExpression node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(VariableDeclarationExpression node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(VariableDeclarationFragment node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(VariableDeclarationFragment node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(VariableDeclarationStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(VariableDeclarationStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+
+  @Override
+  public boolean visit(WhileStatement node) {
+    return dispatchVisit(node, (v, n) -> v.visit(n));
+  }
+
+  @Override
+  public void endVisit(WhileStatement node) {
+    dispatchEndVisit(node, (v, n) -> v.endVisit(n));
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.ast;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * For each kind of node, the kinds of the nodes that can be in its subtree.
+ * The table is built from the types of each node class's child links and
+ * lists, and lets visitors that only handle a few kinds skip the subtrees that
+ * can't contain any of them.
+ * <p>
+ * Two language rules narrow the child types. Annotation members are constant
+ * expressions, so they can't contain class bodies or lambdas, and doc
+ * comments only contain tags, text and names.
+ */
+final class SubtreeKinds {
+
+  private static final Map<Class<?>, TreeNode.Kind> CLASS_KINDS = new HashMap<>();
+  private static final Map<TreeNode.Kind, Set<TreeNode.Kind>> SUBTREES =
+      new EnumMap<>(TreeNode.Kind.class);
+
+  // The visitors' skipped kinds, by their handled kinds.
+  private static final Map<Set<TreeNode.Kind>, boolean[]> SKIPPED_KINDS =
+      new ConcurrentHashMap<>();
+
+  private static final Set<TreeNode.Kind> TAG_FRAGMENTS = EnumSet.of(
+      TreeNode.Kind.TAG_ELEMENT, TreeNode.Kind.TEXT_ELEMENT, TreeNode.Kind.SIMPLE_NAME,
+      TreeNode.Kind.QUALIFIED_NAME);
+
+  // The kinds that can't be in annotation members.
+  private static final Set<TreeNode.Kind> NON_CONSTANT_KINDS = EnumSet.of(
+      TreeNode.Kind.CLASS_INSTANCE_CREATION, TreeNode.Kind.LAMBDA_EXPRESSION);
+
+  // Annotations and the nodes whose members are constant expressions.
+  private static final Set<TreeNode.Kind> CONSTANT_KINDS = EnumSet.noneOf(TreeNode.Kind.class);
+
+  static {
+    for (TreeNode.Kind kind : TreeNode.Kind.values()) {
+      Class<?> nodeClass = nodeClass(kind);
+      CLASS_KINDS.put(nodeClass, kind);
+      if (Annotation.class.isAssignableFrom(nodeClass) || nodeClass == MemberValuePair.class
+          || nodeClass == AnnotationTypeMemberDeclaration.class) {
+        CONSTANT_KINDS.add(kind);
+      }
+    }
+    Map<TreeNode.Kind, Set<TreeNode.Kind>> children = new EnumMap<>(TreeNode.Kind.class);
+    for (Map.Entry<Class<?>, TreeNode.Kind> entry : CLASS_KINDS.entrySet()) {
+      children.put(entry.getValue(), childKinds(entry.getKey()));
+    }
+    children.put(TreeNode.Kind.TAG_ELEMENT, TAG_FRAGMENTS);
+    for (TreeNode.Kind kind : TreeNode.Kind.values()) {
+      Set<TreeNode.Kind> subtree = EnumSet.noneOf(TreeNode.Kind.class);
+      addSubtree(kind, CONSTANT_KINDS.contains(kind), children, subtree,
+          EnumSet.noneOf(TreeNode.Kind.class), EnumSet.noneOf(TreeNode.Kind.class));
+      SUBTREES.put(kind, subtree);
+    }
+  }
+
+  private SubtreeKinds() {}
+
+  /**
+   * Returns the kind of a node class, or null if it is abstract or isn't a
+   * node class.
+   */
+  static TreeNode.Kind getKind(Class<?> nodeClass) {
+    return CLASS_KINDS.get(nodeClass);
+  }
+
+  /**
+   * Returns the kinds of the nodes that can be in the subtree of a node of the
+   * given kind, not counting the node itself.
+   */
+  static Set<TreeNode.Kind> getSubtreeKinds(TreeNode.Kind kind) {
+    return SUBTREES.get(kind);
+  }
+
+  /**
+   * Returns, indexed by kind ordinal, whether a node of each kind and its
+   * subtree contain none of the given kinds.
+   */
+  static boolean[] getSkippedKinds(Set<TreeNode.Kind> handledKinds) {
+    boolean[] skipped = SKIPPED_KINDS.get(handledKinds);
+    if (skipped == null) {
+      skipped = new boolean[TreeNode.Kind.values().length];
+      for (TreeNode.Kind kind : TreeNode.Kind.values()) {
+        if (!handledKinds.contains(kind)) {
+          Set<TreeNode.Kind> subtree = EnumSet.copyOf(handledKinds);
+          subtree.retainAll(SUBTREES.get(kind));
+          skipped[kind.ordinal()] = subtree.isEmpty();
+        }
+      }
+      SKIPPED_KINDS.put(handledKinds, skipped);
+    }
+    return skipped;
+  }
+
+  private static Class<?> nodeClass(TreeNode.Kind kind) {
+    StringBuilder name = new StringBuilder(SubtreeKinds.class.getPackage().getName()).append('.');
+    for (String word : kind.name().split("_")) {
+      name.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+    }
+    try {
+      return Class.forName(name.toString());
+    } catch (ClassNotFoundException e) {
+      throw new AssertionError("No node class for " + kind, e);
+    }
+  }
+
+  /**
+   * Returns the kinds that can be children of a node class, from the types of
+   * its child links and lists.
+   */
+  private static Set<TreeNode.Kind> childKinds(Class<?> nodeClass) {
+    Set<TreeNode.Kind> kinds = EnumSet.noneOf(TreeNode.Kind.class);
+    for (Class<?> c = nodeClass; c != TreeNode.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers())
+            || (field.getType() != ChildLink.class && field.getType() != ChildList.class)) {
+          continue;
+        }
+        Type childType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        for (Map.Entry<Class<?>, TreeNode.Kind> entry : CLASS_KINDS.entrySet()) {
+          if (((Class<?>) childType).isAssignableFrom(entry.getKey())) {
+            kinds.add(entry.getValue());
+          }
+        }
+      }
+    }
+    return kinds;
+  }
+
+  /**
+   * Adds the kinds below a node of the given kind to subtree. Below a constant
+   * node, only the kinds that can be in constant expressions are followed.
+   */
+  private static void addSubtree(
+      TreeNode.Kind kind, boolean constant, Map<TreeNode.Kind, Set<TreeNode.Kind>> children,
+      Set<TreeNode.Kind> subtree, Set<TreeNode.Kind> seen, Set<TreeNode.Kind> seenConstant) {
+    if (!(constant ? seenConstant : seen).add(kind)) {
+      return;
+    }
+    for (TreeNode.Kind child : children.get(kind)) {
+      boolean childConstant = constant || CONSTANT_KINDS.contains(child);
+      if (!childConstant || !NON_CONSTANT_KINDS.contains(child)) {
+        subtree.add(child);
+        addSubtree(child, childConstant, children, subtree, seen, seenConstant);
+      }
+    }
+  }
+}
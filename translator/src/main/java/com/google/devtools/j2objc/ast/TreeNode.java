@@ -19,7 +19,10 @@ package com.google.devtools.j2objc.ast;
  */
 public abstract class TreeNode {
 
-  private ChildLink<? extends TreeNode> owner = null;
+  private ChildOwner owner = null;
+  // The node's index when its owner is a ChildList. Inserting or removing a
+  // sibling doesn't update it, so it's only where the list looks first.
+  private int ownerIndex = 0;
   private int startPosition = -1;
   private int length = 0;
   private int lineNumber = -1;
@@ -39,20 +42,32 @@ public abstract class TreeNode {
     return owner == null ? null : owner.getParent();
   }
 
-  /* package */ void setOwner(ChildLink<? extends TreeNode> newOwner) {
+  /* package */ ChildOwner getOwner() {
+    return owner;
+  }
+
+  /* package */ void setOwner(ChildOwner newOwner) {
     assert owner == null || newOwner == null : "Node is already parented";
     owner = newOwner;
   }
 
+  /* package */ int getOwnerIndex() {
+    return ownerIndex;
+  }
+
+  /* package */ void setOwnerIndex(int index) {
+    ownerIndex = index;
+  }
+
   public void remove() {
     if (owner != null) {
-      owner.remove();
+      owner.removeChild(this);
     }
   }
 
   public void replaceWith(TreeNode other) {
     assert owner != null : "Can't replace a parentless node.";
-    owner.setDynamic(other);
+    owner.replaceChild(this, other);
   }
 
   public final int getStartPosition() {
@@ -77,6 +92,10 @@ public abstract class TreeNode {
   }
 
   public final void accept(TreeVisitor visitor) {
+    boolean[] skippedKinds = visitor.skippedKinds;
+    if (skippedKinds != null && skippedKinds[getKind().ordinal()]) {
+      return;
+    }
     try {
       if (visitor.preVisit(this)) {
         acceptInner(visitor);
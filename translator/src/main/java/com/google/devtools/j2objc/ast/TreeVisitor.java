@@ -14,11 +14,81 @@
 
 package com.google.devtools.j2objc.ast;
 
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Base visitor class for the J2ObjC tree.
+ * <p>
+ * A visitor that only handles a few kinds of nodes can declare them, so that
+ * the subtrees that can't contain a node of those kinds aren't traversed.
  */
 public class TreeVisitor {
 
+  // The kinds of nodes this visitor handles, or null if it handles all kinds.
+  final Set<TreeNode.Kind> handledKinds;
+
+  // Indexed by kind ordinal, the kinds whose subtrees aren't traversed, or null.
+  final boolean[] skippedKinds;
+
+  public TreeVisitor() {
+    handledKinds = null;
+    skippedKinds = null;
+  }
+
+  /**
+   * Creates a visitor that only handles nodes of the given kinds, or every
+   * node if kinds is null. A subtree is skipped unless it can contain a node
+   * of one of the kinds, so the visitor may only override the visit() and
+   * endVisit() methods of those kinds, and not preVisit() or postVisit().
+   */
+  protected TreeVisitor(Set<TreeNode.Kind> kinds) {
+    if (kinds == null) {
+      handledKinds = null;
+      skippedKinds = null;
+      return;
+    }
+    Set<TreeNode.Kind> copy = EnumSet.noneOf(TreeNode.Kind.class);
+    copy.addAll(kinds);
+    handledKinds = Collections.unmodifiableSet(copy);
+    skippedKinds = SubtreeKinds.getSkippedKinds(handledKinds);
+    // A fused visitor dispatches every kind to the visitors it runs.
+    assert getClass() == FusedVisitor.class || overridesOnlyHandledKinds();
+  }
+
+  /**
+   * Returns the kinds of nodes this visitor handles, or null if it handles all
+   * kinds.
+   */
+  public Set<TreeNode.Kind> getHandledKinds() {
+    return handledKinds;
+  }
+
+  private boolean overridesOnlyHandledKinds() {
+    for (Class<?> c = getClass(); c != TreeVisitor.class; c = c.getSuperclass()) {
+      for (Method method : c.getDeclaredMethods()) {
+        String name = method.getName();
+        Class<?>[] params = method.getParameterTypes();
+        if (params.length != 1) {
+          continue;
+        }
+        if (name.equals("preVisit") || name.equals("postVisit")) {
+          throw new AssertionError(c.getName() + " declares its kinds and overrides " + name);
+        }
+        TreeNode.Kind kind = SubtreeKinds.getKind(params[0]);
+        if ((name.equals("visit") || name.equals("endVisit")) && kind != null
+            && !handledKinds.contains(kind)) {
+          throw new AssertionError(
+              c.getName() + " overrides " + name + "(" + params[0].getSimpleName()
+              + ") but doesn't declare " + kind);
+        }
+      }
+    }
+    return true;
+  }
+
   public boolean preVisit(TreeNode node) {
     return true;
   }
@@ -21,6 +21,7 @@ import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TranslationEnvironment;
 import com.google.devtools.j2objc.util.TranslationUtil;
 import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.Set;
 
 /**
  * A TreeVisitor that contains CompilationUnit specific state accessible by subclasses.
@@ -36,6 +37,16 @@ public class UnitTreeVisitor extends TreeVisitor {
   protected final Options options;
 
   public UnitTreeVisitor(CompilationUnit unit) {
+    this(unit, null);
+  }
+
+  /**
+   * Creates a visitor that only handles nodes of the given kinds.
+   *
+   * @see TreeVisitor#TreeVisitor(Set)
+   */
+  protected UnitTreeVisitor(CompilationUnit unit, Set<TreeNode.Kind> kinds) {
+    super(kinds);
     this.unit = unit;
     TranslationEnvironment env = unit.getEnv();
     elementUtil = env.elementUtil();
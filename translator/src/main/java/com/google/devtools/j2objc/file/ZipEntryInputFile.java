@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.j2objc.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An entry of a zip or jar file that is already open. Unlike
+ * {@link JarredInputFile}, reading it doesn't reopen the archive, so source
+ * jars can be translated in place instead of being extracted first. The
+ * archive must stay open until the entry is no longer read.
+ */
+public class ZipEntryInputFile implements InputFile {
+  private final ZipFile zipFile;
+  private final ZipEntry entry;
+
+  public ZipEntryInputFile(ZipFile zipFile, ZipEntry entry) {
+    this.zipFile = zipFile;
+    this.entry = entry;
+  }
+
+  @Override
+  public boolean exists() {
+    return true;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return zipFile.getInputStream(entry);
+  }
+
+  @Override
+  public Reader openReader(Charset charset) throws IOException {
+    return new InputStreamReader(getInputStream(), charset);
+  }
+
+  @Override
+  public String getAbsolutePath() {
+    return new File(zipFile.getName()).getAbsolutePath();
+  }
+
+  @Override
+  public String getOriginalLocation() {
+    return "jar:file:" + zipFile.getName() + "!" + entry.getName();
+  }
+
+  @Override
+  public String getUnitName() {
+    return entry.getName();
+  }
+
+  @Override
+  public String getBasename() {
+    String name = entry.getName();
+    return name.substring(name.lastIndexOf('/') + 1);
+  }
+
+  @Override
+  public long lastModified() {
+    return entry.getTime();
+  }
+
+  @Override
+  public String toString() {
+    return getOriginalLocation();
+  }
+}
@@ -158,8 +158,9 @@ public class GenerationUnit {
       // returned after the initial sources have been compiled.
       //
       // NOTE: THIS IS NOT THREADSAFE! It requires that all files in a batch
-      // be compiled and translated as a single task. When we support
-      // parallelization, each parallel task needs to be constrained this way.
+      // be compiled and translated as a single task. When translating in
+      // parallel, units with more than one input are therefore added in input
+      // order by the processing thread (see TranslationProcessor).
       assert receivedUnits == 1;
       outputPath = options.getHeaderMap().getOutputPath(unit);
     }
@@ -222,6 +223,13 @@ public class GenerationUnit {
     outputPath = sourceDir;
   }
 
+  /**
+   * Returns true if this unit is generated from a single compilation unit.
+   */
+  public boolean hasSingleInput() {
+    return numUnits == 1;
+  }
+
   public boolean isFullyParsed() {
     return receivedUnits == numUnits;
   }
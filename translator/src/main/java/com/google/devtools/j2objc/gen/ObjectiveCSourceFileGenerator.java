@@ -16,7 +16,6 @@
 
 package com.google.devtools.j2objc.gen;
 
-import com.google.common.io.Files;
 import com.google.devtools.j2objc.types.Import;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.UnicodeUtils;
@@ -100,14 +99,14 @@ public abstract class ObjectiveCSourceFileGenerator extends AbstractSourceGenera
           ErrorUtil.warning("cannot create output directory: " + outputDirectory);
         }
       }
-      String source = getBuilder().toString();
+      SourceBuilder builder = getBuilder();
 
       // Make sure file ends with a new-line.
-      if (!source.endsWith("\n")) {
-        source += '\n';
+      if (builder.length() == 0 || builder.charAt(builder.length() - 1) != '\n') {
+        builder.newline();
       }
 
-      Files.write(source, outputFile, unit.options().fileUtil().getCharset());
+      unit.options().fileUtil().writeOutputFile(builder, outputFile);
     } catch (IOException e) {
       ErrorUtil.error(e.getMessage());
     } finally {
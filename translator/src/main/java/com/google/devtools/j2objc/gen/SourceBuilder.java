@@ -25,11 +25,12 @@ import java.io.StringReader;
 
 /**
  * Builds source text.  This is similar to a StringBuilder, but tracks line
- * numbers and outputs them as CPP line directives when directed.
+ * numbers and outputs them as CPP line directives when directed.  As a
+ * CharSequence it can be written without copying the text to a String.
  *
  * @author Tom Ball
  */
-public class SourceBuilder {
+public class SourceBuilder implements CharSequence {
   private final StringBuilder buffer = new StringBuilder();
   private String currentFile;
   private int indention = 0;
@@ -151,14 +152,21 @@ public class SourceBuilder {
     return this;
   }
 
+  @Override
   public char charAt(int i) {
     return buffer.charAt(i);
   }
 
+  @Override
   public int length() {
     return buffer.length();
   }
 
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return buffer.subSequence(start, end);
+  }
+
   public String substring(int start, int end) {
     return buffer.substring(start, end);
   }
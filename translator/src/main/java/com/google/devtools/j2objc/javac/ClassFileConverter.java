@@ -53,7 +53,6 @@ import com.strobel.decompiler.languages.java.ast.ParameterDeclaration;
 import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.code.Symbol.PackageSymbol;
 import java.io.File;
-import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -72,7 +71,6 @@ import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.ExecutableType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
-import javax.tools.StandardLocation;
 
 /**
  * Converts a JVM classfile into a CompilationUnit. The resulting unit
@@ -93,43 +91,40 @@ public class ClassFileConverter {
   private final String typeName;
 
   public static CompilationUnit convertClassFile(
-      Options options, JavacEnvironment env, InputFile file) {
-    try {
-      env.saveParameterNames();
-      ClassFileConverter converter = new ClassFileConverter(
-          env, new TranslationEnvironment(options, env), file);
-      converter.setClassPath();
-      return converter.createUnit();
-    } catch (IOException e) {
-      ErrorUtil.error(e.getMessage());
-      return null;
-    }
+      Options options, JavacEnvironment env, InputFile file, ClassFile classFile) {
+    env.saveParameterNames();
+    ClassFileConverter converter = new ClassFileConverter(
+        env, new TranslationEnvironment(options, env), file, classFile);
+    return converter.createUnit();
   }
 
   private ClassFileConverter(JavacEnvironment parserEnv, TranslationEnvironment translationEnv,
-      InputFile file) throws IOException {
+      InputFile file, ClassFile classFile) {
     this.parserEnv = parserEnv;
     this.translationEnv = translationEnv;
     this.file = file;
-    this.classFile = ClassFile.create(file);
+    this.classFile = classFile;
     this.typeName = classFile.getFullName();
   }
 
   /**
-   * Set classpath to the root path of the input file, to support typeElement lookup.
+   * Returns the class path entry a classfile is loaded from, to support
+   * typeElement lookup: the root directory of its package, or its jar.
    */
-  private void setClassPath() throws IOException {
+  public static File getClassPathRoot(InputFile file, ClassFile classFile) {
     String fullPath = file.getAbsolutePath();
-    String rootPath = fullPath.substring(0, fullPath.lastIndexOf(classFile.getRelativePath()));
-    List<File> classPath = new ArrayList<>();
-    classPath.add(new File(rootPath));
-    parserEnv.fileManager().setLocation(StandardLocation.CLASS_PATH, classPath);
+    String relativePath = classFile.getRelativePath();
+    if (!fullPath.endsWith(relativePath)) {
+      return new File(fullPath);
+    }
+    return new File(fullPath.substring(0, fullPath.length() - relativePath.length()));
   }
 
   private CompilationUnit createUnit() {
     TypeElement typeElement = parserEnv.elementUtilities().getTypeElement(typeName);
     if (typeElement == null) {
       ErrorUtil.error("Invalid class file: " + file.getOriginalLocation());
+      return null;
     }
     PackageElement pkgElement = parserEnv.elementUtilities().getPackageOf(typeElement);
     if (pkgElement == null) {
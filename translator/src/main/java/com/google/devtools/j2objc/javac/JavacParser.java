@@ -14,12 +14,15 @@
 
 package com.google.devtools.j2objc.javac;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.file.InputFile;
 import com.google.devtools.j2objc.file.RegularInputFile;
 import com.google.devtools.j2objc.pipeline.ProcessingContext;
+import com.google.devtools.j2objc.util.ClassFile;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.Parser;
@@ -32,15 +35,27 @@ import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.tree.JCTree;
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.processing.Processor;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
+import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileManager.Location;
 import javax.tools.JavaFileObject;
@@ -53,8 +68,22 @@ import javax.tools.ToolProvider;
  * @author Tom Ball
  */
 public class JavacParser extends Parser {
-  
-  private JavacFileManager fileManager; 
+
+  // All environments created by this parser share one file manager, so the
+  // class, source and boot paths are only opened and indexed once instead of
+  // once per parsed file. It is replaced when any of those paths change.
+  private JavacFileManager fileManager;
+  private List<List<String>> fileManagerPaths;
+
+  // The diagnostics of the environment created last. The shared file manager
+  // reports to this collector, so that its diagnostics are processed with the
+  // task that caused them.
+  private DiagnosticCollector<JavaFileObject> currentDiagnostics;
+
+  // File managers replaced after a path change. Compilation units created
+  // with them may still complete symbols lazily, so they are only closed
+  // when this parser is.
+  private final List<JavacFileManager> staleFileManagers = new ArrayList<>();
 
   public JavacParser(Options options){
     super(options);
@@ -74,9 +103,9 @@ public class JavacParser extends Parser {
         return parse(null, file.getUnitName(), source);
       } else {
         assert options.translateClassfiles();
-        JavacEnvironment parserEnv =
-            createEnvironment(Collections.emptyList(), Collections.emptyList(), false);
-        return ClassFileConverter.convertClassFile(options, parserEnv, file);
+        List<CompilationUnit> units = new ArrayList<>(1);
+        parseClassFiles(Collections.singletonList(file), (path, unit) -> units.add(unit));
+        return units.isEmpty() ? null : units.get(0);
       }
     } catch (IOException e) {
       ErrorUtil.error(e.getMessage());
@@ -90,7 +119,17 @@ public class JavacParser extends Parser {
       JavacEnvironment parserEnv = createEnvironment(path, source);
       JavacTaskImpl task = parserEnv.task();
       JCTree.JCCompilationUnit unit = (JCTree.JCCompilationUnit) task.parse().iterator().next();
-      task.analyze();
+      // Only attribute the parsed unit's types. analyze() with no arguments
+      // also attributes every source javac loads from the sourcepath to
+      // resolve them, which for a single file is most of its cost. Their
+      // members are still entered, which is all the translation needs.
+      List<TypeElement> types = ElementFilter.typesIn(task.enter(Collections.singletonList(unit)));
+      if (types.isEmpty()) {
+        // A package-info source.
+        task.analyze();
+      } else {
+        task.analyze(types);
+      }
       processDiagnostics(parserEnv.diagnostics());
       return TreeConverter.convertCompilationUnit(options, parserEnv, unit);
     } catch (IOException e) {
@@ -99,22 +138,57 @@ public class JavacParser extends Parser {
     return null;
   }
 
-  private JavacFileManager getFileManager(JavaCompiler compiler,
-      DiagnosticCollector<JavaFileObject> diagnostics) throws IOException {
-    fileManager = (JavacFileManager)
+  /**
+   * Returns the shared file manager, creating a new one if this is the first
+   * environment or if the paths it was configured with have since changed.
+   */
+  private JavacFileManager getFileManager(JavaCompiler compiler) throws IOException {
+    List<List<String>> paths = getFileManagerPaths();
+    if (fileManager != null) {
+      if (paths.equals(fileManagerPaths)) {
+        return fileManager;
+      }
+      staleFileManagers.add(fileManager);
+    }
+    fileManager = createFileManager(compiler, this::reportFileManagerDiagnostic);
+    fileManagerPaths = paths;
+    return fileManager;
+  }
+
+  private void reportFileManagerDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+    if (currentDiagnostics != null) {
+      currentDiagnostics.report(diagnostic);
+    } else {
+      ErrorUtil.parserDiagnostic(diagnostic);
+    }
+  }
+
+  private List<List<String>> getFileManagerPaths() {
+    List<List<String>> paths = new ArrayList<>();
+    paths.add(new ArrayList<>(classpathEntries));
+    paths.add(new ArrayList<>(sourcepathEntries));
+    paths.add(options.getBootClasspath());
+    paths.add(new ArrayList<>(options.getProcessorPathEntries()));
+    paths.add(Collections.singletonList(options.fileUtil().getOutputDirectory().getPath()));
+    return paths;
+  }
+
+  private JavacFileManager createFileManager(JavaCompiler compiler,
+      DiagnosticListener<? super JavaFileObject> diagnostics) throws IOException {
+    JavacFileManager manager = (JavacFileManager)
         compiler.getStandardFileManager(diagnostics, null, options.fileUtil().getCharset());
-    addPaths(StandardLocation.CLASS_PATH, classpathEntries, fileManager);
-    addPaths(StandardLocation.SOURCE_PATH, sourcepathEntries, fileManager);
-    addPaths(StandardLocation.PLATFORM_CLASS_PATH, options.getBootClasspath(), fileManager);
+    addPaths(StandardLocation.CLASS_PATH, classpathEntries, manager);
+    addPaths(StandardLocation.SOURCE_PATH, sourcepathEntries, manager);
+    addPaths(StandardLocation.PLATFORM_CLASS_PATH, options.getBootClasspath(), manager);
     List<String> processorPathEntries = options.getProcessorPathEntries();
     if (!processorPathEntries.isEmpty()) {
-      addPaths(StandardLocation.ANNOTATION_PROCESSOR_PATH, processorPathEntries, fileManager);
+      addPaths(StandardLocation.ANNOTATION_PROCESSOR_PATH, processorPathEntries, manager);
     }
-    fileManager.setLocation(StandardLocation.CLASS_OUTPUT,
+    manager.setLocation(StandardLocation.CLASS_OUTPUT,
         Lists.newArrayList(options.fileUtil().getOutputDirectory()));
-    fileManager.setLocation(StandardLocation.SOURCE_OUTPUT,
+    manager.setLocation(StandardLocation.SOURCE_OUTPUT,
         Lists.newArrayList(FileUtil.createTempDir("annotations")));
-    return fileManager;
+    return manager;
   }
 
   private void addPaths(Location location, List<String> paths, JavacFileManager fileManager)
@@ -167,7 +241,7 @@ public class JavacParser extends Parser {
       env.task().analyze();
       processDiagnostics(env.diagnostics());
 
-      if (ErrorUtil.errorCount() == 0) {
+      if (!hasErrors(env.diagnostics())) {
         for (CompilationUnitTree ast : units) {
           com.google.devtools.j2objc.ast.CompilationUnit unit = TreeConverter
               .convertCompilationUnit(options, env, (JCTree.JCCompilationUnit) ast);
@@ -180,6 +254,177 @@ public class JavacParser extends Parser {
     }
   }
 
+  @Override
+  public void parseInputFiles(
+      Collection<? extends InputFile> files, Handler handler, SourceVersion sourceVersion) {
+    List<InputFile> sourceFiles = new ArrayList<>(files.size());
+    List<InputFile> classFiles = new ArrayList<>();
+    for (InputFile file : files) {
+      if (file.getUnitName().endsWith(".class")) {
+        classFiles.add(file);
+      } else {
+        sourceFiles.add(file);
+      }
+    }
+    try {
+      if (!classFiles.isEmpty()) {
+        assert options.translateClassfiles();
+        parseClassFiles(classFiles, handler);
+      }
+      if (sourceFiles.isEmpty()) {
+        return;
+      }
+      // javac may wrap the file objects it's given, so they are matched by URI.
+      List<JavaFileObject> fileObjects = getFileObjects(sourceFiles);
+      Map<URI, InputFile> inputFiles = new HashMap<>();
+      Iterator<? extends InputFile> filesIter = sourceFiles.iterator();
+      for (JavaFileObject fileObject : fileObjects) {
+        inputFiles.put(fileObject.toUri(), filesIter.next());
+      }
+      JavacEnvironment env = createEnvironment(Collections.emptyList(), fileObjects, false);
+      List<CompilationUnitTree> units = new ArrayList<>();
+      for (CompilationUnitTree unit : env.task().parse()) {
+        units.add(unit);
+      }
+      env.task().analyze();
+      processDiagnostics(env.diagnostics());
+
+      if (!hasErrors(env.diagnostics())) {
+        for (CompilationUnitTree ast : units) {
+          com.google.devtools.j2objc.ast.CompilationUnit unit = TreeConverter
+              .convertCompilationUnit(options, env, (JCTree.JCCompilationUnit) ast);
+          processDiagnostics(env.diagnostics());
+          InputFile file = inputFiles.get(ast.getSourceFile().toUri());
+          handler.handleParsedUnit(file.getOriginalLocation(), unit);
+        }
+      }
+    } catch (IOException e) {
+      ErrorUtil.fatalError(e, "javac file manager error");
+    }
+  }
+
+  /**
+   * Converts classfiles with a single javac environment, whose class path has
+   * the root of each classfile ahead of the user's class path. The classfiles
+   * are decompiled on the translation threads, and then converted in order,
+   * since javac completes symbols lazily and isn't thread-safe.
+   */
+  private void parseClassFiles(List<InputFile> files, Handler handler) throws IOException {
+    List<ClassFile> classFiles = decompileClassFiles(files);
+    Set<File> roots = new LinkedHashSet<>();
+    for (int i = 0; i < files.size(); i++) {
+      if (classFiles.get(i) != null) {
+        roots.add(ClassFileConverter.getClassPathRoot(files.get(i), classFiles.get(i)));
+      }
+    }
+    if (roots.isEmpty()) {
+      return;
+    }
+
+    // The class path differs for each batch, so this file manager isn't
+    // shared. It's closed once the batch's units are converted and handled,
+    // so that single classfile parses don't keep a manager open each.
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavacFileManager classFileManager = createFileManager(compiler, diagnostics);
+    try {
+      List<File> classPath = new ArrayList<>(roots);
+      for (String entry : classpathEntries) {
+        classPath.add(new File(entry));
+      }
+      classFileManager.setLocation(StandardLocation.CLASS_PATH, classPath);
+      JavacEnvironment env = createEnvironment(
+          compiler, classFileManager, diagnostics, new ArrayList<>(), false);
+
+      for (int i = 0; i < files.size(); i++) {
+        InputFile file = files.get(i);
+        ClassFile classFile = classFiles.get(i);
+        if (classFile == null) {
+          continue;
+        }
+        CompilationUnit unit = ClassFileConverter.convertClassFile(options, env, file, classFile);
+        if (unit != null) {
+          handler.handleParsedUnit(file.getOriginalLocation(), unit);
+        }
+      }
+    } finally {
+      classFileManager.close();
+    }
+  }
+
+  /**
+   * Decompiles classfiles, in parallel if there are several translation
+   * threads. Each classfile has its own Procyon metadata system, so they
+   * don't share any state. Files that can't be read are reported, and are
+   * null in the returned list.
+   */
+  private List<ClassFile> decompileClassFiles(List<InputFile> files) {
+    List<ClassFile> classFiles = new ArrayList<>(files.size());
+    int nThreads = Math.min(options.translationThreads(), files.size());
+    if (nThreads <= 1) {
+      for (InputFile file : files) {
+        try {
+          classFiles.add(ClassFile.create(file));
+        } catch (IOException e) {
+          ErrorUtil.error(e.getMessage());
+          classFiles.add(null);
+        }
+      }
+      return classFiles;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(nThreads,
+        new ThreadFactoryBuilder().setNameFormat("j2objc-decompile-%d").setDaemon(true).build());
+    try {
+      List<Future<ClassFile>> futures = new ArrayList<>(files.size());
+      for (InputFile file : files) {
+        futures.add(executor.submit(() -> ClassFile.create(file)));
+      }
+      for (int i = 0; i < files.size(); i++) {
+        ClassFile classFile = null;
+        try {
+          classFile = futures.get(i).get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            ErrorUtil.error(e.getCause().getMessage());
+          } else {
+            ErrorUtil.fatalError(e.getCause(), files.get(i).getOriginalLocation());
+          }
+        }
+        classFiles.add(classFile);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ErrorUtil.error("decompilation interrupted");
+      while (classFiles.size() < files.size()) {
+        classFiles.add(null);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return classFiles;
+  }
+
+  /**
+   * Returns the javac file objects of input files, in the same order. Files in
+   * the file system are read by javac, and other files are read into memory.
+   */
+  private List<JavaFileObject> getFileObjects(Collection<? extends InputFile> files)
+      throws IOException {
+    JavacFileManager fileManager = getFileManager(ToolProvider.getSystemJavaCompiler());
+    List<JavaFileObject> fileObjects = new ArrayList<>(files.size());
+    for (InputFile file : files) {
+      if (file.getAbsolutePath().endsWith(".java")) {
+        fileObjects.add(
+            fileManager.getJavaFileObjects(new File(file.getAbsolutePath())).iterator().next());
+      } else {
+        fileObjects.add(MemoryFileObject.createJavaFile(
+            file.getOriginalLocation(), options.fileUtil().readFile(file)));
+      }
+    }
+    return fileObjects;
+  }
+
   // Creates a javac environment from a memory source.
   private JavacEnvironment createEnvironment(String path, String source) throws IOException {
     List<JavaFileObject> inputFiles = new ArrayList<>();
@@ -188,18 +433,26 @@ public class JavacParser extends Parser {
   }
 
   // Creates a javac environment from a collection of files and/or file objects.
-  private JavacEnvironment createEnvironment(List<File> files, List<JavaFileObject> fileObjects,
+  @VisibleForTesting
+  JavacEnvironment createEnvironment(List<File> files, List<JavaFileObject> fileObjects,
       boolean processAnnotations) throws IOException {
     JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
     DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-    JavacFileManager fileManager = getFileManager(compiler, diagnostics);
-    List<String> javacOptions = getJavacOptions(processAnnotations);
+    currentDiagnostics = diagnostics;
+    JavacFileManager fileManager = getFileManager(compiler);
     if (fileObjects == null) {
       fileObjects = new ArrayList<>();
     }
     for (JavaFileObject jfo : fileManager.getJavaFileObjectsFromFiles(files)) {
       fileObjects.add(jfo);
     }
+    return createEnvironment(compiler, fileManager, diagnostics, fileObjects, processAnnotations);
+  }
+
+  private JavacEnvironment createEnvironment(JavaCompiler compiler, JavacFileManager fileManager,
+      DiagnosticCollector<JavaFileObject> diagnostics, List<JavaFileObject> fileObjects,
+      boolean processAnnotations) {
+    List<String> javacOptions = getJavacOptions(processAnnotations);
     JavacTaskImpl task = (JavacTaskImpl) compiler.getTask(null, fileManager, diagnostics,
         javacOptions, null, fileObjects);
     return new JavacEnvironment(task, fileManager, diagnostics);
@@ -211,6 +464,19 @@ public class JavacParser extends Parser {
     }
   }
 
+  /**
+   * Returns true if a task reported an error. Its own diagnostics are checked
+   * instead of the error sink's count, which other translation threads update.
+   */
+  private static boolean hasErrors(DiagnosticCollector<JavaFileObject> diagnostics) {
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public Parser.ParseResult parseWithoutBindings(InputFile file, String source) {
     String path = file.getUnitName();
@@ -235,12 +501,13 @@ public class JavacParser extends Parser {
     loader.addPaths(options.getProcessorPathEntries());
     Iterator<Processor> serviceIterator = ServiceLoader.load(Processor.class, loader).iterator();
     if (serviceIterator.hasNext()) {
-      List<File> inputFiles = new ArrayList<>();
+      List<InputFile> inputFiles = new ArrayList<>();
       for (ProcessingContext input : inputs) {
-        inputFiles.add(new File(input.getFile().getAbsolutePath()));
+        inputFiles.add(input.getFile());
       }
       try {
-        JavacEnvironment env = createEnvironment(inputFiles, null, true);
+        JavacEnvironment env =
+            createEnvironment(Collections.emptyList(), getFileObjects(inputFiles), true);
         List<CompilationUnitTree> units = new ArrayList<>();
         for (CompilationUnitTree unit : env.task().parse()) {
           units.add(unit);
@@ -249,7 +516,7 @@ public class JavacParser extends Parser {
         // not type checking and attribution (that's done by analyze()).
         env.task().enter();
         processDiagnostics(env.diagnostics());
-        // The source output directory is created and set in createEnvironment().
+        // The source output directory is created and set in createFileManager().
         File sourceOutputDirectory =
             env.fileManager().getLocation(StandardLocation.SOURCE_OUTPUT).iterator().next();
         collectGeneratedInputs(sourceOutputDirectory, "", generatedInputs);
@@ -265,12 +532,24 @@ public class JavacParser extends Parser {
   @Override
   public void close() throws IOException {
     if (fileManager != null) {
+      staleFileManagers.add(fileManager);
+      fileManager = null;
+      fileManagerPaths = null;
+    }
+    IOException firstException = null;
+    for (JavacFileManager staleFileManager : staleFileManagers) {
       try {
-        fileManager.close();
-      } finally {
-        fileManager = null;
+        staleFileManager.close();
+      } catch (IOException e) {
+        if (firstException == null) {
+          firstException = e;
+        }
       }
     }
+    staleFileManagers.clear();
+    if (firstException != null) {
+      throw firstException;
+    }
   }
 
   private void collectGeneratedInputs(
@@ -91,8 +91,9 @@ class MemoryFileObject implements JavaFileObject {
   @Override
   public boolean isNameCompatible(String simpleName, Kind kind) {
     String baseName = simpleName + kind.extension;
-    return kind.equals(getKind())
-        && (baseName.equals(path) || path.endsWith("/" + baseName));
+    // A jar entry's path is "jar:file:<jar>!<entry>".
+    return kind.equals(getKind()) && (baseName.equals(path) || path.endsWith("/" + baseName)
+        || path.endsWith("!" + baseName));
   }
 
   @Override
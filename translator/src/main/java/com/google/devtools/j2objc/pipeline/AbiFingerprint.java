@@ -0,0 +1,289 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.FileUtil;
+import com.google.devtools.j2objc.util.NameTable;
+import com.google.devtools.j2objc.util.TypeUtil;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The fingerprint of the API a source declares, and of the APIs it was
+ * translated against, which --build-closure stores next to the generated
+ * header. A dependent source only needs to be translated again when the
+ * fingerprint of a type it imports changes, rather than whenever that type's
+ * source changes.
+ * <p>
+ * A type's fingerprint covers its name, type parameters and supertypes, and
+ * the names, selectors, types and constant values of its non-private members
+ * and member types. Package-private members are included, since sources in
+ * the same package can use them. Method bodies and private members aren't.
+ * Inherited members are in their declaring type's fingerprint, so the
+ * supertypes of a source's imports are recorded as imports too.
+ */
+class AbiFingerprint {
+
+  static final String FILE_SUFFIX = ".abi";
+
+  private static final String SOURCE_KEY = "source";
+  private static final String ABI_KEY = "abi";
+  private static final String IMPORT_PREFIX = "import.";
+
+  private final String sourceHash;
+  private final String abi;
+  private final Map<String, String> imports;
+
+  AbiFingerprint(String sourceHash, String abi, Map<String, String> imports) {
+    this.sourceHash = sourceHash;
+    this.abi = abi;
+    this.imports = Collections.unmodifiableMap(new TreeMap<>(imports));
+  }
+
+  /**
+   * The hash of the source that was translated.
+   */
+  String getSourceHash() {
+    return sourceHash;
+  }
+
+  /**
+   * The fingerprint of the source's main type.
+   */
+  String getAbi() {
+    return abi;
+  }
+
+  /**
+   * The fingerprints of the imported types, as they were when the source was
+   * translated, keyed by qualified name.
+   */
+  Map<String, String> getImports() {
+    return imports;
+  }
+
+  static File getFile(File outputDirectory, String outputPath) {
+    return new File(outputDirectory, outputPath + FILE_SUFFIX);
+  }
+
+  static AbiFingerprint read(File file) throws IOException {
+    Properties properties = FileUtil.loadProperties(new FileInputStream(file));
+    String sourceHash = properties.getProperty(SOURCE_KEY);
+    String abi = properties.getProperty(ABI_KEY);
+    if (sourceHash == null || abi == null) {
+      throw new IOException("invalid fingerprint file: " + file);
+    }
+    Map<String, String> imports = new TreeMap<>();
+    for (String key : properties.stringPropertyNames()) {
+      if (key.startsWith(IMPORT_PREFIX)) {
+        imports.put(key.substring(IMPORT_PREFIX.length()), properties.getProperty(key));
+      }
+    }
+    return new AbiFingerprint(sourceHash, abi, imports);
+  }
+
+  void write(File file) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty(SOURCE_KEY, sourceHash);
+    properties.setProperty(ABI_KEY, abi);
+    for (Map.Entry<String, String> entry : imports.entrySet()) {
+      properties.setProperty(IMPORT_PREFIX + entry.getKey(), entry.getValue());
+    }
+    File dir = file.getParentFile();
+    if (dir != null) {
+      dir.mkdirs();
+    }
+    try (OutputStream out = new FileOutputStream(file)) {
+      properties.store(out, null);
+    }
+  }
+
+  static String hashSource(InputFile file) throws IOException {
+    try (InputStream in = file.getInputStream()) {
+      return Hashing.sha256().hashBytes(ByteStreams.toByteArray(in)).toString();
+    }
+  }
+
+  /**
+   * Returns the top-level types whose fingerprints a translation is checked
+   * against: its dependencies, and the supertypes of those and of its main
+   * type, excluding the main type itself.
+   */
+  static Set<String> expandDependencies(
+      TypeElement mainType, Set<String> dependencies, TypeUtil typeUtil) {
+    Set<String> expanded = new TreeSet<>();
+    List<TypeElement> types = new ArrayList<>();
+    types.add(mainType);
+    for (String name : dependencies) {
+      expanded.add(name);
+      TypeElement type = typeUtil.resolveJavaType(name);
+      if (type != null) {
+        types.add(type);
+      }
+    }
+    for (TypeElement type : types) {
+      typeUtil.visitTypeHierarchy(type.asType(), supertype -> {
+        expanded.add(getTopLevelName(TypeUtil.asTypeElement(supertype)));
+        return true;
+      });
+    }
+    expanded.remove(ElementUtil.getQualifiedName(mainType));
+    return expanded;
+  }
+
+  static String getTopLevelName(TypeElement type) {
+    while (!ElementUtil.isTopLevel(type)) {
+      type = ElementUtil.getDeclaringClass(type);
+    }
+    return ElementUtil.getQualifiedName(type);
+  }
+
+  /**
+   * Returns the fingerprint of a type, including its non-private member types.
+   */
+  static String compute(TypeElement type, NameTable nameTable) {
+    StringBuilder sb = new StringBuilder();
+    describeType(type, nameTable, sb);
+    return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+  }
+
+  private static void describeType(TypeElement type, NameTable nameTable, StringBuilder sb) {
+    sb.append("type ").append(nameTable.getFullName(type)).append(' ').append(type.getKind());
+    describeModifiers(type, sb);
+    describeTypeParameters(type.getTypeParameters(), sb);
+    sb.append(" extends ").append(type.getSuperclass());
+    for (TypeMirror supertype : type.getInterfaces()) {
+      sb.append(", ").append(supertype);
+    }
+    sb.append('\n');
+
+    // The members are sorted, so that reordering declarations doesn't change
+    // the fingerprint.
+    List<String> members = new ArrayList<>();
+    List<TypeElement> memberTypes = new ArrayList<>();
+    for (Element member : type.getEnclosedElements()) {
+      if (ElementUtil.isPrivate(member)) {
+        continue;
+      }
+      StringBuilder memberSb = new StringBuilder();
+      ElementKind kind = member.getKind();
+      if (kind.isClass() || kind.isInterface()) {
+        memberTypes.add((TypeElement) member);
+        continue;
+      } else if (kind == ElementKind.CONSTRUCTOR || kind == ElementKind.METHOD) {
+        describeMethod((ExecutableElement) member, nameTable, memberSb);
+      } else if (kind.isField()) {
+        describeField((VariableElement) member, memberSb);
+      } else {
+        continue;
+      }
+      members.add(memberSb.toString());
+    }
+    Collections.sort(members);
+    for (String member : members) {
+      sb.append(member).append('\n');
+    }
+    memberTypes.sort((a, b) -> a.getQualifiedName().toString().compareTo(
+        b.getQualifiedName().toString()));
+    for (TypeElement memberType : memberTypes) {
+      describeType(memberType, nameTable, sb);
+    }
+  }
+
+  private static void describeMethod(
+      ExecutableElement method, NameTable nameTable, StringBuilder sb) {
+    sb.append(method.getKind()).append(' ').append(method.getSimpleName());
+    describeModifiers(method, sb);
+    describeTypeParameters(method.getTypeParameters(), sb);
+    sb.append('(');
+    for (VariableElement param : method.getParameters()) {
+      sb.append(param.asType()).append(',');
+    }
+    sb.append(") ").append(method.getReturnType());
+    if (method.getKind() == ElementKind.METHOD) {
+      // Constructor selectors depend on the captured variables of the
+      // translation that looks them up, so they are described by the
+      // parameter types and any explicit name instead.
+      sb.append(' ').append(nameTable.getMethodSelector(method));
+    } else {
+      sb.append(' ').append(NameTable.getMethodNameFromAnnotation(method));
+    }
+    if (method.isVarArgs()) {
+      sb.append(" varargs");
+    }
+  }
+
+  private static void describeField(VariableElement field, StringBuilder sb) {
+    sb.append(field.getKind()).append(' ').append(field.getSimpleName());
+    describeModifiers(field, sb);
+    sb.append(' ').append(field.asType());
+    Object constant = field.getConstantValue();
+    if (constant != null) {
+      // Constants are declared in the header, and may be inlined.
+      sb.append(" = ").append(constant);
+    }
+  }
+
+  /**
+   * Describes type parameters with their bounds, which determine the erasure
+   * of the types that use them.
+   */
+  private static void describeTypeParameters(
+      List<? extends TypeParameterElement> typeParams, StringBuilder sb) {
+    if (typeParams.isEmpty()) {
+      return;
+    }
+    sb.append(" <");
+    for (TypeParameterElement typeParam : typeParams) {
+      sb.append(typeParam.getSimpleName()).append(" extends");
+      for (TypeMirror bound : typeParam.getBounds()) {
+        sb.append(' ').append(bound);
+      }
+      sb.append(';');
+    }
+    sb.append('>');
+  }
+
+  private static void describeModifiers(Element element, StringBuilder sb) {
+    for (Modifier modifier : element.getModifiers()) {
+      sb.append(' ').append(modifier);
+    }
+  }
+}
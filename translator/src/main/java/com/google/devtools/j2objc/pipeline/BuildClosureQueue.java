@@ -15,27 +15,64 @@
 package com.google.devtools.j2objc.pipeline;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.util.ErrorSink;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 /**
  * Looks up and queues dependencies for --build-closure.
+ * <p>
+ * Queued names are resolved in waves: looking up each name's source and
+ * checking whether it is up to date reads files, so when translating with
+ * more than one thread, all the names queued when more files are needed are
+ * resolved in parallel on the queue's own pool of threads. The results are
+ * applied in queue order on the processing thread, so the files found, and
+ * any messages, are in the same order as when the names are resolved one at
+ * a time.
  */
 public class BuildClosureQueue {
 
   private static final Logger logger = Logger.getLogger(BuildClosureQueue.class.getName());
   private final Options options;
 
-  private final Set<String> processedNames = Sets.newHashSet();
+  private final Set<String> processedNames = ConcurrentHashMap.newKeySet();
 
+  // Only updated on the processing thread, to keep the queue's order.
   private final Set<String> queuedNames = Sets.newLinkedHashSet();
 
+  // Files found by the last wave that haven't been returned yet.
+  private final Deque<InputFile> foundFiles = new ArrayDeque<>();
+
+  // Names whose up-to-date check waits until a dependency whose source
+  // changed is translated, so that its new fingerprint can be compared.
+  private final Set<String> deferredNames = ConcurrentHashMap.newKeySet();
+  private final Set<String> waitingNames = Sets.newLinkedHashSet();
+
+  // Hashes of the dependency sources read by up-to-date checks, or empty
+  // for names without a source.
+  private final Map<String, Optional<String>> sourceHashes = new ConcurrentHashMap<>();
+
+  // Resolves names when translating with more than one thread, created for
+  // the first wave with more than one name.
+  private ExecutorService executor;
+
   public BuildClosureQueue(Options options) {
     this.options = options;
   }
@@ -45,16 +82,25 @@ public class BuildClosureQueue {
    * queue is empty.
    */
   public InputFile getNextFile() {
-    for (Iterator<String> iter = queuedNames.iterator(); iter.hasNext(); ) {
-      String name = iter.next();
-      iter.remove();
-      processedNames.add(name);
-      InputFile file = getFileForName(name);
-      if (file != null) {
-        return file;
-      }
+    // Resolving names can queue other names, so resolve until a file is found.
+    while (foundFiles.isEmpty() && !queuedNames.isEmpty()
+        && !Thread.currentThread().isInterrupted()) {
+      resolveQueuedNames();
+    }
+    return foundFiles.poll();
+  }
+
+  /**
+   * Queues the names whose checks were deferred until the current batch was
+   * translated. Returns false if there were none.
+   */
+  public boolean queueDeferredNames() {
+    if (waitingNames.isEmpty()) {
+      return false;
     }
-    return null;
+    queuedNames.addAll(waitingNames);
+    waitingNames.clear();
+    return true;
   }
 
   /**
@@ -76,7 +122,106 @@ public class BuildClosureQueue {
     queuedNames.remove(name);
   }
 
-  private InputFile getFileForName(String name) {
+  /**
+   * Stops the threads that resolve names.
+   */
+  public void close() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  /**
+   * What was found for a queued name.
+   */
+  private static class Resolution {
+    private InputFile file;
+    // An import to translate before the name is checked again, or null.
+    private String deferredImport;
+    // The messages reported while resolving on a worker thread, or null.
+    private ErrorSink.Buffer messages;
+  }
+
+  /**
+   * Resolves all queued names, and applies the results in queue order.
+   */
+  private void resolveQueuedNames() {
+    List<String> names = new ArrayList<>(queuedNames);
+    queuedNames.clear();
+    processedNames.addAll(names);
+    List<Resolution> resolutions = new ArrayList<>(names.size());
+    int nThreads = options.translationThreads();
+    if (nThreads <= 1 || names.size() <= 1) {
+      for (String name : names) {
+        resolutions.add(resolve(name));
+      }
+    } else {
+      if (executor == null) {
+        executor = Executors.newFixedThreadPool(nThreads, new ThreadFactoryBuilder()
+            .setNameFormat("j2objc-closure-%d").setDaemon(true).build());
+      }
+      ErrorSink errorSink = options.errorSink();
+      List<Future<Resolution>> futures = new ArrayList<>(names.size());
+      for (String name : names) {
+        futures.add(executor.submit(() -> resolveInParallel(name, errorSink)));
+      }
+      for (int i = 0; i < names.size(); i++) {
+        try {
+          resolutions.add(futures.get(i).get());
+        } catch (InterruptedException e) {
+          // Apply the names resolved so far, and queue the rest again.
+          for (Future<Resolution> future : futures.subList(i, futures.size())) {
+            future.cancel(true);
+          }
+          List<String> unresolved = names.subList(i, names.size());
+          processedNames.removeAll(unresolved);
+          queuedNames.addAll(unresolved);
+          Thread.currentThread().interrupt();
+          ErrorUtil.error("build closure interrupted");
+          break;
+        } catch (ExecutionException e) {
+          ErrorUtil.fatalError(e.getCause(), names.get(i));
+          resolutions.add(new Resolution());
+        }
+      }
+    }
+
+    for (int i = 0; i < resolutions.size(); i++) {
+      Resolution resolution = resolutions.get(i);
+      if (resolution.messages != null) {
+        resolution.messages.merge();
+      }
+      if (resolution.deferredImport != null) {
+        addName(resolution.deferredImport);
+        waitingNames.add(names.get(i));
+      }
+      if (resolution.file != null) {
+        foundFiles.add(resolution.file);
+      }
+    }
+  }
+
+  private Resolution resolve(String name) {
+    Resolution resolution = new Resolution();
+    resolution.file = getFileForName(name, resolution);
+    return resolution;
+  }
+
+  private Resolution resolveInParallel(String name, ErrorSink errorSink) {
+    ErrorSink previousSink = ErrorUtil.setCurrentSink(errorSink);
+    ErrorSink.Buffer messages = errorSink.startBuffer();
+    try {
+      Resolution resolution = resolve(name);
+      resolution.messages = messages;
+      return resolution;
+    } finally {
+      errorSink.endBuffer();
+      ErrorUtil.setCurrentSink(previousSink);
+    }
+  }
+
+  private InputFile getFileForName(String name, Resolution resolution) {
     // Check if class exists on classpath.
     if (findClassFile(name)) {
       logger.finest("no source for " + name + ", class found");
@@ -94,16 +239,80 @@ public class BuildClosureQueue {
       return null;
     }
 
+    String outputPath = name.replace('.', File.separatorChar);
+    File headerSource = new File(options.fileUtil().getOutputDirectory(), outputPath + ".h");
+    if (!headerSource.exists()) {
+      return inputFile;
+    }
+    File fingerprintFile =
+        AbiFingerprint.getFile(options.fileUtil().getOutputDirectory(), outputPath);
+    if (fingerprintFile.exists()) {
+      try {
+        return needsTranslation(name, inputFile, AbiFingerprint.read(fingerprintFile), resolution)
+            ? inputFile : null;
+      } catch (IOException e) {
+        logger.fine("unable to check fingerprints of " + name + ": " + e.getMessage());
+        return inputFile;
+      }
+    }
+
     // Check if the source file is older than the generated header file.
-    File headerSource = new File(
-        options.fileUtil().getOutputDirectory(), name.replace('.', File.separatorChar) + ".h");
-    if (headerSource.exists() && inputFile.lastModified() < headerSource.lastModified()) {
+    if (inputFile.lastModified() < headerSource.lastModified()) {
       return null;
     }
 
     return inputFile;
   }
 
+  /**
+   * Returns true if a type's source changed, or if the fingerprint of a type
+   * it imports is different from when it was translated. Imports without a
+   * fingerprint file, such as types from the class path, aren't checked.
+   * <p>
+   * If an import's source changed since its fingerprint was written, the
+   * import is queued and the check is repeated after it is translated.
+   */
+  private boolean needsTranslation(String name, InputFile inputFile, AbiFingerprint fingerprint,
+      Resolution resolution) throws IOException {
+    if (!fingerprint.getSourceHash().equals(AbiFingerprint.hashSource(inputFile))) {
+      return true;
+    }
+    for (Map.Entry<String, String> entry : fingerprint.getImports().entrySet()) {
+      String importName = entry.getKey();
+      File importFile = AbiFingerprint.getFile(options.fileUtil().getOutputDirectory(),
+          importName.replace('.', File.separatorChar));
+      if (!importFile.exists()) {
+        continue;
+      }
+      AbiFingerprint importFingerprint = AbiFingerprint.read(importFile);
+      String importSourceHash = getSourceHash(importName);
+      if (importSourceHash != null
+          && !importSourceHash.equals(importFingerprint.getSourceHash())) {
+        // The import's fingerprint file is out of date, so check again after
+        // it has been translated, once.
+        if (deferredNames.add(name)) {
+          resolution.deferredImport = importName;
+          return false;
+        }
+        return true;
+      }
+      if (!importFingerprint.getAbi().equals(entry.getValue())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String getSourceHash(String name) throws IOException {
+    Optional<String> hash = sourceHashes.get(name);
+    if (hash == null) {
+      InputFile file = options.fileUtil().findOnSourcePath(name);
+      hash = Optional.ofNullable(file != null ? AbiFingerprint.hashSource(file) : null);
+      sourceHashes.putIfAbsent(name, hash);
+    }
+    return hash.orElse(null);
+  }
+
   private boolean findClassFile(String name) {
     InputFile f = null;
     try {
@@ -114,13 +323,9 @@ public class BuildClosureQueue {
     if (f != null) {
       return true;
     }
-    // See if it's a JRE class.
-    try {
-      Class.forName(name);
-      return true;
-    } catch (ClassNotFoundException e) {
-      // Fall-through.
-    }
-    return false;
+    // See if it's a JRE class. Its class file is looked up as a resource, so
+    // that the class isn't loaded and initialized in the translator.
+    ClassLoader loader = BuildClosureQueue.class.getClassLoader();
+    return loader.getResource(name.replace('.', '/') + ".class") != null;
   }
 }
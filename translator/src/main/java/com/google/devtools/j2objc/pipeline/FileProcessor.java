@@ -14,6 +14,7 @@
 
 package com.google.devtools.j2objc.pipeline;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options;
@@ -23,12 +24,15 @@ import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.Parser;
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -40,20 +44,24 @@ abstract class FileProcessor {
 
   private static final Logger logger = Logger.getLogger(FileProcessor.class.getName());
 
-  private final Parser parser;
+  protected final Parser parser;
   protected final BuildClosureQueue closureQueue;
   protected final Options options;
 
   private final int batchSize;
-  private final Set<ProcessingContext> batchInputs = new HashSet<>();
+  private final Set<ProcessingContext> batchInputs = new LinkedHashSet<>();
 
   private final boolean doBatching;
 
+  // Splits batches into parts that fit the heap budget, or null.
+  private final HeapBudget heapBudget;
+
   public FileProcessor(Parser parser) {
     this.parser = Preconditions.checkNotNull(parser);
     this.options = parser.options();
     batchSize = options.batchTranslateMaximum();
     doBatching = batchSize > 0;
+    heapBudget = options.batchHeapLimit() > 0 ? new HeapBudget(options.batchHeapLimit()) : null;
     if (options.buildClosure()) {
       // Should be an error if the user specifies this with --build-closure
       assert !options.getHeaderMap().useSourceDirectories();
@@ -72,22 +80,33 @@ abstract class FileProcessor {
 
   public void processBuildClosureDependencies() {
     if (closureQueue != null) {
-      while (true) {
-        InputFile file = closureQueue.getNextFile();
-        if (file == null) {
-          processBatch();
-          file = closureQueue.getNextFile();
-        }
-        if (file == null) {
-          break;
+      try {
+        while (true) {
+          InputFile file = closureQueue.getNextFile();
+          if (file == null) {
+            processBatch();
+            file = closureQueue.getNextFile();
+          }
+          if (file == null) {
+            // Recheck the names that were waiting for this batch's fingerprints.
+            if (closureQueue.queueDeferredNames()) {
+              continue;
+            }
+            break;
+          }
+          processInput(ProcessingContext.fromFile(file, options));
         }
-        processInput(ProcessingContext.fromFile(file, options));
+      } finally {
+        closureQueue.close();
       }
     }
   }
 
   private void processInput(ProcessingContext input) {
     try {
+      if (processCachedInput(input)) {
+        return;
+      }
       InputFile file = input.getFile();
 
       if (isBatchable(file)) {
@@ -98,35 +117,88 @@ abstract class FileProcessor {
         return;
       }
 
-      logger.finest("parsing " + file);
-
-      CompilationUnit compilationUnit = parser.parse(file);
-      if (compilationUnit == null) {
-        handleError(input);
-        return;
-      }
-
-      processCompiledSource(input, compilationUnit);
+      parseInput(input);
     } catch (RuntimeException | Error e) {
       ErrorUtil.fatalError(e, input.getOriginalSourcePath());
     }
   }
 
+  /**
+   * Parses and processes an input that isn't batched.
+   */
+  protected void parseInput(ProcessingContext input) {
+    parseInput(parser, input);
+  }
+
+  protected final void parseInput(Parser parser, ProcessingContext input) {
+    InputFile file = input.getFile();
+    logger.finest("parsing " + file);
+
+    CompilationUnit compilationUnit = parser.parse(file);
+    if (compilationUnit == null) {
+      handleError(input);
+      return;
+    }
+
+    processCompiledSource(input, compilationUnit);
+  }
+
   protected boolean isBatchable(InputFile file) {
-    return doBatching && file.getAbsolutePath().endsWith(".java");
+    String unitName = file.getUnitName();
+    return doBatching && (unitName.endsWith(".java")
+        || (options.translateClassfiles() && unitName.endsWith(".class")));
   }
 
   private void processBatch() {
     if (batchInputs.isEmpty()) {
+      finishPendingWork();
       return;
     }
 
-    List<String> paths = Lists.newArrayListWithCapacity(batchInputs.size());
-    final Map<String, ProcessingContext> inputMap = new CanonicalPathMap(batchInputs.size());
-    for (ProcessingContext input : batchInputs) {
-      String path = input.getFile().getAbsolutePath();
-      paths.add(path);
-      inputMap.put(path, input);
+    if (heapBudget != null && canSplitBatch(batchInputs)) {
+      List<ProcessingContext> remaining = new ArrayList<>(batchInputs);
+      heapBudget.startBatch();
+      while (!remaining.isEmpty()) {
+        List<ProcessingContext> part = remaining.subList(0, heapBudget.startPart(remaining.size()));
+        processBatch(part);
+        part.clear();
+        heapBudget.endPart();
+      }
+      if (logger.isLoggable(Level.INFO)) {
+        System.out.println(String.format("translated batch of %d sources in %d parts, "
+            + "peak heap %d MB", batchInputs.size(), heapBudget.getParts(),
+            heapBudget.getBatchPeak() / (1024 * 1024)));
+      }
+    } else {
+      processBatch(batchInputs);
+    }
+    batchInputs.clear();
+  }
+
+  /**
+   * Parses and processes a batch of inputs, and then finishes their pending
+   * work, so that none of their trees are kept.
+   */
+  private void processBatch(Collection<ProcessingContext> inputs) {
+    parseBatch(inputs);
+    finishPendingWork();
+  }
+
+  /**
+   * Parses and processes a batch of inputs with a single javac task.
+   */
+  protected void parseBatch(Collection<ProcessingContext> inputs) {
+    parseBatch(parser, inputs);
+  }
+
+  protected final void parseBatch(Parser parser, Collection<ProcessingContext> inputs) {
+    List<InputFile> files = Lists.newArrayListWithCapacity(inputs.size());
+    final Map<String, ProcessingContext> inputMap = new HashMap<>(inputs.size());
+    final Set<ProcessingContext> unparsedInputs = new LinkedHashSet<>(inputs);
+    for (ProcessingContext input : inputs) {
+      InputFile file = input.getFile();
+      files.add(file);
+      inputMap.put(file.getOriginalLocation(), input);
     }
 
     Parser.Handler handler = new Parser.Handler() {
@@ -134,25 +206,64 @@ abstract class FileProcessor {
       public void handleParsedUnit(String path, CompilationUnit unit) {
         ProcessingContext input = inputMap.get(path);
         processCompiledSource(input, unit);
-        batchInputs.remove(input);
+        unparsedInputs.remove(input);
       }
     };
-    logger.finest("Processing batch of size " + batchInputs.size());
-    parser.parseFiles(paths, handler, options.getSourceVersion());
+    logger.finest("Processing batch of size " + inputs.size());
+    parser.parseInputFiles(files, handler, options.getSourceVersion());
 
-    // Any remaining files in batchFiles has some kind of error.
-    for (ProcessingContext input : batchInputs) {
+    // Any remaining files in unparsedInputs has some kind of error.
+    for (ProcessingContext input : unparsedInputs) {
       handleError(input);
     }
+  }
 
-    batchInputs.clear();
+  /**
+   * Returns true if every input is a classfile, or is in a sourcepath
+   * directory or jar. When a batch is split, javac finds the sources of other
+   * parts on the sourcepath.
+   */
+  boolean canSplitBatch(Collection<ProcessingContext> inputs) {
+    List<String> sourceDirs = new ArrayList<>();
+    Set<String> sourceJars = new HashSet<>();
+    for (String entry : options.fileUtil().getSourcePathEntries()) {
+      File file = new File(entry);
+      if (file.isDirectory()) {
+        sourceDirs.add(file.getAbsolutePath() + File.separatorChar);
+      } else if (file.isFile()) {
+        sourceJars.add(file.getAbsolutePath());
+      }
+    }
+    for (ProcessingContext input : inputs) {
+      if (input.getFile().getUnitName().endsWith(".class")) {
+        continue;
+      }
+      String path = new File(input.getFile().getAbsolutePath()).getAbsolutePath();
+      // The absolute path of a jar entry is its jar's.
+      boolean found = sourceJars.contains(path);
+      for (String dir : sourceDirs) {
+        if (path.startsWith(dir)) {
+          found = true;
+          break;
+        }
+      }
+      if (!found) {
+        logger.fine("Not splitting batch, source isn't on the sourcepath: " + path);
+        return false;
+      }
+    }
+    return true;
   }
 
   private void processCompiledSource(ProcessingContext input,
       com.google.devtools.j2objc.ast.CompilationUnit unit) {
     InputFile file = input.getFile();
+    if (heapBudget != null) {
+      heapBudget.sample();
+    }
     if (closureQueue != null) {
-      closureQueue.addProcessedName(FileUtil.getQualifiedMainTypeName(file, unit));
+      String name = FileUtil.getQualifiedMainTypeName(file, unit);
+      runOnProcessingThread(() -> closureQueue.addProcessedName(name));
     }
     try {
       processConvertedTree(input, unit);
@@ -167,35 +278,31 @@ abstract class FileProcessor {
 
   protected abstract void handleError(ProcessingContext input);
 
+  @VisibleForTesting
+  HeapBudget getHeapBudget() {
+    return heapBudget;
+  }
+
   /**
-   * Maps processing contexts using their canonical paths. This allows a
-   * front-end to refer to a source file using a different but equivalent
-   * path, without changing what path was specified.
+   * Returns true if an input's output was reused from an earlier translation,
+   * so it doesn't need to be parsed.
    */
-  @SuppressWarnings("serial")
-  private static class CanonicalPathMap extends HashMap<String, ProcessingContext> {
-
-    public CanonicalPathMap(int initialSize) {
-      super(initialSize);
-    }
-
-    @Override
-    public ProcessingContext get(Object key) {
-      return super.get(canonicalizePath((String) key));
-    }
+  protected boolean processCachedInput(ProcessingContext input) {
+    return false;
+  }
 
-    @Override
-    public ProcessingContext put(String key, ProcessingContext value) {
-      return super.put(canonicalizePath((String) key), value);
-    }
+  /**
+   * Called after each batch, so that subclasses that process converted trees
+   * asynchronously can complete them before any new inputs are queued.
+   */
+  protected void finishPendingWork() {}
 
-    private String canonicalizePath(String path) {
-      try {
-        return new File(path).getCanonicalPath();
-      } catch (IOException e) {
-        // Shouldn't happen, but returning the unchanged path is safe.
-        return path;
-      }
-    }
+  /**
+   * Runs an update of state that only the processing thread uses, like the
+   * build closure queue. Subclasses that process inputs on other threads
+   * defer it until their pending work is finished.
+   */
+  protected void runOnProcessingThread(Runnable action) {
+    action.run();
   }
 }
@@ -19,9 +19,11 @@ import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.file.InputFile;
 import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.file.ZipEntryInputFile;
 import com.google.devtools.j2objc.gen.GenerationUnit;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Enumeration;
@@ -39,13 +41,14 @@ import java.util.zip.ZipFile;
  *
  * @author Tom Ball, Keith Stanger, Mike Thvedt
  */
-public class GenerationBatch {
+public class GenerationBatch implements Closeable {
 
   private static final Logger logger = Logger.getLogger(GenerationBatch.class.getName());
   private static final String J2OBJC_TEMP_DIR_PREFIX = "J2ObjCTempDir";
   private final Options options;
 
   private final List<ProcessingContext> inputs = Lists.newArrayList();
+  private final List<ZipFile> openJars = Lists.newArrayList();
 
   private GenerationUnit globalCombinedUnit = null;
 
@@ -142,30 +145,41 @@ public class GenerationBatch {
     }
     try {
       ZipFile zfile = new ZipFile(f);
-      try {
-        Enumeration<? extends ZipEntry> enumerator = zfile.entries();
-        File tempDir = FileUtil.createTempDir(J2OBJC_TEMP_DIR_PREFIX);
-        String tempDirPath = tempDir.getAbsolutePath();
-        options.fileUtil().addTempDir(tempDirPath);
-        options.fileUtil().appendSourcePath(tempDirPath);
-
-        while (enumerator.hasMoreElements()) {
-          ZipEntry entry = enumerator.nextElement();
-          String internalPath = entry.getName();
-          if (internalPath.endsWith(".java")
-              || (options.translateClassfiles() && internalPath.endsWith(".class"))) {
-            // Extract JAR file to a temporary directory
-            File outputFile = options.fileUtil().extractZipEntry(tempDir, zfile, entry);
-            InputFile newFile = new RegularInputFile(outputFile.getAbsolutePath(), internalPath);
-            if (combinedUnit != null) {
-              inputs.add(new ProcessingContext(newFile, combinedUnit));
-            } else {
-              addExtractedJarSource(newFile, filename, internalPath);
-            }
+      // The jar stays open while its sources are read, and is closed with
+      // this batch.
+      openJars.add(zfile);
+      String jarPath = f.getAbsolutePath();
+      if (!options.fileUtil().getSourcePathEntries().contains(jarPath)) {
+        options.fileUtil().appendSourcePath(jarPath);
+      }
+      File tempDir = null;
+      Enumeration<? extends ZipEntry> enumerator = zfile.entries();
+      while (enumerator.hasMoreElements()) {
+        ZipEntry entry = enumerator.nextElement();
+        String internalPath = entry.getName();
+        InputFile newFile;
+        if (internalPath.endsWith(".java")) {
+          // Sources are read in place, and found by javac on the sourcepath.
+          newFile = new ZipEntryInputFile(zfile, entry);
+        } else if (options.translateClassfiles() && internalPath.endsWith(".class")) {
+          // The class file converter needs the class's root directory, so
+          // class files are extracted to a temporary directory.
+          if (tempDir == null) {
+            tempDir = FileUtil.createTempDir(J2OBJC_TEMP_DIR_PREFIX);
+            String tempDirPath = tempDir.getAbsolutePath();
+            options.fileUtil().addTempDir(tempDirPath);
+            options.fileUtil().appendSourcePath(tempDirPath);
           }
+          File outputFile = options.fileUtil().extractZipEntry(tempDir, zfile, entry);
+          newFile = new RegularInputFile(outputFile.getAbsolutePath(), internalPath);
+        } else {
+          continue;
+        }
+        if (combinedUnit != null) {
+          inputs.add(new ProcessingContext(newFile, combinedUnit));
+        } else {
+          addExtractedJarSource(newFile, filename, internalPath);
         }
-      } finally {
-        zfile.close();  // Also closes input stream.
       }
     } catch (ZipException e) { // Also catches JarExceptions
       logger.fine(e.getMessage());
@@ -180,6 +194,18 @@ public class GenerationBatch {
     inputs.add(ProcessingContext.fromExtractedJarEntry(file, sourceName, options));
   }
 
+  /**
+   * Closes the jar files whose sources were added to this batch. They must
+   * stay open until the batch's inputs have been translated.
+   */
+  @Override
+  public void close() throws IOException {
+    for (ZipFile zfile : openJars) {
+      zfile.close();
+    }
+    openJars.clear();
+  }
+
   /**
    * Adds the given InputFile to this GenerationBatch,
    * creating GenerationUnits and inferring unit names/output paths as necessary.
@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sizes the parts a batch is translated in so that the heap stays below a
+ * budget, and tracks the peak heap usage of each batch.
+ * <p>
+ * A javac task keeps every unit it compiles attributed until the task is
+ * discarded, so the memory a batch needs can only be bounded by compiling it
+ * as several tasks. A part's size is halved when the previous part's peak heap
+ * usage exceeded the budget, and doubled when it used less than half of it.
+ * <p>
+ * A part's peak is the largest total heap usage sampled after each of its
+ * units is converted and when it ends. Summing each memory pool's own peak
+ * would add up peaks reached at different times. The samples include garbage
+ * that hadn't been collected yet, so the budget should be set well below the
+ * maximum heap size.
+ */
+class HeapBudget {
+
+  private static final int INITIAL_PART_SIZE = 64;
+
+  private final long limit;
+  private final LongSupplier heapUsage;
+  private final AtomicLong partPeak = new AtomicLong();
+  private int partSize = INITIAL_PART_SIZE;
+  private int parts = 0;
+  private long batchPeak = 0;
+
+  HeapBudget(long limit) {
+    this(limit, heapUsage(ManagementFactory.getMemoryMXBean()));
+  }
+
+  @VisibleForTesting
+  HeapBudget(long limit, LongSupplier heapUsage) {
+    this.limit = limit;
+    this.heapUsage = heapUsage;
+  }
+
+  private static LongSupplier heapUsage(MemoryMXBean memory) {
+    return () -> memory.getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Starts measuring a batch.
+   */
+  void startBatch() {
+    parts = 0;
+    batchPeak = 0;
+  }
+
+  /**
+   * Returns how many of the batch's remaining inputs to translate next.
+   */
+  int startPart(int remaining) {
+    partPeak.set(0);
+    parts++;
+    return Math.min(remaining, partSize);
+  }
+
+  /**
+   * Records the current heap usage in the part's peak. Can be called by any
+   * translation thread.
+   */
+  void sample() {
+    partPeak.accumulateAndGet(heapUsage.getAsLong(), Math::max);
+  }
+
+  /**
+   * Updates the part size from the peak heap usage of the part just
+   * translated.
+   */
+  void endPart() {
+    sample();
+    long peak = partPeak.get();
+    batchPeak = Math.max(batchPeak, peak);
+    if (peak > limit) {
+      partSize = Math.max(1, partSize / 2);
+    } else if (peak < limit / 2 && partSize <= Integer.MAX_VALUE / 2) {
+      partSize *= 2;
+    }
+  }
+
+  @VisibleForTesting
+  void setPartSize(int size) {
+    partSize = size;
+  }
+
+  /**
+   * The number of parts the current batch was translated in.
+   */
+  int getParts() {
+    return parts;
+  }
+
+  /**
+   * The peak heap usage in bytes while translating the current batch.
+   */
+  long getBatchPeak() {
+    return batchPeak;
+  }
+}
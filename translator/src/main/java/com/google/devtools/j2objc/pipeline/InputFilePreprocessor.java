@@ -15,6 +15,7 @@
 package com.google.devtools.j2objc.pipeline;
 
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.ast.Annotation;
 import com.google.devtools.j2objc.ast.CompilationUnit;
@@ -28,11 +29,21 @@ import com.google.devtools.j2objc.util.TypeUtil;
 import com.google.j2objc.annotations.ObjectiveCName;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 /**
  * Preprocesses each Java file in the batch.
+ * <p>
+ * The sources are read and their headers tokenized on the translation
+ * threads, which is all most sources need. The results are then applied in
+ * input order, and only the sources that have J2ObjCIncompatible code to strip,
+ * or headers the tokenizer can't read, are parsed.
  */
 public class InputFilePreprocessor {
 
@@ -48,19 +59,94 @@ public class InputFilePreprocessor {
   }
 
   public void processInputs(Iterable<ProcessingContext> inputs) {
+    List<ProcessingContext> sources = new ArrayList<>();
     for (ProcessingContext input : inputs) {
       if (input.getFile().getUnitName().endsWith(".java")) {
-        processInput(input);
+        sources.add(input);
       }
     }
+    int nThreads = options.translationThreads();
+    if (nThreads <= 1 || sources.size() <= 1) {
+      for (ProcessingContext input : sources) {
+        processInput(input, scanSource(input));
+      }
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(nThreads,
+        new ThreadFactoryBuilder().setNameFormat("j2objc-preprocess-%d").setDaemon(true).build());
+    try {
+      List<Future<ScannedSource>> scannedSources = new ArrayList<>(sources.size());
+      for (ProcessingContext input : sources) {
+        scannedSources.add(executor.submit(() -> scanSource(input)));
+      }
+      for (int i = 0; i < sources.size(); i++) {
+        processInput(sources.get(i), scannedSources.get(i).get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ErrorUtil.error("preprocessing interrupted");
+    } catch (ExecutionException e) {
+      ErrorUtil.fatalError(e.getCause(), "preprocessing task");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * What was found in a source by a preprocessing thread.
+   */
+  private static class ScannedSource {
+    // The source's header, or null if it wasn't needed or couldn't be read.
+    private SourceHeader header;
+    // The source, if it has to be parsed. It isn't kept otherwise, so that
+    // the sources that were scanned ahead aren't all in memory.
+    private String source;
+    private IOException error;
+  }
+
+  /**
+   * Reads a source and tokenizes its header. This doesn't use the parser or
+   * report errors, so it can run on any thread.
+   */
+  private ScannedSource scanSource(ProcessingContext input) {
+    ScannedSource result = new ScannedSource();
+    InputFile file = input.getFile();
+    try {
+      String source = options.fileUtil().readFile(file);
+      if (file.getUnitName().endsWith("package-info.java")) {
+        result.header = SourceHeader.scan(source);
+        // Prefixes that aren't string literals need the attributed tree.
+        if (result.header == null
+            || (result.header.hasPackageAnnotation(ObjectiveCName.class.getName())
+                && result.header.getPackageAnnotationValue(
+                    ObjectiveCName.class.getName()) == null)) {
+          result.source = source;
+        }
+      } else if (source.contains("J2ObjCIncompatible")) {
+        // Stripping needs the parsed tree, which also has the package name.
+        result.source = source;
+      } else if (options.getHeaderMap().useSourceDirectories()) {
+        result.header = SourceHeader.scan(source);
+        if (result.header == null) {
+          result.source = source;
+        }
+      }
+    } catch (IOException e) {
+      result.error = e;
+    }
+    return result;
   }
 
-  private void processInput(ProcessingContext input) {
+  private void processInput(ProcessingContext input, ScannedSource scannedSource) {
     try {
+      if (scannedSource.error != null) {
+        throw scannedSource.error;
+      }
       if (input.getFile().getUnitName().endsWith("package-info.java")) {
-        processPackageInfoSource(input);
+        processPackageInfoSource(input, scannedSource);
       } else {
-        processRegularSource(input);
+        processRegularSource(input, scannedSource);
       }
     } catch (IOException e) {
       ErrorUtil.error(e.getMessage());
@@ -79,10 +165,24 @@ public class InputFilePreprocessor {
     return strippedSourcesDir;
   }
 
-  private void processRegularSource(ProcessingContext input) throws IOException {
+  private void processRegularSource(ProcessingContext input, ScannedSource scannedSource)
+      throws IOException {
     InputFile file = input.getFile();
-    String source = options.fileUtil().readFile(file);
     boolean shouldMapHeaders = options.getHeaderMap().useSourceDirectories();
+    String source = scannedSource.source;
+    if (source == null) {
+      if (shouldMapHeaders) {
+        String qualifiedName = FileUtil.getMainTypeName(file);
+        String packageName = scannedSource.header.getPackageName();
+        if (packageName != null) {
+          qualifiedName = packageName + "." + qualifiedName;
+        }
+        options.getHeaderMap().put(
+            qualifiedName, input.getGenerationUnit().getOutputPath() + ".h");
+      }
+      return;
+    }
+
     boolean doIncompatibleStripping = source.contains("J2ObjCIncompatible");
     if (!(shouldMapHeaders || doIncompatibleStripping)) {
       // No need to parse.
@@ -108,9 +208,19 @@ public class InputFilePreprocessor {
     }
   }
 
-  private void processPackageInfoSource(ProcessingContext input) throws IOException {
+  private void processPackageInfoSource(ProcessingContext input, ScannedSource scannedSource)
+      throws IOException {
     InputFile file = input.getFile();
-    String source = options.fileUtil().readFile(file);
+    String source = scannedSource.source;
+    if (source == null) {
+      String packageName = scannedSource.header.getPackageName();
+      String prefix =
+          scannedSource.header.getPackageAnnotationValue(ObjectiveCName.class.getName());
+      if (packageName != null && prefix != null) {
+        options.getPackagePrefixes().addPrefix(packageName, prefix);
+      }
+      return;
+    }
     CompilationUnit compilationUnit =
         parser.parse(FileUtil.getMainTypeName(file), file.getUnitName(), source);
     if (compilationUnit != null) {
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.common.base.Joiner;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.FusedVisitor;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.util.TimeTracker;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit's tree mutation passes in order, running consecutive passes
+ * that are declared fusable in a single traversal of the unit.
+ * <p>
+ * A fusable pass is a visitor whose work at each node only depends on that
+ * node's subtree. It visits each node right after the earlier passes of its
+ * traversal, instead of after they finished the whole unit, so it must also
+ * not look at a node's children before its endVisit() of the node. Only the
+ * first pass of a traversal may replace or remove the node it is visiting
+ * in visit(), and the nodes a pass adds or replaces in endVisit() are not
+ * visited by the later passes of its traversal. A pass that reads what an
+ * earlier pass changed elsewhere in the tree declares it with after(), and
+ * starts a new traversal. Within a traversal, each pass's visit() and
+ * endVisit() of a node run after those of the passes added before it, so a
+ * pass that reads what an earlier one changed in the node it is visiting
+ * doesn't need to.
+ * <p>
+ * Passes aren't fused when a timing report is requested, so that the report
+ * times each pass on its own.
+ */
+public class PassManager {
+
+  private final CompilationUnit unit;
+  private final List<Pass> passes = new ArrayList<>();
+  private int traversals = 0;
+
+  public PassManager(CompilationUnit unit) {
+    this.unit = unit;
+  }
+
+  /**
+   * A pass, and the passes whose output it depends on.
+   */
+  public class Pass {
+    private final String name;
+    private final Runnable step;
+    private final Supplier<? extends TreeVisitor> visitor;
+    private final Set<Pass> dependencies = new HashSet<>();
+
+    private Pass(String name, Runnable step, Supplier<? extends TreeVisitor> visitor) {
+      this.name = name;
+      this.step = step;
+      this.visitor = visitor;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Declares that this pass reads the output of the named passes, which
+     * must have been added before it.
+     */
+    public Pass after(String... passNames) {
+      for (String passName : passNames) {
+        Pass dependency = findPass(passName);
+        if (dependency == null) {
+          throw new IllegalArgumentException(
+              name + " depends on " + passName + ", which isn't added before it");
+        }
+        dependencies.add(dependency);
+      }
+      return this;
+    }
+
+    private boolean isFusable() {
+      return visitor != null;
+    }
+  }
+
+  /**
+   * Adds a pass that runs by itself.
+   */
+  public Pass add(String name, Runnable pass) {
+    return addPass(new Pass(name, pass, null));
+  }
+
+  /**
+   * Adds a visitor pass that can share a traversal with the fusable passes
+   * added before it that it doesn't depend on.
+   */
+  public Pass addFusable(String name, Supplier<? extends TreeVisitor> visitor) {
+    return addPass(new Pass(name, null, visitor));
+  }
+
+  private Pass addPass(Pass pass) {
+    if (findPass(pass.name) != null) {
+      throw new IllegalArgumentException("duplicate pass: " + pass.name);
+    }
+    passes.add(pass);
+    return pass;
+  }
+
+  private Pass findPass(String name) {
+    for (Pass pass : passes) {
+      if (pass.name.equals(name)) {
+        return pass;
+      }
+    }
+    return null;
+  }
+
+  public List<String> getPassNames() {
+    List<String> names = new ArrayList<>(passes.size());
+    for (Pass pass : passes) {
+      names.add(pass.name);
+    }
+    return names;
+  }
+
+  /**
+   * The number of passes, which is how many traversals running them
+   * separately takes.
+   */
+  public int getPassCount() {
+    return passes.size();
+  }
+
+  /**
+   * The number of traversals the last run() took.
+   */
+  public int getTraversalCount() {
+    return traversals;
+  }
+
+  /**
+   * Runs the passes, ticking the time tracker after each traversal with the
+   * names of the passes it ran, joined by '+'.
+   */
+  public void run(TimeTracker ticker) {
+    traversals = 0;
+    int i = 0;
+    while (i < passes.size()) {
+      List<Pass> group = nextTraversal(i);
+      if (group.size() == 1) {
+        Pass pass = group.get(0);
+        if (pass.isFusable()) {
+          unit.accept(pass.visitor.get());
+        } else {
+          pass.step.run();
+        }
+      } else {
+        List<TreeVisitor> visitors = new ArrayList<>(group.size());
+        for (Pass pass : group) {
+          visitors.add(pass.visitor.get());
+        }
+        unit.accept(new FusedVisitor(visitors));
+      }
+      traversals++;
+      List<String> names = new ArrayList<>(group.size());
+      for (Pass pass : group) {
+        names.add(pass.name);
+      }
+      ticker.tick(Joiner.on('+').join(names));
+      i += group.size();
+    }
+  }
+
+  /**
+   * Returns the passes starting at index start that run in one traversal.
+   */
+  private List<Pass> nextTraversal(int start) {
+    Pass first = passes.get(start);
+    if (!first.isFusable() || unit.getEnv().options().timingReport() != null) {
+      return Arrays.asList(first);
+    }
+    List<Pass> group = new ArrayList<>();
+    group.add(first);
+    for (int i = start + 1; i < passes.size(); i++) {
+      Pass pass = passes.get(i);
+      if (!pass.isFusable() || dependsOnAny(pass, group)) {
+        break;
+      }
+      group.add(pass);
+    }
+    return group;
+  }
+
+  private static boolean dependsOnAny(Pass pass, List<Pass> group) {
+    for (Pass dependency : pass.dependencies) {
+      if (group.contains(dependency)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,375 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The package declaration, package annotations and imports of a Java source,
+ * found with a lightweight tokenizer instead of a javac parse. Scanning stops
+ * at the first token after the imports, so type declarations aren't lexed.
+ */
+final class SourceHeader {
+
+  private final String packageName;
+  private final List<String> imports;
+  // The package annotations by their names as written, mapped to their string
+  // literal argument, or to null if they have no arguments or other ones.
+  private final Map<String, String> packageAnnotations;
+
+  private SourceHeader(
+      String packageName, List<String> imports, Map<String, String> packageAnnotations) {
+    this.packageName = packageName;
+    this.imports = imports;
+    this.packageAnnotations = packageAnnotations;
+  }
+
+  /**
+   * The package name, or null if the source is in the default package.
+   */
+  String getPackageName() {
+    return packageName;
+  }
+
+  /**
+   * The imported names, without any "static" modifier, and ending with ".*"
+   * for on-demand imports.
+   */
+  List<String> getImports() {
+    return imports;
+  }
+
+  /**
+   * Returns true if the package is annotated with the named annotation type,
+   * either by its qualified name or by a simple name it imports.
+   */
+  boolean hasPackageAnnotation(String qualifiedName) {
+    return getAnnotationName(qualifiedName) != null;
+  }
+
+  /**
+   * Returns the string literal that is the only argument of the named package
+   * annotation, or null if the package doesn't have the annotation or it has
+   * any other arguments, such as a constant expression.
+   */
+  String getPackageAnnotationValue(String qualifiedName) {
+    String name = getAnnotationName(qualifiedName);
+    return name != null ? packageAnnotations.get(name) : null;
+  }
+
+  private String getAnnotationName(String qualifiedName) {
+    if (packageAnnotations.containsKey(qualifiedName)) {
+      return qualifiedName;
+    }
+    int idx = qualifiedName.lastIndexOf('.');
+    String simpleName = qualifiedName.substring(idx + 1);
+    if (packageAnnotations.containsKey(simpleName) && (imports.contains(qualifiedName)
+        || imports.contains(qualifiedName.substring(0, idx + 1) + "*"))) {
+      return simpleName;
+    }
+    return null;
+  }
+
+  /**
+   * Scans the header of a source, or returns null if it isn't well-formed or
+   * uses syntax the tokenizer doesn't support, like Unicode escapes, in which
+   * case the source has to be parsed.
+   */
+  static SourceHeader scan(String source) {
+    Lexer lexer = new Lexer(source);
+    if (!lexer.next()) {
+      return null;
+    }
+    Map<String, String> annotations = new HashMap<>();
+    while (lexer.is("@")) {
+      if (!lexer.next() || lexer.is("interface")) {
+        // An annotation type declaration.
+        break;
+      }
+      String name = scanQualifiedName(lexer);
+      if (name == null) {
+        return null;
+      }
+      String value = null;
+      if (lexer.is("(")) {
+        if (!lexer.next()) {
+          return null;
+        }
+        if (lexer.kind == TokenKind.IDENTIFIER && lexer.text.equals("value")) {
+          if (!lexer.next() || !lexer.is("=") || !lexer.next()) {
+            return null;
+          }
+        }
+        if (lexer.kind == TokenKind.STRING) {
+          value = lexer.text;
+          if (!lexer.next()) {
+            return null;
+          }
+        }
+        if (!lexer.is(")")) {
+          value = null;
+          if (!skipArguments(lexer)) {
+            return null;
+          }
+        }
+        if (!lexer.next()) {
+          return null;
+        }
+      }
+      annotations.put(name, value);
+    }
+
+    String packageName = null;
+    if (lexer.is("package")) {
+      if (!lexer.next()) {
+        return null;
+      }
+      packageName = scanQualifiedName(lexer);
+      if (packageName == null || !lexer.is(";") || !lexer.next()) {
+        return null;
+      }
+    } else {
+      // Annotations that don't precede a package declaration are a type's.
+      annotations.clear();
+    }
+
+    List<String> imports = new ArrayList<>();
+    while (lexer.is("import") || lexer.is(";")) {
+      if (lexer.is(";")) {
+        if (!lexer.next()) {
+          return null;
+        }
+        continue;
+      }
+      if (!lexer.next()) {
+        return null;
+      }
+      if (lexer.is("static") && !lexer.next()) {
+        return null;
+      }
+      String name = scanQualifiedName(lexer);
+      if (name == null) {
+        return null;
+      }
+      if (lexer.is("*")) {
+        name += "*";
+        if (!lexer.next()) {
+          return null;
+        }
+      }
+      if (!lexer.is(";") || !lexer.next()) {
+        return null;
+      }
+      imports.add(name);
+    }
+    return new SourceHeader(packageName, Collections.unmodifiableList(imports),
+        Collections.unmodifiableMap(annotations));
+  }
+
+  /**
+   * Scans a dotted name, leaving the lexer on the token after it. A name
+   * followed by ".*" is returned with a trailing dot, and the lexer is left on
+   * the "*".
+   */
+  private static String scanQualifiedName(Lexer lexer) {
+    if (lexer.kind != TokenKind.IDENTIFIER) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(lexer.text);
+    while (lexer.next() && lexer.is(".")) {
+      if (!lexer.next()) {
+        return null;
+      }
+      if (lexer.is("*")) {
+        return sb.append('.').toString();
+      }
+      if (lexer.kind != TokenKind.IDENTIFIER) {
+        return null;
+      }
+      sb.append('.').append(lexer.text);
+    }
+    return lexer.kind != TokenKind.INVALID ? sb.toString() : null;
+  }
+
+  /**
+   * Skips to the parenthesis that closes an annotation's arguments.
+   */
+  private static boolean skipArguments(Lexer lexer) {
+    int depth = 1;
+    while (true) {
+      if (lexer.is("(")) {
+        depth++;
+      } else if (lexer.is(")") && --depth == 0) {
+        return true;
+      }
+      if (!lexer.next() || lexer.kind == TokenKind.END) {
+        return false;
+      }
+    }
+  }
+
+  private enum TokenKind {
+    IDENTIFIER, STRING, LITERAL, SEPARATOR, END, INVALID
+  }
+
+  /**
+   * Splits a source into identifiers and keywords, string literals with their
+   * escapes decoded, other literals, and single character separators and
+   * operators, skipping white space and comments.
+   */
+  private static class Lexer {
+    private final String source;
+    private int pos = 0;
+    private TokenKind kind;
+    private String text;
+
+    private Lexer(String source) {
+      this.source = source;
+    }
+
+    private boolean is(String token) {
+      return (kind == TokenKind.IDENTIFIER || kind == TokenKind.SEPARATOR) && text.equals(token);
+    }
+
+    /**
+     * Advances to the next token, and returns false if it is invalid. At the
+     * end of the source the kind is END, which no token matches.
+     */
+    private boolean next() {
+      kind = scanToken();
+      return kind != TokenKind.INVALID;
+    }
+
+    private TokenKind scanToken() {
+      text = null;
+      if (!skipWhitespaceAndComments()) {
+        return TokenKind.INVALID;
+      }
+      if (pos == source.length()) {
+        return TokenKind.END;
+      }
+      char c = source.charAt(pos);
+      int start = pos;
+      if (c == '\\') {
+        // A Unicode escape, which can stand for any character.
+        return TokenKind.INVALID;
+      } else if (Character.isJavaIdentifierStart(c)) {
+        while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+          pos++;
+        }
+        text = source.substring(start, pos);
+        return TokenKind.IDENTIFIER;
+      } else if (c == '"') {
+        return scanString();
+      } else if (c == '\'' || Character.isDigit(c)) {
+        // Only string literals are read, so other literals are skipped.
+        pos++;
+        while (pos < source.length()
+            && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '\\'
+                || (c == '\'' && source.charAt(pos) != '\''))) {
+          pos++;
+        }
+        if (c == '\'' && pos++ == source.length()) {
+          return TokenKind.INVALID;
+        }
+        text = source.substring(start, pos);
+        return TokenKind.LITERAL;
+      }
+      pos++;
+      text = String.valueOf(c);
+      return TokenKind.SEPARATOR;
+    }
+
+    private TokenKind scanString() {
+      StringBuilder sb = new StringBuilder();
+      pos++;
+      while (pos < source.length()) {
+        char c = source.charAt(pos++);
+        if (c == '"') {
+          text = sb.toString();
+          return TokenKind.STRING;
+        } else if (c == '\n' || c == '\r') {
+          return TokenKind.INVALID;
+        } else if (c != '\\') {
+          sb.append(c);
+          continue;
+        }
+        if (pos == source.length()) {
+          return TokenKind.INVALID;
+        }
+        c = source.charAt(pos++);
+        switch (c) {
+          case 'b': sb.append('\b'); break;
+          case 't': sb.append('\t'); break;
+          case 'n': sb.append('\n'); break;
+          case 'f': sb.append('\f'); break;
+          case 'r': sb.append('\r'); break;
+          case '"': case '\'': case '\\': sb.append(c); break;
+          default:
+            if (c < '0' || c > '7') {
+              // Unicode escapes are handled by the parser.
+              return TokenKind.INVALID;
+            }
+            int value = c - '0';
+            int maxDigits = c <= '3' ? 3 : 2;
+            for (int i = 1; i < maxDigits && pos < source.length()
+                && source.charAt(pos) >= '0' && source.charAt(pos) <= '7'; i++) {
+              value = value * 8 + source.charAt(pos++) - '0';
+            }
+            sb.append((char) value);
+        }
+      }
+      return TokenKind.INVALID;
+    }
+
+    /**
+     * Skips white space and comments, and returns false if a comment is
+     * unterminated or has a Unicode escape, which might end it.
+     */
+    private boolean skipWhitespaceAndComments() {
+      while (pos < source.length()) {
+        char c = source.charAt(pos);
+        int start = pos;
+        if (Character.isWhitespace(c)) {
+          pos++;
+          continue;
+        } else if (source.startsWith("//", pos)) {
+          while (pos < source.length()
+              && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') {
+            pos++;
+          }
+        } else if (source.startsWith("/*", pos)) {
+          int end = source.indexOf("*/", pos + 2);
+          if (end < 0) {
+            return false;
+          }
+          pos = end + 2;
+        } else {
+          break;
+        }
+        for (int i = start; i < pos - 1; i++) {
+          if (source.charAt(i) == '\\' && source.charAt(i + 1) == 'u') {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+  }
+}
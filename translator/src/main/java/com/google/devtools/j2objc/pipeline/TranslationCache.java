@@ -0,0 +1,562 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.QualifiedName;
+import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.SuperFieldAccess;
+import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.ErrorSink;
+import com.google.devtools.j2objc.util.FileUtil;
+import com.google.devtools.j2objc.util.TypeUtil;
+import com.google.devtools.j2objc.util.Version;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+
+/**
+ * Caches the files generated for a source file, so that they can be reused
+ * when a later translation has the same input. A hit writes the cached .h and
+ * .m files without parsing or translating the source.
+ * <p>
+ * Entries are keyed by a hash of the source's contents and unit name, the
+ * j2objc version and jar, the flags and the contents of the class path. The
+ * generated files also depend on the types they import, so each entry records
+ * the sources those types were found in on the source path, and is only used
+ * if none of them changed. So does each type whose compile-time constants
+ * the source reads, since the translation inlines or prunes them. The least
+ * recently used entries are evicted when the cache is larger than
+ * {@link Options#translationCacheSize}.
+ * <p>
+ * Only sources that generate their own files and can be found on the source
+ * path are cached, since javac needs to find an input that isn't parsed when
+ * it compiles the sources that refer to it. Entries are only stored after a
+ * translation without errors or warnings.
+ */
+class TranslationCache {
+
+  private static final Logger logger = Logger.getLogger(TranslationCache.class.getName());
+
+  // Flags that don't change the generated files, without and with a value.
+  private static final Set<String> IGNORED_FLAGS = new HashSet<>(Arrays.asList(
+      "-l", "--list", "-v", "--verbose", "-t", "--timing-info", "--rewrite-unchanged-output"));
+  private static final Set<String> IGNORED_FLAGS_WITH_VALUE = new HashSet<>(Arrays.asList(
+      "-d", "-j", "--cache-dir", "--cache-size", "--batch-heap-limit", "--timing-report"));
+
+  // Flags whose value lists files that change the generated files, and the
+  // separator of their values.
+  private static final Map<String, String> FILE_FLAGS = ImmutableMap.of(
+      "--prefixes", ",",
+      "--mapping", ",",
+      "--header-mapping", ",",
+      "--dead-code-report", ",",
+      "-processorpath", File.pathSeparator);
+
+  private static final String ENTRY_FILE = "entry.properties";
+  private static final String MAIN_TYPE_KEY = "mainType";
+  private static final String OUTPUT_PATH_KEY = "outputPath";
+  private static final String IMPORTS_KEY = "imports";
+  private static final String DEPENDENCY_PREFIX = "dependency.";
+  private static final String[] SUFFIXES = { ".h", ".m" };
+
+  // Recorded in place of a hash for a dependency that isn't on the source path.
+  private static final String NOT_ON_SOURCE_PATH = "-";
+
+  private final Options options;
+  private final File cacheDir;
+  private final String environmentKey;
+
+  // Translations to store when the run completes without errors. Added to by
+  // the translation threads.
+  private final List<PendingEntry> pendingEntries =
+      Collections.synchronizedList(new ArrayList<>());
+
+  // The top-level types declared by the translated sources.
+  private final Set<String> translatedTypes = ConcurrentHashMap.newKeySet();
+
+  private int hits = 0;
+  private int misses = 0;
+  private long bytesSaved = 0;
+  private int stored = 0;
+  private int evicted = 0;
+
+  TranslationCache(Options options) {
+    this.options = options;
+    cacheDir = options.translationCacheDir();
+    environmentKey = hashEnvironment(options);
+  }
+
+  /**
+   * Writes the cached files for an input, if its entry is valid. Returns the
+   * entry, or null if the input must be translated.
+   */
+  CachedTranslation load(ProcessingContext input) {
+    if (!isCacheable(input)) {
+      return null;
+    }
+    try {
+      File entryDir = new File(cacheDir, getKey(input.getFile()));
+      File entryFile = new File(entryDir, ENTRY_FILE);
+      if (!entryFile.exists()) {
+        misses++;
+        return null;
+      }
+      Properties entry = FileUtil.loadProperties(new FileInputStream(entryFile));
+      CachedTranslation translation = new CachedTranslation(
+          entry.getProperty(MAIN_TYPE_KEY), entry.getProperty(OUTPUT_PATH_KEY));
+      TreeMap<String, String> dependencies = new TreeMap<>();
+      for (String key : entry.stringPropertyNames()) {
+        if (key.startsWith(DEPENDENCY_PREFIX)) {
+          dependencies.put(key.substring(DEPENDENCY_PREFIX.length()), entry.getProperty(key));
+        }
+      }
+      if (!isOnSourcePath(translation.mainType, input.getFile())
+          || !dependencies.equals(hashDependencies(dependencies.keySet()))) {
+        misses++;
+        return null;
+      }
+      for (String suffix : SUFFIXES) {
+        File cachedFile = new File(entryDir, "output" + suffix);
+        File outputFile = new File(
+            options.fileUtil().getOutputDirectory(), translation.outputPath + suffix);
+        options.fileUtil().copyOutputFile(cachedFile, outputFile);
+        bytesSaved += cachedFile.length();
+      }
+      String imports = entry.getProperty(IMPORTS_KEY, "");
+      if (!imports.isEmpty()) {
+        translation.imports.addAll(Arrays.asList(imports.split(",")));
+      }
+      // Used for eviction.
+      entryDir.setLastModified(System.currentTimeMillis());
+      hits++;
+      return translation;
+    } catch (IOException e) {
+      // The entry is incomplete or can't be read, so translate the source.
+      logger.fine("Unable to use cache entry: " + e.getMessage());
+      misses++;
+      return null;
+    }
+  }
+
+  /**
+   * Records the top-level types declared by a source that is translated, for
+   * checking whether dependencies are found on the source path.
+   */
+  void addTranslatedTypes(CompilationUnit unit) {
+    for (AbstractTypeDeclaration type : unit.getTypes()) {
+      translatedTypes.add(ElementUtil.getQualifiedName(type.getTypeElement()));
+    }
+  }
+
+  /**
+   * Returns the top-level types declaring the compile-time constants a unit
+   * reads. It has to be called before the unit is translated, since
+   * ConstantBranchPruner removes the references to constants it folds, and
+   * they don't reach the generated files' imports.
+   */
+  static Set<String> getConstantTypes(CompilationUnit unit) {
+    Set<String> types = new HashSet<>();
+    unit.accept(new TreeVisitor() {
+      @Override
+      public void endVisit(SimpleName node) {
+        addConstantType(node);
+      }
+
+      @Override
+      public void endVisit(QualifiedName node) {
+        addConstantType(node);
+      }
+
+      @Override
+      public void endVisit(FieldAccess node) {
+        addConstantType(node);
+      }
+
+      @Override
+      public void endVisit(SuperFieldAccess node) {
+        addConstantType(node);
+      }
+
+      private void addConstantType(Expression node) {
+        VariableElement var = TreeUtil.getVariableElement(node);
+        if (var != null && var.getKind().isField() && var.getConstantValue() != null) {
+          types.add(AbiFingerprint.getTopLevelName(ElementUtil.getDeclaringClass(var)));
+        }
+      }
+    });
+    return types;
+  }
+
+  /**
+   * Adds a translated unit's generated files to the entries stored by
+   * {@link #finish}. The dependencies are the top-level types its generated
+   * files import, which are expanded to include their supertypes, and the
+   * types whose constants it read.
+   */
+  void addTranslation(ProcessingContext input, CompilationUnit unit, Set<String> imports,
+      Set<String> constantTypes) {
+    GenerationUnit genUnit = input.getGenerationUnit();
+    if (!isCacheable(input) || genUnit.getOutputPath() == null) {
+      return;
+    }
+    TypeUtil typeUtil = unit.getEnv().typeUtil();
+    String mainType = FileUtil.getQualifiedMainTypeName(input.getFile(), unit);
+    Set<String> dependencies = new LinkedHashSet<>();
+    for (String name : imports) {
+      dependencies.add(name);
+      TypeElement type = typeUtil.resolveJavaType(name);
+      if (type != null) {
+        typeUtil.visitTypeHierarchy(type.asType(), supertype -> {
+          dependencies.add(AbiFingerprint.getTopLevelName(TypeUtil.asTypeElement(supertype)));
+          return true;
+        });
+      }
+    }
+    // Package prefixes can be declared by package-info sources.
+    Set<String> packages = new HashSet<>();
+    packages.add(getPackageName(mainType));
+    for (String name : dependencies) {
+      packages.add(getPackageName(name));
+    }
+    for (String pkg : packages) {
+      dependencies.add(pkg.isEmpty() ? "package-info" : pkg + ".package-info");
+    }
+    dependencies.addAll(constantTypes);
+    pendingEntries.add(new PendingEntry(
+        input.getFile(), mainType, genUnit.getOutputPath(), imports, dependencies));
+  }
+
+  /**
+   * Stores the pending entries if the translation succeeded, evicts old
+   * entries, and prints the cache statistics when listing translated files.
+   */
+  void finish() {
+    ErrorSink errorSink = options.errorSink();
+    if (errorSink.errorCount() == 0 && errorSink.warningCount() == 0) {
+      for (PendingEntry entry : pendingEntries) {
+        try {
+          store(entry);
+        } catch (IOException e) {
+          // Not an error, since the generated files were written.
+          logger.warning("Unable to cache " + entry.mainType + ": " + e.getMessage());
+        }
+      }
+    }
+    pendingEntries.clear();
+    evict();
+    if (logger.isLoggable(Level.INFO)) {
+      System.out.println(String.format(
+          "Translation cache: %d hits, %d misses, %d bytes reused, %d stored, %d evicted",
+          hits, misses, bytesSaved, stored, evicted));
+    }
+  }
+
+  @VisibleForTesting
+  int getHits() {
+    return hits;
+  }
+
+  @VisibleForTesting
+  int getMisses() {
+    return misses;
+  }
+
+  private boolean isCacheable(ProcessingContext input) {
+    return input.getGenerationUnit().hasSingleInput()
+        && input.getFile().getUnitName().endsWith(".java");
+  }
+
+  private static String getPackageName(String qualifiedName) {
+    int i = qualifiedName.lastIndexOf('.');
+    return i > 0 ? qualifiedName.substring(0, i) : "";
+  }
+
+  private void store(PendingEntry pending) throws IOException {
+    if (!isOnSourcePath(pending.mainType, pending.file)) {
+      return;
+    }
+    TreeMap<String, String> dependencies = hashDependencies(pending.dependencies);
+    for (String name : pending.dependencies) {
+      // A type that was translated but isn't on the source path was
+      // declared by a secondary type or another input, which can't be
+      // checked for changes.
+      if (dependencies.get(name).equals(NOT_ON_SOURCE_PATH) && translatedTypes.contains(name)) {
+        return;
+      }
+    }
+    Properties entry = new Properties();
+    entry.setProperty(MAIN_TYPE_KEY, pending.mainType);
+    entry.setProperty(OUTPUT_PATH_KEY, pending.outputPath);
+    entry.setProperty(IMPORTS_KEY, String.join(",", pending.imports));
+    for (String name : dependencies.keySet()) {
+      entry.setProperty(DEPENDENCY_PREFIX + name, dependencies.get(name));
+    }
+
+    // Write the entry to a temporary directory and rename it, so that an
+    // interrupted translation doesn't leave a partial entry.
+    String key = getKey(pending.file);
+    File entryDir = new File(cacheDir, key);
+    File tempDir = new File(cacheDir, key + ".tmp" + Thread.currentThread().getId());
+    FileUtil.deleteTempDir(tempDir);
+    if (!tempDir.mkdirs()) {
+      throw new IOException("cannot create " + tempDir);
+    }
+    for (String suffix : SUFFIXES) {
+      File outputFile = new File(
+          options.fileUtil().getOutputDirectory(), pending.outputPath + suffix);
+      Files.copy(outputFile, new File(tempDir, "output" + suffix));
+    }
+    try (OutputStream out = new FileOutputStream(new File(tempDir, ENTRY_FILE))) {
+      entry.store(out, null);
+    }
+    FileUtil.deleteTempDir(entryDir);
+    if (!tempDir.renameTo(entryDir)) {
+      FileUtil.deleteTempDir(tempDir);
+      throw new IOException("cannot create " + entryDir);
+    }
+    stored++;
+  }
+
+  /**
+   * Deletes the least recently used entries until the cache is no larger than
+   * its maximum size.
+   */
+  private void evict() {
+    File[] entries = cacheDir.listFiles(File::isDirectory);
+    if (entries == null) {
+      return;
+    }
+    long size = 0;
+    for (File entry : entries) {
+      size += sizeOf(entry);
+    }
+    long maxSize = options.translationCacheSize();
+    if (size <= maxSize) {
+      return;
+    }
+    Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+    for (File entry : entries) {
+      if (size <= maxSize) {
+        break;
+      }
+      size -= sizeOf(entry);
+      FileUtil.deleteTempDir(entry);
+      evicted++;
+    }
+  }
+
+  private static long sizeOf(File dir) {
+    long size = 0;
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        size += f.length();
+      }
+    }
+    return size;
+  }
+
+  private String getKey(InputFile file) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(environmentKey, StandardCharsets.UTF_8);
+    hasher.putString(file.getUnitName(), StandardCharsets.UTF_8);
+    hasher.putBytes(hashContents(file).asBytes());
+    return hasher.hash().toString();
+  }
+
+  private boolean isOnSourcePath(String mainType, InputFile file) throws IOException {
+    InputFile found = options.fileUtil().findOnSourcePath(mainType);
+    return found != null && new File(found.getAbsolutePath()).getCanonicalPath().equals(
+        new File(file.getAbsolutePath()).getCanonicalPath());
+  }
+
+  /**
+   * Returns the hashes of the sources of the named types that are on the
+   * source path, sorted by name.
+   */
+  private TreeMap<String, String> hashDependencies(Set<String> names) throws IOException {
+    TreeMap<String, String> hashes = new TreeMap<>();
+    for (String name : names) {
+      InputFile file = options.fileUtil().findOnSourcePath(name);
+      hashes.put(name, file != null ? hashContents(file).toString() : NOT_ON_SOURCE_PATH);
+    }
+    return hashes;
+  }
+
+  private static HashCode hashContents(InputFile file) throws IOException {
+    try (InputStream in = file.getInputStream()) {
+      return Hashing.sha256().hashBytes(ByteStreams.toByteArray(in));
+    }
+  }
+
+  /**
+   * Hashes what every translation depends on: the translator, the flags that
+   * affect the generated files and the files they name, the class hierarchy,
+   * the non-null summaries and the class path.
+   */
+  private static String hashEnvironment(Options options) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(Version.jarVersion(Options.class), StandardCharsets.UTF_8);
+    try {
+      hashPath(hasher, new File(
+          J2ObjC.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+    } catch (URISyntaxException | SecurityException e) {
+      // Use just the version.
+    }
+    List<String> flags = options.getFlags();
+    for (int i = 0; i < flags.size(); i++) {
+      String flag = flags.get(i);
+      if (IGNORED_FLAGS_WITH_VALUE.contains(flag)) {
+        i++;
+      } else if (!IGNORED_FLAGS.contains(flag) && !flag.startsWith("--timing-info:")) {
+        hasher.putString(flag, StandardCharsets.UTF_8).putByte((byte) 0);
+        String separator = FILE_FLAGS.get(flag);
+        if (separator != null && i + 1 < flags.size()) {
+          String value = flags.get(++i);
+          hasher.putString(value, StandardCharsets.UTF_8).putByte((byte) 0);
+          for (String path : Splitter.on(separator).omitEmptyStrings().split(value)) {
+            hashPath(hasher, new File(path));
+          }
+        }
+      }
+    }
+    for (String entry : options.fileUtil().getClassPathEntries()) {
+      hashPath(hasher, new File(entry));
+    }
+    File hierarchyFile = options.classHierarchyFile();
+    if (hierarchyFile != null) {
+      hashPath(hasher, hierarchyFile);
+    }
+    File nonnullSummaryFile = options.nonnullSummaryFile();
+    if (nonnullSummaryFile != null) {
+      hashPath(hasher, nonnullSummaryFile);
+    }
+    for (String entry : options.getBootClasspath()) {
+      hashPath(hasher, new File(entry));
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Hashes the path, size and modification time of a jar file, or of the
+   * class files in a directory. Other files in a directory are skipped, since
+   * the class path is often also the source path or output directory.
+   */
+  /**
+   * Hashes the contents of a file, or of the classfiles in a directory with
+   * their paths relative to it. Where the file is and when it was modified
+   * aren't hashed, so a fresh checkout of the same files keeps its entries.
+   */
+  private static void hashPath(Hasher hasher, File file) {
+    hashPath(hasher, file, "");
+  }
+
+  private static void hashPath(Hasher hasher, File file, String relativePath) {
+    hasher.putString(relativePath, StandardCharsets.UTF_8).putByte((byte) 0);
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children != null) {
+        Arrays.sort(children);
+        for (File child : children) {
+          if (child.isDirectory() || child.getName().endsWith(".class")) {
+            hashPath(hasher, child, relativePath + '/' + child.getName());
+          }
+        }
+      }
+    } else {
+      try {
+        hasher.putBytes(Files.asByteSource(file).hash(Hashing.sha256()).asBytes());
+      } catch (IOException e) {
+        // A missing or unreadable file.
+        hasher.putByte((byte) 0);
+      }
+    }
+  }
+
+  /**
+   * A translation whose generated files were written from the cache.
+   */
+  static class CachedTranslation {
+    final String mainType;
+    final String outputPath;
+    // The top-level types the generated files import.
+    final Set<String> imports = new HashSet<>();
+
+    private CachedTranslation(String mainType, String outputPath) throws IOException {
+      if (mainType == null || outputPath == null) {
+        throw new IOException("invalid cache entry");
+      }
+      this.mainType = mainType;
+      this.outputPath = outputPath;
+    }
+  }
+
+  private static class PendingEntry {
+    private final InputFile file;
+    private final String mainType;
+    private final String outputPath;
+    private final Set<String> imports;
+    private final Set<String> dependencies;
+
+    private PendingEntry(InputFile file, String mainType, String outputPath, Set<String> imports,
+        Set<String> dependencies) {
+      this.file = file;
+      this.mainType = mainType;
+      this.outputPath = outputPath;
+      this.imports = new TreeSet<>(imports);
+      this.dependencies = Collections.unmodifiableSet(dependencies);
+    }
+  }
+}
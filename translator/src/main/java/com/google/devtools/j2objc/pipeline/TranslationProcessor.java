@@ -60,13 +60,26 @@ import com.google.devtools.j2objc.translate.VariableRenamer;
 import com.google.devtools.j2objc.types.HeaderImportCollector;
 import com.google.devtools.j2objc.types.ImplementationImportCollector;
 import com.google.devtools.j2objc.types.Import;
+import com.google.devtools.j2objc.util.ClassHierarchy;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.FileUtil;
+import com.google.devtools.j2objc.util.NameTable;
+import com.google.devtools.j2objc.util.NonnullSummary;
 import com.google.devtools.j2objc.util.Parser;
 import com.google.devtools.j2objc.util.TimeTracker;
+import com.google.devtools.j2objc.util.TimingReport;
+import com.google.devtools.j2objc.util.TypeUtil;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.lang.model.element.TypeElement;
 
 /**
  * Processes source files by translating each source into an Objective-C header
@@ -80,11 +93,49 @@ public class TranslationProcessor extends FileProcessor {
 
   private final CodeReferenceMap deadCodeMap;
 
-  private int processedCount = 0;
+  private final AtomicInteger processedCount = new AtomicInteger();
+
+  // The tree mutation passes run, and the traversals they took.
+  private final AtomicInteger passCount = new AtomicInteger();
+  private final AtomicInteger traversalCount = new AtomicInteger();
+
+  // Reuses the files generated by earlier translations, or null.
+  private final TranslationCache cache;
+
+  // Collects the class hierarchy of the translated sources, or null.
+  private final ClassHierarchy hierarchyOutput;
 
   public TranslationProcessor(Parser parser, CodeReferenceMap deadCodeMap) {
     super(parser);
     this.deadCodeMap = deadCodeMap;
+    hierarchyOutput = options.classHierarchyOutputFile() != null ? new ClassHierarchy() : null;
+    // Cached sources aren't parsed, so they can't be added to the hierarchy
+    // or the non-null summaries, or counted in the devirtualization report.
+    cache = options.translationCacheDir() != null && !options.dumpAST()
+        && hierarchyOutput == null && options.devirtualizationReportFile() == null
+        && options.nonnullSummaryOutputFile() == null
+        ? new TranslationCache(options) : null;
+  }
+
+  @VisibleForTesting
+  TranslationCache getTranslationCache() {
+    return cache;
+  }
+
+  @Override
+  protected boolean processCachedInput(ProcessingContext input) {
+    if (cache == null) {
+      return false;
+    }
+    TranslationCache.CachedTranslation translation = cache.load(input);
+    if (translation == null) {
+      return false;
+    }
+    if (closureQueue != null) {
+      closureQueue.addProcessedName(translation.mainType);
+      queueDependencies(translation.imports);
+    }
+    return true;
   }
 
   @Override
@@ -93,28 +144,95 @@ public class TranslationProcessor extends FileProcessor {
     if (logger.isLoggable(Level.INFO)) {
       System.out.println("translating " + unitName);
     }
-    TimeTracker ticker = TimeTracker.getTicker(unitName, options.timingLevel());
+    // Read before the tree mutations, which fold constants away.
+    Set<String> constantTypes = null;
+    if (cache != null) {
+      cache.addTranslatedTypes(unit);
+      constantTypes = TranslationCache.getConstantTypes(unit);
+    }
+    if (hierarchyOutput != null) {
+      hierarchyOutput.addUnit(unit);
+    }
     if (options.dumpAST()) {
       // Dump compilation unit to an .ast output file instead of translating.
       DebugASTDump.dumpUnit(unit);
     } else {
-      applyMutations(unit, deadCodeMap, ticker);
-      ticker.tick("Tree mutations");
-      ticker.printResults(System.out);
+      mutateTree(unitName, unit);
+      addToGenerationUnit(input, unit, constantTypes);
+    }
+    processedCount.incrementAndGet();
+  }
 
-      GenerationUnit genUnit = input.getGenerationUnit();
-      genUnit.addCompilationUnit(unit);
+  private void mutateTree(String unitName, CompilationUnit unit) {
+    TimeTracker ticker = TimeTracker.getTicker(unitName, options);
+    ticker.countNodes(unit);
+    PassManager passes = runPasses(unit, deadCodeMap, ticker);
+    passCount.addAndGet(passes.getPassCount());
+    traversalCount.addAndGet(passes.getTraversalCount());
+    ticker.tick("Tree mutations");
+    ticker.printResults(System.out);
+  }
 
-      // Add out-of-date dependencies to translation list.
-      if (closureQueue != null) {
-        checkDependencies(unit);
-      }
+  private void addToGenerationUnit(
+      ProcessingContext input, CompilationUnit unit, Set<String> constantTypes) {
+    GenerationUnit genUnit = input.getGenerationUnit();
+    genUnit.addCompilationUnit(unit);
+
+    Set<String> dependencies =
+        closureQueue != null || cache != null ? getDependencies(unit) : null;
+    // Add out-of-date dependencies to translation list.
+    if (closureQueue != null) {
+      queueDependencies(dependencies);
+    }
+
+    if (genUnit.isFullyParsed()) {
+      generateObjectiveCSource(genUnit);
+    }
+    if (genUnit.hasSingleInput()) {
+      recordTranslation(input, unit, dependencies, constantTypes);
+    }
+  }
 
-      if (genUnit.isFullyParsed()) {
-        generateObjectiveCSource(genUnit);
+  /**
+   * Records what a unit that generated its own files depends on, for the
+   * translation cache and --build-closure. Runs on the thread that parsed the
+   * unit, since it resolves types.
+   */
+  private void recordTranslation(ProcessingContext input, CompilationUnit unit,
+      Set<String> dependencies, Set<String> constantTypes) {
+    if (closureQueue != null) {
+      writeFingerprint(input, unit, dependencies);
+    }
+    if (cache != null) {
+      cache.addTranslation(input, unit, dependencies, constantTypes);
+    }
+  }
+
+  private void writeFingerprint(
+      ProcessingContext input, CompilationUnit unit, Set<String> dependencies) {
+    TypeUtil typeUtil = unit.getEnv().typeUtil();
+    NameTable nameTable = unit.getEnv().nameTable();
+    String mainTypeName = FileUtil.getQualifiedMainTypeName(input.getFile(), unit);
+    TypeElement mainType = typeUtil.resolveJavaType(mainTypeName);
+    if (mainType == null) {
+      // A package-info source, or one without a type of the same name.
+      return;
+    }
+    Map<String, String> imports = new TreeMap<>();
+    for (String name : AbiFingerprint.expandDependencies(mainType, dependencies, typeUtil)) {
+      TypeElement type = typeUtil.resolveJavaType(name);
+      if (type != null) {
+        imports.put(name, AbiFingerprint.compute(type, nameTable));
       }
     }
-    processedCount++;
+    File file = AbiFingerprint.getFile(
+        options.fileUtil().getOutputDirectory(), input.getGenerationUnit().getOutputPath());
+    try {
+      new AbiFingerprint(AbiFingerprint.hashSource(input.getFile()),
+          AbiFingerprint.compute(mainType, nameTable), imports).write(file);
+    } catch (IOException e) {
+      ErrorUtil.error(e.getMessage());
+    }
   }
 
   /**
@@ -127,186 +245,188 @@ public class TranslationProcessor extends FileProcessor {
    */
   public static void applyMutations(CompilationUnit unit, CodeReferenceMap deadCodeMap,
       TimeTracker ticker) {
+    runPasses(unit, deadCodeMap, ticker);
+  }
+
+  private static PassManager runPasses(CompilationUnit unit, CodeReferenceMap deadCodeMap,
+      TimeTracker ticker) {
+    PassManager passes = createPasses(unit, deadCodeMap);
     ticker.push();
+    passes.run(ticker);
+
+    // Make sure we still have a valid AST.
+    unit.validate();
+
+    ticker.pop();
+    return passes;
+  }
+
+  /**
+   * Returns the tree mutation passes of a unit, in the order they run.
+   */
+  public static PassManager createPasses(CompilationUnit unit, CodeReferenceMap deadCodeMap) {
+    PassManager passes = new PassManager(unit);
 
     // Before: OuterReferenceResolver - OuterReferenceResolver needs the bindings fixed.
-    new LambdaTypeElementAdder(unit).run();
-    ticker.tick("LambdaTypeElementAdder");
+    passes.add("LambdaTypeElementAdder", () -> new LambdaTypeElementAdder(unit).run());
 
     if (deadCodeMap != null) {
-      new DeadCodeEliminator(unit, deadCodeMap).run();
-      ticker.tick("DeadCodeEliminator");
+      passes.add("DeadCodeEliminator", () -> new DeadCodeEliminator(unit, deadCodeMap).run());
     }
 
-    new OuterReferenceResolver(unit).run();
-    ticker.tick("OuterReferenceResolver");
+    passes.add("OuterReferenceResolver", () -> new OuterReferenceResolver(unit).run())
+        .after("LambdaTypeElementAdder");
 
     // Update code that has GWT references.
-    new GwtConverter(unit).run();
-    ticker.tick("GwtConverter");
+    passes.addFusable("GwtConverter", () -> new GwtConverter(unit));
 
     // Add default equals/hashCode methods to Number subclasses, if necessary.
-    new NumberMethodRewriter(unit).run();
-    ticker.tick("NumberMethodRewriter");
+    // Shares a traversal with GwtConverter, since it only adds methods to the
+    // type declarations it ends visiting.
+    passes.addFusable("NumberMethodRewriter", () -> new NumberMethodRewriter(unit));
 
     // Before: Rewriter - Pruning unreachable statements must happen before
     //   rewriting labeled break statements.
     // Before: InnerClassExtractor - Removes unreachable local classes.
-    new ConstantBranchPruner(unit).run();
-    ticker.tick("ConstantBranchPruner");
+    passes.add("ConstantBranchPruner", () -> new ConstantBranchPruner(unit).run());
 
     // Modify AST to be more compatible with Objective C
-    new Rewriter(unit).run();
-    ticker.tick("Rewriter");
+    passes.add("Rewriter", () -> new Rewriter(unit).run()).after("ConstantBranchPruner");
 
     // Add abstract method stubs.
-    new AbstractMethodRewriter(unit, deadCodeMap).run();
-    ticker.tick("AbstractMethodRewriter");
+    passes.add("AbstractMethodRewriter", () -> new AbstractMethodRewriter(unit, deadCodeMap).run());
 
-    new VariableRenamer(unit).run();
-    ticker.tick("VariableRenamer");
+    passes.add("VariableRenamer", () -> new VariableRenamer(unit).run());
 
     // Rewrite enhanced for loops into correct C code.
-    new EnhancedForRewriter(unit).run();
-    ticker.tick("EnhancedForRewriter");
+    passes.add("EnhancedForRewriter", () -> new EnhancedForRewriter(unit).run());
 
     // Before: Autoboxer - Must generate implementations so autoboxing can be applied to result.
-    new LambdaRewriter(unit).run();
-    ticker.tick("LambdaRewriter");
+    passes.add("LambdaRewriter", () -> new LambdaRewriter(unit).run());
 
     // Add auto-boxing conversions.
-    new Autoboxer(unit).run();
-    ticker.tick("Autoboxer");
+    passes.add("Autoboxer", () -> new Autoboxer(unit).run()).after("LambdaRewriter");
 
-    new InnerClassExtractor(unit).run();
-    ticker.tick("InnerClassExtractor");
+    passes.add("InnerClassExtractor", () -> new InnerClassExtractor(unit).run())
+        .after("ConstantBranchPruner");
 
     // Generate method shims for classes implementing interfaces that have default methods
-    new DefaultMethodShimGenerator(unit, deadCodeMap).run();
-    ticker.tick("DefaultMethodShimGenerator");
+    passes.add("DefaultMethodShimGenerator",
+        () -> new DefaultMethodShimGenerator(unit, deadCodeMap).run());
 
     // Normalize init statements
-    new InitializationNormalizer(unit).run();
-    ticker.tick("InitializationNormalizer");
+    passes.add("InitializationNormalizer", () -> new InitializationNormalizer(unit).run());
 
     // Adds nil_chk calls wherever an expression is dereferenced.
     // After: InnerClassExtractor - Cannot handle local classes.
     // After: InitializationNormalizer
     // Before: LabelRewriter - Control flow analysis requires original Java
     //   labels.
-    new NilCheckResolver(unit).run();
-    ticker.tick("NilCheckResolver");
+    passes.add("NilCheckResolver", () -> new NilCheckResolver(unit).run())
+        .after("InnerClassExtractor", "InitializationNormalizer");
 
     // Rewrites expressions that would cause unsequenced compile errors.
     if (unit.getEnv().options().extractUnsequencedModifications()) {
-      new UnsequencedExpressionRewriter(unit).run();
-      ticker.tick("UnsequencedExpressionRewriter");
+      passes.add("UnsequencedExpressionRewriter",
+          () -> new UnsequencedExpressionRewriter(unit).run());
     }
 
     // Rewrites labeled break and continue statements.
-    unit.accept(new LabelRewriter());
-    ticker.tick("LabelRewriter");
+    passes.add("LabelRewriter", () -> unit.accept(new LabelRewriter())).after("NilCheckResolver");
 
     // Before: ArrayRewriter - Adds ArrayCreation nodes.
     // Before: Functionizer - Can't rewrite function arguments.
-    new VarargsRewriter(unit).run();
-    ticker.tick("VarargsRewriter");
+    passes.addFusable("VarargsRewriter", () -> new VarargsRewriter(unit));
 
-    new JavaCloneWriter(unit).run();
-    ticker.tick("JavaCloneWriter");
+    // Shares a traversal with VarargsRewriter, since it only adds methods to
+    // the type declarations it ends visiting.
+    passes.addFusable("JavaCloneWriter", () -> new JavaCloneWriter(unit));
 
-    new OcniExtractor(unit, deadCodeMap).run();
-    ticker.tick("OcniExtractor");
+    passes.add("OcniExtractor", () -> new OcniExtractor(unit, deadCodeMap).run());
 
     // Before: AnnotationRewriter - Needs AnnotationRewriter to add the
     //   annotation metadata to the generated package-info type.
-    PackageInfoRewriter.run(unit);
-    ticker.tick("PackageInfoRewriter");
+    passes.add("PackageInfoRewriter", () -> PackageInfoRewriter.run(unit));
 
     // Before: DestructorGenerator - Annotation types need a destructor to
-    //   release the added fields.
-    new AnnotationRewriter(unit).run();
-    ticker.tick("AnnotationRewriter");
+    //   release the added fields. It isn't declared with after(): both
+    //   passes change an annotation type in its endVisit(), and a traversal
+    //   ends visiting each node with its passes in the order they're added.
+    // The passes up to MetadataWriter share a traversal, since each one only
+    // changes the type declarations it ends visiting, after the passes before
+    // it have changed them.
+    passes.addFusable("AnnotationRewriter", () -> new AnnotationRewriter(unit))
+        .after("PackageInfoRewriter");
 
     // Before: Functionizer - Edits constructor invocations before they are
     //   functionized.
-    new EnumRewriter(unit).run();
-    ticker.tick("EnumRewriter");
+    passes.addFusable("EnumRewriter", () -> new EnumRewriter(unit));
 
     // Add dealloc/finalize method(s), if necessary.  This is done
     // after inner class extraction, so that each class releases
     // only its own instance variables.
-    new DestructorGenerator(unit).run();
-    ticker.tick("DestructorGenerator");
+    passes.addFusable("DestructorGenerator", () -> new DestructorGenerator(unit))
+        .after("InnerClassExtractor");
 
     // Before: StaticVarRewriter - Generates static variable access expressions.
-    new MetadataWriter(unit, deadCodeMap).run();
-    ticker.tick("MetadataWriter");
+    passes.addFusable("MetadataWriter", () -> new MetadataWriter(unit, deadCodeMap));
 
     // Before: Functionizer - Needs to rewrite some ClassInstanceCreation nodes
     //   before Functionizer does.
     // Before: StaticVarRewriter, OperatorRewriter - Doesn't know how to handle
     //   the hasRetainedResult flag on ClassInstanceCreation nodes.
-    new JavaToIOSMethodTranslator(unit).run();
-    ticker.tick("JavaToIOSMethodTranslator");
+    passes.add("JavaToIOSMethodTranslator", () -> new JavaToIOSMethodTranslator(unit).run());
 
     // After: OcniExtractor - So that native methods can be correctly
     //   functionized.
-    new Functionizer(unit).run();
-    ticker.tick("Functionizer");
+    passes.add("Functionizer", () -> new Functionizer(unit).run())
+        .after("VarargsRewriter", "OcniExtractor", "EnumRewriter", "JavaToIOSMethodTranslator");
 
     // After: Functionizer - Edits the qualifier on SuperMethodInvocation nodes.
-    new SuperMethodInvocationRewriter(unit).run();
-    ticker.tick("SuperMethodInvocationRewriter");
+    passes.add("SuperMethodInvocationRewriter",
+        () -> new SuperMethodInvocationRewriter(unit).run()).after("Functionizer");
 
-    new OperatorRewriter(unit).run();
-    ticker.tick("OperatorRewriter");
+    passes.add("OperatorRewriter", () -> new OperatorRewriter(unit).run())
+        .after("JavaToIOSMethodTranslator");
 
     // After: OperatorRewriter - Static load rewriting needs to happen after
     //   operator rewriting.
-    new StaticVarRewriter(unit).run();
-    ticker.tick("StaticVarRewriter");
+    passes.add("StaticVarRewriter", () -> new StaticVarRewriter(unit).run())
+        .after("MetadataWriter", "JavaToIOSMethodTranslator", "OperatorRewriter");
 
     // After: StaticVarRewriter, OperatorRewriter - They set the
     //   hasRetainedResult on ArrayCreation nodes.
-    new ArrayRewriter(unit).run();
-    ticker.tick("ArrayRewriter");
+    passes.add("ArrayRewriter", () -> new ArrayRewriter(unit).run())
+        .after("VarargsRewriter", "StaticVarRewriter", "OperatorRewriter");
 
-    new SwitchRewriter(unit).run();
-    ticker.tick("SwitchRewriter");
+    passes.add("SwitchRewriter", () -> new SwitchRewriter(unit).run());
 
     // Breaks up deeply nested expressions such as chained method calls.
     // Should be one of the last translations because other mutations will
     // affect how deep the expressions are.
-    unit.accept(new ComplexExpressionExtractor());
-    ticker.tick("ComplexExpressionExtractor");
+    passes.add("ComplexExpressionExtractor", () -> unit.accept(new ComplexExpressionExtractor()));
 
     // Should be one of the last translations because methods and functions
     // added in other phases may need added casts.
-    new CastResolver(unit).run();
-    ticker.tick("CastResolver");
+    passes.add("CastResolver", () -> new CastResolver(unit).run());
 
     // After: InnerClassExtractor, Functionizer - Expects all types to be
     //   top-level and functionizing to have occured.
-    new PrivateDeclarationResolver(unit).run();
-    ticker.tick("PrivateDeclarationResolver");
+    passes.add("PrivateDeclarationResolver", () -> new PrivateDeclarationResolver(unit).run())
+        .after("InnerClassExtractor", "Functionizer");
 
     if (deadCodeMap != null) {
-      DeadCodeEliminator.removeDeadClasses(unit, deadCodeMap);
-      ticker.tick("removeDeadClasses");
+      passes.add("removeDeadClasses",
+          () -> DeadCodeEliminator.removeDeadClasses(unit, deadCodeMap));
     }
-
-    // Make sure we still have a valid AST.
-    unit.validate();
-
-    ticker.pop();
+    return passes;
   }
 
   @VisibleForTesting
   public static void generateObjectiveCSource(GenerationUnit unit) {
     assert unit.getOutputPath() != null;
     assert unit.isFullyParsed();
-    TimeTracker ticker = TimeTracker.getTicker(unit.getSourceName(), unit.options().timingLevel());
+    TimeTracker ticker = TimeTracker.getTicker(unit.getSourceName(), unit.options());
     logger.fine("Generating " + unit.getOutputPath());
     logger.finest("writing output file(s) to "
         + unit.options().fileUtil().getOutputDirectory().getAbsolutePath());
@@ -337,16 +457,64 @@ public class TranslationProcessor extends FileProcessor {
   }
 
   public void postProcess() {
+    if (cache != null) {
+      cache.finish();
+    }
+    TimingReport timingReport = options.timingReport();
+    if (timingReport != null) {
+      try {
+        timingReport.write();
+      } catch (IOException e) {
+        ErrorUtil.error("failed writing timing report: " + e.getMessage());
+      }
+    }
+    if (hierarchyOutput != null) {
+      try {
+        hierarchyOutput.write(options.classHierarchyOutputFile());
+      } catch (IOException e) {
+        ErrorUtil.error("failed writing class hierarchy: " + e.getMessage());
+      }
+    }
+    NonnullSummary nonnullSummary = options.nonnullSummary();
+    if (options.nonnullSummaryOutputFile() != null) {
+      try {
+        nonnullSummary.write(options.nonnullSummaryOutputFile());
+      } catch (IOException e) {
+        ErrorUtil.error("failed writing non-null summaries: " + e.getMessage());
+      }
+    }
+    ClassHierarchy hierarchy = options.classHierarchy();
+    if (hierarchy != null && options.devirtualizationReportFile() != null) {
+      try {
+        hierarchy.writeReport(options.devirtualizationReportFile());
+      } catch (IOException e) {
+        ErrorUtil.error("failed writing devirtualization report: " + e.getMessage());
+      }
+    }
     if (logger.isLoggable(Level.INFO)) {
-      int nFiles = processedCount;
+      int nFiles = processedCount.get();
       System.out.println(String.format(
           "Translated %d %s: %d errors, %d warnings",
           nFiles, nFiles == 1 ? "file" : "files", ErrorUtil.errorCount(),
           ErrorUtil.warningCount()));
+      System.out.println(String.format(
+          "Generated files: %d written, %d unchanged and preserved",
+          options.fileUtil().getWrittenOutputFiles(),
+          options.fileUtil().getPreservedOutputFiles()));
+      System.out.println(String.format(
+          "Tree mutations: %d passes in %d traversals",
+          passCount.get(), traversalCount.get()));
+      if (hierarchy != null) {
+        System.out.println(String.format(
+            "Devirtualized %d call sites of %d methods",
+            hierarchy.getDevirtualizedCallCount(), hierarchy.getDevirtualizedMethodCount()));
+      }
+      System.out.println(String.format(
+          "Removed %d nil_chk calls of non-null values", nonnullSummary.getRemovedNilCheckCount()));
     }
   }
 
-  private void checkDependencies(CompilationUnit unit) {
+  private Set<String> getDependencies(CompilationUnit unit) {
     HeaderImportCollector hdrCollector =
         new HeaderImportCollector(unit, HeaderImportCollector.Filter.INCLUDE_ALL);
     hdrCollector.run();
@@ -355,11 +523,23 @@ public class TranslationProcessor extends FileProcessor {
     Set<Import> imports = hdrCollector.getForwardDeclarations();
     imports.addAll(hdrCollector.getSuperTypes());
     imports.addAll(implCollector.getImports());
+    Set<String> dependencies = new HashSet<>();
     for (Import imp : imports) {
       String qualifiedName = imp.getJavaQualifiedName();
       if (qualifiedName != null) {
-        closureQueue.addName(qualifiedName);
+        dependencies.add(qualifiedName);
       }
     }
+    return dependencies;
+  }
+
+  private void queueDependencies(Set<String> dependencies) {
+    if (dependencies != null) {
+      runOnProcessingThread(() -> {
+        for (String qualifiedName : dependencies) {
+          closureQueue.addName(qualifiedName);
+        }
+      });
+    }
   }
 }
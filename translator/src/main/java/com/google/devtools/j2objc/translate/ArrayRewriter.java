@@ -21,16 +21,24 @@ import com.google.devtools.j2objc.ast.Assignment;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.Expression;
 import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.ForStatement;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
+import com.google.devtools.j2objc.ast.InfixExpression;
 import com.google.devtools.j2objc.ast.InstanceofExpression;
 import com.google.devtools.j2objc.ast.MethodInvocation;
 import com.google.devtools.j2objc.ast.NumberLiteral;
+import com.google.devtools.j2objc.ast.ParenthesizedExpression;
+import com.google.devtools.j2objc.ast.PostfixExpression;
 import com.google.devtools.j2objc.ast.PrefixExpression;
 import com.google.devtools.j2objc.ast.QualifiedName;
 import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.TypeLiteral;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationExpression;
+import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.types.GeneratedExecutableElement;
@@ -40,12 +48,18 @@ import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.TranslationUtil;
 import com.google.devtools.j2objc.util.TypeUtil;
 import com.google.devtools.j2objc.util.UnicodeUtils;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 /**
@@ -55,6 +69,10 @@ import javax.lang.model.type.TypeMirror;
  */
 public class ArrayRewriter extends UnitTreeVisitor {
 
+  // The index variables of the enclosing counted loops, each mapped to the
+  // array that it's a valid index of in its loop's body.
+  private final Map<VariableElement, VariableElement> inBoundsIndexes = new HashMap<>();
+
   public ArrayRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -245,15 +263,241 @@ public class ArrayRewriter extends UnitTreeVisitor {
     return true;
   }
 
+  // The index of a counted loop is only known to be in bounds in the loop's
+  // body, so the rest of the loop is visited before the index is added.
+  @Override
+  public boolean visit(ForStatement node) {
+    VariableElement index = getCountedLoopIndex(node);
+    VariableElement array = index != null ? getCountedLoopArray(node, index) : null;
+    if (array == null) {
+      return true;
+    }
+    for (Expression initializer : node.getInitializers()) {
+      initializer.accept(this);
+    }
+    node.getExpression().accept(this);
+    for (Expression updater : node.getUpdaters()) {
+      updater.accept(this);
+    }
+    inBoundsIndexes.put(index, array);
+    node.getBody().accept(this);
+    inBoundsIndexes.remove(index);
+    return false;
+  }
+
+  /**
+   * Returns the int index that a for loop declares, and counts up or down by
+   * one in its only updater, or null.
+   */
+  private static VariableElement getCountedLoopIndex(ForStatement node) {
+    List<Expression> initializers = node.getInitializers();
+    if (initializers.size() != 1 || node.getUpdaters().size() != 1
+        || !(initializers.get(0) instanceof VariableDeclarationExpression)) {
+      return null;
+    }
+    VariableDeclarationFragment fragment =
+        ((VariableDeclarationExpression) initializers.get(0)).getFragment(0);
+    VariableElement index = fragment.getVariableElement();
+    if (index.asType().getKind() != TypeKind.INT || fragment.getInitializer() == null
+        || getStep(node.getUpdaters().get(0), index) == 0) {
+      return null;
+    }
+    return index;
+  }
+
+  /**
+   * Returns 1 or -1 if an updater increments or decrements the index, else 0.
+   */
+  private static int getStep(Expression updater, VariableElement index) {
+    updater = TreeUtil.trimParentheses(updater);
+    if (updater instanceof PostfixExpression) {
+      PostfixExpression postfix = (PostfixExpression) updater;
+      if (TreeUtil.getVariableElement(postfix.getOperand()) == index) {
+        return postfix.getOperator() == PostfixExpression.Operator.INCREMENT ? 1
+            : postfix.getOperator() == PostfixExpression.Operator.DECREMENT ? -1 : 0;
+      }
+    } else if (updater instanceof PrefixExpression) {
+      PrefixExpression prefix = (PrefixExpression) updater;
+      if (TreeUtil.getVariableElement(prefix.getOperand()) == index) {
+        return prefix.getOperator() == PrefixExpression.Operator.INCREMENT ? 1
+            : prefix.getOperator() == PrefixExpression.Operator.DECREMENT ? -1 : 0;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the array that a counted loop's index is always a valid index of in
+   * the loop's body, or null. The index either counts up from a non-negative
+   * constant while it's less than the array's length, or counts down from the
+   * array's length less a positive constant while it's at least a non-negative
+   * constant. The loop's condition and body must not assign the index, the
+   * array, or a variable that holds the array's length:
+   * <pre>
+   * for (int i = 0; i < a.length; i++)
+   * for (int i = 0, n = a.length; i < n; i++)
+   * for (int i = a.length - 1; i >= 0; i--)
+   * </pre>
+   */
+  private static VariableElement getCountedLoopArray(ForStatement node, VariableElement index) {
+    if (!(node.getExpression() instanceof InfixExpression)) {
+      return null;
+    }
+    InfixExpression condition = (InfixExpression) node.getExpression();
+    if (condition.getOperands().size() != 2) {
+      return null;
+    }
+    Expression bound = TreeUtil.trimParentheses(condition.getOperand(1));
+    InfixExpression.Operator op = condition.getOperator();
+    if (TreeUtil.getVariableElement(condition.getOperand(0)) != index) {
+      // Reverse the comparison, so that the index is on its left.
+      if (TreeUtil.getVariableElement(bound) != index) {
+        return null;
+      }
+      bound = TreeUtil.trimParentheses(condition.getOperand(0));
+      op = op == InfixExpression.Operator.GREATER ? InfixExpression.Operator.LESS
+          : op == InfixExpression.Operator.LESS_EQUALS ? InfixExpression.Operator.GREATER_EQUALS
+          : null;
+    }
+    List<VariableDeclarationFragment> fragments =
+        ((VariableDeclarationExpression) node.getInitializer(0)).getFragments();
+    Expression start = TreeUtil.trimParentheses(fragments.get(0).getInitializer());
+    int step = getStep(node.getUpdaters().get(0), index);
+    VariableElement array = null;
+    if (step == 1 && op == InfixExpression.Operator.LESS && isNonNegativeConstant(start)) {
+      array = getLengthArray(bound);
+      if (array == null) {
+        // The bound may be a variable declared with the index.
+        VariableElement boundVar = TreeUtil.getVariableElement(bound);
+        for (VariableDeclarationFragment fragment : fragments) {
+          if (fragment.getVariableElement() == boundVar && fragment.getInitializer() != null) {
+            array = getLengthArray(fragment.getInitializer());
+          }
+        }
+      }
+    } else if (step == -1 && op == InfixExpression.Operator.GREATER_EQUALS
+        && isNonNegativeConstant(bound) && start instanceof InfixExpression) {
+      InfixExpression lengthLess = (InfixExpression) start;
+      List<Expression> operands = lengthLess.getOperands();
+      if (lengthLess.getOperator() == InfixExpression.Operator.MINUS && operands.size() == 2
+          && isNonNegativeConstant(operands.get(1))
+          && ((NumberLiteral) TreeUtil.trimParentheses(operands.get(1))).getValue().longValue()
+              > 0) {
+        array = getLengthArray(operands.get(0));
+      }
+    }
+    if (array == null) {
+      return null;
+    }
+    Set<VariableElement> invariants = new HashSet<>();
+    invariants.add(array);
+    for (VariableDeclarationFragment fragment : fragments) {
+      invariants.add(fragment.getVariableElement());
+    }
+    if (assignsAny(condition, invariants) || assignsAny(node.getBody(), invariants)) {
+      return null;
+    }
+    return array;
+  }
+
+  private static boolean isNonNegativeConstant(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    return expr instanceof NumberLiteral
+        && ((NumberLiteral) expr).getValue().longValue() >= 0;
+  }
+
+  /**
+   * Returns the array variable whose length an expression reads, or null.
+   */
+  private static VariableElement getLengthArray(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    if (expr instanceof QualifiedName) {
+      QualifiedName name = (QualifiedName) expr;
+      if (name.getName().getIdentifier().equals("length")
+          && TypeUtil.isArray(name.getQualifier().getTypeMirror())) {
+        return getArrayVariable(name.getQualifier());
+      }
+    } else if (expr instanceof FieldAccess) {
+      FieldAccess access = (FieldAccess) expr;
+      if (access.getName().getIdentifier().equals("length")
+          && TypeUtil.isArray(access.getExpression().getTypeMirror())) {
+        return getArrayVariable(access.getExpression());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the variable an array expression reads, if the variable can only
+   * be changed by an assignment in the same method, else null. The nil_chk
+   * that NilCheckResolver may have added is skipped.
+   */
+  private static VariableElement getArrayVariable(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    if (expr instanceof FunctionInvocation
+        && ((FunctionInvocation) expr).getName().equals("nil_chk")) {
+      expr = TreeUtil.trimParentheses(((FunctionInvocation) expr).getArgument(0));
+    }
+    if (!(expr instanceof SimpleName)) {
+      return null;
+    }
+    VariableElement var = TreeUtil.getVariableElement(expr);
+    if (var != null && (ElementUtil.isLocalVariable(var) || ElementUtil.isParameter(var)
+        || (ElementUtil.isField(var) && ElementUtil.isFinal(var)))) {
+      return var;
+    }
+    return null;
+  }
+
+  private static boolean assignsAny(TreeNode node, Set<VariableElement> vars) {
+    boolean[] assigned = new boolean[1];
+    node.accept(new TreeVisitor(EnumSet.of(TreeNode.Kind.SIMPLE_NAME)) {
+      @Override
+      public boolean visit(SimpleName name) {
+        if (vars.contains(name.getElement()) && TranslationUtil.isAssigned(name)) {
+          assigned[0] = true;
+        }
+        return false;
+      }
+    });
+    return assigned[0];
+  }
+
+  private boolean isInBounds(ArrayAccess node) {
+    VariableElement index = TreeUtil.getVariableElement(node.getIndex());
+    VariableElement array = index != null ? inBoundsIndexes.get(index) : null;
+    return array != null && array.equals(getArrayVariable(node.getArray()));
+  }
+
   @Override
   public void endVisit(ArrayAccess node) {
     TypeMirror componentType = node.getTypeMirror();
     TypeElement iosArrayElement = typeUtil.getIosArray(componentType);
 
+    if (componentType.getKind().isPrimitive() && isInBounds(node)) {
+      node.replaceWith(newBufferAccess(node, componentType, iosArrayElement));
+      return;
+    }
     node.replaceWith(newArrayAccess(
         node, componentType, iosArrayElement, TranslationUtil.isAssigned(node)));
   }
 
+  // Like the array loops of EnhancedForRewriter, an index that's known to be
+  // in bounds accesses the array's buffer directly, without a range check.
+  private Expression newBufferAccess(
+      ArrayAccess arrayAccessNode, TypeMirror componentType, TypeElement iosArrayElement) {
+    TypeMirror bufferType = new PointerType(componentType);
+    VariableElement bufferField = GeneratedVariableElement.newField(
+        "buffer", bufferType, iosArrayElement)
+        .addModifiers(Modifier.PUBLIC);
+    InfixExpression elementPointer = new InfixExpression(
+        bufferType, InfixExpression.Operator.PLUS,
+        new FieldAccess(bufferField, arrayAccessNode.getArray().copy()),
+        arrayAccessNode.getIndex().copy());
+    return new PrefixExpression(componentType, PrefixExpression.Operator.DEREFERENCE,
+        ParenthesizedExpression.parenthesize(elementPointer));
+  }
+
   private Expression newArrayAccess(
       ArrayAccess arrayAccessNode, TypeMirror componentType, TypeElement iosArrayElement,
       boolean assignable) {
@@ -31,6 +31,7 @@ import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SuperMethodInvocation;
 import com.google.devtools.j2objc.ast.ThisExpression;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
@@ -42,6 +43,7 @@ import com.google.devtools.j2objc.types.PointerType;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.EnumSet;
 import java.util.List;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
@@ -65,7 +67,8 @@ public class DestructorGenerator extends UnitTreeVisitor {
       .addModifiers(Modifier.PUBLIC);
 
   public DestructorGenerator(CompilationUnit unit) {
-    super(unit);
+    super(unit, EnumSet.of(
+        TreeNode.Kind.ANNOTATION_TYPE_DECLARATION, TreeNode.Kind.TYPE_DECLARATION));
   }
 
   @Override
@@ -38,6 +38,7 @@ import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
 import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.StringLiteral;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.Type;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
@@ -54,6 +55,7 @@ import com.google.devtools.j2objc.util.UnicodeUtils;
 import com.google.j2objc.annotations.ObjectiveCName;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
@@ -68,7 +70,7 @@ import javax.lang.model.type.TypeMirror;
 public class EnumRewriter extends UnitTreeVisitor {
 
   public EnumRewriter(CompilationUnit unit) {
-    super(unit);
+    super(unit, EnumSet.of(TreeNode.Kind.ENUM_DECLARATION, TreeNode.Kind.METHOD_DECLARATION));
   }
 
   @Override
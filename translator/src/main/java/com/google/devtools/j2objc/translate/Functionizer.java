@@ -48,6 +48,7 @@ import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.types.GeneratedExecutableElement;
 import com.google.devtools.j2objc.types.GeneratedVariableElement;
 import com.google.devtools.j2objc.util.CaptureInfo;
+import com.google.devtools.j2objc.util.ClassHierarchy;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
@@ -67,18 +68,21 @@ import javax.lang.model.type.TypeMirror;
 /**
  * Converts methods that don't need dynamic dispatch to C functions. This optimization
  * initially just targets private methods, but will be expanded to include final methods
- * that don't override superclass methods.
+ * that don't override superclass methods. With a whole program {@link ClassHierarchy},
+ * calls to methods that no class overrides are also converted, in any unit.
  *
  * @author Tom Ball
  */
 public class Functionizer extends UnitTreeVisitor {
 
   private final CaptureInfo captureInfo;
+  private final ClassHierarchy classHierarchy;
   private Set<ExecutableElement> functionizableMethods;
 
   public Functionizer(CompilationUnit unit) {
     super(unit);
     captureInfo = unit.getEnv().captureInfo();
+    classHierarchy = options.classHierarchy();
   }
 
   @Override
@@ -172,13 +176,15 @@ public class Functionizer extends UnitTreeVisitor {
   }
 
   private static boolean isFunctionizingCandidate(MethodDeclaration node) {
-    ExecutableElement method = node.getExecutableElement();
-    int modifiers = node.getModifiers();
+    return node.hasDeclaration() && !Modifier.isAbstract(node.getModifiers())
+        && isFunctionizingCandidate(node.getExecutableElement());
+  }
 
+  private static boolean isFunctionizingCandidate(ExecutableElement method) {
     // Default methods, static methods and constructors are always functionized. We only care about
     // regular instance methods.
     if (!ElementUtil.isInstanceMethod(method) || ElementUtil.isDefault(method)
-        || Modifier.isAbstract(modifiers) || !node.hasDeclaration()) {
+        || ElementUtil.isAbstract(method)) {
       return false;
     }
 
@@ -192,6 +198,16 @@ public class Functionizer extends UnitTreeVisitor {
     return true;
   }
 
+  /**
+   * Returns true if an instance method is called as a public function because
+   * the class hierarchy shows that it is never overridden. The function is
+   * declared by the method's unit, and called by every unit.
+   */
+  private boolean isDevirtualized(ExecutableElement method) {
+    return classHierarchy != null && !ElementUtil.isPrivate(method)
+        && isFunctionizingCandidate(method) && classHierarchy.isEffectivelyFinal(method, typeUtil);
+  }
+
   private FunctionElement newFunctionElement(ExecutableElement method) {
     TypeElement declaringClass = ElementUtil.getDeclaringClass(method);
     FunctionElement element = new FunctionElement(
@@ -249,6 +265,9 @@ public class Functionizer extends UnitTreeVisitor {
     if (ElementUtil.isStatic(method) || ElementUtil.isPrivate(method)
         || (functionizableMethods.contains(method) && ElementUtil.isFinal(method))) {
       functionizeInvocation(node, method, node.getExpression(), node.getArguments());
+    } else if (isDevirtualized(method)) {
+      classHierarchy.addDevirtualizedCall(method, typeUtil);
+      functionizeInvocation(node, method, node.getExpression(), node.getArguments());
     }
   }
 
@@ -256,7 +275,8 @@ public class Functionizer extends UnitTreeVisitor {
   public void endVisit(SuperMethodInvocation node) {
     ExecutableElement method = node.getExecutableElement();
     if (ElementUtil.isStatic(method) || ElementUtil.isPrivate(method)
-        || functionizableMethods.contains(method) || ElementUtil.isDefault(method)) {
+        || functionizableMethods.contains(method) || ElementUtil.isDefault(method)
+        || isDevirtualized(method)) {
       functionizeInvocation(node, method, node.getReceiver(), node.getArguments());
     }
   }
@@ -344,7 +364,8 @@ public class Functionizer extends UnitTreeVisitor {
     boolean isDefaultMethod = ElementUtil.isDefault(element);
     List<BodyDeclaration> declarationList = TreeUtil.asDeclarationSublist(node);
     if (!isInstanceMethod || isDefaultMethod || Modifier.isNative(node.getModifiers())
-        || ElementUtil.isPrivate(element) || functionizableMethods.contains(element)) {
+        || ElementUtil.isPrivate(element) || functionizableMethods.contains(element)
+        || isDevirtualized(element)) {
       TypeElement declaringClass = ElementUtil.getDeclaringClass(element);
       boolean isEnumConstructor = isConstructor && ElementUtil.isEnum(declaringClass);
       if (isConstructor) {
@@ -424,7 +445,8 @@ public class Functionizer extends UnitTreeVisitor {
     TreeUtil.copyList(method.getParameters(), function.getParameters());
 
     function.setModifiers(method.getModifiers() & Modifier.STATIC);
-    if (ElementUtil.isPrivate(elem) || (isInstanceMethod && !ElementUtil.isDefault(elem))) {
+    if (ElementUtil.isPrivate(elem)
+        || (isInstanceMethod && !ElementUtil.isDefault(elem) && !isDevirtualized(elem))) {
       function.addModifiers(Modifier.PRIVATE);
     } else {
       function.addModifiers(Modifier.PUBLIC);
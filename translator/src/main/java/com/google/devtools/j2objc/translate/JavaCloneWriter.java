@@ -27,6 +27,7 @@ import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
 import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SuperMethodInvocation;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
@@ -39,6 +40,7 @@ import com.google.devtools.j2objc.types.PointerType;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.EnumSet;
 import java.util.List;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
@@ -62,7 +64,7 @@ public class JavaCloneWriter extends UnitTreeVisitor {
       .addModifiers(Modifier.PUBLIC);
 
   public JavaCloneWriter(CompilationUnit unit) {
-    super(unit);
+    super(unit, EnumSet.of(TreeNode.Kind.TYPE_DECLARATION));
   }
 
   @Override
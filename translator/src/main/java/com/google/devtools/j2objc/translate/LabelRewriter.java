@@ -27,10 +27,12 @@ import com.google.devtools.j2objc.ast.LabeledStatement;
 import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.Statement;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.WhileStatement;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -43,11 +45,15 @@ import java.util.Map;
  */
 public class LabelRewriter extends TreeVisitor {
 
+  public LabelRewriter() {
+    super(EnumSet.of(TreeNode.Kind.METHOD_DECLARATION, TreeNode.Kind.LABELED_STATEMENT));
+  }
+
   @Override
   public boolean visit(MethodDeclaration node) {
     // Rename any labels that have the same names; legal in Java but not C.
     final Map<String, Integer> labelCounts = new HashMap<>();
-    node.accept(new TreeVisitor() {
+    node.accept(new TreeVisitor(EnumSet.of(TreeNode.Kind.LABELED_STATEMENT)) {
       @Override
       public void endVisit(LabeledStatement labeledStatement) {
         final String name = labeledStatement.getLabel().getIdentifier();
@@ -57,7 +63,8 @@ public class LabelRewriter extends TreeVisitor {
           final String newName = name + '_' + value;
           labeledStatement.setLabel(new SimpleName(newName));
           // Update references to this label.
-          labeledStatement.accept(new TreeVisitor() {
+          labeledStatement.accept(new TreeVisitor(
+              EnumSet.of(TreeNode.Kind.CONTINUE_STATEMENT, TreeNode.Kind.BREAK_STATEMENT)) {
             @Override
             public void endVisit(ContinueStatement node) {
               if (node.getLabel() != null && node.getLabel().getIdentifier().equals(name)) {
@@ -99,7 +106,8 @@ public class LabelRewriter extends TreeVisitor {
 
     final boolean[] hasContinue = new boolean[1];
     final boolean[] hasBreak = new boolean[1];
-    node.accept(new TreeVisitor() {
+    node.accept(new TreeVisitor(
+        EnumSet.of(TreeNode.Kind.CONTINUE_STATEMENT, TreeNode.Kind.BREAK_STATEMENT)) {
       @Override
       public void endVisit(ContinueStatement node) {
         if (node.getLabel() != null && node.getLabel().getIdentifier().equals(labelIdentifier)) {
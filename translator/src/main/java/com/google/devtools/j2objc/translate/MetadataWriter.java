@@ -35,6 +35,7 @@ import com.google.devtools.j2objc.ast.NativeStatement;
 import com.google.devtools.j2objc.ast.ReturnStatement;
 import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
 import com.google.devtools.j2objc.ast.Statement;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
@@ -48,6 +49,7 @@ import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.TypeUtil;
 import com.google.devtools.j2objc.util.UnicodeUtils;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import javax.lang.model.element.Element;
@@ -71,7 +73,8 @@ public class MetadataWriter extends UnitTreeVisitor {
   private final ArrayType annotationArray2D;
 
   public MetadataWriter(CompilationUnit unit, CodeReferenceMap deadCodeMap) {
-    super(unit);
+    super(unit, EnumSet.of(TreeNode.Kind.ANNOTATION_TYPE_DECLARATION,
+        TreeNode.Kind.ENUM_DECLARATION, TreeNode.Kind.TYPE_DECLARATION));
     TypeMirror annotationType =
         GeneratedTypeElement.newEmulatedInterface("java.lang.annotation.Annotation").asType();
     annotationArray = typeUtil.getArrayType(annotationType);
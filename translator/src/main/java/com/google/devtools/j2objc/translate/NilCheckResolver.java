@@ -39,20 +39,24 @@ import com.google.devtools.j2objc.ast.ForStatement;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
 import com.google.devtools.j2objc.ast.IfStatement;
 import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.Initializer;
 import com.google.devtools.j2objc.ast.LabeledStatement;
 import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.MethodInvocation;
 import com.google.devtools.j2objc.ast.NullLiteral;
 import com.google.devtools.j2objc.ast.ParenthesizedExpression;
+import com.google.devtools.j2objc.ast.PrefixExpression;
 import com.google.devtools.j2objc.ast.ReturnStatement;
 import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SuperConstructorInvocation;
 import com.google.devtools.j2objc.ast.SuperMethodInvocation;
 import com.google.devtools.j2objc.ast.SwitchCase;
 import com.google.devtools.j2objc.ast.SwitchStatement;
+import com.google.devtools.j2objc.ast.ThisExpression;
 import com.google.devtools.j2objc.ast.ThrowStatement;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.TryStatement;
 import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
@@ -60,9 +64,16 @@ import com.google.devtools.j2objc.ast.VariableDeclarationExpression;
 import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
 import com.google.devtools.j2objc.ast.WhileStatement;
 import com.google.devtools.j2objc.types.FunctionElement;
+import com.google.devtools.j2objc.types.GeneratedExecutableElement;
+import com.google.devtools.j2objc.types.GeneratedVariableElement;
+import com.google.devtools.j2objc.util.ClassHierarchy;
 import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.NonnullSummary;
 import com.google.devtools.j2objc.util.TypeUtil;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -72,11 +83,26 @@ import java.util.Set;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 /**
  * Adds nil_chk calls where required to maintain compatibility Java's
  * NullPointerException being thrown when null is dereferenced.
+ * <p>
+ * Values that are never null don't need nil_chk calls either. Before adding
+ * them, the unit is summarized: the final fields and local variables that are
+ * only assigned non-null values, and the methods that only return them. The
+ * summaries of other units are read from {@link NonnullSummary}. A method's
+ * summary is only used where its call is statically dispatched.
+ * <p>
+ * A final field can still be read before it is assigned, by code that runs
+ * during construction. So only the instance fields of safely constructed
+ * classes are summarized: classes that extend Object, so no superclass
+ * constructor can dispatch to their methods, and whose constructors and
+ * initializers don't call their methods or let this escape. A field's summary
+ * isn't used in its own class's constructors and initializers. Static fields
+ * aren't summarized, since a class initialization cycle can read them early.
  *
  * @author Keith Stanger
  */
@@ -102,8 +128,32 @@ public class NilCheckResolver extends UnitTreeVisitor {
 
   private static final Set<VariableElement> EMPTY_VARS = Collections.emptySet();
 
+  // The final fields and local variables of the unit that are never null, and
+  // the methods that never return null.
+  private final Set<VariableElement> nonnullVars = new HashSet<>();
+  private final Set<ExecutableElement> nonnullMethods = new HashSet<>();
+
+  // The unit's classes whose final fields are assigned before they are read.
+  private final Set<TypeElement> safelyConstructedTypes = new HashSet<>();
+
+  private final NonnullSummary programSummary;
+  private final ClassHierarchy classHierarchy;
+
+  // The dereferences that don't have a nil_chk because of a summary. Loop
+  // bodies are visited twice, so this is a set.
+  private final Set<Expression> summarizedDerefs = new HashSet<>();
+
   public NilCheckResolver(CompilationUnit unit) {
     super(unit);
+    programSummary = options.nonnullSummary();
+    classHierarchy = options.classHierarchy();
+  }
+
+  @Override
+  public void run() {
+    summarize();
+    super.run();
+    programSummary.addRemovedNilChecks(summarizedDerefs.size());
   }
 
   /**
@@ -415,6 +465,10 @@ public class NilCheckResolver extends UnitTreeVisitor {
     if (!needsNilCheck(node)) {
       return;
     }
+    if (isSummarizedNonnull(node)) {
+      summarizedDerefs.add(node);
+      return;
+    }
     VariableElement var = TreeUtil.getVariableElement(node);
     if (var != null) {
       addSafeVar(var);
@@ -633,7 +687,7 @@ public class NilCheckResolver extends UnitTreeVisitor {
   }
 
   private void handleAssignment(VariableElement var, Expression value) {
-    if (needsNilCheck(value)) {
+    if (needsNilCheck(value) && !isSummarizedNonnull(value)) {
       removeSafeVar(var);
     } else {
       addSafeVar(var);
@@ -825,4 +879,272 @@ public class NilCheckResolver extends UnitTreeVisitor {
       }
     }
   }
+
+  /**
+   * Finds the unit's values that are never null. Every candidate is assumed to
+   * be non-null, and those with a value that might be null are removed until
+   * none change, so that recursive methods and values assigned from each other
+   * can be summarized.
+   */
+  private void summarize() {
+    findSafelyConstructedTypes();
+    Set<VariableElement> declaredVars = new HashSet<>();
+    Set<VariableElement> addressedVars = new HashSet<>();
+    Map<VariableElement, List<Expression>> varValues = new HashMap<>();
+    Map<ExecutableElement, List<Expression>> methodValues = new HashMap<>();
+    unit.accept(new TreeVisitor(EnumSet.of(TreeNode.Kind.ASSIGNMENT,
+        TreeNode.Kind.METHOD_DECLARATION, TreeNode.Kind.PREFIX_EXPRESSION,
+        TreeNode.Kind.RETURN_STATEMENT, TreeNode.Kind.VARIABLE_DECLARATION_FRAGMENT)) {
+      @Override
+      public void endVisit(VariableDeclarationFragment node) {
+        VariableElement var = node.getVariableElement();
+        if (isSummaryCandidate(var)) {
+          declaredVars.add(var);
+          Expression initializer = node.getInitializer();
+          if (initializer != null) {
+            varValues.computeIfAbsent(var, k -> new ArrayList<>()).add(initializer);
+          }
+        }
+      }
+
+      @Override
+      public void endVisit(Assignment node) {
+        VariableElement var = TreeUtil.getVariableElement(node.getLeftHandSide());
+        if (var != null) {
+          varValues.computeIfAbsent(var, k -> new ArrayList<>()).add(
+              node.getOperator() == Assignment.Operator.ASSIGN ? node.getRightHandSide() : node);
+        }
+      }
+
+      @Override
+      public void endVisit(PrefixExpression node) {
+        // The variable might be assigned through the pointer.
+        if (node.getOperator() == PrefixExpression.Operator.ADDRESS_OF) {
+          VariableElement var = TreeUtil.getVariableElement(node.getOperand());
+          if (var != null) {
+            addressedVars.add(var);
+          }
+        }
+      }
+
+      @Override
+      public boolean visit(MethodDeclaration node) {
+        ExecutableElement method = node.getExecutableElement();
+        TypeMirror returnType = method.getReturnType();
+        if (node.getBody() != null && !ElementUtil.isConstructor(method)
+            && !ElementUtil.isNative(method) && !returnType.getKind().isPrimitive()
+            && returnType.getKind() != TypeKind.VOID) {
+          methodValues.put(method, new ArrayList<>());
+        }
+        return true;
+      }
+
+      @Override
+      public void endVisit(ReturnStatement node) {
+        MethodDeclaration method = TreeUtil.getEnclosingMethod(node);
+        List<Expression> values =
+            method != null ? methodValues.get(method.getExecutableElement()) : null;
+        if (values != null && node.getExpression() != null) {
+          values.add(node.getExpression());
+        }
+      }
+    });
+
+    for (VariableElement var : declaredVars) {
+      if (varValues.containsKey(var) && !addressedVars.contains(var)) {
+        nonnullVars.add(var);
+      }
+    }
+    nonnullMethods.addAll(methodValues.keySet());
+    boolean changed;
+    do {
+      changed = nonnullVars.removeIf(var -> !isSummarizedNonnull(varValues.get(var)));
+      changed |= nonnullMethods.removeIf(
+          method -> !isSummarizedNonnull(methodValues.get(method)));
+    } while (changed);
+
+    if (options.nonnullSummaryOutputFile() != null) {
+      for (VariableElement var : nonnullVars) {
+        if (var.getKind().isField() && !(var instanceof GeneratedVariableElement)) {
+          programSummary.addField(var, typeUtil);
+        }
+      }
+      for (ExecutableElement method : nonnullMethods) {
+        if (!(method instanceof GeneratedExecutableElement)) {
+          programSummary.addMethod(method, typeUtil);
+        }
+      }
+    }
+  }
+
+  private boolean isSummaryCandidate(VariableElement var) {
+    if (var.asType().getKind().isPrimitive() || ElementUtil.isWeakReference(var)) {
+      return false;
+    }
+    switch (var.getKind()) {
+      case FIELD:
+        return ElementUtil.isFinal(var) && !ElementUtil.isStatic(var)
+            && safelyConstructedTypes.contains(ElementUtil.getDeclaringClass(var));
+      case LOCAL_VARIABLE:
+      case RESOURCE_VARIABLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean isSummarizedNonnull(List<Expression> values) {
+    for (Expression value : values) {
+      if (!isSummarizedNonnull(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if an expression is never null, according to the summaries.
+   */
+  private boolean isSummarizedNonnull(Expression e) {
+    switch (e.getKind()) {
+      case ARRAY_CREATION:
+      case CLASS_INSTANCE_CREATION:
+      case STRING_LITERAL:
+      case THIS_EXPRESSION:
+      case TYPE_LITERAL:
+        return true;
+      case ASSIGNMENT: {
+        // Compound assignments of references are string concatenations.
+        Assignment assignment = (Assignment) e;
+        return assignment.getOperator() != Assignment.Operator.ASSIGN
+            || isSummarizedNonnull(assignment.getRightHandSide());
+      }
+      case CAST_EXPRESSION:
+        return isSummarizedNonnull(((CastExpression) e).getExpression());
+      case CONDITIONAL_EXPRESSION: {
+        ConditionalExpression conditional = (ConditionalExpression) e;
+        return isSummarizedNonnull(conditional.getThenExpression())
+            && isSummarizedNonnull(conditional.getElseExpression());
+      }
+      case INFIX_EXPRESSION:
+        // A string concatenation.
+        return typeUtil.isString(e.getTypeMirror());
+      case PARENTHESIZED_EXPRESSION:
+        return isSummarizedNonnull(((ParenthesizedExpression) e).getExpression());
+      case METHOD_INVOCATION:
+      case SUPER_METHOD_INVOCATION: {
+        ExecutableElement method = TreeUtil.getExecutableElement(e);
+        if (ElementUtil.getName(method).equals("getClass") || isBoxingMethod(method)) {
+          return true;
+        }
+        return isStaticallyDispatched(method, e instanceof SuperMethodInvocation)
+            && (nonnullMethods.contains(method)
+                || programSummary.isNonnullMethod(method, typeUtil));
+      }
+      case FIELD_ACCESS:
+      case QUALIFIED_NAME:
+      case SIMPLE_NAME:
+      case SUPER_FIELD_ACCESS: {
+        VariableElement var = TreeUtil.getVariableElement(e);
+        return var != null && isSummarizedNonnull(var, e);
+      }
+      default:
+        return false;
+    }
+  }
+
+  private boolean isSummarizedNonnull(VariableElement var, TreeNode node) {
+    if (!var.getKind().isField()) {
+      return nonnullVars.contains(var);
+    }
+    return ElementUtil.isFinal(var) && !ElementUtil.isStatic(var)
+        && getConstructedType(node) != ElementUtil.getDeclaringClass(var)
+        && (nonnullVars.contains(var) || programSummary.isNonnullField(var, typeUtil));
+  }
+
+  /**
+   * Finds the unit's classes whose final instance fields can't be read before
+   * they are assigned. Deserialization assigns fields without running a
+   * constructor, so serializable classes are left out.
+   */
+  private void findSafelyConstructedTypes() {
+    TypeElement javaObject = typeUtil.getJavaObject();
+    TypeMirror serializable = typeUtil.resolveJavaType("java.io.Serializable").asType();
+    for (AbstractTypeDeclaration type : unit.getTypes()) {
+      TypeElement element = type.getTypeElement();
+      if (type instanceof TypeDeclaration && !((TypeDeclaration) type).isInterface()
+          && ElementUtil.getSuperclass(element) == javaObject
+          && !typeUtil.isSubtype(element.asType(), serializable)) {
+        safelyConstructedTypes.add(element);
+      }
+    }
+    unit.accept(new TreeVisitor(EnumSet.of(TreeNode.Kind.CLASS_INSTANCE_CREATION,
+        TreeNode.Kind.METHOD_INVOCATION, TreeNode.Kind.SUPER_METHOD_INVOCATION,
+        TreeNode.Kind.THIS_EXPRESSION)) {
+      @Override
+      public void endVisit(ClassInstanceCreation node) {
+        TypeElement type = ElementUtil.getDeclaringClass(node.getExecutableElement());
+        // The new instance might keep a reference to this.
+        if (node.getAnonymousClassDeclaration() != null || ElementUtil.hasOuterContext(type)
+            || ElementUtil.isLambda(type)) {
+          escapes(node);
+        }
+      }
+
+      @Override
+      public void endVisit(MethodInvocation node) {
+        // Calls on this are handled as escapes of the this expression.
+        if (node.getExpression() == null && !ElementUtil.isStatic(node.getExecutableElement())) {
+          escapes(node);
+        }
+      }
+
+      @Override
+      public void endVisit(SuperMethodInvocation node) {
+        escapes(node);
+      }
+
+      @Override
+      public void endVisit(ThisExpression node) {
+        TreeNode parent = node.getParent();
+        if (!(parent instanceof FieldAccess && ((FieldAccess) parent).getExpression() == node)) {
+          escapes(node);
+        }
+      }
+
+      private void escapes(TreeNode node) {
+        TypeElement type = getConstructedType(node);
+        if (type != null) {
+          safelyConstructedTypes.remove(type);
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the class that a node's code helps construct, if the node is in
+   * one of the class's constructors or instance initializers, otherwise null.
+   */
+  private static TypeElement getConstructedType(TreeNode node) {
+    BodyDeclaration decl = TreeUtil.getNearestAncestorWithType(BodyDeclaration.class, node);
+    if (decl instanceof MethodDeclaration) {
+      if (!ElementUtil.isConstructor(((MethodDeclaration) decl).getExecutableElement())) {
+        return null;
+      }
+    } else if (!(decl instanceof FieldDeclaration || decl instanceof Initializer)
+        || Modifier.isStatic(decl.getModifiers())) {
+      return null;
+    }
+    return TreeUtil.getEnclosingTypeElement(decl);
+  }
+
+  /**
+   * Returns true if a call always invokes the method's own implementation, so
+   * the method's summary applies.
+   */
+  private boolean isStaticallyDispatched(ExecutableElement method, boolean isSuperCall) {
+    return isSuperCall || ElementUtil.isStatic(method) || ElementUtil.isPrivate(method)
+        || ElementUtil.isFinal(method) || ElementUtil.isFinal(ElementUtil.getDeclaringClass(method))
+        || (classHierarchy != null && classHierarchy.isEffectivelyFinal(method, typeUtil));
+  }
 }
@@ -19,12 +19,14 @@ import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.NativeStatement;
 import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.GeneratedExecutableElement;
 import com.google.devtools.j2objc.types.GeneratedVariableElement;
 import java.lang.reflect.Modifier;
+import java.util.EnumSet;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 
@@ -40,7 +42,7 @@ import javax.lang.model.type.DeclaredType;
 public class NumberMethodRewriter extends UnitTreeVisitor {
 
   public NumberMethodRewriter(CompilationUnit unit) {
-    super(unit);
+    super(unit, EnumSet.of(TreeNode.Kind.TYPE_DECLARATION));
   }
 
   @Override
@@ -14,32 +14,68 @@
 
 package com.google.devtools.j2objc.translate;
 
+import com.google.devtools.j2objc.ast.AssertStatement;
+import com.google.devtools.j2objc.ast.CatchClause;
 import com.google.devtools.j2objc.ast.CommaExpression;
 import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.ConditionalExpression;
+import com.google.devtools.j2objc.ast.DoStatement;
+import com.google.devtools.j2objc.ast.EnhancedForStatement;
 import com.google.devtools.j2objc.ast.Expression;
 import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.ForStatement;
+import com.google.devtools.j2objc.ast.FunctionDeclaration;
+import com.google.devtools.j2objc.ast.IfStatement;
+import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.LabeledStatement;
+import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.NativeExpression;
 import com.google.devtools.j2objc.ast.PrefixExpression;
 import com.google.devtools.j2objc.ast.QualifiedName;
 import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SwitchCase;
+import com.google.devtools.j2objc.ast.SwitchStatement;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TryStatement;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationExpression;
+import com.google.devtools.j2objc.ast.WhileStatement;
 import com.google.devtools.j2objc.types.PointerType;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.TranslationUtil;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
 
 /**
  * Converts static variable access to static method calls where necessary.
+ * <p>
+ * Within a method or function, a load from a class that is already initialized
+ * on every path to it is left as a plain access. A class is initialized once a
+ * statement that loads from it or from a subclass has completed, and the
+ * superclasses of the enclosing class are initialized before its code runs.
+ * Code that only runs conditionally, such as a branch or a loop body, doesn't
+ * initialize a class for the code after it. Since C doesn't sequence the
+ * operands of most expressions, a load doesn't make another load in the same
+ * statement redundant.
  *
  * @author Keith Stanger
  */
 public class StaticVarRewriter extends UnitTreeVisitor {
 
+  // The classes initialized on every path to the current statement, or null
+  // outside of method and function bodies, where every load is checked.
+  private Set<TypeElement> initializedTypes = null;
+
+  // The classes loaded by the current statement, which are initialized once
+  // it completes.
+  private Set<TypeElement> loadedTypes = new HashSet<>();
+
   public StaticVarRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -59,6 +95,12 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     }
 
     TypeElement declaringClass = ElementUtil.getDeclaringClass(var);
+    if (initializedTypes != null) {
+      if (initializedTypes.contains(declaringClass)) {
+        return;
+      }
+      addWithSuperclasses(loadedTypes, declaringClass);
+    }
     boolean assignable = TranslationUtil.isAssigned(node);
     StringBuilder code = new StringBuilder(
         ElementUtil.isEnumConstant(var) ? "JreLoadEnum" : "JreLoadStatic");
@@ -128,4 +170,247 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     // Avoid using an accessor method for enums in a switch case.
     return false;
   }
+
+  private static void addWithSuperclasses(Set<TypeElement> types, TypeElement type) {
+    for (; type != null; type = ElementUtil.getSuperclass(type)) {
+      types.add(type);
+    }
+  }
+
+  private void startBody(TreeNode node) {
+    TypeElement type = TreeUtil.getEnclosingTypeElement(node);
+    initializedTypes = new HashSet<>();
+    if (type != null) {
+      addWithSuperclasses(initializedTypes, ElementUtil.getSuperclass(type));
+    }
+    loadedTypes.clear();
+  }
+
+  private void endBody() {
+    initializedTypes = null;
+    loadedTypes.clear();
+  }
+
+  /**
+   * Adds the classes loaded by the statement that just completed.
+   */
+  private void endStatement() {
+    if (initializedTypes != null) {
+      initializedTypes.addAll(loadedTypes);
+    }
+    loadedTypes.clear();
+  }
+
+  private Set<TypeElement> saveInitializedTypes() {
+    endStatement();
+    return initializedTypes != null ? new HashSet<>(initializedTypes) : null;
+  }
+
+  private void restoreInitializedTypes(Set<TypeElement> saved) {
+    loadedTypes.clear();
+    initializedTypes = saved != null ? new HashSet<>(saved) : null;
+  }
+
+  /**
+   * Visits code that might not run to completion, so the classes it loads
+   * aren't initialized after it.
+   */
+  private void visitScoped(TreeNode node) {
+    Set<TypeElement> saved = saveInitializedTypes();
+    node.accept(this);
+    restoreInitializedTypes(saved);
+  }
+
+  /**
+   * Visits an operand that might not be evaluated.
+   */
+  private void visitConditionalOperand(Expression node) {
+    Set<TypeElement> saved = loadedTypes;
+    loadedTypes = new HashSet<>();
+    node.accept(this);
+    loadedTypes = saved;
+  }
+
+  @Override
+  public boolean preVisit(TreeNode node) {
+    if (node instanceof Statement) {
+      endStatement();
+    }
+    return true;
+  }
+
+  @Override
+  public void postVisit(TreeNode node) {
+    if (node instanceof Statement) {
+      endStatement();
+    }
+  }
+
+  @Override
+  public boolean visit(MethodDeclaration node) {
+    startBody(node);
+    return true;
+  }
+
+  @Override
+  public void endVisit(MethodDeclaration node) {
+    endBody();
+  }
+
+  @Override
+  public boolean visit(FunctionDeclaration node) {
+    startBody(node);
+    return true;
+  }
+
+  @Override
+  public void endVisit(FunctionDeclaration node) {
+    endBody();
+  }
+
+  @Override
+  public boolean visit(IfStatement node) {
+    node.getExpression().accept(this);
+    Set<TypeElement> saved = saveInitializedTypes();
+    node.getThenStatement().accept(this);
+    endStatement();
+    Set<TypeElement> thenTypes = initializedTypes;
+    restoreInitializedTypes(saved);
+    Statement elseStatement = node.getElseStatement();
+    if (elseStatement != null) {
+      elseStatement.accept(this);
+      endStatement();
+    }
+    // Initialized by both branches.
+    if (initializedTypes != null) {
+      initializedTypes.retainAll(thenTypes);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean visit(ConditionalExpression node) {
+    node.getExpression().accept(this);
+    visitConditionalOperand(node.getThenExpression());
+    visitConditionalOperand(node.getElseExpression());
+    return false;
+  }
+
+  @Override
+  public boolean visit(InfixExpression node) {
+    InfixExpression.Operator op = node.getOperator();
+    if (op != InfixExpression.Operator.CONDITIONAL_AND
+        && op != InfixExpression.Operator.CONDITIONAL_OR) {
+      return true;
+    }
+    Iterator<Expression> operands = node.getOperands().iterator();
+    operands.next().accept(this);
+    while (operands.hasNext()) {
+      visitConditionalOperand(operands.next());
+    }
+    return false;
+  }
+
+  @Override
+  public boolean visit(WhileStatement node) {
+    // The condition is evaluated before the body and before the loop exits.
+    node.getExpression().accept(this);
+    visitScoped(node.getBody());
+    return false;
+  }
+
+  @Override
+  public boolean visit(DoStatement node) {
+    // A continue statement skips the rest of the body, and a break statement
+    // skips the condition.
+    visitScoped(node.getBody());
+    visitScoped(node.getExpression());
+    return false;
+  }
+
+  @Override
+  public boolean visit(EnhancedForStatement node) {
+    node.getExpression().accept(this);
+    visitScoped(node.getBody());
+    return false;
+  }
+
+  @Override
+  public boolean visit(ForStatement node) {
+    for (Expression initializer : node.getInitializers()) {
+      initializer.accept(this);
+    }
+    Expression expr = node.getExpression();
+    if (expr != null) {
+      endStatement();
+      expr.accept(this);
+    }
+    Set<TypeElement> saved = saveInitializedTypes();
+    node.getBody().accept(this);
+    restoreInitializedTypes(saved);
+    for (Expression updater : node.getUpdaters()) {
+      updater.accept(this);
+    }
+    restoreInitializedTypes(saved);
+    return false;
+  }
+
+  @Override
+  public boolean visit(SwitchStatement node) {
+    node.getExpression().accept(this);
+    Set<TypeElement> saved = saveInitializedTypes();
+    for (Statement stmt : node.getStatements()) {
+      if (stmt instanceof SwitchCase) {
+        restoreInitializedTypes(saved);
+      }
+      stmt.accept(this);
+    }
+    restoreInitializedTypes(saved);
+    return false;
+  }
+
+  @Override
+  public boolean visit(TryStatement node) {
+    Set<TypeElement> saved = saveInitializedTypes();
+    for (VariableDeclarationExpression resource : node.getResources()) {
+      resource.accept(this);
+    }
+    node.getBody().accept(this);
+    endStatement();
+    Set<TypeElement> bodyTypes = initializedTypes;
+    // The catch clauses and the finally block also run when the body throws.
+    for (CatchClause catchClause : node.getCatchClauses()) {
+      restoreInitializedTypes(saved);
+      catchClause.accept(this);
+    }
+    restoreInitializedTypes(saved);
+    if (node.getFinally() != null) {
+      node.getFinally().accept(this);
+      endStatement();
+    }
+    if (initializedTypes != null && node.getCatchClauses().isEmpty()) {
+      initializedTypes.addAll(bodyTypes);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean visit(LabeledStatement node) {
+    // A labeled break statement skips the rest of the body.
+    Statement body = node.getBody();
+    if (body != null) {
+      visitScoped(body);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean visit(AssertStatement node) {
+    // Assertions might be disabled.
+    visitScoped(node.getExpression());
+    if (node.getMessage() != null) {
+      visitScoped(node.getMessage());
+    }
+    return false;
+  }
 }
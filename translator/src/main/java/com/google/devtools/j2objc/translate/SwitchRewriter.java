@@ -24,20 +24,30 @@ import com.google.devtools.j2objc.ast.ExpressionStatement;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
 import com.google.devtools.j2objc.ast.MethodInvocation;
 import com.google.devtools.j2objc.ast.NativeExpression;
+import com.google.devtools.j2objc.ast.NativeStatement;
 import com.google.devtools.j2objc.ast.NumberLiteral;
 import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.Statement;
+import com.google.devtools.j2objc.ast.StringLiteral;
 import com.google.devtools.j2objc.ast.SwitchCase;
 import com.google.devtools.j2objc.ast.SwitchStatement;
+import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
 import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
 import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
+import com.google.devtools.j2objc.gen.LiteralGenerator;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
+import com.google.devtools.j2objc.util.UnicodeUtils;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
@@ -51,8 +61,16 @@ import javax.lang.model.type.TypeMirror;
  */
 public class SwitchRewriter extends UnitTreeVisitor {
 
+  // String switches with at least this many cases are dispatched on the hash
+  // codes of the strings. Comparing a few strings, which usually differ in
+  // their length or first characters, is cheaper than hashing the value.
+  private static final int MIN_HASHED_STRING_CASES = 8;
+
+  // Numbers the tables of the unit's hashed string switches.
+  private int hashedSwitchCount = 0;
+
   public SwitchRewriter(CompilationUnit unit) {
-    super(unit);
+    super(unit, EnumSet.of(TreeNode.Kind.SWITCH_CASE, TreeNode.Kind.SWITCH_STATEMENT));
   }
 
   @Override
@@ -133,17 +151,21 @@ public class SwitchRewriter extends UnitTreeVisitor {
     if (!typeUtil.isString(type)) {
       return;
     }
+    List<SwitchCase> cases = new ArrayList<>();
+    for (Statement stmt : node.getStatements()) {
+      if (stmt instanceof SwitchCase && !((SwitchCase) stmt).isDefault()) {
+        cases.add((SwitchCase) stmt);
+      }
+    }
+    if (cases.size() >= MIN_HASHED_STRING_CASES && fixHashedStringValue(node, cases)) {
+      return;
+    }
     ArrayType arrayType = typeUtil.getArrayType(type);
     ArrayInitializer arrayInit = new ArrayInitializer(arrayType);
     int idx = 0;
-    for (Statement stmt : node.getStatements()) {
-      if (stmt instanceof SwitchCase) {
-        SwitchCase caseStmt = (SwitchCase) stmt;
-        if (!caseStmt.isDefault()) {
-          arrayInit.addExpression(TreeUtil.remove(caseStmt.getExpression()));
-          caseStmt.setExpression(NumberLiteral.newIntLiteral(idx++, typeUtil));
-        }
-      }
+    for (SwitchCase caseStmt : cases) {
+      arrayInit.addExpression(TreeUtil.remove(caseStmt.getExpression()));
+      caseStmt.setExpression(NumberLiteral.newIntLiteral(idx++, typeUtil));
     }
     TypeMirror intType = typeUtil.getInt();
     FunctionElement indexOfFunc = new FunctionElement("JreIndexOfStr", intType, null)
@@ -155,6 +177,99 @@ public class SwitchRewriter extends UnitTreeVisitor {
     node.setExpression(invocation);
   }
 
+  /**
+   * Switches on the index returned by JreIndexOfStrHashed, which finds the
+   * value's hash code in the cases' sorted hash codes, and only compares the
+   * value with the cases that have the same hash code. The strings and hash
+   * codes are function-scope static tables, so they're initialized once
+   * rather than built on every execution. Returns false if a case's string
+   * isn't known, or can't be a compile-time constant.
+   */
+  private boolean fixHashedStringValue(SwitchStatement node, List<SwitchCase> cases) {
+    Map<SwitchCase, String> caseValues = new HashMap<>();
+    for (SwitchCase caseStmt : cases) {
+      String value = getStringConstant(caseStmt.getExpression());
+      if (value == null || !UnicodeUtils.hasValidCppCharacters(value)) {
+        return false;
+      }
+      caseValues.put(caseStmt, value);
+    }
+    // The sort is stable, so strings with the same hash code stay in source
+    // order.
+    List<SwitchCase> sortedCases = new ArrayList<>(cases);
+    sortedCases.sort(Comparator.comparingInt(caseStmt -> caseValues.get(caseStmt).hashCode()));
+
+    int tableIndex = ++hashedSwitchCount;
+    String valuesName = "caseStrings__" + tableIndex;
+    String hashesName = "caseHashes__" + tableIndex;
+    // The strings are constants, so they don't need to be retained.
+    StringBuilder values = new StringBuilder(
+        "static __unsafe_unretained NSString * const " + valuesName + "[] = { ");
+    StringBuilder hashes = new StringBuilder("static const jint " + hashesName + "[] = { ");
+    int idx = 0;
+    for (SwitchCase caseStmt : sortedCases) {
+      String value = caseValues.get(caseStmt);
+      if (idx > 0) {
+        values.append(", ");
+        hashes.append(", ");
+      }
+      values.append(LiteralGenerator.generateStringLiteral(value));
+      hashes.append(LiteralGenerator.generate(value.hashCode()));
+      caseStmt.setExpression(NumberLiteral.newIntLiteral(idx++, typeUtil));
+    }
+    values.append(" };");
+    hashes.append(" };");
+    addBefore(node, new NativeStatement(values.toString()), new NativeStatement(hashes.toString()));
+
+    Expression expr = node.getExpression();
+    TypeMirror type = expr.getTypeMirror();
+    TypeMirror intType = typeUtil.getInt();
+    ArrayType arrayType = typeUtil.getArrayType(type);
+    ArrayType hashArrayType = typeUtil.getArrayType(intType);
+    FunctionElement indexOfFunc = new FunctionElement("JreIndexOfStrHashed", intType, null)
+        .addParameters(type, arrayType, hashArrayType, intType);
+    FunctionInvocation invocation = new FunctionInvocation(indexOfFunc, intType);
+    invocation.addArgument(TreeUtil.remove(expr))
+        .addArgument(new NativeExpression(valuesName, arrayType))
+        .addArgument(new NativeExpression(hashesName, hashArrayType))
+        .addArgument(NumberLiteral.newIntLiteral(idx, typeUtil));
+    node.setExpression(invocation);
+    return true;
+  }
+
+  /**
+   * Adds statements before a switch, in a new block if the switch isn't
+   * already in one.
+   */
+  private static void addBefore(SwitchStatement node, Statement... stmts) {
+    TreeNode parent = node.getParent();
+    Block block;
+    if (parent instanceof Block) {
+      block = (Block) parent;
+    } else {
+      block = new Block();
+      node.replaceWith(block);
+      block.addStatement(node);
+    }
+    List<Statement> blockStmts = block.getStatements();
+    int index = blockStmts.indexOf(node);
+    for (Statement stmt : stmts) {
+      blockStmts.add(index++, stmt);
+    }
+  }
+
+  private static String getStringConstant(Expression expr) {
+    Object value = expr.getConstantValue();
+    if (value == null && expr instanceof StringLiteral) {
+      value = ((StringLiteral) expr).getLiteralValue();
+    }
+    if (value == null) {
+      VariableElement var = TreeUtil.getVariableElement(expr);
+      value = var != null ? var.getConstantValue() : null;
+    }
+    return value instanceof String ? (String) value : null;
+  }
+
   private void fixEnumValue(SwitchStatement node) {
     Expression expr = node.getExpression();
     TypeMirror type = expr.getTypeMirror();
@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.EnumDeclaration;
+import com.google.devtools.j2objc.ast.TreeNode.Kind;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.ast.TypeDeclaration;
+import com.google.devtools.j2objc.types.GeneratedExecutableElement;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+
+/**
+ * The classes of a whole program and the methods that they override, written
+ * by --output-class-hierarchy and read by --class-hierarchy. Since every
+ * subclass of a class in the hierarchy is known, a method of one that no class
+ * overrides doesn't need dynamic dispatch, and {@link
+ * com.google.devtools.j2objc.translate.Functionizer} calls it as a function.
+ * <p>
+ * The file lists one entry per line, either a class's binary name or an
+ * overridden method's class, name and signature:
+ * <pre>
+ * class com.foo.Bar
+ * overridden com.foo.Bar getName ()Ljava/lang/String;
+ * </pre>
+ */
+public class ClassHierarchy {
+
+  private static final String CLASS_PREFIX = "class ";
+  private static final String OVERRIDDEN_PREFIX = "overridden ";
+
+  private final Set<String> classes = ConcurrentHashMap.newKeySet();
+  private final Set<String> overriddenMethods = ConcurrentHashMap.newKeySet();
+
+  // The number of call sites devirtualized by method, for the report.
+  private final Map<String, Integer> devirtualizedCalls = new ConcurrentHashMap<>();
+
+  public static ClassHierarchy read(File file) throws IOException {
+    ClassHierarchy hierarchy = new ClassHierarchy();
+    try (BufferedReader in = new BufferedReader(
+        new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.startsWith(CLASS_PREFIX)) {
+          hierarchy.classes.add(line.substring(CLASS_PREFIX.length()));
+        } else if (line.startsWith(OVERRIDDEN_PREFIX)) {
+          hierarchy.overriddenMethods.add(line.substring(OVERRIDDEN_PREFIX.length()));
+        } else if (!line.isEmpty()) {
+          throw new IOException("invalid class hierarchy entry: " + line);
+        }
+      }
+    }
+    return hierarchy;
+  }
+
+  public void write(File file) throws IOException {
+    try (PrintWriter out = newWriter(file)) {
+      for (String className : new TreeSet<>(classes)) {
+        out.println(CLASS_PREFIX + className);
+      }
+      for (String method : new TreeSet<>(overriddenMethods)) {
+        out.println(OVERRIDDEN_PREFIX + method);
+      }
+    }
+  }
+
+  /**
+   * Adds the classes declared in a unit, including local and anonymous
+   * classes, so it must be called before the unit's tree is mutated.
+   */
+  public void addUnit(CompilationUnit unit) {
+    ElementUtil elementUtil = unit.getEnv().elementUtil();
+    TypeUtil typeUtil = unit.getEnv().typeUtil();
+    unit.accept(new TreeVisitor(EnumSet.of(Kind.ENUM_DECLARATION, Kind.TYPE_DECLARATION)) {
+      @Override
+      public boolean visit(TypeDeclaration node) {
+        addType(node, elementUtil, typeUtil);
+        return true;
+      }
+
+      @Override
+      public boolean visit(EnumDeclaration node) {
+        addType(node, elementUtil, typeUtil);
+        return true;
+      }
+    });
+  }
+
+  private void addType(AbstractTypeDeclaration node, ElementUtil elementUtil, TypeUtil typeUtil) {
+    TypeElement type = node.getTypeElement();
+    classes.add(elementUtil.getBinaryName(type));
+    for (ExecutableElement method : ElementUtil.getMethods(type)) {
+      if (!ElementUtil.isInstanceMethod(method)) {
+        continue;
+      }
+      typeUtil.visitTypeHierarchy(type.asType(), (DeclaredType superType) -> {
+        TypeElement superElement = (TypeElement) superType.asElement();
+        if (superElement != type) {
+          for (ExecutableElement superMethod : ElementUtil.getMethods(superElement)) {
+            if (elementUtil.overrides(method, superMethod, type)) {
+              overriddenMethods.add(getMethodKey(superMethod, typeUtil));
+            }
+          }
+        }
+        return true;
+      });
+    }
+  }
+
+  /**
+   * Returns true if a method is declared by a class in the hierarchy, and is
+   * final, is declared by a final class, or isn't overridden by any class in
+   * the hierarchy.
+   */
+  public boolean isEffectivelyFinal(ExecutableElement method, TypeUtil typeUtil) {
+    if (method instanceof GeneratedExecutableElement) {
+      return false;
+    }
+    TypeElement declaringClass = ElementUtil.getDeclaringClass(method);
+    if (!classes.contains(typeUtil.elementUtil().getBinaryName(declaringClass))) {
+      return false;
+    }
+    return ElementUtil.isFinal(method) || ElementUtil.isFinal(declaringClass)
+        || !overriddenMethods.contains(getMethodKey(method, typeUtil));
+  }
+
+  /**
+   * Counts a call site that is translated as a function call instead of a
+   * message.
+   */
+  public void addDevirtualizedCall(ExecutableElement method, TypeUtil typeUtil) {
+    devirtualizedCalls.merge(getMethodKey(method, typeUtil), 1, Integer::sum);
+  }
+
+  public int getDevirtualizedCallCount() {
+    int count = 0;
+    for (int n : devirtualizedCalls.values()) {
+      count += n;
+    }
+    return count;
+  }
+
+  public int getDevirtualizedMethodCount() {
+    return devirtualizedCalls.size();
+  }
+
+  /**
+   * Writes the number of devirtualized call sites of each method, as CSV.
+   */
+  public void writeReport(File file) throws IOException {
+    try (PrintWriter out = newWriter(file)) {
+      out.println("class,method,signature,call_sites");
+      for (Map.Entry<String, Integer> entry : new TreeMap<>(devirtualizedCalls).entrySet()) {
+        out.println(entry.getKey().replace(' ', ',') + ',' + entry.getValue());
+      }
+    }
+  }
+
+  static String getMethodKey(ExecutableElement method, TypeUtil typeUtil) {
+    return typeUtil.elementUtil().getBinaryName(ElementUtil.getDeclaringClass(method)) + ' '
+        + typeUtil.getReferenceName(method) + ' ' + typeUtil.getReferenceSignature(method);
+  }
+
+  static PrintWriter newWriter(File file) throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir != null) {
+      dir.mkdirs();
+    }
+    return new PrintWriter(
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+  }
+}
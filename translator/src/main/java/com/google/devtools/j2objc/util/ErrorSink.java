@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.common.collect.ImmutableList;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.tools.Diagnostic;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ * Collects the errors and warnings reported by one translation. Each
+ * {@link com.google.devtools.j2objc.Options} instance has its own sink, so
+ * translations that run in the same JVM keep their counts and messages
+ * separate. {@link ErrorUtil}'s static methods report to the sink that is
+ * current for the calling thread.
+ * <p>
+ * A thread can collect its messages in a {@link Buffer}, which is merged later
+ * so that the sink's messages and output are in a deterministic order. Counts
+ * are updated with the messages, so they always match the message lists.
+ */
+public class ErrorSink {
+
+  private final AtomicInteger errorCount = new AtomicInteger();
+  private final AtomicInteger warningCount = new AtomicInteger();
+  private List<String> errorMessages = new ArrayList<>();
+  private List<String> warningMessages = new ArrayList<>();
+  // Null to print to ErrorUtil's default stream.
+  private volatile PrintStream errorStream = null;
+  private final ThreadLocal<Buffer> activeBuffer = new ThreadLocal<>();
+
+  public synchronized void reset() {
+    errorCount.set(0);
+    warningCount.set(0);
+    errorMessages = new ArrayList<>();
+    warningMessages = new ArrayList<>();
+  }
+
+  public int errorCount() {
+    return errorCount.get();
+  }
+
+  public int warningCount() {
+    return warningCount.get();
+  }
+
+  public synchronized List<String> getErrorMessages() {
+    return ImmutableList.copyOf(errorMessages);
+  }
+
+  public synchronized List<String> getWarningMessages() {
+    return ImmutableList.copyOf(warningMessages);
+  }
+
+  public void setErrorStream(PrintStream errorStream) {
+    this.errorStream = errorStream;
+  }
+
+  public void error(String message) {
+    record(true, message, ErrorUtil.getFullMessage("error: ", message, ErrorUtil.CLANG_STYLE));
+  }
+
+  public void warning(String message) {
+    record(false, message, ErrorUtil.getFullMessage("warning: ", message, ErrorUtil.CLANG_STYLE));
+  }
+
+  public void parserDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+    Kind kind = diagnostic.getKind();
+    boolean isError;
+    if (kind == Kind.ERROR) {
+      isError = true;
+    } else if (kind == Kind.MANDATORY_WARNING || kind == Kind.WARNING) {
+      isError = false;
+    } else {
+      return;
+    }
+    String msg;
+    if (ErrorUtil.CLANG_STYLE) {
+      msg = String.format("error: %s:%d: %s", diagnostic.getSource().getName(),
+          diagnostic.getLineNumber(), diagnostic.getMessage(null).trim());
+    } else {
+      msg = diagnostic.toString().trim();
+    }
+    record(isError, diagnostic.getMessage(null), msg);
+  }
+
+  private void record(boolean isError, String message, String output) {
+    Buffer buffer = activeBuffer.get();
+    if (buffer != null) {
+      buffer.entries.add(new Entry(isError, message, output));
+    } else {
+      append(isError, message, output);
+    }
+  }
+
+  private synchronized void append(boolean isError, String message, String output) {
+    (isError ? errorCount : warningCount).incrementAndGet();
+    (isError ? errorMessages : warningMessages).add(message);
+    (errorStream != null ? errorStream : ErrorUtil.defaultErrorStream()).println(output);
+  }
+
+  /**
+   * Starts collecting the messages reported on the current thread in a new
+   * buffer, until {@link #endBuffer} is called. The messages aren't counted
+   * until the buffer is merged.
+   */
+  public Buffer startBuffer() {
+    Buffer buffer = new Buffer();
+    activeBuffer.set(buffer);
+    return buffer;
+  }
+
+  /**
+   * Stops collecting the current thread's messages in a buffer.
+   */
+  public void endBuffer() {
+    activeBuffer.remove();
+  }
+
+  /**
+   * Messages reported by one unit of work, to be merged into their sink.
+   */
+  public class Buffer {
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private Buffer() {}
+
+    /**
+     * Adds this buffer's messages to the sink, counts them and prints them.
+     * Buffers should be merged by one thread, in the order the work was
+     * submitted.
+     */
+    public void merge() {
+      synchronized (ErrorSink.this) {
+        for (Entry entry : entries) {
+          append(entry.isError, entry.message, entry.output);
+        }
+      }
+      entries.clear();
+    }
+  }
+
+  private static class Entry {
+    private final boolean isError;
+    private final String message;
+    private final String output;
+
+    private Entry(boolean isError, String message, String output) {
+      this.isError = isError;
+      this.message = message;
+      this.output = output;
+    }
+  }
+}
@@ -14,7 +14,6 @@
 
 package com.google.devtools.j2objc.util;
 
-import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
@@ -27,74 +26,98 @@ import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.tools.Diagnostic;
-import javax.tools.Diagnostic.Kind;
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaFileObject;
 
 /**
- * Provides convenient static error and warning methods.
+ * Provides convenient static error and warning methods. Messages are reported
+ * to the {@link ErrorSink} that is current for the calling thread. The
+ * translator and the tools built on it set their options' sink while they
+ * run; code that runs outside them reports to a process-wide default sink.
  *
  * @author Tom Ball, Keith Stanger
  */
 public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
 
-  private static int errorCount = 0;
-  private static int warningCount = 0;
-  private static PrintStream errorStream = System.err;
-  private static List<String> errorMessages = Lists.newArrayList();
-  private static List<String> warningMessages = Lists.newArrayList();
+  private static final ErrorSink DEFAULT_SINK = new ErrorSink();
+  private static final ThreadLocal<ErrorSink> threadSink = new ThreadLocal<>();
+  private static volatile PrintStream defaultErrorStream = System.err;
   // Captures whether the translator should emit clang style message. Clang style messages
   // are particularly useful when the translator is being invoked by Xcode build rules.
   // Xcode will be able to pick the file path and line number, hence make it easy to address
   // compilation errors from within Xcode.
   // Ideally this should be set by a command line switch, but for now we tell that by checking
   // the DEVELOPER_DIR environment variable set by Xcode.
-  private static final boolean CLANG_STYLE_ERROR_MSG = (null != System.getenv("DEVELOPER_DIR"));
-  private static Pattern pathAndLinePattern = null;
+  static final boolean CLANG_STYLE = (null != System.getenv("DEVELOPER_DIR"));
+  private static final Pattern pathAndLinePattern = Pattern.compile(".+?\\.java:\\d+: ");
+
+  /**
+   * Returns the sink that the calling thread reports to.
+   */
+  public static ErrorSink currentSink() {
+    ErrorSink sink = threadSink.get();
+    return sink != null ? sink : DEFAULT_SINK;
+  }
+
+  /**
+   * Directs the calling thread's messages to the specified sink, or to the
+   * default sink if null. Returns the sink previously set for this thread,
+   * or null, so that it can be restored.
+   */
+  public static ErrorSink setCurrentSink(ErrorSink sink) {
+    ErrorSink previous = threadSink.get();
+    if (sink != null) {
+      threadSink.set(sink);
+    } else {
+      threadSink.remove();
+    }
+    return previous;
+  }
 
   public static void reset() {
-    errorCount = 0;
-    warningCount = 0;
-    errorMessages = Lists.newArrayList();
-    warningMessages = Lists.newArrayList();
+    currentSink().reset();
   }
 
   public static int errorCount() {
-    return errorCount;
+    return currentSink().errorCount();
   }
 
   public static int warningCount() {
-    return warningCount;
+    return currentSink().warningCount();
   }
 
   public static List<String> getErrorMessages() {
-    return errorMessages;
+    return currentSink().getErrorMessages();
   }
 
   public static List<String> getWarningMessages() {
-    return warningMessages;
+    return currentSink().getWarningMessages();
   }
 
   /**
    * To be called by unit tests. In test mode errors and warnings are not
-   * printed to System.err.
+   * printed to System.err, by any sink that wasn't given its own stream.
    */
   public static void setTestMode() {
-    errorStream = new PrintStream(new OutputStream() {
+    defaultErrorStream = new PrintStream(new OutputStream() {
       @Override
       public void write(int b) {}
     });
   }
 
+  /**
+   * Returns the stream that sinks print to if they weren't given their own.
+   */
+  static PrintStream defaultErrorStream() {
+    return defaultErrorStream;
+  }
+
   public static String getFullMessage(String tag, String message, boolean clangStyle) {
     String fullMessage = null;
     if (clangStyle) {
       // Try to find the file path and line number, and then insert the tag after that,
       // in order to get a message in the following format.
       // <file_path>:<line_number>: error: <detailed_message>
-      if (pathAndLinePattern == null) {
-        pathAndLinePattern = Pattern.compile(".+?\\.java:\\d+: ");
-      }
       Matcher matcher = pathAndLinePattern.matcher(message);
       if (matcher.find()) {
         fullMessage = matcher.group(0) + matcher.replaceFirst(tag);
@@ -108,37 +131,16 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
   }
 
   public static void parserDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
-    Kind kind = diagnostic.getKind();
-    if (kind == Kind.ERROR) {
-      errorMessages.add(diagnostic.getMessage(null));
-      errorCount++;
-    } else if (kind == Kind.MANDATORY_WARNING || kind == Kind.WARNING) {
-      warningMessages.add(diagnostic.getMessage(null));
-      warningCount++;
-    } else {
-      return;
-    }
-    String msg;
-    if (CLANG_STYLE_ERROR_MSG) {
-      msg = String.format("error: %s:%d: %s", diagnostic.getSource().getName(),
-          diagnostic.getLineNumber(), diagnostic.getMessage(null).trim());
-    } else {
-      msg = diagnostic.toString().trim();
-    }
-    errorStream.println(msg);
+    currentSink().parserDiagnostic(diagnostic);
   }
 
   // TODO(tball): Consider more ways to associate errors with GenerationUnits to aid debugging.
   public static void error(String message) {
-    errorMessages.add(message);
-    errorStream.println(getFullMessage("error: ", message, CLANG_STYLE_ERROR_MSG));
-    errorCount++;
+    currentSink().error(message);
   }
 
   public static void warning(String message) {
-    warningMessages.add(message);
-    errorStream.println(getFullMessage("warning: ", message, CLANG_STYLE_ERROR_MSG));
-    warningCount++;
+    currentSink().warning(message);
   }
 
   /**
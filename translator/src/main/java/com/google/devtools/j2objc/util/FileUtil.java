@@ -28,10 +28,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import javax.annotation.Nullable;
@@ -50,6 +54,13 @@ public class FileUtil {
   private File outputDirectory = new File(".");
   private String fileEncoding = System.getProperty("file.encoding", "UTF-8");
   private Charset charset = Charset.forName(fileEncoding);
+  private boolean rewriteUnchangedOutput = false;
+  // Generated files are written by the translation threads.
+  private final AtomicInteger writtenOutputFiles = new AtomicInteger();
+  private final AtomicInteger preservedOutputFiles = new AtomicInteger();
+  // The .java and .class entries of each jar that was searched, so that each
+  // jar's central directory is only read once. Lookups may be concurrent.
+  private final Map<String, Set<String>> jarIndexes = new ConcurrentHashMap<>();
 
   public void setSourcePathEntries(List<String> sourcePathEntries) {
     this.sourcePathEntries = sourcePathEntries;
@@ -95,6 +106,47 @@ public class FileUtil {
     return charset;
   }
 
+  public void setRewriteUnchangedOutput(boolean rewriteUnchangedOutput) {
+    this.rewriteUnchangedOutput = rewriteUnchangedOutput;
+  }
+
+  /**
+   * Writes a generated file. A file that already has the same contents is
+   * left untouched, so that its modification time doesn't cause the
+   * Objective-C files that import it to be recompiled, unless
+   * --rewrite-unchanged-output was specified.
+   */
+  public void writeOutputFile(CharSequence text, File file) throws IOException {
+    countOutputFile(OutputFileWriter.write(text, file, charset, !rewriteUnchangedOutput));
+  }
+
+  /**
+   * Copies a previously generated file, leaving an unchanged destination
+   * untouched like {@link #writeOutputFile}.
+   */
+  public void copyOutputFile(File from, File to) throws IOException {
+    countOutputFile(OutputFileWriter.copy(from, to, !rewriteUnchangedOutput));
+  }
+
+  private void countOutputFile(boolean written) {
+    (written ? writtenOutputFiles : preservedOutputFiles).incrementAndGet();
+  }
+
+  /**
+   * The number of generated files that were written.
+   */
+  public int getWrittenOutputFiles() {
+    return writtenOutputFiles.get();
+  }
+
+  /**
+   * The number of generated files that were left untouched, because they
+   * already had the same contents.
+   */
+  public int getPreservedOutputFiles() {
+    return preservedOutputFiles.get();
+  }
+
   public void addTempDir(String tempDir) {
     tempDirs.add(tempDir);
   }
@@ -152,7 +204,7 @@ public class FileUtil {
     return findOnPaths(qualifiedName, classPathEntries, ".class");
   }
 
-  private static InputFile findOnPaths(
+  private InputFile findOnPaths(
       String qualifiedName, List<String> paths, String extension) throws IOException {
     String sourceFileName = qualifiedName.replace('.', File.separatorChar) + extension;
     // Zip/jar files always use forward slashes.
@@ -167,20 +219,45 @@ public class FileUtil {
         }
       } else {
         // Assume it's a jar file
-        JarredInputFile jarFile = new JarredInputFile(pathEntry, jarEntryName);
-        if (jarFile.exists()) {
-          return jarFile;
+        if (getJarIndex(pathEntry).contains(jarEntryName)) {
+          return new JarredInputFile(pathEntry, jarEntryName);
         }
       }
     }
     return null;
   }
 
+  /**
+   * Returns the names of a jar's source and class file entries, reading its
+   * central directory the first time. Jars on the source and class paths
+   * aren't expected to change during a translation.
+   */
+  private Set<String> getJarIndex(String jarPath) throws IOException {
+    Set<String> index = jarIndexes.get(jarPath);
+    if (index == null) {
+      index = new HashSet<>();
+      try (ZipFile zipFile = new ZipFile(jarPath)) {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          String name = entries.nextElement().getName();
+          if (name.endsWith(".java") || name.endsWith(".class")) {
+            index.add(name);
+          }
+        }
+      }
+      Set<String> previous = jarIndexes.putIfAbsent(jarPath, index);
+      if (previous != null) {
+        index = previous;
+      }
+    }
+    return index;
+  }
+
   public String readFile(InputFile file) throws IOException {
     return CharStreams.toString(file.openReader(charset));
   }
 
-  private static InputStream streamForFile(String filename) throws IOException {
+  static InputStream streamForFile(String filename) throws IOException {
     File f = new File(filename);
     if (f.exists()) {
       return new FileInputStream(f);
@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.devtools.j2objc.ast.CompilationUnit;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -78,6 +79,11 @@ public class HeaderMap {
 
   private static final String DEFAULT_HEADER_MAPPING_FILE = "mappings.j2objc";
 
+  // Parsed mapping files, kept so that translations run by the same process
+  // only parse a mapping file again after its contents change.
+  private static final ParsedFileCache<Properties> mappingsCache = new ParsedFileCache<>(
+      contents -> FileUtil.loadProperties(new ByteArrayInputStream(contents)));
+
   /**
    * Types of output file generation. Output files are generated in
    * the specified output directory in an optional sub-directory.
@@ -104,7 +110,7 @@ public class HeaderMap {
 
   private List<String> inputMappingFiles = null;
   private File outputMappingFile = null;
-  private final Map<String, String> map = Maps.newHashMap();
+  private final Map<String, String> map = Maps.newConcurrentMap();
 
   public void setOutputStyle(OutputStyleOption outputStyle) {
     this.outputStyle = outputStyle;
@@ -233,13 +239,13 @@ public class HeaderMap {
     try {
       if (inputMappingFiles == null) {
         try {
-          loadMappingsFromProperties(FileUtil.loadProperties(DEFAULT_HEADER_MAPPING_FILE));
+          loadMappingsFromProperties(loadMappingsFile(DEFAULT_HEADER_MAPPING_FILE));
         } catch (FileNotFoundException e) {
           // Don't fail if mappings aren't configured and the default mapping is absent.
         }
       } else {
         for (String resourceName : inputMappingFiles) {
-          loadMappingsFromProperties(FileUtil.loadProperties(resourceName));
+          loadMappingsFromProperties(loadMappingsFile(resourceName));
         }
       }
     } catch (IOException e) {
@@ -247,6 +253,10 @@ public class HeaderMap {
     }
   }
 
+  private static Properties loadMappingsFile(String resourceName) throws IOException {
+    return mappingsCache.get(resourceName);
+  }
+
   private void loadMappingsFromProperties(Properties mappings) {
     Enumeration<?> keyIterator = mappings.propertyNames();
     while (keyIterator.hasMoreElements()) {
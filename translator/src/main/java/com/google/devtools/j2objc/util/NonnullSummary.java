@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+
+/**
+ * The methods that never return null and the final fields that are never null
+ * once assigned, found by {@link
+ * com.google.devtools.j2objc.translate.NilCheckResolver} in each translated
+ * unit. The summaries of a program's sources are written by
+ * --output-nonnull-summaries, and read by --nonnull-summaries so that values
+ * from other units don't need nil_chk calls either.
+ * <p>
+ * The file lists one entry per line, either a method's class, name and
+ * signature, or a field's class and name:
+ * <pre>
+ * method com.foo.Bar getName ()Ljava/lang/String;
+ * field com.foo.Bar name
+ * </pre>
+ */
+public class NonnullSummary {
+
+  private static final String METHOD_PREFIX = "method ";
+  private static final String FIELD_PREFIX = "field ";
+
+  // The summaries read from a file, which are used by translation.
+  private final Set<String> methods = ConcurrentHashMap.newKeySet();
+  private final Set<String> fields = ConcurrentHashMap.newKeySet();
+
+  // The summaries of the translated units, which are written.
+  private final Set<String> foundMethods = ConcurrentHashMap.newKeySet();
+  private final Set<String> foundFields = ConcurrentHashMap.newKeySet();
+
+  private final AtomicInteger removedNilChecks = new AtomicInteger();
+
+  public static NonnullSummary read(File file) throws IOException {
+    NonnullSummary summary = new NonnullSummary();
+    try (BufferedReader in = new BufferedReader(
+        new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.startsWith(METHOD_PREFIX)) {
+          summary.methods.add(line.substring(METHOD_PREFIX.length()));
+        } else if (line.startsWith(FIELD_PREFIX)) {
+          summary.fields.add(line.substring(FIELD_PREFIX.length()));
+        } else if (!line.isEmpty()) {
+          throw new IOException("invalid non-null summary entry: " + line);
+        }
+      }
+    }
+    return summary;
+  }
+
+  /**
+   * Writes the summaries found in the translated units.
+   */
+  public void write(File file) throws IOException {
+    try (PrintWriter out = ClassHierarchy.newWriter(file)) {
+      for (String method : new TreeSet<>(foundMethods)) {
+        out.println(METHOD_PREFIX + method);
+      }
+      for (String field : new TreeSet<>(foundFields)) {
+        out.println(FIELD_PREFIX + field);
+      }
+    }
+  }
+
+  public boolean isNonnullMethod(ExecutableElement method, TypeUtil typeUtil) {
+    return !methods.isEmpty() && methods.contains(ClassHierarchy.getMethodKey(method, typeUtil));
+  }
+
+  public boolean isNonnullField(VariableElement field, TypeUtil typeUtil) {
+    return !fields.isEmpty() && fields.contains(getFieldKey(field, typeUtil));
+  }
+
+  public void addMethod(ExecutableElement method, TypeUtil typeUtil) {
+    foundMethods.add(ClassHierarchy.getMethodKey(method, typeUtil));
+  }
+
+  public void addField(VariableElement field, TypeUtil typeUtil) {
+    foundFields.add(getFieldKey(field, typeUtil));
+  }
+
+  /**
+   * Counts the dereferences that don't need a nil_chk because of a summary.
+   */
+  public void addRemovedNilChecks(int count) {
+    removedNilChecks.addAndGet(count);
+  }
+
+  public int getRemovedNilCheckCount() {
+    return removedNilChecks.get();
+  }
+
+  private static String getFieldKey(VariableElement field, TypeUtil typeUtil) {
+    return typeUtil.elementUtil().getBinaryName(ElementUtil.getDeclaringClass(field)) + ' '
+        + ElementUtil.getName(field);
+  }
+}
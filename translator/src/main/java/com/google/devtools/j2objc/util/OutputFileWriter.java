@@ -0,0 +1,224 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes generated files without copying their text. The text is encoded in
+ * fixed size chunks, which are compared with the file's current contents
+ * until they first differ, so a file whose bytes are unchanged isn't written
+ * and keeps its modification time. Otherwise the file is written to a
+ * temporary file in the same directory, which then replaces it, so readers
+ * never see a partially written file.
+ */
+public final class OutputFileWriter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private OutputFileWriter() {}
+
+  /**
+   * Writes text to a file, unless the file already has the same contents.
+   * Characters that can't be encoded are replaced, as String.getBytes() does.
+   *
+   * @return true if the file was written, false if it was unchanged
+   */
+  public static boolean write(CharSequence text, File file, Charset charset) throws IOException {
+    return write(text, file, charset, true);
+  }
+
+  /**
+   * Writes text to a file, and if skipUnchanged is true, only if the file
+   * doesn't already have the same contents.
+   *
+   * @return true if the file was written, false if it was unchanged
+   */
+  public static boolean write(CharSequence text, File file, Charset charset,
+      boolean skipUnchanged) throws IOException {
+    CharsetEncoder encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    CharBuffer in = CharBuffer.wrap(text);
+    ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+    try (Output output = new Output(file, skipUnchanged)) {
+      while (encoder.encode(in, out, true).isOverflow()) {
+        output.write(out);
+      }
+      while (encoder.flush(out).isOverflow()) {
+        output.write(out);
+      }
+      output.write(out);
+      return output.commit();
+    }
+  }
+
+  /**
+   * Copies a file, unless the destination already has the same contents.
+   *
+   * @return true if the destination was written, false if it was unchanged
+   */
+  public static boolean copy(File from, File to) throws IOException {
+    return copy(from, to, true);
+  }
+
+  /**
+   * Copies a file, and if skipUnchanged is true, only if the destination
+   * doesn't already have the same contents.
+   *
+   * @return true if the destination was written, false if it was unchanged
+   */
+  public static boolean copy(File from, File to, boolean skipUnchanged) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    try (FileChannel in = FileChannel.open(from.toPath(), StandardOpenOption.READ);
+        Output output = new Output(to, skipUnchanged)) {
+      while (in.read(buffer) >= 0) {
+        output.write(buffer);
+      }
+      output.write(buffer);
+      return output.commit();
+    }
+  }
+
+  /**
+   * The destination of a write: compares the chunks written with the
+   * current file, and starts a temporary file at the first difference.
+   */
+  private static class Output implements Closeable {
+    private final File file;
+    private FileChannel current;
+    private ByteBuffer currentChunk;
+    // The length of the prefix the new contents share with the current file.
+    private long matched = 0;
+    private File tempFile;
+    private FileChannel temp;
+
+    private Output(File file, boolean skipUnchanged) throws IOException {
+      this.file = file;
+      if (skipUnchanged && file.isFile()) {
+        current = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      }
+    }
+
+    /**
+     * Writes the chunk in a buffer, and then clears it.
+     */
+    private void write(ByteBuffer chunk) throws IOException {
+      chunk.flip();
+      if (temp == null && (current == null || !matchesCurrent(chunk))) {
+        startTempFile();
+      }
+      if (temp != null) {
+        while (chunk.hasRemaining()) {
+          temp.write(chunk);
+        }
+      }
+      chunk.clear();
+    }
+
+    private boolean matchesCurrent(ByteBuffer chunk) throws IOException {
+      int length = chunk.remaining();
+      if (currentChunk == null) {
+        currentChunk = ByteBuffer.allocate(Math.max(length, BUFFER_SIZE));
+      }
+      currentChunk.clear().limit(length);
+      while (currentChunk.hasRemaining()) {
+        if (current.read(currentChunk, matched + currentChunk.position()) < 0) {
+          return false;
+        }
+      }
+      currentChunk.flip();
+      if (!currentChunk.equals(chunk)) {
+        return false;
+      }
+      matched += length;
+      return true;
+    }
+
+    /**
+     * Creates the temporary file, with the prefix of the current file that
+     * matched the new contents.
+     */
+    private void startTempFile() throws IOException {
+      File dir = file.getAbsoluteFile().getParentFile();
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("cannot create output directory: " + dir);
+      }
+      // Unlike java.nio.file.Files.createTempFile, this uses the default
+      // permissions, which the generated file should have.
+      tempFile = File.createTempFile("." + file.getName(), ".tmp", dir);
+      temp = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE);
+      long copied = 0;
+      while (copied < matched) {
+        copied += current.transferTo(copied, matched - copied, temp);
+      }
+    }
+
+    /**
+     * Replaces the file with the temporary file, if the contents changed.
+     */
+    private boolean commit() throws IOException {
+      if (temp == null) {
+        if (current.size() == matched) {
+          return false;
+        }
+        // The new contents are a prefix of the current file.
+        startTempFile();
+      }
+      temp.close();
+      temp = null;
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+      try {
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      tempFile = null;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (temp != null) {
+          temp.close();
+        }
+        if (current != null) {
+          current.close();
+        }
+      } finally {
+        if (tempFile != null) {
+          tempFile.delete();
+        }
+      }
+    }
+  }
+}
@@ -22,8 +22,8 @@ import com.strobel.decompiler.languages.java.ast.MemberReferenceExpression;
 import com.strobel.decompiler.languages.java.ast.PrimitiveExpression;
 import com.strobel.decompiler.languages.java.ast.TypeDeclaration;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,7 +32,7 @@ import java.util.regex.Pattern;
  */
 public class PackageInfoLookup {
 
-  private final Map<String, PackageData> map = new HashMap<>();
+  private final Map<String, PackageData> map = new ConcurrentHashMap<>();
   private final FileUtil fileUtil;
 
   private static final String REFLECTION_SUPPORT_REGEX =
@@ -17,7 +17,7 @@ package com.google.devtools.j2objc.util;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -46,7 +46,8 @@ import javax.lang.model.element.PackageElement;
 public final class PackagePrefixes {
 
   private final PackageInfoLookup packageLookup;
-  private Map<String, String> mappedPrefixes = Maps.newHashMap();
+  // Concurrent, since prefixes are added lazily by parallel translation tasks.
+  private Map<String, String> mappedPrefixes = Maps.newConcurrentMap();
 
   // A key array is used so that wildcards are checked in declared order.
   // There is one wildcard value for each key, enforced within this class.
@@ -54,6 +55,17 @@ public final class PackagePrefixes {
   private List<Pattern> wildcardKeys = Lists.newArrayList();
   private List<String> wildcardValues = Lists.newArrayList();
 
+  // Parsed prefix files and compiled wildcards, kept so that translations run
+  // by the same process only parse a prefix file again after its contents
+  // change.
+  private static final ParsedFileCache<Properties> prefixesFileCache =
+      new ParsedFileCache<>(contents -> {
+        Properties props = new Properties();
+        props.load(new ByteArrayInputStream(contents));
+        return props;
+      });
+  private static final Map<String, Pattern> wildcardPatterns = Maps.newConcurrentMap();
+
   public PackagePrefixes(PackageInfoLookup packageLookup) {
     this.packageLookup = packageLookup;
   }
@@ -92,7 +104,7 @@ public final class PackagePrefixes {
           return;
         }
       }
-      wildcardKeys.add(Pattern.compile(regex));
+      wildcardKeys.add(wildcardPatterns.computeIfAbsent(regex, Pattern::compile));
       wildcardValues.add(prefix);
     } else {
       mappedPrefixes.put(pkg, prefix);
@@ -126,11 +138,7 @@ public final class PackagePrefixes {
    * Add a file map of packages to their respective prefixes, using the Properties file format.
    */
   public void addPrefixesFile(String filename) throws IOException {
-    Properties props = new Properties();
-    FileInputStream fis = new FileInputStream(filename);
-    props.load(fis);
-    fis.close();
-    addPrefixProperties(props);
+    addPrefixProperties(prefixesFileCache.get(filename));
   }
 
   /**
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Parsed files, kept so that translations run by the same process, like the
+ * requests of a persistent worker, don't parse them again. A file is only
+ * read again when its length or modification time changed, and only parsed
+ * again when its contents changed too. Resources that aren't files are read
+ * once.
+ */
+class ParsedFileCache<T> {
+
+  /**
+   * Parses a file's contents.
+   */
+  interface FileParser<T> {
+    T parse(byte[] contents) throws IOException;
+  }
+
+  private final FileParser<T> parser;
+  private final Map<String, Entry<T>> entries = Maps.newConcurrentMap();
+
+  ParsedFileCache(FileParser<T> parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * Returns the parsed contents of a file, or of a resource if there is no
+   * such file.
+   */
+  T get(String name) throws IOException {
+    File file = new File(name);
+    // Both are zero for a resource.
+    long length = file.length();
+    long lastModified = file.lastModified();
+    Entry<T> cached = entries.get(name);
+    if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+      return cached.value;
+    }
+    byte[] contents;
+    try (InputStream in = FileUtil.streamForFile(name)) {
+      contents = ByteStreams.toByteArray(in);
+    }
+    HashCode hash = Hashing.sha256().hashBytes(contents);
+    T value = cached != null && cached.hash.equals(hash) ? cached.value : parser.parse(contents);
+    entries.put(name, new Entry<>(length, lastModified, hash, value));
+    return value;
+  }
+
+  private static class Entry<T> {
+    private final long length;
+    private final long lastModified;
+    private final HashCode hash;
+    private final T value;
+
+    private Entry(long length, long lastModified, HashCode hash, T value) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.value = value;
+    }
+  }
+}
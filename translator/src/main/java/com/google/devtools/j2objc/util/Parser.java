@@ -142,6 +142,14 @@ public abstract class Parser implements Closeable {
   public abstract void parseFiles(
       Collection<String> paths, Parser.Handler handler, SourceVersion sourceVersion);
 
+  /**
+   * Parse one or more input files as a single batch, calling a handler with
+   * each file's original location and compilation unit. Files that aren't in
+   * the file system, like the entries of source jars, are parsed from memory.
+   */
+  public abstract void parseInputFiles(Collection<? extends InputFile> files,
+      Parser.Handler handler, SourceVersion sourceVersion);
+
   /**
    * Parses source without performing any type or element attribution.
    * A front-end specific compilation unit is returned via a ParseResult
@@ -15,22 +15,34 @@
 package com.google.devtools.j2objc.util;
 
 import com.google.common.collect.Lists;
+import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.Options.TimingLevel;
+import com.google.devtools.j2objc.ast.TreeNode;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Arrays;
 import java.util.List;
 
 /**
  * Utility for logging time slices of an operation. Supports slicing at multiple
  * levels so that one slice can be divided into sub-slices.
+ * <p>
+ * Each slice records its elapsed time, the bytes the current thread allocated
+ * during it, and optionally the size of a tree after it. The slices are
+ * printed with --timing-info, and added to the translation's
+ * {@link TimingReport} with --timing-report.
  *
  * @author Keith Stanger
  */
 public class TimeTracker {
 
-  public static TimeTracker getTicker(String name, TimingLevel timingLevel) {
-    if (timingLevel == TimingLevel.ALL) {
-      return TimeTracker.start(name);
+  public static TimeTracker getTicker(String name, Options options) {
+    boolean print = options.timingLevel() == TimingLevel.ALL;
+    TimingReport report = options.timingReport();
+    if (print || report != null) {
+      return new TimeTrackerImpl(name, print, report);
     } else {
       return TimeTracker.noop();
     }
@@ -41,7 +53,7 @@ public class TimeTracker {
   }
 
   public static TimeTracker start(String name) {
-    return new TimeTrackerImpl(name);
+    return new TimeTrackerImpl(name, true, null);
   }
 
   public void tick(String event) {
@@ -53,6 +65,13 @@ public class TimeTracker {
   public void pop() {
   }
 
+  /**
+   * Records the number of nodes in a tree with each following slice. Counting
+   * visits the whole tree, so it's only done when a report is collected.
+   */
+  public void countNodes(TreeNode root) {
+  }
+
   public void printResults(PrintStream out) {
   }
 
@@ -60,6 +79,7 @@ public class TimeTracker {
 
     private static final int MAX_LEVELS = 8;
     private static final String[] INDENTS = createIndents();
+    private static final boolean allocationSupported = isAllocationSupported();
 
     private static String[] createIndents() {
       String[] indents = new String[MAX_LEVELS];
@@ -71,27 +91,120 @@ public class TimeTracker {
       return indents;
     }
 
+    // Returns true if the JVM reports the bytes allocated by a thread. Only
+    // the elapsed time of each slice is recorded otherwise.
+    private static boolean isAllocationSupported() {
+      try {
+        return AllocationCounter.threadBean != null;
+      } catch (LinkageError e) {
+        // The JVM doesn't have com.sun.management.
+        return false;
+      }
+    }
+
+    /**
+     * Reads allocated bytes from com.sun.management, which not every JVM
+     * has. It's only referenced from this class, so that the class fails to
+     * load, rather than TimeTrackerImpl, when it's missing.
+     */
+    private static class AllocationCounter {
+
+      static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+      private static com.sun.management.ThreadMXBean getThreadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+          com.sun.management.ThreadMXBean allocationBean =
+              (com.sun.management.ThreadMXBean) bean;
+          if (allocationBean.isThreadAllocatedMemorySupported()
+              && allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return allocationBean;
+          }
+        }
+        return null;
+      }
+
+      static long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+
+    private static class Entry {
+      final int level;
+      final String event;
+      final long nanos;
+      final long allocatedBytes;
+      final long nodes;
+
+      Entry(int level, String event, long nanos, long allocatedBytes, long nodes) {
+        this.level = level;
+        this.event = event;
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+        this.nodes = nodes;
+      }
+    }
+
+    final String name;
+    final boolean print;
+    final TimingReport report;
     long[] lastTicks = new long[16];
+    long[] lastAllocations = new long[16];
     int currentLevel = 0;
-    List<String> entries = Lists.newArrayList();
+    TreeNode root = null;
+    List<Entry> entries = Lists.newArrayList();
+
+    private TimeTrackerImpl(String name, boolean print, TimingReport report) {
+      this.name = name;
+      this.print = print;
+      this.report = report;
+      lastTicks[currentLevel] = System.nanoTime();
+      lastAllocations[currentLevel] = allocatedBytes();
+    }
 
-    private TimeTrackerImpl(String name) {
-      entries.add("Timings for " + name);
-      lastTicks[currentLevel] = System.currentTimeMillis();
+    private static long allocatedBytes() {
+      return allocationSupported ? AllocationCounter.allocatedBytes() : -1;
     }
 
     @Override
     public void tick(String event) {
-      long now = System.currentTimeMillis();
+      long now = System.nanoTime();
+      long allocated = allocatedBytes();
       long time = now - lastTicks[currentLevel];
+      long allocation = allocated >= 0 ? allocated - lastAllocations[currentLevel] : -1;
       lastTicks[currentLevel] = now;
-      entries.add(String.format("%s%5d ms - %s", INDENTS[currentLevel], time, event));
+      lastAllocations[currentLevel] = allocated;
+      long nodes = -1;
+      if (root != null && report != null) {
+        nodes = countNodes();
+        // Exclude the counting from this and the enclosing slices.
+        long countingTime = System.nanoTime() - now;
+        long countingAllocation = allocated >= 0 ? allocatedBytes() - allocated : 0;
+        for (int i = 0; i <= currentLevel; i++) {
+          lastTicks[i] += countingTime;
+          lastAllocations[i] += countingAllocation;
+        }
+      }
+      entries.add(new Entry(currentLevel, event, time, allocation, nodes));
+    }
+
+    private long countNodes() {
+      long[] count = new long[1];
+      root.accept(new TreeVisitor() {
+        @Override
+        public boolean preVisit(TreeNode node) {
+          count[0]++;
+          return true;
+        }
+      });
+      return count[0];
     }
 
     @Override
     public void push() {
       currentLevel++;
-      lastTicks[currentLevel] = System.currentTimeMillis();
+      lastTicks[currentLevel] = System.nanoTime();
+      lastAllocations[currentLevel] = allocatedBytes();
     }
 
     @Override
@@ -99,10 +212,28 @@ public class TimeTracker {
       currentLevel--;
     }
 
+    @Override
+    public void countNodes(TreeNode root) {
+      this.root = root;
+    }
+
     @Override
     public void printResults(PrintStream out) {
-      for (String entry : entries) {
-        out.println(entry);
+      if (report != null) {
+        for (Entry entry : entries) {
+          report.add(entry.event, entry.nanos, entry.allocatedBytes, entry.nodes);
+        }
+      }
+      if (!print) {
+        return;
+      }
+      // Keep one unit's timings together when units are translated in parallel.
+      synchronized (out) {
+        out.println("Timings for " + name);
+        for (Entry entry : entries) {
+          out.println(String.format("%s%5d ms - %s", INDENTS[entry.level],
+              entry.nanos / 1000000, entry.event));
+        }
       }
     }
   }
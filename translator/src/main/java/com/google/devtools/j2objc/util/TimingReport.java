@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link TimeTracker} slices of all translated units, aggregated by event
+ * name and written by --timing-report. The report is written as JSON if the
+ * file name ends with ".json", and as CSV otherwise.
+ * <p>
+ * For each event the report lists how many times it ran, its total and
+ * maximum time in nanoseconds, the bytes allocated during it, and the total
+ * number of tree nodes after it. Allocations are -1 if the JVM can't measure
+ * them, and nodes are -1 for events that don't change a tree.
+ */
+public class TimingReport {
+
+  private final File file;
+
+  // Events are listed in the order they first ran.
+  private final Map<String, EventStats> events = new LinkedHashMap<>();
+
+  public TimingReport(File file) {
+    this.file = file;
+  }
+
+  /**
+   * The statistics of one event, summed over every time it ran.
+   */
+  public static class EventStats {
+    private final String event;
+    private int count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    private long allocatedBytes = 0;
+    private long nodes = 0;
+
+    private EventStats(String event) {
+      this.event = event;
+    }
+
+    public String getEvent() {
+      return event;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public long getNodes() {
+      return nodes;
+    }
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Adds one slice. Called by the threads that translate units.
+   */
+  public synchronized void add(String event, long nanos, long allocatedBytes, long nodes) {
+    EventStats stats = events.get(event);
+    if (stats == null) {
+      stats = new EventStats(event);
+      stats.allocatedBytes = allocatedBytes < 0 ? -1 : 0;
+      stats.nodes = nodes < 0 ? -1 : 0;
+      events.put(event, stats);
+    }
+    stats.count++;
+    stats.totalNanos += nanos;
+    stats.maxNanos = Math.max(stats.maxNanos, nanos);
+    if (stats.allocatedBytes >= 0) {
+      stats.allocatedBytes = allocatedBytes >= 0 ? stats.allocatedBytes + allocatedBytes : -1;
+    }
+    if (stats.nodes >= 0) {
+      stats.nodes = nodes >= 0 ? stats.nodes + nodes : -1;
+    }
+  }
+
+  public synchronized List<EventStats> getEvents() {
+    return new ArrayList<>(events.values());
+  }
+
+  public void write() throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir != null) {
+      dir.mkdirs();
+    }
+    try (PrintWriter out = new PrintWriter(
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+      if (file.getName().endsWith(".json")) {
+        writeJson(out);
+      } else {
+        writeCsv(out);
+      }
+    }
+  }
+
+  private void writeCsv(PrintWriter out) {
+    out.println("event,count,total_ns,max_ns,allocated_bytes,nodes");
+    for (EventStats stats : getEvents()) {
+      out.println(String.format("%s,%d,%d,%d,%d,%d", csvQuote(stats.event), stats.count,
+          stats.totalNanos, stats.maxNanos, stats.allocatedBytes, stats.nodes));
+    }
+  }
+
+  private void writeJson(PrintWriter out) {
+    out.println("[");
+    List<EventStats> allStats = getEvents();
+    for (int i = 0; i < allStats.size(); i++) {
+      EventStats stats = allStats.get(i);
+      out.print(String.format("  {\"event\": %s, \"count\": %d, \"total_ns\": %d, "
+          + "\"max_ns\": %d, \"allocated_bytes\": %d, \"nodes\": %d}", jsonQuote(stats.event),
+          stats.count, stats.totalNanos, stats.maxNanos, stats.allocatedBytes, stats.nodes));
+      out.println(i < allStats.size() - 1 ? "," : "");
+    }
+    out.println("]");
+  }
+
+  private static String csvQuote(String s) {
+    if (s.indexOf(',') < 0 && s.indexOf('"') < 0) {
+      return s;
+    }
+    return '"' + s.replace("\"", "\"\"") + '"';
+  }
+
+  private static String jsonQuote(String s) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : s.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+}
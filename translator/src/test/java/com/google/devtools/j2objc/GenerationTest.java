@@ -105,6 +105,7 @@ public class GenerationTest extends TestCase {
     }
     FileUtil.deleteTempDir(tempDir);
     ErrorUtil.reset();
+    ErrorUtil.setCurrentSink(null);
   }
 
   protected void loadOptions() throws IOException {
@@ -117,6 +118,7 @@ public class GenerationTest extends TestCase {
         "-q", // Suppress console output.
         "-encoding", "UTF-8" // Translate strings correctly when encodings are nonstandard.
     });
+    ErrorUtil.setCurrentSink(options.errorSink());
   }
 
   protected void createParser() {
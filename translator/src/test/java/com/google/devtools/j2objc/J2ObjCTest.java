@@ -17,6 +17,7 @@
 package com.google.devtools.j2objc;
 
 import com.google.devtools.j2objc.util.HeaderMap;
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
@@ -121,6 +122,15 @@ public class J2ObjCTest extends GenerationTest {
     makeAssertionsForJar();
   }
 
+  public void testJarSourcesAreNotExtracted() throws Exception {
+    options.setBatchTranslateMaximum(2);
+    J2ObjC.run(Collections.singletonList(jarPath), options);
+    makeAssertionsForJar();
+    assertTrue(options.fileUtil().getTempDirs().isEmpty());
+    assertTrue(options.fileUtil().getSourcePathEntries().contains(
+        new File(jarPath).getAbsolutePath()));
+  }
+
   // Make assertions for java files with default output locations.
   private void makeAssertionsForJavaFiles() throws Exception {
     String exampleH = getTranslatedFile("com/google/devtools/j2objc/util/Example.h");
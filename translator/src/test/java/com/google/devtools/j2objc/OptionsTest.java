@@ -94,4 +94,21 @@ public class OptionsTest extends GenerationTest {
     assertEquals(SourceVersion.JAVA_8, options.getSourceVersion());
     assertTrue(options.fileUtil().getClassPathEntries().contains(tmpDir.getPath()));
   }
+
+  public void testMegabyteSizeFlags() throws IOException {
+    options.load(new String[] { "--cache-size", "64", "--batch-heap-limit", "2048" });
+    assertEquals(64L * 1024 * 1024, options.translationCacheSize());
+    assertEquals(2048L * 1024 * 1024, options.batchHeapLimit());
+
+    // Sizes that overflow a long are rejected instead of wrapping around.
+    String tooLarge = Long.toString(Long.MAX_VALUE / 1024);
+    for (String flag : new String[] { "--cache-size", "--batch-heap-limit" }) {
+      try {
+        new Options().load(new String[] { flag, tooLarge });
+        fail("expected " + flag + " " + tooLarge + " to be rejected");
+      } catch (Options.UsageException e) {
+        assertTrue(e.getMessage().startsWith("j2objc: invalid " + flag + " argument"));
+      }
+    }
+  }
 }
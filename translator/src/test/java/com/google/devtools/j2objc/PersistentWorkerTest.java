@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc;
+
+import com.google.devtools.j2objc.PersistentWorker.WorkRequest;
+import com.google.devtools.j2objc.PersistentWorker.WorkResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link PersistentWorker}.
+ */
+public class PersistentWorkerTest extends GenerationTest {
+
+  public void testReadRequests() throws IOException {
+    ByteArrayOutputStream in = new ByteArrayOutputStream();
+    writeRequest(in, 7, "-d", "out", "Foo.java");
+    writeRequest(in, 0, "Bar.java");
+    ByteArrayInputStream stream = new ByteArrayInputStream(in.toByteArray());
+
+    WorkRequest request = PersistentWorker.readRequest(stream);
+    assertEquals(7, request.requestId);
+    assertEquals(3, request.arguments.size());
+    assertEquals("-d", request.arguments.get(0));
+    assertEquals("Foo.java", request.arguments.get(2));
+    request = PersistentWorker.readRequest(stream);
+    assertEquals(0, request.requestId);
+    assertEquals(1, request.arguments.size());
+    assertNull(PersistentWorker.readRequest(stream));
+  }
+
+  public void testWriteResponse() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PersistentWorker.writeResponse(new WorkResponse(300, 2, "ok"), out);
+    byte[] expected = new byte[] {
+      9,                 // message length
+      0x08, 2,           // exit_code
+      0x12, 2, 'o', 'k', // output
+      0x18, (byte) 0xac, 0x02 // request_id, as a two byte varint
+    };
+    assertEquals(expected.length, out.size());
+    byte[] bytes = out.toByteArray();
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("byte " + i, expected[i], bytes[i]);
+    }
+  }
+
+  public void testRequestsAreIndependent() throws IOException {
+    String path = addSourceFile("class Test {}", "Test.java");
+    String tempPath = tempDir.getAbsolutePath();
+    WorkRequest request = new WorkRequest();
+    request.requestId = 1;
+    request.arguments.add("-d");
+    request.arguments.add(tempPath);
+    request.arguments.add("-sourcepath");
+    request.arguments.add(tempPath);
+    request.arguments.add("-q");
+    request.arguments.add(path);
+    WorkResponse response = PersistentWorker.processRequest(request);
+    assertEquals(response.output, 0, response.exitCode);
+    assertEquals(1, response.requestId);
+    assertTrue(new File(tempDir, "Test.m").exists());
+
+    request = new WorkRequest();
+    request.requestId = 2;
+    request.arguments.add("-d");
+    request.arguments.add(tempPath);
+    request.arguments.add(new File(tempDir, "Missing.java").getPath());
+    response = PersistentWorker.processRequest(request);
+    assertEquals(2, response.requestId);
+    assertTrue(response.exitCode > 0);
+    assertTrue(response.output.contains("Missing.java"));
+  }
+
+  public void testUsageErrorsDontExit() throws IOException {
+    WorkRequest request = new WorkRequest();
+    request.requestId = 1;
+    request.arguments.add("-source");
+    request.arguments.add("invalid");
+    WorkResponse response = PersistentWorker.processRequest(request);
+    assertEquals(1, response.requestId);
+    assertEquals(1, response.exitCode);
+    assertTrue(response.output, response.output.contains("invalid source release: invalid"));
+
+    request = new WorkRequest();
+    request.requestId = 2;
+    request.arguments.add("-version");
+    response = PersistentWorker.processRequest(request);
+    assertEquals(0, response.exitCode);
+    assertTrue(response.output, response.output.startsWith("j2objc "));
+  }
+
+  private static void writeRequest(ByteArrayOutputStream out, int requestId, String... args) {
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    for (String arg : args) {
+      byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+      message.write(0x0a);
+      message.write(bytes.length);
+      message.write(bytes, 0, bytes.length);
+    }
+    // An inputs entry (field 2), which the worker should skip.
+    message.write(0x12);
+    message.write(2);
+    message.write(0x0a);
+    message.write(0);
+    if (requestId != 0) {
+      message.write(0x18);
+      message.write(requestId);
+    }
+    out.write(message.size());
+    byte[] bytes = message.toByteArray();
+    out.write(bytes, 0, bytes.length);
+  }
+}
@@ -17,9 +17,11 @@
 package com.google.devtools.j2objc;
 
 import com.google.devtools.j2objc.ast.AnnotationTest;
+import com.google.devtools.j2objc.ast.ChildListTest;
 import com.google.devtools.j2objc.ast.InfixExpressionTest;
 import com.google.devtools.j2objc.ast.LambdaExpressionTest;
 import com.google.devtools.j2objc.ast.MethodReferenceTest;
+import com.google.devtools.j2objc.ast.TreeVisitorTest;
 import com.google.devtools.j2objc.gen.ArrayAccessTest;
 import com.google.devtools.j2objc.gen.ArrayCreationTest;
 import com.google.devtools.j2objc.gen.JavadocGeneratorTest;
@@ -36,7 +38,11 @@ import com.google.devtools.j2objc.gen.TypeDeclarationGeneratorTest;
 import com.google.devtools.j2objc.gen.TypeImplementationGeneratorTest;
 import com.google.devtools.j2objc.javac.ClassFileConverterTest;
 import com.google.devtools.j2objc.javac.JavacTreeConverterTest;
+import com.google.devtools.j2objc.pipeline.HeapBudgetTest;
 import com.google.devtools.j2objc.pipeline.J2ObjCIncompatibleStripperTest;
+import com.google.devtools.j2objc.pipeline.PassManagerTest;
+import com.google.devtools.j2objc.pipeline.SourceHeaderTest;
+import com.google.devtools.j2objc.pipeline.TranslationCacheTest;
 import com.google.devtools.j2objc.pipeline.TranslationProcessorTest;
 import com.google.devtools.j2objc.translate.AbstractMethodRewriterTest;
 import com.google.devtools.j2objc.translate.AnnotationRewriterTest;
@@ -84,9 +90,11 @@ import com.google.devtools.j2objc.util.ElementUtilTest;
 import com.google.devtools.j2objc.util.ErrorUtilTest;
 import com.google.devtools.j2objc.util.FileUtilTest;
 import com.google.devtools.j2objc.util.NameTableTest;
+import com.google.devtools.j2objc.util.OutputFileWriterTest;
 import com.google.devtools.j2objc.util.PackageInfoLookupTest;
 import com.google.devtools.j2objc.util.PackagePrefixesTest;
 import com.google.devtools.j2objc.util.ProGuardUsageParserTest;
+import com.google.devtools.j2objc.util.TimingReportTest;
 import com.google.devtools.j2objc.util.TranslationUtilTest;
 import com.google.devtools.j2objc.util.UnicodeUtilsTest;
 import junit.framework.Test;
@@ -107,6 +115,7 @@ public class SmallTests {
     ArrayRewriterTest.class,
     AutoboxerTest.class,
     CastResolverTest.class,
+    ChildListTest.class,
     ClassFileConverterTest.class,
     ClassFileTest.class,
     CodeReferenceMapTest.class,
@@ -124,6 +133,7 @@ public class SmallTests {
     FunctionizerTest.class,
     GwtConverterTest.class,
     HeaderImportCollectorTest.class,
+    HeapBudgetTest.class,
     ImplementationImportCollectorTest.class,
     InfixExpressionTest.class,
     InitializationNormalizerTest.class,
@@ -147,6 +157,7 @@ public class SmallTests {
     ObjectiveCImplementationGeneratorTest.class,
     ObjectiveCSegmentedHeaderGeneratorTest.class,
     ObjectiveCSourceFileGeneratorTest.class,
+    OutputFileWriterTest.class,
     OcniExtractorTest.class,
     OperatorRewriterTest.class,
     OptionsTest.class,
@@ -155,11 +166,14 @@ public class SmallTests {
     PackageInfoLookupTest.class,
     PackageInfoRewriterTest.class,
     PackagePrefixesTest.class,
+    PassManagerTest.class,
+    PersistentWorkerTest.class,
     PrimitiveArrayTest.class,
     PrivateDeclarationResolverTest.class,
     ProGuardUsageParserTest.class,
     RewriterTest.class,
     SignatureGeneratorTest.class,
+    SourceHeaderTest.class,
     StatementGeneratorTest.class,
     StaticVarRewriterTest.class,
     SuperMethodInvocationRewriterTest.class,
@@ -167,8 +181,11 @@ public class SmallTests {
     TypeDeclarationGeneratorTest.class,
     TypeImplementationGeneratorTest.class,
     TypeUseAnnotationTest.class,
+    TranslationCacheTest.class,
     TranslationProcessorTest.class,
+    TimingReportTest.class,
     TranslationUtilTest.class,
+    TreeVisitorTest.class,
     UnicodeUtilsTest.class,
     UnsequencedExpressionRewriterTest.class,
     VarargsRewriterTest.class,
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.ast;
+
+import com.google.devtools.j2objc.GenerationTest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link ChildList}.
+ */
+public class ChildListTest extends GenerationTest {
+
+  public void testRemoveAndReplaceWithStaleIndexes() {
+    Block block = new Block();
+    List<Statement> stmts = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      stmts.add(new EmptyStatement());
+      block.addStatement(stmts.get(i));
+    }
+    // Shift every statement after its recorded index.
+    Statement first = new EmptyStatement();
+    block.addStatement(0, first);
+    stmts.get(3).remove();
+    Statement replacement = new ReturnStatement();
+    stmts.get(7).replaceWith(replacement);
+
+    List<Statement> result = block.getStatements();
+    assertEquals(10, result.size());
+    assertSame(first, result.get(0));
+    assertSame(stmts.get(2), result.get(3));
+    assertSame(stmts.get(4), result.get(4));
+    assertSame(replacement, result.get(7));
+    assertNull(stmts.get(3).getParent());
+    assertNull(stmts.get(7).getParent());
+    assertSame(block, replacement.getParent());
+    assertSame(block, first.getParent());
+  }
+
+  public void testMutationDuringTraversal() {
+    Block block = new Block();
+    final Statement s0 = new EmptyStatement();
+    final Statement s1 = new EmptyStatement();
+    final Statement s2 = new EmptyStatement();
+    final Statement s3 = new EmptyStatement();
+    block.addStatement(s0).addStatement(s1).addStatement(s2).addStatement(s3);
+    final Statement inserted = new EmptyStatement();
+    final Statement replacement = new ReturnStatement();
+    final List<TreeNode> visited = new ArrayList<>();
+    block.accept(new TreeVisitor() {
+      @Override
+      public boolean preVisit(TreeNode node) {
+        visited.add(node);
+        if (node == s0) {
+          s1.remove();
+          ((Block) node.getParent()).addStatement(0, inserted);
+          s3.replaceWith(replacement);
+        }
+        return true;
+      }
+    });
+
+    // Removed and inserted statements aren't visited, and replacements are.
+    assertEquals(Arrays.asList(block, s0, s2, replacement), visited);
+    assertEquals(Arrays.asList(inserted, s0, s2, replacement), block.getStatements());
+  }
+
+  public void testReaddedChildVisitedAtOldPosition() {
+    final Block block = new Block();
+    final Statement s0 = new EmptyStatement();
+    final Statement s1 = new EmptyStatement();
+    final Statement s2 = new EmptyStatement();
+    block.addStatement(s0).addStatement(s1).addStatement(s2);
+    final List<TreeNode> visited = new ArrayList<>();
+    block.accept(new TreeVisitor() {
+      @Override
+      public boolean preVisit(TreeNode node) {
+        visited.add(node);
+        if (node == s0) {
+          s1.remove();
+          block.addStatement(s1);
+        }
+        return true;
+      }
+    });
+
+    // s1 is visited once, where it was when the traversal started.
+    assertEquals(Arrays.asList(block, s0, s1, s2), visited);
+    assertEquals(Arrays.asList(s0, s2, s1), block.getStatements());
+  }
+}
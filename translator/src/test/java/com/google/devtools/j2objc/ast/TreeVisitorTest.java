@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.ast;
+
+import com.google.devtools.j2objc.GenerationTest;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Tests for visitors that declare the kinds of nodes they handle.
+ */
+public class TreeVisitorTest extends GenerationTest {
+
+  public void testSkipsSubtreesWithoutHandledKinds() throws IOException {
+    String source = "import java.util.function.*; class Test { "
+        + "/** Doc {@link Test}. */ @SuppressWarnings(\"unchecked\") int f(int[] a) { "
+        + "  outer: for (int i : a) { if (i > 0) break outer; } "
+        + "  Runnable r = new Runnable() { public void run() { l: while (true) { break l; } } }; "
+        + "  IntSupplier s = () -> { m: do { continue m; } while (a.length > 1); return 0; }; "
+        + "  return a.length; } }";
+    CompilationUnit unit = compileType("Test", source);
+
+    final List<TreeNode> allLabels = new ArrayList<>();
+    final List<TreeNode> allNames = new ArrayList<>();
+    unit.accept(new TreeVisitor() {
+      @Override
+      public void endVisit(LabeledStatement node) {
+        allLabels.add(node);
+      }
+
+      @Override
+      public void endVisit(SimpleName node) {
+        allNames.add(node);
+      }
+    });
+    final List<TreeNode> labels = new ArrayList<>();
+    unit.accept(new TreeVisitor(EnumSet.of(TreeNode.Kind.LABELED_STATEMENT)) {
+      @Override
+      public void endVisit(LabeledStatement node) {
+        labels.add(node);
+      }
+    });
+    final List<TreeNode> names = new ArrayList<>();
+    unit.accept(new TreeVisitor(EnumSet.of(TreeNode.Kind.SIMPLE_NAME)) {
+      @Override
+      public void endVisit(SimpleName node) {
+        names.add(node);
+      }
+    });
+
+    // The labels in the anonymous class and the lambda are found.
+    assertEquals(3, allLabels.size());
+    assertEquals(allLabels, labels);
+    assertEquals(allNames, names);
+  }
+
+  public void testSubtreeKinds() {
+    EnumSet<TreeNode.Kind> statements = EnumSet.of(TreeNode.Kind.LABELED_STATEMENT);
+    boolean[] skipped = SubtreeKinds.getSkippedKinds(statements);
+    assertTrue(skipped[TreeNode.Kind.SIMPLE_NAME.ordinal()]);
+    assertTrue(skipped[TreeNode.Kind.STRING_LITERAL.ordinal()]);
+    assertTrue(skipped[TreeNode.Kind.PARAMETERIZED_TYPE.ordinal()]);
+    assertTrue(skipped[TreeNode.Kind.JAVADOC.ordinal()]);
+    // Annotation members are constants, which can't contain class bodies.
+    assertTrue(skipped[TreeNode.Kind.NORMAL_ANNOTATION.ordinal()]);
+    // Expressions can contain anonymous classes and lambdas.
+    assertFalse(skipped[TreeNode.Kind.METHOD_INVOCATION.ordinal()]);
+    assertFalse(skipped[TreeNode.Kind.INFIX_EXPRESSION.ordinal()]);
+    assertFalse(skipped[TreeNode.Kind.LABELED_STATEMENT.ordinal()]);
+
+    assertEquals(EnumSet.of(TreeNode.Kind.SIMPLE_NAME, TreeNode.Kind.QUALIFIED_NAME),
+        SubtreeKinds.getSubtreeKinds(TreeNode.Kind.QUALIFIED_NAME));
+    assertTrue(SubtreeKinds.getSubtreeKinds(TreeNode.Kind.SIMPLE_NAME).isEmpty());
+  }
+
+  public void testFusedVisitorHandlesUnionOfKinds() {
+    TreeVisitor labels = new TreeVisitor(EnumSet.of(TreeNode.Kind.LABELED_STATEMENT)) {};
+    TreeVisitor names = new TreeVisitor(EnumSet.of(TreeNode.Kind.SIMPLE_NAME)) {};
+    assertEquals(EnumSet.of(TreeNode.Kind.LABELED_STATEMENT, TreeNode.Kind.SIMPLE_NAME),
+        new FusedVisitor(Arrays.asList(labels, names)).getHandledKinds());
+    assertNull(new FusedVisitor(Arrays.asList(labels, new TreeVisitor()))
+        .getHandledKinds());
+  }
+
+  public void testFusedVisitorOverridesEveryVisit() {
+    for (Method method : TreeVisitor.class.getDeclaredMethods()) {
+      String name = method.getName();
+      if (!Modifier.isPublic(method.getModifiers())
+          || !(name.equals("visit") || name.equals("endVisit"))) {
+        continue;
+      }
+      try {
+        FusedVisitor.class.getDeclaredMethod(name, method.getParameterTypes());
+      } catch (NoSuchMethodException e) {
+        fail("FusedVisitor doesn't dispatch " + name + "("
+            + method.getParameterTypes()[0].getSimpleName() + ")");
+      }
+    }
+  }
+
+  public void testOverridingUndeclaredKind() {
+    try {
+      new TreeVisitor(EnumSet.of(TreeNode.Kind.BLOCK)) {
+        @Override
+        public void endVisit(IfStatement node) {}
+      };
+      fail("Expected an AssertionError");
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().contains("IF_STATEMENT"));
+    }
+  }
+}
@@ -213,8 +213,9 @@ public class StatementGeneratorTest extends GenerationTest {
         "Example", "Example.m");
     assertTranslation(translation,
         "JreStrongAssign(&self->b1_, JreLoadStatic(JavaLangBoolean, TRUE))");
+    // Boolean is initialized by the first statement.
     assertTranslation(translation,
-        "JreStrongAssign(&self->b2_, JreLoadStatic(JavaLangBoolean, FALSE))");
+        "JreStrongAssign(&self->b2_, JavaLangBoolean_FALSE)");
   }
 
   public void testStringConcatenation() throws IOException {
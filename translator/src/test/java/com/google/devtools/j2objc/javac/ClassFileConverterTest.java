@@ -15,7 +15,14 @@
 package com.google.devtools.j2objc.javac;
 
 import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.util.FileUtil;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Tests for {@link ClassFileConverter}.
@@ -1280,4 +1287,26 @@ public class ClassFileConverterTest extends GenerationTest {
     );
     assertEqualASTSrcClassfile(type, source);
   }
+
+  public void testClassFileBatch() throws IOException {
+    options.setTranslationThreads(4);
+    List<InputFile> inputs = new ArrayList<>();
+    // Each is compiled separately, so the types they use are compiled first.
+    inputs.add(createClassFile("foo.bar.B",
+        "package foo.bar; public class B { int b() { return 1; } }"));
+    inputs.add(createClassFile("foo.bar.A", "package foo.bar; public class A { B b; }"));
+    inputs.add(createClassFile("C", "public class C { foo.bar.A a; }"));
+    Map<String, CompilationUnit> units = new HashMap<>();
+    parser.parseInputFiles(
+        inputs, (path, unit) -> units.put(path, unit), options.getSourceVersion());
+    assertErrorCount(0);
+    assertEquals(3, units.size());
+    for (InputFile input : inputs) {
+      CompilationUnit unit = units.get(input.getOriginalLocation());
+      assertEquals(FileUtil.getMainTypeName(input), unit.getMainTypeName());
+      assertEquals(1, unit.getTypes().size());
+    }
+    assertEquals("foo.bar", units.get(inputs.get(0).getOriginalLocation())
+        .getPackage().getName().getFullyQualifiedName());
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link HeapBudget}.
+ */
+public class HeapBudgetTest extends TestCase {
+
+  private long heapUsage = 0;
+
+  public void testPartSizeFollowsSampledPeak() {
+    HeapBudget budget = new HeapBudget(100, () -> heapUsage);
+    budget.startBatch();
+    budget.setPartSize(8);
+
+    // The part's peak is its largest sample, even if the heap was collected
+    // before it ended.
+    assertEquals(8, budget.startPart(100));
+    heapUsage = 150;
+    budget.sample();
+    heapUsage = 20;
+    budget.endPart();
+    assertEquals(150, budget.getBatchPeak());
+
+    // Between half the budget and the budget, the size is kept.
+    assertEquals(4, budget.startPart(96));
+    heapUsage = 60;
+    budget.sample();
+    heapUsage = 40;
+    budget.endPart();
+
+    // Below half the budget, the size is doubled.
+    assertEquals(4, budget.startPart(92));
+    heapUsage = 30;
+    budget.endPart();
+    assertEquals(8, budget.startPart(88));
+
+    assertEquals(4, budget.getParts());
+    assertEquals(150, budget.getBatchPeak());
+  }
+
+  public void testPartSizeIsAtLeastOne() {
+    HeapBudget budget = new HeapBudget(100, () -> heapUsage);
+    budget.startBatch();
+    budget.setPartSize(1);
+    assertEquals(1, budget.startPart(10));
+    heapUsage = 1000;
+    budget.endPart();
+    assertEquals(1, budget.startPart(9));
+  }
+}
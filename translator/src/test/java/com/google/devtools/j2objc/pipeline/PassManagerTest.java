@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.ast.BooleanLiteral;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.ExpressionStatement;
+import com.google.devtools.j2objc.ast.PostfixExpression;
+import com.google.devtools.j2objc.ast.TreeNode;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.ast.TypeDeclaration;
+import com.google.devtools.j2objc.util.TimeTracker;
+import com.google.devtools.j2objc.util.TimingReport;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link PassManager}.
+ */
+public class PassManagerTest extends GenerationTest {
+
+  public void testFusablePassesShareTraversals() {
+    CompilationUnit unit = compileType("Test", "class Test { int foo() { return 1; } }");
+    List<String> events = new ArrayList<>();
+    TimeTracker recorder = new TimeTracker() {
+      @Override
+      public void tick(String event) {
+        events.add(event);
+      }
+    };
+    NodeCounter a = new NodeCounter();
+    NodeCounter b = new NodeCounter();
+    NodeCounter c = new NodeCounter();
+    NodeCounter e = new NodeCounter();
+    List<String> steps = new ArrayList<>();
+    PassManager passes = new PassManager(unit);
+    passes.addFusable("A", () -> a);
+    passes.addFusable("B", () -> b);
+    passes.addFusable("C", () -> c).after("A");
+    passes.add("D", () -> steps.add("D"));
+    passes.addFusable("E", () -> e);
+    passes.run(recorder);
+
+    assertEquals(Arrays.asList("A+B", "C", "D", "E"), events);
+    assertEquals(Arrays.asList("D"), steps);
+    assertEquals(5, passes.getPassCount());
+    assertEquals(4, passes.getTraversalCount());
+    assertTrue(a.count > 0);
+    assertEquals(a.count, b.count);
+    assertEquals(a.count, c.count);
+    assertEquals(a.count, e.count);
+  }
+
+  public void testTimingReportDisablesFusion() {
+    options.setTimingReport(new TimingReport(new File(tempDir, "timings.json")));
+    CompilationUnit unit = compileType("Test", "class Test {}");
+    List<String> events = new ArrayList<>();
+    TimeTracker recorder = new TimeTracker() {
+      @Override
+      public void tick(String event) {
+        events.add(event);
+      }
+    };
+    PassManager passes = new PassManager(unit);
+    passes.addFusable("A", () -> new NodeCounter());
+    passes.addFusable("B", () -> new NodeCounter());
+    passes.run(recorder);
+
+    // Each pass is timed on its own.
+    assertEquals(Arrays.asList("A", "B"), events);
+    assertEquals(2, passes.getTraversalCount());
+  }
+
+  public void testUnknownDependency() {
+    PassManager passes = new PassManager(compileType("Test", "class Test {}"));
+    passes.add("A", () -> {});
+    try {
+      passes.add("B", () -> {}).after("C");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  public void testLaterPassesVisitReplacements() {
+    CompilationUnit unit = compileType("Test",
+        "class Test { boolean foo(int i) { i++; i--; return true; } }");
+    List<String> visited = new ArrayList<>();
+    PassManager passes = new PassManager(unit);
+    passes.addFusable("Replacer", () -> new TreeVisitor() {
+      @Override
+      public boolean visit(ExpressionStatement node) {
+        PostfixExpression expr = (PostfixExpression) node.getExpression();
+        if (expr.getOperator() == PostfixExpression.Operator.INCREMENT) {
+          node.remove();
+          return false;
+        }
+        return true;
+      }
+
+      @Override
+      public boolean visit(BooleanLiteral node) {
+        node.replaceWith(new BooleanLiteral(false, unit.getEnv().typeUtil()));
+        return false;
+      }
+    });
+    passes.addFusable("Recorder", () -> new TreeVisitor() {
+      @Override
+      public boolean visit(PostfixExpression node) {
+        visited.add(node.getOperator().toString());
+        return true;
+      }
+
+      @Override
+      public boolean visit(BooleanLiteral node) {
+        visited.add(String.valueOf(node.booleanValue()));
+        return true;
+      }
+    });
+    passes.run(TimeTracker.noop());
+
+    // The removed statement isn't visited, and the replacement literal is.
+    assertEquals(Arrays.asList("--", "false"), visited);
+    assertEquals(1, passes.getTraversalCount());
+  }
+
+  public void testLaterPassesEndVisitChangedNode() {
+    CompilationUnit unit = compileType("Test", "class Test { int i; void foo() {} }");
+    List<Integer> sizes = new ArrayList<>();
+    PassManager passes = new PassManager(unit);
+    passes.addFusable("Clearer", () -> new TreeVisitor() {
+      @Override
+      public void endVisit(TypeDeclaration node) {
+        node.getBodyDeclarations().clear();
+      }
+    });
+    passes.addFusable("Recorder", () -> new TreeVisitor() {
+      @Override
+      public boolean visit(TypeDeclaration node) {
+        sizes.add(node.getBodyDeclarations().size());
+        return true;
+      }
+
+      @Override
+      public void endVisit(TypeDeclaration node) {
+        sizes.add(node.getBodyDeclarations().size());
+      }
+    });
+    passes.run(TimeTracker.noop());
+
+    // The later pass ends visiting the type after the earlier pass changed it.
+    assertEquals(2, sizes.size());
+    assertTrue(sizes.get(0) > 0);
+    assertEquals(0, (int) sizes.get(1));
+    assertEquals(1, passes.getTraversalCount());
+  }
+
+  public void testApplyMutationsFusesPasses() {
+    CompilationUnit unit = compileType("Test", "class Test {}");
+    PassManager passes = TranslationProcessor.createPasses(unit, null);
+    passes.run(TimeTracker.noop());
+    assertTrue(passes.getTraversalCount() < passes.getPassCount());
+  }
+
+  private static class NodeCounter extends TreeVisitor {
+    private int count = 0;
+
+    @Override
+    public boolean preVisit(TreeNode node) {
+      count++;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.util.HeaderMap;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link SourceHeader}, and for preprocessing with it.
+ */
+public class SourceHeaderTest extends GenerationTest {
+
+  private static final String OBJECTIVE_C_NAME = "com.google.j2objc.annotations.ObjectiveCName";
+
+  public void testPackageAndImports() {
+    SourceHeader header = SourceHeader.scan(
+        "/* Copyright */\n"
+        + "// package comment.out;\n"
+        + "package foo . bar;\n"
+        + "import java.util.List; import static java.util.Collections.*;;\n"
+        + "import foo.baz.Mumble;\n"
+        + "/** Doc. */ public class Test { String s = \"package wrong;\"; }");
+    assertEquals("foo.bar", header.getPackageName());
+    assertEquals(Arrays.asList("java.util.List", "java.util.Collections.*", "foo.baz.Mumble"),
+        header.getImports());
+  }
+
+  public void testDefaultPackage() {
+    SourceHeader header = SourceHeader.scan(
+        "import java.util.List; @ObjectiveCName(\"Type\") class Test {}");
+    assertNull(header.getPackageName());
+    assertFalse(header.hasPackageAnnotation(OBJECTIVE_C_NAME));
+    header = SourceHeader.scan("@interface Test {}");
+    assertNull(header.getPackageName());
+  }
+
+  public void testPackageAnnotations() {
+    SourceHeader header = SourceHeader.scan(
+        "@ObjectiveCName(\"FBM\") @Deprecated\n"
+        + "package foo.bar.mumble;\n"
+        + "import com.google.j2objc.annotations.ObjectiveCName;");
+    assertEquals("FBM", header.getPackageAnnotationValue(OBJECTIVE_C_NAME));
+
+    header = SourceHeader.scan(
+        "@com.google.j2objc.annotations.ObjectiveCName(value = \"A\\\"\\101\")\n"
+        + "package foo;");
+    assertEquals("A\"A", header.getPackageAnnotationValue(OBJECTIVE_C_NAME));
+
+    // Not imported.
+    header = SourceHeader.scan("@ObjectiveCName(\"FBM\") package foo;");
+    assertFalse(header.hasPackageAnnotation(OBJECTIVE_C_NAME));
+
+    // Not a string literal.
+    header = SourceHeader.scan("@ObjectiveCName(\"F\" + Bar.M) package foo;\n"
+        + "import com.google.j2objc.annotations.*;");
+    assertTrue(header.hasPackageAnnotation(OBJECTIVE_C_NAME));
+    assertNull(header.getPackageAnnotationValue(OBJECTIVE_C_NAME));
+  }
+
+  public void testUnreadableHeaders() {
+    assertNull(SourceHeader.scan("package foo /* unterminated"));
+    assertNull(SourceHeader.scan("package \\u0066oo;"));
+    // The escape is a "*/", so javac reads the package as foo.bar.
+    assertNull(SourceHeader.scan("/* \\u002a/ package foo.bar; /* */ package foo;"));
+    assertNull(SourceHeader.scan("@ObjectiveCName(\"unterminated) package foo;"));
+    assertNull(SourceHeader.scan("package foo"));
+  }
+
+  public void testParallelPreprocessing() throws IOException {
+    options.setTranslationThreads(4);
+    options.getHeaderMap().setOutputStyle(HeaderMap.OutputStyleOption.SOURCE);
+    addSourceFile("@ObjectiveCName(\"FBM\")\n"
+        + "package foo.bar.mumble;\n"
+        + "import com.google.j2objc.annotations.ObjectiveCName;",
+        "foo/bar/mumble/package-info.java");
+    addSourceFile("package foo.bar.mumble; public class Test {}", "foo/bar/mumble/Test.java");
+    // The tokenizer doesn't read Unicode escapes, so this source is parsed.
+    addSourceFile("/* \\u0070ackage */ package foo.baz; public class Other {}",
+        "foo/baz/Other.java");
+    preprocessFiles(
+        "foo/bar/mumble/package-info.java", "foo/bar/mumble/Test.java", "foo/baz/Other.java");
+    HeaderMap headerMap = options.getHeaderMap();
+    assertEquals("foo/bar/mumble/Test.h", headerMap.getMapped("foo.bar.mumble.Test"));
+    assertEquals("foo/baz/Other.h", headerMap.getMapped("foo.baz.Other"));
+
+    String translation = translateSourceFile("package foo.bar.mumble;\n"
+        + "public class Test {}",
+        "foo.bar.mumble.Test", "foo/bar/mumble/Test.h");
+    assertTranslation(translation, "@interface FBMTest");
+    assertErrorCount(0);
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.common.io.Files;
+import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link TranslationCache}.
+ */
+public class TranslationCacheTest extends GenerationTest {
+
+  @Override
+  protected void setUp() throws IOException {
+    super.setUp();
+    options.setTranslationCacheDir(new File(tempDir, "cache"));
+  }
+
+  public void testUnchangedSourcesAreReused() throws IOException {
+    addSourceFile("class Foo { int bar() { return 1; } }", "Foo.java");
+    addSourceFile("class Test { int test(Foo f) { return f.bar(); } }", "Test.java");
+    TranslationCache cache = translate("Foo.java", "Test.java");
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    File testM = new File(tempDir, "Test.m");
+    String translation = getTranslatedFile("Test.m");
+    assertTrue(testM.delete());
+    cache = translate("Foo.java", "Test.java");
+    assertEquals(2, cache.getHits());
+    assertEquals(0, cache.getMisses());
+    assertEquals(translation, getTranslatedFile("Test.m"));
+    assertErrorCount(0);
+  }
+
+  public void testChangedDependencyIsRetranslated() throws IOException {
+    addSourceFile("class Foo { int bar() { return 1; } }", "Foo.java");
+    addSourceFile("class Test { int test(Foo f) { return f.bar(); } }", "Test.java");
+    translate("Foo.java", "Test.java");
+
+    // Only Test is an input, but it depends on Foo.
+    addSourceFile("class Foo { int baz() { return 1; } int bar() { return 2; } }", "Foo.java");
+    TranslationCache cache = translate("Test.java");
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  public void testChangedConstantIsRetranslated() throws IOException {
+    addSourceFile("class Config { static final boolean DEBUG = false; }", "Config.java");
+    addSourceFile("class Test { int test() { if (Config.DEBUG) { return 1; } return 2; } }",
+        "Test.java");
+    translate("Test.java");
+    assertNotInTranslation(getTranslatedFile("Test.m"), "return 1;");
+
+    // The pruned branch leaves no reference to Config in the generated files.
+    addSourceFile("class Config { static final boolean DEBUG = true; }", "Config.java");
+    TranslationCache cache = translate("Test.java");
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertTranslation(getTranslatedFile("Test.m"), "return 1;");
+  }
+
+  public void testChangedFlagsMiss() throws IOException {
+    addSourceFile("class Test {}", "Test.java");
+    translate("Test.java");
+
+    String tempPath = tempDir.getAbsolutePath();
+    options = new Options();
+    options.load(new String[] {
+        "-d", tempPath, "-sourcepath", tempPath, "-classpath", tempPath, "--swift-friendly" });
+    ErrorUtil.setCurrentSink(options.errorSink());
+    options.setTranslationCacheDir(new File(tempDir, "cache"));
+    TranslationCache cache = translate("Test.java");
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  public void testChangedPrefixesFileMiss() throws IOException {
+    addSourceFile("package foo; public class Test {}", "foo/Test.java");
+    File prefixesFile = new File(tempDir, "prefixes.properties");
+    Files.write("foo: FOO\n", prefixesFile, StandardCharsets.UTF_8);
+    loadOptions("--prefixes", prefixesFile.getPath());
+    translate("foo/Test.java");
+
+    // The flags are the same, but the file they name changed.
+    Files.write("foo: FOOBAR\n", prefixesFile, StandardCharsets.UTF_8);
+    loadOptions("--prefixes", prefixesFile.getPath());
+    TranslationCache cache = translate("foo/Test.java");
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertTranslation(getTranslatedFile("foo/Test.h"), "@interface FOOBARTest");
+
+    // An edit that keeps the file's length and modification time.
+    long lastModified = prefixesFile.lastModified();
+    Files.write("foo: BARFOO\n", prefixesFile, StandardCharsets.UTF_8);
+    assertTrue(prefixesFile.setLastModified(lastModified));
+    loadOptions("--prefixes", prefixesFile.getPath());
+    cache = translate("foo/Test.java");
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertTranslation(getTranslatedFile("foo/Test.h"), "@interface BARFOOTest");
+  }
+
+  public void testEviction() throws IOException {
+    addSourceFile("class Test {}", "Test.java");
+    translate("Test.java");
+    options.setTranslationCacheSize(0);
+    translate("Test.java");
+    assertEquals(0, new File(tempDir, "cache").list().length);
+  }
+
+  private void loadOptions(String... flags) throws IOException {
+    String tempPath = tempDir.getAbsolutePath();
+    List<String> args = new ArrayList<>(Arrays.asList(
+        "-d", tempPath, "-sourcepath", tempPath, "-classpath", tempPath));
+    args.addAll(Arrays.asList(flags));
+    options = new Options();
+    options.load(args.toArray(new String[0]));
+    ErrorUtil.setCurrentSink(options.errorSink());
+    options.setTranslationCacheDir(new File(tempDir, "cache"));
+  }
+
+  private TranslationCache translate(String... fileNames) {
+    GenerationBatch batch = new GenerationBatch(options);
+    for (String fileName : fileNames) {
+      batch.addSource(new RegularInputFile(getTempDir() + "/" + fileName, fileName));
+    }
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+    processor.postProcess();
+    return processor.getTranslationCache();
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.devtools.j2objc.pipeline;
 
+import com.google.common.io.Files;
 import com.google.devtools.j2objc.GenerationTest;
 import com.google.devtools.j2objc.J2ObjC;
 import com.google.devtools.j2objc.file.JarredInputFile;
@@ -23,6 +24,9 @@ import com.google.devtools.j2objc.util.ErrorUtil;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -102,4 +106,203 @@ public class TranslationProcessorTest extends GenerationTest {
     assertTranslation(translation, "- (void)foo2;");
     assertNotInTranslation(translation, "foo1");
   }
+
+  public void testBuildClosureComparesFingerprints() throws IOException {
+    options.setBuildClosure(true);
+    addSourceFile("class Test { Foo f; }", "Test.java");
+    addSourceFile("class Foo { int foo(Bar b) { return b.bar(); } }", "Foo.java");
+    addSourceFile("class Bar { int bar() { return 1; } }", "Bar.java");
+    translateBuildClosure("Test.java");
+    assertTrue(new File(getTempDir(), "Foo.abi").exists());
+    assertTrue(new File(getTempDir(), "Bar.abi").exists());
+
+    // Bar's API is unchanged, so only Bar is translated.
+    File fooM = new File(getTempDir(), "Foo.m");
+    Files.write("unchanged", fooM, StandardCharsets.UTF_8);
+    addSourceFile("class Bar { int bar() { return 2; } }", "Bar.java");
+    translateBuildClosure("Test.java");
+    assertEquals("unchanged", getTranslatedFile("Foo.m"));
+    assertTranslation(getTranslatedFile("Bar.m"), "return 2;");
+
+    // Foo imports Bar, so is translated when Bar's API changes.
+    addSourceFile("class Bar { int bar() { return 2; } void baz() {} }", "Bar.java");
+    translateBuildClosure("Test.java");
+    assertTranslation(getTranslatedFile("Foo.m"), "@implementation Foo");
+    assertErrorCount(0);
+  }
+
+  public void testBuildClosureComparesInheritedMembers() throws IOException {
+    options.setBuildClosure(true);
+    addSourceFile("class Test { long test(Sub s) { return s.inherited(); } }", "Test.java");
+    addSourceFile("class Sub extends Super {}", "Sub.java");
+    addSourceFile("class Super { int inherited() { return 1; } }", "Super.java");
+    translateBuildClosure("Test.java");
+
+    // Test only imports Sub, but calls a method that Sub inherits.
+    File testM = new File(getTempDir(), "Test.m");
+    Files.write("unchanged", testM, StandardCharsets.UTF_8);
+    addSourceFile("class Super { long inherited() { return 1; } }", "Super.java");
+    translateBuildClosure("Test.java");
+    assertTranslation(getTranslatedFile("Test.m"), "@implementation Test");
+    assertErrorCount(0);
+  }
+
+  public void testBuildClosureComparesTypeParameterBounds() throws IOException {
+    options.setBuildClosure(true);
+    addSourceFile("class Test { int test(Foo<Integer> f) { return f.get().intValue(); } }",
+        "Test.java");
+    addSourceFile("class Foo<T> { T get() { return null; } }", "Foo.java");
+    translateBuildClosure("Test.java");
+
+    // The bound changes the erasure of get()'s return type.
+    File testM = new File(getTempDir(), "Test.m");
+    Files.write("unchanged", testM, StandardCharsets.UTF_8);
+    addSourceFile("class Foo<T extends Number> { T get() { return null; } }", "Foo.java");
+    translateBuildClosure("Test.java");
+    assertTranslation(getTranslatedFile("Test.m"), "@implementation Test");
+    assertErrorCount(0);
+  }
+
+  public void testParallelBuildClosure() throws IOException {
+    options.setBuildClosure(true);
+    options.setTranslationThreads(4);
+    StringBuilder test = new StringBuilder("class Test {");
+    for (int i = 0; i < 8; i++) {
+      test.append(" Foo" + i + " f" + i + ";");
+      addSourceFile("class Foo" + i + " { Bar" + i + " b; Baz z; }", "Foo" + i + ".java");
+      addSourceFile("class Bar" + i + " { Baz z; }", "Bar" + i + ".java");
+    }
+    addSourceFile(test.append(" }").toString(), "Test.java");
+    addSourceFile("class Baz {}", "Baz.java");
+    translateBuildClosure("Test.java");
+
+    for (int i = 0; i < 8; i++) {
+      assertTranslation(getTranslatedFile("Foo" + i + ".h"), "@interface Foo" + i);
+      assertTranslation(getTranslatedFile("Bar" + i + ".h"), "@interface Bar" + i);
+    }
+    assertTranslation(getTranslatedFile("Baz.h"), "@interface Baz");
+    assertErrorCount(0);
+
+    // Only the changed dependency is translated again.
+    File fooM = new File(getTempDir(), "Foo3.m");
+    Files.write("unchanged", fooM, StandardCharsets.UTF_8);
+    addSourceFile("class Bar5 { Baz z; int i; }", "Bar5.java");
+    translateBuildClosure("Test.java");
+    assertEquals("unchanged", getTranslatedFile("Foo3.m"));
+    assertTranslation(getTranslatedFile("Bar5.h"), "jint i_;");
+    assertErrorCount(0);
+  }
+
+  public void testBatchHeapLimitSplitsBatch() throws IOException {
+    // One byte is always exceeded, so each part has a single source.
+    options.setBatchHeapLimit(1);
+    addSourceFile("class Test { Foo f; Bar b; }", "Test.java");
+    addSourceFile("class Foo { int foo(Bar b) { return b.bar(); } }", "Foo.java");
+    addSourceFile("class Bar { int bar() { return 1; } }", "Bar.java");
+
+    GenerationBatch batch = new GenerationBatch(options);
+    for (String fileName : new String[] { "Test.java", "Foo.java", "Bar.java" }) {
+      batch.addSource(new RegularInputFile(getTempDir() + "/" + fileName, fileName));
+    }
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.getHeapBudget().setPartSize(1);
+    processor.processInputs(batch.getInputs());
+
+    assertEquals(3, processor.getHeapBudget().getParts());
+    assertTrue(processor.getHeapBudget().getBatchPeak() > 0);
+    assertTranslation(getTranslatedFile("Test.h"), "@interface Test");
+    assertTranslation(getTranslatedFile("Foo.m"), "return [((Bar *) nil_chk(b)) bar];");
+    assertTranslation(getTranslatedFile("Bar.h"), "@interface Bar");
+    assertErrorCount(0);
+  }
+
+  public void testParallelBatchTranslation() throws IOException {
+    options.setTranslationThreads(2);
+    addSourceFile("class Test { Foo f; Bar b; }", "Test.java");
+    addSourceFile("class Foo { int foo(Bar b) { return b.bar(); } }", "Foo.java");
+    addSourceFile("class Bar { int bar() { return 1; } }", "Bar.java");
+    addSourceFile("class Baz extends Foo { int baz(Test t) { return foo(t.b); } }", "Baz.java");
+
+    GenerationBatch batch = new GenerationBatch(options);
+    for (String fileName : new String[] { "Test.java", "Foo.java", "Bar.java", "Baz.java" }) {
+      batch.addSource(new RegularInputFile(getTempDir() + "/" + fileName, fileName));
+    }
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+
+    assertTranslation(getTranslatedFile("Test.h"), "@interface Test");
+    assertTranslation(getTranslatedFile("Foo.m"), "return [((Bar *) nil_chk(b)) bar];");
+    assertTranslation(getTranslatedFile("Bar.h"), "@interface Bar");
+    assertTranslation(getTranslatedFile("Baz.m"), "((Test *) nil_chk(t))->b_");
+    assertErrorCount(0);
+  }
+
+  public void testParallelBatchReportsErrorsOnce() throws IOException {
+    options.setTranslationThreads(2);
+    addSourceFile("class Test { Foo f; }", "Test.java");
+    addSourceFile("class Foo { int foo() { return \"\"; } }", "Foo.java");
+    addSourceFile("class Bar { Foo f; }", "Bar.java");
+
+    GenerationBatch batch = new GenerationBatch(options);
+    for (String fileName : new String[] { "Test.java", "Foo.java", "Bar.java" }) {
+      batch.addSource(new RegularInputFile(getTempDir() + "/" + fileName, fileName));
+    }
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+
+    // The batch is attributed by one javac task, so Foo's error isn't
+    // reported again by a task that loads Foo from the sourcepath.
+    assertErrorCount(1);
+  }
+
+  public void testOutputClassHierarchy() throws IOException {
+    File hierarchyFile = getTempFile("hierarchy.txt");
+    options.setClassHierarchyOutputFile(hierarchyFile);
+    addSourceFile("class A { int foo() { return 1; } Object bar() { return null; } }", "A.java");
+    addSourceFile("class B extends A { String bar() { return new A() { int foo() { return 2; } }"
+        + ".toString(); } }", "B.java");
+
+    GenerationBatch batch = new GenerationBatch(options);
+    batch.addSource(new RegularInputFile(getTempDir() + "/A.java", "A.java"));
+    batch.addSource(new RegularInputFile(getTempDir() + "/B.java", "B.java"));
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+    processor.postProcess();
+
+    List<String> lines = Files.readLines(hierarchyFile, StandardCharsets.UTF_8);
+    assertTrue(lines.contains("class A"));
+    assertTrue(lines.contains("class B"));
+    assertTrue(lines.contains("class B$1"));
+    assertTrue(lines.contains("overridden A foo ()I"));
+    assertTrue(lines.contains("overridden A bar ()Ljava/lang/Object;"));
+    assertErrorCount(0);
+  }
+
+  public void testOutputNonnullSummaries() throws IOException {
+    File summaryFile = getTempFile("nonnull.txt");
+    options.setNonnullSummaryOutputFile(summaryFile);
+    addSourceFile("class A { final Object o = new Object(); final Object p;"
+        + " A(Object p) { this.p = p; } static String name() { return \"a\"; }"
+        + " int length() { return name().length(); } }", "A.java");
+
+    GenerationBatch batch = new GenerationBatch(options);
+    batch.addSource(new RegularInputFile(getTempDir() + "/A.java", "A.java"));
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+    processor.postProcess();
+
+    List<String> lines = Files.readLines(summaryFile, StandardCharsets.UTF_8);
+    // p might be null, so only o is summarized.
+    assertEquals(Arrays.asList("method A name ()Ljava/lang/String;", "field A o"), lines);
+    assertEquals(1, options.nonnullSummary().getRemovedNilCheckCount());
+    assertErrorCount(0);
+  }
+
+  private void translateBuildClosure(String fileName) {
+    GenerationBatch batch = new GenerationBatch(options);
+    batch.addSource(new RegularInputFile(getTempDir() + "/" + fileName, fileName));
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+    processor.processBuildClosureDependencies();
+  }
 }
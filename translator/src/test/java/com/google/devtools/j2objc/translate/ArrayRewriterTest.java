@@ -54,4 +54,33 @@ public class ArrayRewriterTest extends GenerationTest {
     assertEquals("++((*IOSIntArray_GetRef(x, 0)));", generateStatement(stmts.get(5)));
     assertEquals("((*IOSIntArray_GetRef(x, 0)))++;", generateStatement(stmts.get(6)));
   }
+
+  public void testCountedLoopAccessesBuffer() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int sum(int[] a) { int s = 0; for (int i = 0; i < a.length; i++) {"
+        + " s += a[i]; } return s; }"
+        + " void fill(byte[] b, byte v) { for (int i = 0, n = b.length; i < n; i++) { b[i] = v; } }"
+        + " void increment(char[] c) { for (int i = c.length - 1; i >= 0; --i) { c[i]++; } } }",
+        "Test", "Test.m");
+    assertTranslation(translation, "s += *(a->buffer_ + i);");
+    assertTranslation(translation, "*(b->buffer_ + i) = v;");
+    assertTranslation(translation, "(*(c->buffer_ + i))++;");
+    assertNotInTranslation(translation, "IOSIntArray_Get");
+  }
+
+  public void testUnprovenLoopAccessIsChecked() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int[] f; int test(int[] a, int[] b, int k) { int s = 0;"
+        + " for (int i = 0; i < a.length; i++) { s += b[i]; }"
+        + " for (int i = 0; i <= a.length; i++) { s += a[i]; }"
+        + " for (int i = k; i < a.length; i++) { s += a[i]; }"
+        + " for (int i = 0; i < a.length; i++) { s += a[i]; i += k; }"
+        + " for (int i = 0; i < f.length; i++) { s += f[i]; }"
+        + " for (int i = 0; i < a.length; i++) { s += a[i]; a = b; }"
+        + " for (int i = a.length; i >= 0; i--) { s += a[i]; }"
+        + " return s; } }",
+        "Test", "Test.m");
+    assertTranslation(translation, "s += IOSIntArray_Get(a, i);");
+    assertNotInTranslation(translation, "buffer_");
+  }
 }
@@ -16,7 +16,9 @@ package com.google.devtools.j2objc.translate;
 
 import com.google.devtools.j2objc.GenerationTest;
 import com.google.devtools.j2objc.Options.MemoryManagementOption;
+import com.google.devtools.j2objc.util.ClassHierarchy;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -601,4 +603,31 @@ public class FunctionizerTest extends GenerationTest {
          "  Test_super$_description(self, @selector(description));",
          "}");
   }
+
+  public void testClassHierarchyDevirtualizesCalls() throws IOException {
+    String aSource = "class A { int foo() { return 1; } int bar() { return 2; } }";
+    String bSource = "class B extends A { int bar() { return 3; } }";
+    addSourceFile(aSource, "A.java");
+    addSourceFile(bSource, "B.java");
+    ClassHierarchy hierarchy = new ClassHierarchy();
+    hierarchy.addUnit(compileType("A", aSource));
+    hierarchy.addUnit(compileType("B", bSource));
+    File file = getTempFile("hierarchy.txt");
+    hierarchy.write(file);
+    options.setClassHierarchy(ClassHierarchy.read(file));
+
+    // A.bar is overridden by B, so only it is still called with a message.
+    String translation = translateSourceFile(
+        "class Test { int test(A a, B b) { return a.foo() + a.bar() + b.bar(); } }",
+        "Test", "Test.m");
+    assertTranslation(translation, "return A_foo(nil_chk(a)) + [a bar] + B_bar(nil_chk(b));");
+    assertEquals(2, options.classHierarchy().getDevirtualizedCallCount());
+    assertEquals(2, options.classHierarchy().getDevirtualizedMethodCount());
+
+    // The declaring unit exports the function, and keeps the method.
+    translation = translateSourceFile("A", "A.h");
+    assertTranslation(translation, "FOUNDATION_EXPORT jint A_foo(A *self);");
+    assertTranslation(translation, "- (jint)foo;");
+    assertNotInTranslation(translation, "A_bar");
+  }
 }
@@ -15,7 +15,9 @@
 package com.google.devtools.j2objc.translate;
 
 import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.util.NonnullSummary;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -355,4 +357,70 @@ public class NilCheckResolverTest extends GenerationTest {
     assertTranslation(translation, "@throw nil_chk(e);");
     assertTranslation(translation, "@throw create_JavaLangRuntimeException_init();");
   }
+
+  public void testNonnullMethodSummaries() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static class Foo { void foo() {} }"
+        + " private static Foo makeFoo() { Foo f = new Foo(); f.foo(); return f; }"
+        + " private Foo find(int i) { return i > 0 ? find(i - 1) : makeFoo(); }"
+        + " Foo getFoo() { return new Foo(); }"
+        + " void test() { makeFoo().foo(); find(3).foo(); getFoo().foo(); } }",
+        "Test", "Test.m");
+    // getFoo() might be overridden by a method that returns null.
+    assertTranslatedLines(translation,
+        "[Test_makeFoo() foo];",
+        "[Test_findWithInt_(self, 3) foo];",
+        "[((Test_Foo *) nil_chk([self getFoo])) foo];");
+  }
+
+  public void testNonnullFieldSummaries() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { final Object o; final Object p;"
+        + " Test(boolean b) { o = new Object(); p = b ? \"p\" : null; }"
+        + " void test() { o.toString(); p.toString(); } }",
+        "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "[o_ description];",
+        "[nil_chk(p_) description];");
+  }
+
+  public void testFieldsReadDuringConstructionAreNotSummarized() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static class Base { Base() { init(); } void init() {} }"
+        + " static class A extends Base { final Object a = new Object();"
+        + "   void init() { a.toString(); } }"
+        + " static class B { final Object b;"
+        + "   B(java.util.List<B> list) { list.add(this); b = new Object(); }"
+        + "   void test() { b.toString(); } }"
+        + " static class C { final Object c;"
+        + "   C() { new Runnable() { public void run() {} }.run(); c = new Object(); }"
+        + "   void test() { c.toString(); } }"
+        + " final Object o; Test() { test(); o = new Object(); }"
+        + " void test() { o.toString(); } }",
+        "Test", "Test.m");
+    // Base's constructor calls A's init() before a is assigned.
+    assertTranslation(translation, "[nil_chk(a_) description];");
+    // B's constructor lets this escape, and C's creates an inner class.
+    assertTranslation(translation, "[nil_chk(b_) description];");
+    assertTranslation(translation, "[nil_chk(c_) description];");
+    // The constructor calls test() before o is assigned.
+    assertTranslation(translation, "[nil_chk(o_) description];");
+  }
+
+  public void testNonnullSummaryOfOtherUnit() throws IOException {
+    addSourceFile("class Foo { final Object o = new Object();"
+        + " static Object get() { return \"foo\"; } }", "Foo.java");
+    File file = getTempFile("nonnull.txt");
+    options.setNonnullSummaryOutputFile(file);
+    translateSourceFile("Foo", "Foo.m");
+    options.nonnullSummary().write(file);
+    options.setNonnullSummary(NonnullSummary.read(file));
+
+    String translation = translateSourceFile(
+        "class Test { void test(Foo f) { Foo.get().toString(); f.o.toString(); } }",
+        "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "[Foo_get() description];",
+        "[((Foo *) nil_chk(f))->o_ description];");
+  }
 }
@@ -32,7 +32,7 @@ public class StaticVarRewriterTest extends GenerationTest {
         "Test", "Test.m");
     assertTranslatedLines(translation,
         "[nil_chk(((Test *) nil_chk(JreLoadStatic(Test, test)))->obj_) description];",
-        "[nil_chk(((Test *) nil_chk(JreLoadStatic(Test, test)))->obj_) description];");
+        "[nil_chk(((Test *) nil_chk(Test_test))->obj_) description];");
   }
 
   public void testAssinmentToNewObject() throws IOException {
@@ -63,9 +63,9 @@ public class StaticVarRewriterTest extends GenerationTest {
         + " int c = getTest().i++; int d = getTest().i = 6; } } }", "Test", "Test.m");
     assertTranslatedLines(translation,
         "jint a = JreLoadStatic(Test, i);",
-        "jint b = (Test_Inner_getTest(), JreLoadStatic(Test, i));",
-        "jint c = (*(Test_Inner_getTest(), JreLoadStaticRef(Test, i)))++;",
-        "jint d = *(Test_Inner_getTest(), JreLoadStaticRef(Test, i)) = 6;");
+        "jint b = (Test_Inner_getTest(), Test_i);",
+        "jint c = (*(Test_Inner_getTest(), &Test_i))++;",
+        "jint d = *(Test_Inner_getTest(), &Test_i) = 6;");
   }
 
   public void testStaticLoadWithArrayAccess() throws IOException {
@@ -75,8 +75,8 @@ public class StaticVarRewriterTest extends GenerationTest {
         "Test", "Test.m");
     assertTranslatedLines(translation,
         "*IOSIntArray_GetRef(nil_chk(JreLoadStatic(Test_Inner, ints)), 0) = 1;",
-        "*IOSIntArray_GetRef(JreLoadStatic(Test_Inner, ints), 0) += 2;",
-        "return IOSIntArray_Get(JreLoadStatic(Test_Inner, ints), 0);");
+        "*IOSIntArray_GetRef(Test_Inner_ints, 0) += 2;",
+        "return IOSIntArray_Get(Test_Inner_ints, 0);");
   }
 
   // Verify that Class.CONSTANT_FIELD.CONSTANT translates correctly.
@@ -88,4 +88,52 @@ public class StaticVarRewriterTest extends GenerationTest {
         + "int test() { return BarHolder.BAR.N; }}", "Foo", "Foo.m");
     assertTranslatedLines(translation, "- (jint)test {", "return Bar_N;");
   }
+
+  public void testLoadAfterCompletedStatement() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static class A { static int x; static int y; } "
+        + " int test() { int i = A.x + A.y; i += A.x; return i + A.y; } }",
+        "Test", "Test.m");
+    // The operands of + aren't sequenced, so both loads in the first statement are checked.
+    assertTranslatedLines(translation,
+        "jint i = JreLoadStatic(Test_A, x) + JreLoadStatic(Test_A, y);",
+        "i += Test_A_x;",
+        "return i + Test_A_y;");
+  }
+
+  public void testConditionalLoads() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static class A { static int x; } "
+        + " int test(boolean b, int n) { int i = b ? A.x : 0; if (b) { i += A.x; } "
+        + " while (n-- > 0) { i += A.x; i += A.x; } "
+        + " if (b) { i += A.x; } else { i -= A.x; } return i + A.x; } }",
+        "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "jint i = b ? JreLoadStatic(Test_A, x) : 0;",
+        "if (b) {",
+        "  i += JreLoadStatic(Test_A, x);",
+        "}",
+        "while (n-- > 0) {",
+        "  i += JreLoadStatic(Test_A, x);",
+        "  i += Test_A_x;",
+        "}",
+        "if (b) {",
+        "  i += JreLoadStatic(Test_A, x);",
+        "}",
+        "else {",
+        "  i -= JreLoadStatic(Test_A, x);",
+        "}",
+        "return i + Test_A_x;");
+  }
+
+  public void testLoadFromSuperclass() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static class Base { static Object o; } "
+        + " static class Sub extends Base { Object first() { return o; } } "
+        + " static class Other { Object second() { return Base.o; } } }",
+        "Test", "Test.m");
+    // A superclass is initialized before its subclass's code runs.
+    assertTranslatedLines(translation, "- (id)first {", "return Test_Base_o;");
+    assertTranslatedLines(translation, "- (id)second {", "return JreLoadStatic(Test_Base, o);");
+  }
 }
@@ -150,6 +150,133 @@ public class SwitchRewriterTest extends GenerationTest {
         "}");
   }
 
+  // Switches with many string cases are dispatched on the strings' hash codes.
+  public void testHashedStringSwitchStatement() throws IOException {
+    String translation = translateSourceFile(
+        "public class Test { "
+        + "static final String ACK = \"ack\";"
+        + "int test(String s) { "
+        + "  int n = 0;"
+        + "  switch(s) {"
+        + "    case \"connect\": n++;"
+        + "    case \"disconnect\": return n;"
+        + "    case \"ping\":"
+        + "    case \"pong\": return 2;"
+        + "    case \"subscribe\": return 3;"
+        + "    default: return -1;"
+        + "    case \"unsubscribe\": return 4;"
+        + "    case \"publish\": return 5;"
+        + "    case ACK: return 6;"
+        + "  }}}",
+        "Test", "Test.m");
+    // The cases are numbered in the order of their hash codes, and keep their
+    // statements and fall-through. The tables are static, so they're only
+    // initialized once.
+    assertTranslatedLines(translation,
+        "static __unsafe_unretained NSString * const caseStrings__1[] = { @\"publish\", "
+            + "@\"ack\", @\"ping\", @\"pong\", @\"subscribe\", @\"disconnect\", "
+            + "@\"unsubscribe\", @\"connect\" };",
+        "static const jint caseHashes__1[] = { -235365105, 96393, 3441010, 3446776, "
+            + "514841930, 530405532, 583281361, 951351530 };",
+        "switch (JreIndexOfStrHashed(s, caseStrings__1, caseHashes__1, 8)) {",
+        "  case 7:",
+        "  n++;",
+        "  case 5:",
+        "  return n;",
+        "  case 2:",
+        "  case 3:",
+        "  return 2;",
+        "  case 4:",
+        "  return 3;",
+        "  default:",
+        "  return -1;",
+        "  case 6:",
+        "  return 4;",
+        "  case 0:",
+        "  return 5;",
+        "  case 1:",
+        "  return 6;",
+        "}");
+  }
+
+  public void testHashedStringSwitchWithCollisions() throws IOException {
+    // "Aa" and "BB" have the same hash code, so do all their concatenations.
+    String translation = translateSourceFile(
+        "public class Test { "
+        + "int test(String s) { "
+        + "  switch(s) {"
+        + "    case \"AaAa\": return 1;"
+        + "    case \"BBBB\": return 2;"
+        + "    case \"Aa\": return 3;"
+        + "    case \"x\": return 4;"
+        + "    case \"BB\": return 5;"
+        + "    case \"AaBB\":"
+        + "    case \"BBAa\": return 6;"
+        + "    case \"y\": return 7;"
+        + "    default: return 0;"
+        + "  }}}",
+        "Test", "Test.m");
+    // Strings with the same hash code are next to each other, in source order.
+    assertTranslatedLines(translation,
+        "static __unsafe_unretained NSString * const caseStrings__1[] = { @\"x\", @\"y\", "
+            + "@\"Aa\", @\"BB\", @\"AaAa\", @\"BBBB\", @\"AaBB\", @\"BBAa\" };",
+        "static const jint caseHashes__1[] = { 120, 121, 2112, 2112, 2031744, 2031744, "
+            + "2031744, 2031744 };",
+        "switch (JreIndexOfStrHashed(s, caseStrings__1, caseHashes__1, 8)) {",
+        "  case 4:",
+        "  return 1;",
+        "  case 5:",
+        "  return 2;",
+        "  case 2:",
+        "  return 3;",
+        "  case 0:",
+        "  return 4;",
+        "  case 3:",
+        "  return 5;",
+        "  case 6:",
+        "  case 7:",
+        "  return 6;",
+        "  case 1:",
+        "  return 7;",
+        "  default:",
+        "  return 0;",
+        "}");
+  }
+
+  public void testHashedStringSwitchTables() throws IOException {
+    String translation = translateSourceFile(
+        "public class Test { "
+        + "int test(String s, boolean b) { "
+        + "  if (b) switch(s) {"
+        + "    case \"a\": case \"b\": case \"c\": case \"d\":"
+        + "    case \"e\": case \"f\": case \"g\": case \"h\": return 1;"
+        + "  }"
+        + "  switch(s) {"
+        + "    case \"i\": case \"j\": case \"k\": case \"l\":"
+        + "    case \"m\": case \"n\": case \"o\": case \"p\": return 2;"
+        + "  }"
+        + "  switch(s) {"
+        + "    case \"q\": case \"r\": case \"s\": case \"t\":"
+        + "    case \"u\": case \"v\": case \"w\": case \"\\uD800\": return 3;"
+        + "  }"
+        + "  return 0; }}",
+        "Test", "Test.m");
+    // A switch that isn't in a block gets one for its tables, and each switch
+    // has its own tables.
+    assertTranslatedLines(translation,
+        "if (b) {",
+        "  static __unsafe_unretained NSString * const caseStrings__1[] = { @\"a\", @\"b\", "
+            + "@\"c\", @\"d\", @\"e\", @\"f\", @\"g\", @\"h\" };",
+        "  static const jint caseHashes__1[] = { 97, 98, 99, 100, 101, 102, 103, 104 };",
+        "  switch (JreIndexOfStrHashed(s, caseStrings__1, caseHashes__1, 8)) {");
+    assertTranslation(translation,
+        "switch (JreIndexOfStrHashed(s, caseStrings__2, caseHashes__2, 8)) {");
+    // A string with a lone surrogate isn't a constant literal, so the third
+    // switch falls back to JreIndexOfStr.
+    assertNotInTranslation(translation, "caseStrings__3");
+    assertTranslation(translation, "switch (JreIndexOfStr(s, ");
+  }
+
   /**
    * Verify that when a the last switch case is empty (no statement),
    * an empty statement is added.  Java doesn't require an empty statement
@@ -1,6 +1,10 @@
 package com.google.devtools.j2objc.util;
 
 import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.Options;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
 
 /**
  * Test case for {@link ErrorUtil}.
@@ -24,4 +28,54 @@ public class ErrorUtilTest extends GenerationTest {
         "A.java:1: error: Some error in B.java:2: message",
         ErrorUtil.getFullMessage("error: ", "A.java:1: Some error in B.java:2: message", true));
   }
+
+  public void testCurrentSinkIsolatesErrors() {
+    int defaultErrors = ErrorUtil.errorCount();
+    ErrorSink sink = new ErrorSink();
+    sink.setErrorStream(new PrintStream(new ByteArrayOutputStream()));
+    ErrorSink previous = ErrorUtil.setCurrentSink(sink);
+    try {
+      ErrorUtil.error("isolated error");
+      ErrorUtil.warning("isolated warning");
+    } finally {
+      ErrorUtil.setCurrentSink(previous);
+    }
+    assertEquals(1, sink.errorCount());
+    assertEquals(1, sink.warningCount());
+    assertEquals(Arrays.asList("isolated error"), sink.getErrorMessages());
+    assertEquals(defaultErrors, ErrorUtil.errorCount());
+  }
+
+  public void testOptionsHaveTheirOwnSinks() {
+    Options other = new Options();
+    assertNotSame(options.errorSink(), other.errorSink());
+    ErrorUtil.error("reported to the current options");
+    assertEquals(1, options.errorSink().errorCount());
+    assertEquals(0, other.errorSink().errorCount());
+  }
+
+  public void testBuffersMergeInOrder() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ErrorSink sink = new ErrorSink();
+    sink.setErrorStream(new PrintStream(output, true));
+    ErrorSink.Buffer first = sink.startBuffer();
+    sink.error("first");
+    sink.endBuffer();
+    ErrorSink.Buffer second = sink.startBuffer();
+    sink.error("second");
+    sink.endBuffer();
+
+    // Counts and messages are only updated when merged.
+    assertEquals(0, sink.errorCount());
+    assertTrue(sink.getErrorMessages().isEmpty());
+
+    first.merge();
+    assertEquals(1, sink.errorCount());
+    assertEquals(sink.errorCount(), sink.getErrorMessages().size());
+    second.merge();
+    assertEquals(2, sink.errorCount());
+    assertEquals(Arrays.asList("first", "second"), sink.getErrorMessages());
+    String printed = output.toString();
+    assertTrue(printed.indexOf("first") < printed.indexOf("second"));
+  }
 }
@@ -15,7 +15,9 @@
 package com.google.devtools.j2objc.util;
 
 import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.file.InputFile;
 import com.google.devtools.j2objc.file.JarredInputFile;
+import com.google.devtools.j2objc.file.RegularInputFile;
 import java.io.File;
 import java.io.IOException;
 import java.util.zip.ZipFile;
@@ -46,6 +48,24 @@ public class FileUtilTest extends GenerationTest {
     assertTrue(jarEntry.exists());
   }
   
+  // Verify that sources and classes are found in jars and directories on the paths.
+  public void testFindOnPaths() throws IOException {
+    File file = new File(getResourceAsFile("example.jar"));
+    FileUtil fileUtil = options.fileUtil();
+    fileUtil.appendSourcePath(file.getPath());
+    InputFile source = fileUtil.findOnSourcePath("com.google.test.Example");
+    assertTrue(source instanceof JarredInputFile);
+    assertEquals("com/google/test/Example.java", source.getUnitName());
+    assertTrue(fileUtil.readFile(source).contains("Example"));
+    assertNotNull(fileUtil.findOnSourcePath("com.google.test.package-info"));
+    assertNull(fileUtil.findOnSourcePath("com.google.test.Missing"));
+    assertNull(fileUtil.findOnClassPath("com.google.test.Example"));
+
+    // The temp directory precedes the jar on the sourcepath.
+    addSourceFile("package com.google.test; class Example {}", "com/google/test/Example.java");
+    assertTrue(fileUtil.findOnSourcePath("com.google.test.Example") instanceof RegularInputFile);
+  }
+
   // Verify that a classes.jar file is extracted from an Android AAR file.
   public void testExtractClassesJarFromAarFile() throws IOException {
     File aarFile = new File(getResourceAsFile("hello.aar"));
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.common.io.Files;
+import com.google.devtools.j2objc.GenerationTest;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link OutputFileWriter}.
+ */
+public class OutputFileWriterTest extends GenerationTest {
+
+  public void testWriteCreatesDirectories() throws IOException {
+    File file = new File(tempDir, "foo/bar/Test.m");
+    assertTrue(OutputFileWriter.write("@implementation Test\n", file, StandardCharsets.UTF_8));
+    assertEquals("@implementation Test\n", getTranslatedFile("foo/bar/Test.m"));
+    // Only the output file is left in the directory.
+    assertEquals(1, file.getParentFile().list().length);
+  }
+
+  public void testUnchangedFileIsNotRewritten() throws IOException {
+    String text = largeText();
+    File file = new File(tempDir, "Test.m");
+    assertTrue(OutputFileWriter.write(text, file, StandardCharsets.UTF_8));
+    assertTrue(file.setLastModified(1000000000L));
+    assertFalse(OutputFileWriter.write(new StringBuilder(text), file, StandardCharsets.UTF_8));
+    assertEquals(1000000000L, file.lastModified());
+    assertEquals(text, getTranslatedFile("Test.m"));
+  }
+
+  public void testChangedFileIsReplaced() throws IOException {
+    String text = largeText();
+    File file = new File(tempDir, "Test.m");
+    OutputFileWriter.write(text, file, StandardCharsets.UTF_8);
+
+    // The same prefix, followed by a difference in a later chunk.
+    String changed = text.substring(0, text.length() - 10) + "changed\n";
+    assertTrue(OutputFileWriter.write(changed, file, StandardCharsets.UTF_8));
+    assertEquals(changed, getTranslatedFile("Test.m"));
+
+    String truncated = changed.substring(0, 1000);
+    assertTrue(OutputFileWriter.write(truncated, file, StandardCharsets.UTF_8));
+    assertEquals(truncated, getTranslatedFile("Test.m"));
+
+    String extended = truncated + "more\n";
+    assertTrue(OutputFileWriter.write(extended, file, StandardCharsets.UTF_8));
+    assertEquals(extended, getTranslatedFile("Test.m"));
+    assertEquals(1, tempDir.list().length);
+  }
+
+  public void testCopy() throws IOException {
+    File from = new File(tempDir, "from.h");
+    File to = new File(tempDir, "to/to.h");
+    Files.write(largeText(), from, StandardCharsets.UTF_8);
+    assertTrue(OutputFileWriter.copy(from, to));
+    assertFalse(OutputFileWriter.copy(from, to));
+    assertEquals(largeText(), getTranslatedFile("to/to.h"));
+  }
+
+  public void testGeneratedFilesKeepModificationTimes() throws IOException {
+    String source = "class Test { int foo() { return 1; } }";
+    translateSourceFile(source, "Test", "Test.m");
+    File file = new File(tempDir, "Test.m");
+    assertTrue(file.setLastModified(1000000000L));
+    translateSourceFile(source, "Test", "Test.m");
+    assertEquals(1000000000L, file.lastModified());
+    translateSourceFile("class Test { int foo() { return 2; } }", "Test", "Test.m");
+    assertFalse(file.lastModified() == 1000000000L);
+  }
+
+  public void testPreservedFilesAreCounted() throws IOException {
+    String source = "class Test {}";
+    FileUtil fileUtil = options.fileUtil();
+    translateSourceFile(source, "Test", "Test.m");
+    assertEquals(2, fileUtil.getWrittenOutputFiles());
+    assertEquals(0, fileUtil.getPreservedOutputFiles());
+    translateSourceFile(source, "Test", "Test.m");
+    assertEquals(2, fileUtil.getWrittenOutputFiles());
+    assertEquals(2, fileUtil.getPreservedOutputFiles());
+  }
+
+  public void testRewriteUnchangedOutput() throws IOException {
+    options.fileUtil().setRewriteUnchangedOutput(true);
+    String source = "class Test {}";
+    translateSourceFile(source, "Test", "Test.m");
+    File file = new File(tempDir, "Test.m");
+    assertTrue(file.setLastModified(1000000000L));
+    translateSourceFile(source, "Test", "Test.m");
+    assertFalse(file.lastModified() == 1000000000L);
+    assertEquals(4, options.fileUtil().getWrittenOutputFiles());
+    assertEquals(0, options.fileUtil().getPreservedOutputFiles());
+  }
+
+  // Text with multibyte characters that is several buffers long.
+  private static String largeText() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      sb.append("NSString *s").append(i).append(" = @\"\u00e9\u4e2d\";\n");
+    }
+    return sb.toString();
+  }
+}
@@ -20,6 +20,7 @@ import com.google.devtools.j2objc.GenerationTest;
 import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.Properties;
@@ -47,6 +48,33 @@ public class PackagePrefixesTest extends GenerationTest {
     assertEquals("FB", prefixMap.getPrefix("foo.bar"));
   }
 
+  public void testPackagePrefixesFileIsRereadWhenChanged() throws IOException {
+    String path = addSourceFile("foo.bar: FB\n", "prefixes.properties");
+    PackagePrefixes prefixMap = new PackagePrefixes(null);
+    prefixMap.addPrefixesFile(path);
+    assertEquals("FB", prefixMap.getPrefix("foo.bar"));
+
+    addSourceFile("foo.bar: FOOBAR\n", "prefixes.properties");
+    prefixMap = new PackagePrefixes(null);
+    prefixMap.addPrefixesFile(path);
+    assertEquals("FOOBAR", prefixMap.getPrefix("foo.bar"));
+  }
+
+  public void testPackagePrefixesFileIsRereadWhenSizeMatches() throws IOException {
+    String path = addSourceFile("foo.bar: AB\n", "prefixes.properties");
+    File file = new File(path);
+    long lastModified = file.lastModified();
+    PackagePrefixes prefixMap = new PackagePrefixes(null);
+    prefixMap.addPrefixesFile(path);
+    assertEquals("AB", prefixMap.getPrefix("foo.bar"));
+
+    addSourceFile("foo.bar: CD\n", "prefixes.properties");
+    assertTrue(file.setLastModified(lastModified + 2000));
+    prefixMap = new PackagePrefixes(null);
+    prefixMap.addPrefixesFile(path);
+    assertEquals("CD", prefixMap.getPrefix("foo.bar"));
+  }
+
   /**
    * Regression test for http://code.google.com/p/j2objc/issues/detail?id=100.
    */
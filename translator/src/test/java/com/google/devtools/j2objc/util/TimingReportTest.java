@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.J2ObjC;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link TimingReport}.
+ */
+public class TimingReportTest extends GenerationTest {
+
+  public void testAddAggregatesEvents() {
+    TimingReport report = new TimingReport(new File("unused.csv"));
+    report.add("Rewriter", 10, 100, 5);
+    report.add("Header generation", 3, -1, -1);
+    report.add("Rewriter", 20, 50, 7);
+    TimingReport.EventStats stats = report.getEvents().get(0);
+    assertEquals("Rewriter", stats.getEvent());
+    assertEquals(2, stats.getCount());
+    assertEquals(30, stats.getTotalNanos());
+    assertEquals(20, stats.getMaxNanos());
+    assertEquals(150, stats.getAllocatedBytes());
+    assertEquals(12, stats.getNodes());
+    stats = report.getEvents().get(1);
+    assertEquals(-1, stats.getAllocatedBytes());
+    assertEquals(-1, stats.getNodes());
+  }
+
+  public void testCsvReport() throws IOException {
+    File file = new File(tempDir, "timings.csv");
+    translateWithReport(file);
+    String report = getTranslatedFile("timings.csv");
+    assertTranslation(report, "event,count,total_ns,max_ns,allocated_bytes,nodes");
+    assertTranslation(report, "\nOuterReferenceResolver,2,");
+    assertTranslation(report, "\nHeader generation,2,");
+  }
+
+  public void testJsonReport() throws IOException {
+    File file = new File(tempDir, "timings.json");
+    translateWithReport(file);
+    String report = getTranslatedFile("timings.json");
+    assertTrue(report.startsWith("["));
+    assertTranslation(report, "{\"event\": \"Autoboxer\", \"count\": 2, \"total_ns\": ");
+    assertTranslation(report, "\"nodes\": -1}");
+  }
+
+  private void translateWithReport(File file) throws IOException {
+    String foo = addSourceFile("class Foo { int foo() { return 1; } }", "Foo.java");
+    String bar = addSourceFile("class Bar { Integer bar(Foo f) { return f.foo(); } }", "Bar.java");
+    options.setTimingReport(new TimingReport(file));
+    J2ObjC.run(Arrays.asList(foo, bar), options);
+    assertErrorCount(0);
+    assertTrue(file.exists());
+  }
+}
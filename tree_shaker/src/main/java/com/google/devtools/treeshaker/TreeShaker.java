@@ -21,6 +21,7 @@ import com.google.common.io.Files;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.file.RegularInputFile;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
+import com.google.devtools.j2objc.util.ErrorSink;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.Parser;
@@ -66,6 +67,13 @@ public class TreeShaker {
     });
   }
 
+  /**
+   * The sink that the tree shaker's errors and warnings are reported to.
+   */
+  public ErrorSink errorSink() {
+    return j2objcOptions.errorSink();
+  }
+
   private Parser createParser(Options options) throws IOException {
     Parser parser = Parser.newParser(j2objcOptions);
     parser.addSourcepathEntries(j2objcOptions.fileUtil().getSourcePathEntries());
@@ -74,9 +82,10 @@ public class TreeShaker {
     return parser;
   }
 
-  private static void exitOnErrorsOrWarnings(boolean treatWarningsAsErrors) {
-    int nErrors = ErrorUtil.errorCount();
-    int nWarnings = ErrorUtil.warningCount();
+  private static void exitOnErrorsOrWarnings(
+      ErrorSink errorSink, boolean treatWarningsAsErrors) {
+    int nErrors = errorSink.errorCount();
+    int nWarnings = errorSink.warningCount();
     if (nWarnings > 0 || nErrors > 0) {
       if (nWarnings > 0) {
         if (treatWarningsAsErrors) {
@@ -85,13 +94,13 @@ public class TreeShaker {
         } else {
           System.err.println("TreeShaker ran with " + nWarnings + " warnings:");
         }
-        for (String warning : ErrorUtil.getWarningMessages()) {
+        for (String warning : errorSink.getWarningMessages()) {
           System.err.println("  warning: " + warning);
         }
       }
       if (nErrors > 0) {
         System.err.println("Failed with " + nErrors + " errors:");
-        for (String error : ErrorUtil.getErrorMessages()) {
+        for (String error : errorSink.getErrorMessages()) {
           System.err.println("  error: " + error);
         }
       }
@@ -138,6 +147,15 @@ public class TreeShaker {
   }
 
   public CodeReferenceMap getUnusedCode(CodeReferenceMap inputRootSet) throws IOException {
+    ErrorSink previousSink = ErrorUtil.setCurrentSink(errorSink());
+    try {
+      return findUnusedCode(inputRootSet);
+    } finally {
+      ErrorUtil.setCurrentSink(previousSink);
+    }
+  }
+
+  private CodeReferenceMap findUnusedCode(CodeReferenceMap inputRootSet) throws IOException {
     Parser parser = createParser(options);
 
     final HashMap<String, ReferenceNode> elementReferenceMap = new HashMap<>();
@@ -207,18 +225,21 @@ public class TreeShaker {
       Options.help(true);
     }
     boolean treatWarningsAsErrors = false;
+    ErrorSink errorSink = ErrorUtil.currentSink();
     try {
       Options options = Options.parse(args);
       treatWarningsAsErrors = options.treatWarningsAsErrors();
       TreeShaker finder = new TreeShaker(options);
+      errorSink = finder.errorSink();
+      ErrorUtil.setCurrentSink(errorSink);
       finder.testFileExistence();
-      exitOnErrorsOrWarnings(treatWarningsAsErrors);
+      exitOnErrorsOrWarnings(errorSink, treatWarningsAsErrors);
       CodeReferenceMap unusedCodeMap = finder.getUnusedCode(loadRootSetMap(options));
       writeToFile("tree-shaker-report.txt", unusedCodeMap);
     } catch (IOException e) {
       ErrorUtil.error(e.getMessage());
     }
 
-    exitOnErrorsOrWarnings(treatWarningsAsErrors);
+    exitOnErrorsOrWarnings(errorSink, treatWarningsAsErrors);
   }
 }
@@ -18,6 +18,7 @@ import com.google.common.base.Joiner;
 import com.google.common.io.Files;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.CodeReferenceMap.Builder;
+import com.google.devtools.j2objc.util.ErrorSink;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import java.io.File;
 import java.io.IOException;
@@ -64,8 +65,10 @@ public class TreeShakerTest extends TestCase {
     TreeShaker shaker = new TreeShaker(options);
     CodeReferenceMap map = shaker.getUnusedCode(rootSetMap);
 
-    if (ErrorUtil.errorCount() > 0) {
-      fail("TreeShaker failed with errors:\n" + Joiner.on("\n").join(ErrorUtil.getErrorMessages()));
+    ErrorSink errorSink = shaker.errorSink();
+    if (errorSink.errorCount() > 0) {
+      fail("TreeShaker failed with errors:\n"
+          + Joiner.on("\n").join(errorSink.getErrorMessages()));
     }
     return map;
   }